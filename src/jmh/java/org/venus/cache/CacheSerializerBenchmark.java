@@ -0,0 +1,77 @@
+package org.venus.cache;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the polymorphic Jackson serializer with the binary serializer for the values kept in Redis.
+ *
+ * Run it with {@code ./gradlew jmh}. The payload sizes of both serializers are printed once per trial,
+ * because they matter as much as the timings for the memory used by Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheSerializerBenchmark {
+    /**
+     * The length of the original URL of the cached link.
+     */
+    @Param({"48", "160", "1024"})
+    public int urlLength;
+
+    private RedisSerializer<CacheWrapper> jackson;
+    private RedisSerializer<Object> binary;
+    private CacheWrapper wrapper;
+    private byte[] jacksonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jackson = new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), CacheWrapper.class);
+        binary = new BinaryCacheRedisSerializer(new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), Object.class), 512);
+
+        StringBuilder url = new StringBuilder("https://www.example.com/campaigns/2024/");
+        while (url.length() < urlLength) {
+            url.append("path/segment-").append(url.length()).append('/');
+        }
+        url.setLength(urlLength);
+
+        ValueWrapper value = ValueWrapper.builder()
+                .id(1_234_567L)
+                .code("Esth")
+                .redirect(302)
+                .originalUrl(url.toString())
+                .expiresAt(LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.MILLIS))
+                .isActive((short) 1)
+                .build();
+        wrapper = new CacheWrapper("venus-redirect:Esth", value);
+        jacksonBytes = jackson.serialize(wrapper);
+        binaryBytes = binary.serialize(wrapper);
+        System.out.printf("%nurl length %d: jackson %d bytes, binary %d bytes%n", urlLength, jacksonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() {
+        return jackson.serialize(wrapper);
+    }
+
+    @Benchmark
+    public Object jacksonDeserialize() {
+        return jackson.deserialize(jacksonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binary.serialize(wrapper);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binary.deserialize(binaryBytes);
+    }
+}
@@ -0,0 +1,14 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration of the cold archive of the click tables.
+ *
+ * It enables the properties from {@link ArchiveProperties}, which the partition job and the archive scans read.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveAutoConfiguration {
+}
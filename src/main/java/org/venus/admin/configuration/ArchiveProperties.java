@@ -0,0 +1,38 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the cold archive of the click tables, bound with the prefix "spring.venus.archive".
+ *
+ * While the archive is enabled, the partition job exports a partition of {@code statistics} or {@code geo} to
+ * compressed columnar files, one per day, before it drops the partition at the end of its retention, and the
+ * statistics service scans these files for the clicks older than the retention.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.archive")
+public class ArchiveProperties {
+    /**
+     * Indicates whether the expired partitions are archived before they are dropped.
+     */
+    private boolean enabled;
+    /**
+     * The directory of the archive files, on local or mounted storage.
+     */
+    private String directory = "archive";
+    /**
+     * The number of rows of a row group of an archive file, the unit a scan reads or skips.
+     */
+    private int rowGroupSize = 65536;
+    /**
+     * The number of rows fetched at a time while a partition is exported, unless the driver streams them one by one.
+     */
+    private int fetchSize = 1000;
+    /**
+     * The maximum number of days of archive files a scan reads.
+     */
+    private int maxScanDays = 366;
+}
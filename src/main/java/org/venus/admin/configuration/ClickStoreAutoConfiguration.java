@@ -0,0 +1,15 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration of the in-memory columnar store of recent clicks.
+ *
+ * It enables the properties from {@link ClickStoreProperties}, which the store and the statistics query endpoint
+ * read.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ClickStoreProperties.class)
+public class ClickStoreAutoConfiguration {
+}
@@ -0,0 +1,68 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the in-memory columnar store of recent clicks, bound with the prefix
+ * "spring.venus.statistics.store".
+ *
+ * While the store is enabled, the reported clicks and their countries are also appended to the store, which
+ * answers the queries of the statistics query endpoint from memory for the clicks of the retention.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.statistics.store")
+public class ClickStoreProperties {
+    /**
+     * Indicates whether the reported clicks are kept in the store.
+     */
+    private boolean enabled;
+    /**
+     * The time in milliseconds the clicks are kept.
+     */
+    private long retention = 86400000;
+    /**
+     * The length in milliseconds of the time window of a segment, at most a day.
+     */
+    private long segmentDuration = 3600000;
+    /**
+     * The maximum number of clicks of a segment, whose columns grow with its clicks up to about 24 bytes per click.
+     */
+    private int segmentCapacity = 1 << 17;
+    /**
+     * The maximum number of segments, which bounds the memory of the store to the capacity of all segments,
+     * about 192 MiB by default.
+     */
+    private int maxSegments = 64;
+    /**
+     * The maximum number of distinct referer domains, user agents or countries, beyond which a value counts as
+     * "(other)".
+     */
+    private int maxDictionarySize = 100000;
+    /**
+     * The number of recent clicks whose country can be set by their geo report.
+     */
+    private int recentClicks = 100000;
+    /**
+     * The time in milliseconds the country of a click can be set after the click.
+     */
+    private long recentClickTtl = 300000;
+    /**
+     * The number of threads of the scans, 0 for the number of processors.
+     */
+    private int parallelism;
+    /**
+     * The maximum number of groups a query returns.
+     */
+    private int maxGroups = 1000;
+    /**
+     * The maximum number of time buckets a query spans.
+     */
+    private int maxBuckets = 10080;
+    /**
+     * The delay in milliseconds between two evictions of the expired segments.
+     */
+    private long evictionInterval = 60000;
+}
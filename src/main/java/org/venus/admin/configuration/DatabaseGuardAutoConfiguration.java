@@ -0,0 +1,54 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.venus.support.CircuitBreaker;
+import org.venus.support.DatabaseGuard;
+
+import javax.sql.DataSource;
+
+/**
+ * Auto-configuration of the guard of the database calls and of the health indicator that reports a database
+ * outage as DEGRADED.
+ *
+ * It uses properties from {@link DatabaseGuardProperties}. With the guard disabled, the guard passes all calls
+ * through and the health indicator reports the database as DEGRADED only if a connection cannot be validated.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DatabaseGuardProperties.class)
+public class DatabaseGuardAutoConfiguration {
+
+    /**
+     * Defines the guard of the database calls.
+     *
+     * @param properties the properties of the guard
+     * @return the guard, which passes all calls through if it is disabled
+     */
+    @Bean
+    public DatabaseGuard databaseGuard(DatabaseGuardProperties properties) {
+        if (!properties.isEnabled()) {
+            return new DatabaseGuard(null, 0, 0);
+        }
+        CircuitBreaker breaker = new CircuitBreaker("database",
+                properties.getWindowSize(),
+                properties.getMinimumCalls(),
+                properties.getFailureRate(),
+                properties.getSlowCallThreshold(),
+                properties.getOpenDuration());
+        return new DatabaseGuard(breaker, properties.getMaxConcurrentCalls(), properties.getMaxWait());
+    }
+
+    /**
+     * Defines the health indicator of the database, which replaces the built-in one that reports an outage as DOWN.
+     *
+     * @param guard the guard of the database calls
+     * @param dataSource the datasource whose connection is validated
+     * @param properties the properties of the guard
+     * @return the health indicator
+     */
+    @Bean
+    public DatabaseHealthIndicator databaseHealthIndicator(DatabaseGuard guard, DataSource dataSource, DatabaseGuardProperties properties) {
+        return new DatabaseHealthIndicator(guard, dataSource, properties.getValidationTimeout());
+    }
+}
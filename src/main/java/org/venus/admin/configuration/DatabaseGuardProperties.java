@@ -0,0 +1,58 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the guard of the database calls, bound with the prefix
+ * "spring.venus.datasource.guard".
+ *
+ * While the guard is enabled, redirects are loaded from the database through a circuit breaker and a bulkhead:
+ * during an outage they are served from the cache only, unknown codes get a short-lived failure response and
+ * link writes are rejected, and the health endpoint reports DEGRADED instead of DOWN.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.datasource.guard")
+public class DatabaseGuardProperties {
+    /**
+     * Indicates whether the database calls are guarded by a circuit breaker.
+     */
+    private boolean enabled;
+    /**
+     * The number of the most recent database calls whose outcome the breaker records.
+     */
+    private int windowSize = 50;
+    /**
+     * The minimum number of recorded database calls before the breaker may open.
+     */
+    private int minimumCalls = 10;
+    /**
+     * The share of failed or slow database calls, between 0 and 1, at which the breaker opens.
+     */
+    private double failureRate = 0.5;
+    /**
+     * The duration in milliseconds from which a database call counts as failed, zero or less to never.
+     */
+    private long slowCallThreshold = 1000;
+    /**
+     * The duration in milliseconds for which an open breaker rejects database calls before probing the database.
+     */
+    private long openDuration = 5000;
+    /**
+     * The maximum number of database calls in progress, zero or less to not bound them.
+     *
+     * Set it to about the maximum pool size, so that callers wait for a permit at most the maximum wait
+     * instead of waiting for a connection up to the connection timeout.
+     */
+    private int maxConcurrentCalls;
+    /**
+     * The maximum time in milliseconds a database call waits for a permit before it is rejected.
+     */
+    private long maxWait = 100;
+    /**
+     * The time in seconds after which the health check of the database gives up validating a connection.
+     */
+    private int validationTimeout = 1;
+}
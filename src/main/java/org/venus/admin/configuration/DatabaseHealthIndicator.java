@@ -0,0 +1,80 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.venus.support.DatabaseGuard;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Reports the health of the database as seen by the {@link DatabaseGuard}.
+ *
+ * A database outage does not stop the service, redirects are still served from the cache, so it is reported
+ * as {@link #DEGRADED} rather than DOWN. The connection is validated through the guard: while the breaker is open
+ * the check answers at once, and after the open duration it is the probe that closes the breaker again,
+ * even if no request reaches the database.
+ */
+public class DatabaseHealthIndicator implements HealthIndicator {
+    /**
+     * The status of a service that runs with reduced functionality because the database is unavailable.
+     */
+    public static final Status DEGRADED = new Status("DEGRADED", "The database is unavailable, redirects are served from the cache");
+
+    /**
+     * The guard of the database calls.
+     */
+    private final DatabaseGuard guard;
+    /**
+     * The datasource whose connection is validated.
+     */
+    private final DataSource dataSource;
+    /**
+     * The time in seconds after which the validation of a connection gives up.
+     */
+    private final int validationTimeout;
+
+    /**
+     * Constructs a DatabaseHealthIndicator.
+     *
+     * @param guard the guard of the database calls
+     * @param dataSource the datasource whose connection is validated
+     * @param validationTimeout the time in seconds after which the validation of a connection gives up
+     */
+    public DatabaseHealthIndicator(DatabaseGuard guard, DataSource dataSource, int validationTimeout) {
+        this.guard = guard;
+        this.dataSource = dataSource;
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * Validates a connection of the database through the guard.
+     *
+     * @return UP if a valid connection was obtained, DEGRADED otherwise
+     */
+    @Override
+    public Health health() {
+        try {
+            boolean valid = guard.call(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    return connection.isValid(validationTimeout);
+                }
+            });
+            if (valid) {
+                return Health.up()
+                        .withDetail("breaker", guard.state())
+                        .build();
+            }
+            return Health.status(DEGRADED)
+                    .withDetail("breaker", guard.state())
+                    .withDetail("error", "The connection is not valid")
+                    .build();
+        } catch (Exception e) {
+            return Health.status(DEGRADED)
+                    .withDetail("breaker", guard.state())
+                    .withDetail("error", String.valueOf(e.getMessage()))
+                    .build();
+        }
+    }
+}
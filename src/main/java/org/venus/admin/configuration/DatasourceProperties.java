@@ -15,6 +15,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * - url: The URL of the datasource.
  * - username: The username for connecting to the datasource.
  * - password: The password for connecting to the datasource.
+ * - connectionTimeout: The maximum time in milliseconds to wait for a connection of the pool.
+ * - maximumPoolSize: The maximum number of connections of the pool.
  *
  * These properties are essential for initializing a datasource instance which can be dynamically
  * managed and switched during runtime.
@@ -48,4 +50,15 @@ public class DatasourceProperties {
      * The password for connecting to the datasource.
      */
     private String password;
+    /**
+     * The maximum time in milliseconds a caller waits for a connection of the pool.
+     *
+     * Kept short, so that callers fail fast and release their (virtual) threads when the database
+     * is unreachable instead of queueing for the default of thirty seconds.
+     */
+    private long connectionTimeout = 30000;
+    /**
+     * The maximum number of connections of the pool.
+     */
+    private int maximumPoolSize = 10;
 }
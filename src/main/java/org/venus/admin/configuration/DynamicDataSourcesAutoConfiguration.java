@@ -71,13 +71,16 @@ public class DynamicDataSourcesAutoConfiguration {
         String url = properties.getUrl();
         String username = properties.getUsername();
         String password = properties.getPassword();
-        return DataSourceBuilder.create()
+        HikariDataSource dataSource = DataSourceBuilder.create()
                 .driverClassName(driverClassName)
                 .type(HikariDataSource.class)
                 .url(url)
                 .username(username)
                 .password(password)
                 .build();
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout());
+        dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+        return dataSource;
     }
 
     public static class DynamicDataSource extends AbstractRoutingDataSource {
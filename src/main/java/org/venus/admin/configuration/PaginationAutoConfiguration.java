@@ -0,0 +1,50 @@
+package org.venus.admin.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.venus.support.NdjsonResponses;
+
+/**
+ * Auto-configuration of the list endpoints.
+ *
+ * It enables the properties from {@link PaginationProperties}, which bound the pages and set the page size of the
+ * streaming lists, and provides the {@link NdjsonResponses} that bound the streaming lists in progress and apply
+ * their timeout to their requests only.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(PaginationProperties.class)
+public class PaginationAutoConfiguration {
+
+    /**
+     * Creates the builder of the responses of the streaming lists.
+     *
+     * @param objectMapper the mapper that writes the rows
+     * @param properties the properties of the list endpoints
+     * @return the builder of the streaming responses
+     */
+    @Bean
+    public NdjsonResponses ndjsonResponses(ObjectMapper objectMapper, PaginationProperties properties) {
+        return new NdjsonResponses(objectMapper, properties.getMaxConcurrentStreams(), properties.getStreamTimeout());
+    }
+
+    /**
+     * Registers the builder of the streaming responses with the asynchronous support, which applies the timeout of
+     * the streaming lists to their requests.
+     *
+     * @param ndjsonResponses the builder of the streaming responses
+     * @return the configurer of Spring MVC
+     */
+    @Bean
+    public WebMvcConfigurer ndjsonAsyncSupportConfigurer(NdjsonResponses ndjsonResponses) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(ndjsonResponses);
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the list endpoints, bound with the prefix "spring.venus.pagination".
+ *
+ * The list endpoints return bounded pages read by keyset, and their streaming variants read all rows as a sequence of
+ * such pages of a fixed size, so that neither loads a whole table into memory. The number of streams in progress and
+ * their asynchronous request timeout are bounded separately from the other requests.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.pagination")
+public class PaginationProperties {
+    /**
+     * The number of rows of a page if the request does not give a limit.
+     */
+    private int defaultLimit = 100;
+    /**
+     * The maximum number of rows of a page, larger limits are lowered to it.
+     */
+    private int maxLimit = 1000;
+    /**
+     * The number of rows a streaming list reads with one query.
+     */
+    private int streamFetchSize = 1000;
+    /**
+     * The maximum number of streaming lists in progress, further ones are answered with 503 at once.
+     */
+    private int maxConcurrentStreams = 2;
+    /**
+     * The timeout in milliseconds of the asynchronous request of a streaming list.
+     */
+    private long streamTimeout = 3600000;
+
+    /**
+     * Resolves the number of rows of a page.
+     *
+     * @param limit the limit of the request, null for the default limit
+     * @return the limit, between 1 and the maximum limit
+     */
+    public int limit(Integer limit) {
+        if (limit == null) {
+            return Math.max(1, Math.min(defaultLimit, maxLimit));
+        }
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+}
@@ -0,0 +1,14 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration of the time partitions of the click tables.
+ *
+ * It enables the properties from {@link PartitionProperties}, which the partition job reads.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(PartitionProperties.class)
+public class PartitionAutoConfiguration {
+}
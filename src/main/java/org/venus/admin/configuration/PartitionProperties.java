@@ -0,0 +1,44 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.venus.admin.domain.PartitionGranularity;
+
+/**
+ * Configuration properties of the time partitions of the click tables, bound with the prefix
+ * "spring.venus.partition".
+ *
+ * The {@code statistics} and {@code geo} tables are partitioned by range on the day of their time column. While the
+ * partition job is enabled, it creates the partitions of the coming periods ahead of time and drops the partitions
+ * older than the retention, which removes their rows without deleting them one by one.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.partition")
+public class PartitionProperties {
+    /**
+     * Indicates whether the partition job maintains the partitions of the click tables.
+     */
+    private boolean enabled;
+    /**
+     * The period of a partition, DAY or MONTH.
+     */
+    private PartitionGranularity granularity = PartitionGranularity.DAY;
+    /**
+     * The number of partitions created ahead of the current period.
+     */
+    private int premake = 7;
+    /**
+     * The number of past partitions kept before the current period, zero or less to keep them all.
+     */
+    private int retention = 90;
+    /**
+     * The maximum number of partitions of a table dropped in one run of the partition job.
+     */
+    private int maxDropsPerRun = 4;
+    /**
+     * The delay in milliseconds between two runs of the partition job.
+     */
+    private long interval = 3600000;
+}
@@ -0,0 +1,15 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration of the statistics rollups.
+ *
+ * It enables the properties from {@link StatisticsRollupProperties}, which the rollup job and the series
+ * endpoint read.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(StatisticsRollupProperties.class)
+public class StatisticsRollupAutoConfiguration {
+}
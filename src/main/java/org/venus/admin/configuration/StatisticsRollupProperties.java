@@ -0,0 +1,56 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the statistics rollups, bound with the prefix "spring.venus.statistics.rollup".
+ *
+ * While the rollup job is enabled, it folds the new rows of {@code statistics} into per-link minute, hour and day
+ * rollups of the clicks, the unique visitors and the referer domains, and the series endpoint reads these rollups
+ * instead of the raw clicks.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.statistics.rollup")
+public class StatisticsRollupProperties {
+    /**
+     * Indicates whether the rollup job folds the new clicks into the rollups.
+     */
+    private boolean enabled;
+    /**
+     * The delay in milliseconds between two runs of the rollup job.
+     */
+    private long interval = 10000;
+    /**
+     * The maximum number of clicks folded into the rollups in one transaction.
+     */
+    private int batchSize = 10000;
+    /**
+     * The time in milliseconds after its insertion a click is folded, which must exceed the longest insert
+     * transaction: the ids are assigned at the insert but become visible at the commit, out of order across
+     * transactions, so the watermark only moves past the clicks whose lower ids have all committed.
+     */
+    private long settleLag = 60000;
+    /**
+     * The maximum number of batches folded in one run of the rollup job.
+     */
+    private int maxBatchesPerRun = 10;
+    /**
+     * The maximum number of referer domains a batch adds to a bucket, the others are added as "(other)".
+     */
+    private int maxReferersPerBucket = 20;
+    /**
+     * The precision of the HyperLogLog sketches of the unique visitors, between 4 and 16.
+     */
+    private int precision = 11;
+    /**
+     * The maximum number of buckets a series request may span.
+     */
+    private int maxPoints = 10080;
+    /**
+     * The number of referer domains with the most clicks a series response lists.
+     */
+    private int topReferers = 10;
+}
@@ -0,0 +1,15 @@
+package org.venus.admin.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto-configuration of the unique visitor counts.
+ *
+ * It enables the properties from {@link VisitorCounterProperties}, which the visitor counter and the unique
+ * visitors endpoint read.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(VisitorCounterProperties.class)
+public class VisitorCounterAutoConfiguration {
+}
@@ -0,0 +1,46 @@
+package org.venus.admin.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties of the unique visitor counts, bound with the prefix "spring.venus.statistics.visitors".
+ *
+ * While the counts are enabled, the visitor of every reported click is added to the Redis HyperLogLog of its link
+ * and hour and to the one of its link and day, which the unique visitors endpoint counts and merges.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.venus.statistics.visitors")
+public class VisitorCounterProperties {
+    /**
+     * Indicates whether the visitors of the reported clicks are counted.
+     */
+    private boolean enabled;
+    /**
+     * The prefix of the Redis keys of the sketches.
+     */
+    private String keyPrefix = "venus:visitors";
+    /**
+     * The time in milliseconds the sketch of an hour is kept after its last click.
+     */
+    private long hourRetention = 1209600000L;
+    /**
+     * The time in milliseconds the sketch of a day is kept after its last click.
+     */
+    private long dayRetention = 34560000000L;
+    /**
+     * The interval in milliseconds in which the buffered visitors are sent to Redis.
+     */
+    private long flushInterval = 1000;
+    /**
+     * The maximum number of buffered visitors, beyond which the visitors of new clicks are dropped until the next
+     * flush.
+     */
+    private int maxPending = 100000;
+    /**
+     * The maximum number of buckets a query spans.
+     */
+    private int maxBuckets = 744;
+}
@@ -2,16 +2,23 @@ package org.venus.admin.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.venus.admin.domain.GeoResponse;
 import org.venus.admin.service.IGeoService;
-import org.venus.support.GenericListRestApiResponse;
+import org.venus.support.GenericPageRestApiResponse;
 import org.venus.support.GenericRestApiResponse;
+import org.venus.support.NdjsonResponses;
 import org.venus.support.RestApiCode;
 
+import java.util.function.Consumer;
+
 /**
  * REST controller for handling geographical data.
  */
@@ -33,24 +40,55 @@ public class GeoRestController {
     private IGeoService iGeoService;
 
     /**
-     * Retrieves a list of geographical data entries.
+     * Builds the bounded responses of the streaming list.
+     */
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
+    /**
+     * Retrieves a page of geographical data entries in id order.
      *
-     * @return a response containing the list of geographical data entries or an error response if an exception occurs
+     * @param clickId the id of the click of the entries, all clicks if absent
+     * @param country the country of the entries, all countries if absent
+     * @param after the cursor returned as {@code next} by the previous page, 0 for the first page
+     * @param limit the maximum number of entries, lowered to {@code spring.venus.pagination.max-limit}
+     * @return a response containing the page of geographical data entries and the cursor of the next page,
+     *         or an error response if an exception occurs
      */
     @GetMapping("/lists")
-    public GenericListRestApiResponse<GeoResponse> lists() {
+    public GenericPageRestApiResponse<GeoResponse> lists(@RequestParam(required = false) Long clickId,
+                                                         @RequestParam(required = false) String country,
+                                                         @RequestParam(defaultValue = "0") long after,
+                                                         @RequestParam(required = false) Integer limit) {
         try {
-            return GenericListRestApiResponse.success(
-                    GeoResponse.from(iGeoService.lists())
+            return GenericPageRestApiResponse.success(
+                    iGeoService.lists(clickId, country, after, limit).map(GeoResponse::from)
             );
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
                 log.error("Error listing geo", e);
             }
-            return GenericListRestApiResponse.fail(RestApiCode.VENUS_ADMIN_GEO_EXCEPTION, RestApiCode.VENUS_ADMIN_GEO_EXCEPTION.message("Listing geo failed \n" + e.getMessage()));
+            return GenericPageRestApiResponse.fail(RestApiCode.VENUS_ADMIN_GEO_EXCEPTION, RestApiCode.VENUS_ADMIN_GEO_EXCEPTION.message("Listing geo failed \n" + e.getMessage()));
         }
     }
 
+    /**
+     * Streams all geographical data entries in id order as newline-delimited JSON, one {@link GeoResponse} per line.
+     * The entries are read page by page and written as they are read, so the response can be of any size.
+     *
+     * @param clickId the id of the click of the entries, all clicks if absent
+     * @param country the country of the entries, all countries if absent
+     * @param after the id after which the stream starts, 0 for all entries
+     * @return the streaming response
+     */
+    @GetMapping(value = "/lists/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Long clickId,
+                                                        @RequestParam(required = false) String country,
+                                                        @RequestParam(defaultValue = "0") long after) {
+        return ndjsonResponses.stream((Consumer<GeoResponse> row) ->
+                iGeoService.stream(clickId, country, after, geo -> row.accept(GeoResponse.from(geo))));
+    }
+
     /**
      * Retrieves the details of a geographical entity by its ID.
      *
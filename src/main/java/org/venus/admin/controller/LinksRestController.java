@@ -5,17 +5,25 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.venus.admin.annotation.RestApiList;
 import org.venus.admin.domain.LinksDao;
 import org.venus.admin.domain.LinksRequest;
 import org.venus.admin.domain.LinksResponse;
 import org.venus.admin.service.ILinksService;
-import org.venus.support.GenericListRestApiResponse;
+import org.venus.support.GenericPageRestApiResponse;
 import org.venus.support.GenericRestApiResponse;
+import org.venus.support.NdjsonResponses;
 import org.venus.support.RestApiCode;
 
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
 /**
  * `LinksRestController` provides REST API endpoints for managing link resources.
  * It supports operations such as listing links, retrieving link details,
@@ -34,29 +42,61 @@ public class LinksRestController {
     private ILinksService iLinksService;
 
     /**
-     * Endpoint to retrieve a list of links.
+     * Builds the bounded responses of the streaming list.
+     */
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
+    /**
+     * Endpoint to retrieve a page of links in id order.
      *
-     * @return A {@link GenericListRestApiResponse} containing a list of {@link LinksResponse}
-     *         objects if the retrieval is successful. If an exception occurs, returns
-     *         a failed response with the appropriate error code and message.
+     * @param isActive the activation status of the links, all links if absent
+     * @param createdFrom the earliest creation time of the links, inclusive, in ISO date-time format
+     * @param createdTo the latest creation time of the links, exclusive, in ISO date-time format
+     * @param after the cursor returned as {@code next} by the previous page, 0 for the first page
+     * @param limit the maximum number of links, lowered to {@code spring.venus.pagination.max-limit}
+     * @return A {@link GenericPageRestApiResponse} containing a page of {@link LinksResponse}
+     *         objects and the cursor of the next page if the retrieval is successful. If an exception occurs,
+     *         returns a failed response with the appropriate error code and message.
      */
     @RestApiList
     @GetMapping("/lists")
-    public GenericListRestApiResponse<LinksResponse> lists() {
+    public GenericPageRestApiResponse<LinksResponse> lists(@RequestParam(required = false) Short isActive,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                           @RequestParam(defaultValue = "0") long after,
+                                                           @RequestParam(required = false) Integer limit) {
         try {
-            return GenericListRestApiResponse.success(
-                    LinksResponse.from(
-                            iLinksService.lists()
-                    )
+            return GenericPageRestApiResponse.success(
+                    iLinksService.lists(isActive, createdFrom, createdTo, after, limit).map(LinksResponse::from)
             );
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
                 log.error("Error listing links", e);
             }
-            return GenericListRestApiResponse.fail(RestApiCode.VENUS_ADMIN_LINK_EXCEPTION, RestApiCode.VENUS_ADMIN_LINK_EXCEPTION.message("Links links failed \n" + e.getMessage()));
+            return GenericPageRestApiResponse.fail(RestApiCode.VENUS_ADMIN_LINK_EXCEPTION, RestApiCode.VENUS_ADMIN_LINK_EXCEPTION.message("Links links failed \n" + e.getMessage()));
         }
     }
 
+    /**
+     * Endpoint to stream all links in id order as newline-delimited JSON, one {@link LinksResponse} per line.
+     * The links are read page by page and written as they are read, so the response can be of any size.
+     *
+     * @param isActive the activation status of the links, all links if absent
+     * @param createdFrom the earliest creation time of the links, inclusive, in ISO date-time format
+     * @param createdTo the latest creation time of the links, exclusive, in ISO date-time format
+     * @param after the id after which the stream starts, 0 for all links
+     * @return the streaming response
+     */
+    @GetMapping(value = "/lists/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Short isActive,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                                        @RequestParam(defaultValue = "0") long after) {
+        return ndjsonResponses.stream((Consumer<LinksResponse> row) ->
+                iLinksService.stream(isActive, createdFrom, createdTo, after, links -> row.accept(LinksResponse.from(links))));
+    }
+
     /**
      * Retrieve the details of a link specified by the given ID.
      *
@@ -122,6 +162,29 @@ public class LinksRestController {
         }
     }
 
+    /**
+     * Activates or deactivates all links of an origin, such as a whole campaign, at once.
+     *
+     * @param origin the origin ({@code scheme://host[:port]}) of the original URLs of the links
+     * @param isActive the new activation status, 1 for active and 0 for inactive
+     * @return a GenericRestApiResponse containing the number of updated links
+     */
+    @PostMapping("/origin/status")
+    public GenericRestApiResponse<Integer> updateStatusByOrigin(@RequestParam String origin,
+                                                                @RequestParam
+                                                                @Validated
+                                                                @Min(0)
+                                                                @Max(1) short isActive) {
+        try {
+            return GenericRestApiResponse.success(iLinksService.updateStatusByOrigin(origin, isActive));
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Update the status of links[origin:{}] failure", origin, e);
+            }
+            return GenericRestApiResponse.fail(RestApiCode.VENUS_ADMIN_LINK_EXCEPTION, RestApiCode.VENUS_ADMIN_LINK_EXCEPTION.message("Update links status failed \n" + e.getMessage()));
+        }
+    }
+
     /**
      * Deletes a link with the specified ID.
      *
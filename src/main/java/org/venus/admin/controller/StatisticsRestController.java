@@ -2,16 +2,30 @@ package org.venus.admin.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.venus.admin.domain.StatisticsDimension;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.domain.StatisticsQueryResponse;
 import org.venus.admin.domain.StatisticsResponse;
+import org.venus.admin.domain.StatisticsSeriesResponse;
+import org.venus.admin.domain.StatisticsVisitorsResponse;
 import org.venus.admin.service.IStatisticsService;
-import org.venus.support.GenericListRestApiResponse;
+import org.venus.support.GenericPageRestApiResponse;
 import org.venus.support.GenericRestApiResponse;
+import org.venus.support.NdjsonResponses;
 import org.venus.support.RestApiCode;
 
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
 /**
  * REST controller for handling statistics-related endpoints.
  */
@@ -30,25 +44,78 @@ public class StatisticsRestController {
     private IStatisticsService iStatisticsService;
 
     /**
-     * Handles the HTTP GET request to retrieve a list of statistics.
+     * Builds the bounded responses of the streaming lists.
+     */
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
+    /**
+     * Handles the HTTP GET request to retrieve a page of statistics in id order.
      *
-     * @return a response object containing a list of StatisticsResponse objects if successful,
-     *         or an error response if an exception occurs.
+     * @param linkId the id of the link of the clicks, all links if absent
+     * @param from the earliest time of the clicks, inclusive, in ISO date-time format
+     * @param to the latest time of the clicks, exclusive, in ISO date-time format
+     * @param after the cursor returned as {@code next} by the previous page, 0 for the first page
+     * @param limit the maximum number of clicks, lowered to {@code spring.venus.pagination.max-limit}
+     * @return a response object containing a page of StatisticsResponse objects and the cursor of the next page
+     *         if successful, or an error response if an exception occurs.
      */
     @GetMapping("/lists")
-    public GenericListRestApiResponse<StatisticsResponse> lists() {
+    public GenericPageRestApiResponse<StatisticsResponse> lists(@RequestParam(required = false) Long linkId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                @RequestParam(defaultValue = "0") long after,
+                                                                @RequestParam(required = false) Integer limit) {
         try {
-            return GenericListRestApiResponse.success(
-                    StatisticsResponse.from(iStatisticsService.lists())
+            return GenericPageRestApiResponse.success(
+                    iStatisticsService.lists(linkId, from, to, after, limit).map(StatisticsResponse::from)
             );
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
                 log.error("Error listing statistics", e);
             }
-            return GenericListRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Listing statistics failed \n" + e.getMessage()));
+            return GenericPageRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Listing statistics failed \n" + e.getMessage()));
         }
     }
 
+    /**
+     * Handles the HTTP GET request to stream all statistics in id order as newline-delimited JSON, one
+     * {@link StatisticsResponse} per line. The clicks are read page by page and written as they are read,
+     * so the response can be of any size.
+     *
+     * @param linkId the id of the link of the clicks, all links if absent
+     * @param from the earliest time of the clicks, inclusive, in ISO date-time format
+     * @param to the latest time of the clicks, exclusive, in ISO date-time format
+     * @param after the id after which the stream starts, 0 for all clicks
+     * @return the streaming response
+     */
+    @GetMapping(value = "/lists/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) Long linkId,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                        @RequestParam(defaultValue = "0") long after) {
+        return ndjsonResponses.stream((Consumer<StatisticsResponse> row) ->
+                iStatisticsService.stream(linkId, from, to, after, statistics -> row.accept(StatisticsResponse.from(statistics))));
+    }
+
+    /**
+     * Handles the HTTP GET request to stream the archived statistics of a time range as newline-delimited JSON, one
+     * {@link StatisticsResponse} per line. The clicks are read from the files of the cold archive, so this endpoint
+     * covers the clicks whose partitions were archived and dropped from the database.
+     *
+     * @param linkId the id of the link of the clicks, all links if absent
+     * @param from the earliest time of the clicks, inclusive, in ISO date-time format
+     * @param to the latest time of the clicks, exclusive, in ISO date-time format
+     * @return the streaming response
+     */
+    @GetMapping(value = "/archive/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> archived(@RequestParam(required = false) Long linkId,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ndjsonResponses.stream((Consumer<StatisticsResponse> row) ->
+                iStatisticsService.archived(linkId, from, to, statistics -> row.accept(StatisticsResponse.from(statistics))));
+    }
+
     /**
      * Handles the GET request for retrieving the details of a specific statistic.
      *
@@ -68,4 +135,87 @@ public class StatisticsRestController {
             return GenericRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Get statistics detail failed \n" + e.getMessage()));
         }
     }
+
+    /**
+     * Handles the GET request for the clicks and unique visitors of a link per minute, hour or day, read from the
+     * statistics rollups.
+     *
+     * @param id the unique identifier of the link
+     * @param from the start of the range, inclusive, in ISO date-time format
+     * @param to the end of the range, exclusive, in ISO date-time format
+     * @param granularity the granularity of the buckets: minute, hour or day
+     * @return a {@link GenericRestApiResponse} containing the {@link StatisticsSeriesResponse} or an error message in case of failure
+     */
+    @GetMapping("/links/{id}/series")
+    public GenericRestApiResponse<StatisticsSeriesResponse> series(@PathVariable long id,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestParam(defaultValue = "hour") String granularity) {
+        try {
+            return GenericRestApiResponse.success(
+                    iStatisticsService.series(id, from, to, StatisticsGranularity.of(granularity))
+            );
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Error get statistics series", e);
+            }
+            return GenericRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Get statistics series failed \n" + e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles the GET request for the approximate unique visitors of a link per hour or day and over the whole range,
+     * counted from the HyperLogLog sketches the report pipeline keeps in Redis.
+     *
+     * @param id the unique identifier of the link
+     * @param from the start of the range, inclusive, in ISO date-time format
+     * @param to the end of the range, exclusive, in ISO date-time format
+     * @param granularity the granularity of the buckets: hour or day
+     * @return a {@link GenericRestApiResponse} containing the {@link StatisticsVisitorsResponse} or an error message in case of failure
+     */
+    @GetMapping("/links/{id}/visitors")
+    public GenericRestApiResponse<StatisticsVisitorsResponse> visitors(@PathVariable long id,
+                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                       @RequestParam(defaultValue = "day") String granularity) {
+        try {
+            return GenericRestApiResponse.success(
+                    iStatisticsService.visitors(id, from, to, StatisticsGranularity.of(granularity))
+            );
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Error get statistics visitors", e);
+            }
+            return GenericRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Get statistics visitors failed \n" + e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles the GET request for the recent clicks of a time range grouped by referer domain, user agent, country
+     * or time bucket, optionally for one link, counted from the in-memory store of recent clicks.
+     *
+     * @param linkId the id of the link of the clicks, all links if absent
+     * @param from the start of the range, inclusive, in ISO date-time format
+     * @param to the end of the range, exclusive, in ISO date-time format
+     * @param groupBy the dimension of the groups: referer, user_agent, country, minute, hour or day
+     * @param limit the maximum number of groups by value, lowered to {@code spring.venus.statistics.store.max-groups}
+     * @return a {@link GenericRestApiResponse} containing the {@link StatisticsQueryResponse} or an error message in case of failure
+     */
+    @GetMapping("/query")
+    public GenericRestApiResponse<StatisticsQueryResponse> query(@RequestParam(required = false) Long linkId,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                 @RequestParam(defaultValue = "referer") String groupBy,
+                                                                 @RequestParam(required = false) Integer limit) {
+        try {
+            return GenericRestApiResponse.success(
+                    iStatisticsService.query(linkId, from, to, StatisticsDimension.of(groupBy), limit)
+            );
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Error query statistics", e);
+            }
+            return GenericRestApiResponse.fail(RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION, RestApiCode.VENUS_ADMIN_STATISTICS_EXCEPTION.message("Query statistics failed \n" + e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package org.venus.admin.domain;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The granularities of the time partitions of the click tables.
+ *
+ * A partition holds the rows of one period, from the start of the period to the start of the next one, and is
+ * named after the start of its period: {@code p20261019} for a day, {@code p202610} for a month.
+ */
+public enum PartitionGranularity {
+    /**
+     * A partition per day.
+     */
+    DAY(DateTimeFormatter.BASIC_ISO_DATE),
+    /**
+     * A partition per month.
+     */
+    MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+    /**
+     * Formats the start of a period in the name of its partition.
+     */
+    private final DateTimeFormatter format;
+
+    /**
+     * Constructs a PartitionGranularity.
+     *
+     * @param format the format of the start of a period in the name of its partition
+     */
+    PartitionGranularity(DateTimeFormatter format) {
+        this.format = format;
+    }
+
+    /**
+     * Provides the start of the period that contains a date.
+     *
+     * @param date the date
+     * @return the start of its period
+     */
+    public LocalDate start(LocalDate date) {
+        return this == DAY ? date : date.withDayOfMonth(1);
+    }
+
+    /**
+     * Moves the start of a period by a number of periods.
+     *
+     * @param start the start of a period
+     * @param periods the number of periods, negative to move back
+     * @return the start of the moved period
+     */
+    public LocalDate plus(LocalDate start, long periods) {
+        return this == DAY ? start.plusDays(periods) : start.plusMonths(periods);
+    }
+
+    /**
+     * Provides the name of the partition of a period.
+     *
+     * @param start the start of the period
+     * @return the name of the partition
+     */
+    public String partitionName(LocalDate start) {
+        return "p" + format.format(start);
+    }
+}
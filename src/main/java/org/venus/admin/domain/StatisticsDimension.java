@@ -0,0 +1,77 @@
+package org.venus.admin.domain;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * The dimensions that the statistics queries group the clicks by: a column of the clicks or a time bucket.
+ */
+public enum StatisticsDimension {
+    /**
+     * The domain of the referer.
+     */
+    REFERER(null),
+    /**
+     * The user agent.
+     */
+    USER_AGENT(null),
+    /**
+     * The country.
+     */
+    COUNTRY(null),
+    /**
+     * Buckets of one minute.
+     */
+    MINUTE(ChronoUnit.MINUTES),
+    /**
+     * Buckets of one hour.
+     */
+    HOUR(ChronoUnit.HOURS),
+    /**
+     * Buckets of one day.
+     */
+    DAY(ChronoUnit.DAYS);
+
+    /**
+     * The unit of the time buckets, null for a column.
+     */
+    private final ChronoUnit unit;
+
+    /**
+     * Constructs a StatisticsDimension.
+     *
+     * @param unit the unit of the time buckets, null for a column
+     */
+    StatisticsDimension(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Provides the unit of the time buckets.
+     *
+     * @return the unit, null if the dimension is a column
+     */
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    /**
+     * Provides the name of the dimension in the responses.
+     *
+     * @return the name in lower case
+     */
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a dimension, ignoring the case and accepting dashes for underscores.
+     *
+     * @param value the name of the dimension
+     * @return the dimension
+     * @throws IllegalArgumentException if there is no dimension of the name
+     */
+    public static StatisticsDimension of(String value) {
+        return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,80 @@
+package org.venus.admin.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * The granularities of the statistics rollups.
+ *
+ * Every click is counted in one bucket of each granularity, the bucket being the click time truncated to the
+ * granularity. The name of a granularity in lower case is stored in the {@code granularity} column of the rollups.
+ */
+public enum StatisticsGranularity {
+    /**
+     * Buckets of one minute.
+     */
+    MINUTE(ChronoUnit.MINUTES),
+    /**
+     * Buckets of one hour.
+     */
+    HOUR(ChronoUnit.HOURS),
+    /**
+     * Buckets of one day.
+     */
+    DAY(ChronoUnit.DAYS);
+
+    /**
+     * The unit a click time is truncated to.
+     */
+    private final ChronoUnit unit;
+
+    /**
+     * Constructs a StatisticsGranularity.
+     *
+     * @param unit the unit a click time is truncated to
+     */
+    StatisticsGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Provides the bucket of a time.
+     *
+     * @param time the time
+     * @return the start of the bucket that contains the time
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Provides the length of a bucket.
+     *
+     * @return the length
+     */
+    public Duration step() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Provides the value of the granularity in the {@code granularity} column.
+     *
+     * @return the name in lower case
+     */
+    public String column() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses a granularity, ignoring the case.
+     *
+     * @param value the name of the granularity
+     * @return the granularity
+     * @throws IllegalArgumentException if there is no granularity of the name
+     */
+    public static StatisticsGranularity of(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
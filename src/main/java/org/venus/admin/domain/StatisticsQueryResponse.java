@@ -0,0 +1,67 @@
+package org.venus.admin.domain;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The clicks of a time range grouped by a dimension, counted by the in-memory store of recent clicks.
+ *
+ * The store only holds the clicks of its retention, so the response carries the start of the oldest clicks it
+ * holds: the clicks of the range before it are not counted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class StatisticsQueryResponse {
+    /**
+     * The id of the link, null for all links.
+     */
+    private Long linkId;
+    /**
+     * The dimension of the groups, in lower case.
+     */
+    private String groupBy;
+    /**
+     * The start of the range, inclusive.
+     */
+    private LocalDateTime from;
+    /**
+     * The end of the range, exclusive.
+     */
+    private LocalDateTime to;
+    /**
+     * The start of the oldest clicks held by the store, null if it holds none.
+     */
+    private LocalDateTime since;
+    /**
+     * The total number of clicks in the range.
+     */
+    private long clicks;
+    /**
+     * The groups with clicks: by value, the most frequent first, or by time bucket, in time order.
+     */
+    private List<Group> groups;
+
+    /**
+     * The clicks of a value of the dimension.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    @Builder
+    public static class Group {
+        /**
+         * The value, or the start of the bucket in ISO format, empty for the clicks without value.
+         */
+        private String key;
+        /**
+         * The number of clicks.
+         */
+        private long clicks;
+    }
+}
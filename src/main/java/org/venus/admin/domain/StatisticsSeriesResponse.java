@@ -0,0 +1,95 @@
+package org.venus.admin.domain;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The time series of the clicks of a link, read from the statistics rollups.
+ *
+ * It holds the clicks and the estimated unique visitors of every bucket of the range that has clicks, the
+ * estimated unique visitors of the whole range, merged from the sketches of the buckets rather than summed,
+ * and the referer domains with the most clicks in the range.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class StatisticsSeriesResponse {
+    /**
+     * The id of the link.
+     */
+    private long linkId;
+    /**
+     * The granularity of the buckets, in lower case.
+     */
+    private String granularity;
+    /**
+     * The start of the range, inclusive.
+     */
+    private LocalDateTime from;
+    /**
+     * The end of the range, exclusive.
+     */
+    private LocalDateTime to;
+    /**
+     * The total number of clicks in the range.
+     */
+    private long clicks;
+    /**
+     * The estimated number of unique visitors in the range.
+     */
+    private long uniques;
+    /**
+     * The buckets of the range that have clicks, in time order.
+     */
+    private List<Point> points;
+    /**
+     * The referer domains with the most clicks in the range, the most frequent first.
+     */
+    private List<Referer> topReferers;
+
+    /**
+     * The clicks of a bucket.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    @Builder
+    public static class Point {
+        /**
+         * The start of the bucket.
+         */
+        private LocalDateTime bucket;
+        /**
+         * The number of clicks in the bucket.
+         */
+        private long clicks;
+        /**
+         * The estimated number of unique visitors in the bucket.
+         */
+        private long uniques;
+    }
+
+    /**
+     * The clicks from a referer domain.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    @Builder
+    public static class Referer {
+        /**
+         * The referer domain, empty for clicks without a referer.
+         */
+        private String referer;
+        /**
+         * The number of clicks from the domain.
+         */
+        private long clicks;
+    }
+}
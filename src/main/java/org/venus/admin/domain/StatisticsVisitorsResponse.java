@@ -0,0 +1,64 @@
+package org.venus.admin.domain;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The approximate unique visitors of a link per hour or day, counted by the HyperLogLog sketches of the visitor
+ * counter.
+ *
+ * The visitors of the whole range are counted from the union of the sketches of its buckets, so a visitor of several
+ * buckets is counted once in the total: it is less than the sum of the buckets.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Builder
+public class StatisticsVisitorsResponse {
+    /**
+     * The id of the link.
+     */
+    private long linkId;
+    /**
+     * The granularity of the buckets, in lower case.
+     */
+    private String granularity;
+    /**
+     * The start of the range, inclusive, truncated to the granularity.
+     */
+    private LocalDateTime from;
+    /**
+     * The end of the range, exclusive.
+     */
+    private LocalDateTime to;
+    /**
+     * The approximate number of distinct visitors in the range.
+     */
+    private long visitors;
+    /**
+     * The buckets with visitors, in time order.
+     */
+    private List<Bucket> buckets;
+
+    /**
+     * The visitors of a bucket.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @ToString
+    @Builder
+    public static class Bucket {
+        /**
+         * The start of the bucket.
+         */
+        private LocalDateTime time;
+        /**
+         * The approximate number of distinct visitors.
+         */
+        private long visitors;
+    }
+}
@@ -0,0 +1,171 @@
+package org.venus.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.venus.admin.configuration.ArchiveProperties;
+import org.venus.admin.domain.StatisticsEntity;
+import org.venus.support.ColumnarFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Repository of the cold archive of the click tables: compressed columnar files of the rows of {@code statistics}
+ * and {@code geo}, one per table, day and partition, under {@code <directory>/<table>/<yyyyMMdd>/<partition>.vcf}.
+ *
+ * A day can span several partitions: once a partition is dropped, the next one takes the late rows below its bound,
+ * and a change of the granularity moves the bounds off the days. Each partition therefore writes its rows of a day
+ * to its own file, which only an export of the same partition replaces, and a scan of a day reads all its files.
+ *
+ * The times are stored as the epoch seconds of their wall-clock value, like the database stores them, and the
+ * coordinates as longs in units of 10<sup>-8</sup> degree, the scale of their database columns. The rows of a
+ * statistics file are sorted by link and time, so that the minimums and maximums of the row groups let a scan of a
+ * link read a few row groups of a day.
+ */
+@Repository
+public class ClickArchiveRepository {
+    /**
+     * The columns of the archive files of {@code statistics}.
+     */
+    public static final List<ColumnarFile.Column> STATISTICS_COLUMNS = List.of(
+            new ColumnarFile.Column("id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("link_id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("clicked_at", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("ip", ColumnarFile.Type.STRING),
+            new ColumnarFile.Column("user_agent", ColumnarFile.Type.STRING),
+            new ColumnarFile.Column("referer", ColumnarFile.Type.STRING),
+            new ColumnarFile.Column("click_id", ColumnarFile.Type.LONG));
+    /**
+     * The columns of the archive files of {@code geo}.
+     */
+    public static final List<ColumnarFile.Column> GEO_COLUMNS = List.of(
+            new ColumnarFile.Column("id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("click_id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("created_at", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("country", ColumnarFile.Type.STRING),
+            new ColumnarFile.Column("city", ColumnarFile.Type.STRING),
+            new ColumnarFile.Column("latitude", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("longitude", ColumnarFile.Type.LONG));
+    /**
+     * Formats the day of a file in its name.
+     */
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    /**
+     * The extension of the files.
+     */
+    private static final String EXTENSION = ".vcf";
+
+    /**
+     * The configuration of the archive.
+     */
+    @Autowired
+    private ArchiveProperties properties;
+
+    /**
+     * Creates the writer of the file of a table, day and partition, which replaces the file of a previous export of
+     * the partition once committed.
+     *
+     * @param table the name of the table, statistics or geo
+     * @param day the day of the rows
+     * @param partition the name of the exported partition
+     * @return the writer
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if the table is not archived
+     */
+    public ColumnarFile.Writer writer(String table, LocalDate day, String partition) throws IOException {
+        List<ColumnarFile.Column> columns = switch (table) {
+            case "statistics" -> STATISTICS_COLUMNS;
+            case "geo" -> GEO_COLUMNS;
+            default -> throw new IllegalArgumentException("The table " + table + " is not archived");
+        };
+        return new ColumnarFile.Writer(directory(table, day).resolve(partition + EXTENSION), columns, properties.getRowGroupSize());
+    }
+
+    /**
+     * Scans the archived clicks in a time range, day by day, partition by partition within a day and, within a file,
+     * by link and time.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive
+     * @param to the latest time of the clicks, exclusive
+     * @param action the action that consumes every click
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    public void scanStatistics(Long linkId, LocalDateTime from, LocalDateTime to, Consumer<StatisticsEntity> action) {
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC) + (from.getNano() > 0 ? 1 : 0);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC) + (to.getNano() > 0 ? 1 : 0);
+        // the files written before the click id was archived lack its column
+        List<String> columns = List.of("id", "link_id", "clicked_at", "ip", "user_agent", "referer");
+        for (Path path : files("statistics", from.toLocalDate(), to.minusNanos(1).toLocalDate())) {
+            try (ColumnarFile.Reader reader = new ColumnarFile.Reader(path)) {
+                reader.scan(columns, group -> group.max("clicked_at") >= fromSecond && group.min("clicked_at") < toSecond
+                        && (linkId == null || (group.min("link_id") <= linkId && group.max("link_id") >= linkId)), batch -> {
+                    long[] ids = batch.longs("id");
+                    long[] links = batch.longs("link_id");
+                    long[] clickedAt = batch.longs("clicked_at");
+                    String[] ips = batch.strings("ip");
+                    String[] userAgents = batch.strings("user_agent");
+                    String[] referers = batch.strings("referer");
+                    for (int row = 0; row < batch.rows(); row++) {
+                        if (clickedAt[row] < fromSecond || clickedAt[row] >= toSecond
+                                || (linkId != null && links[row] != linkId)) {
+                            continue;
+                        }
+                        action.accept(new StatisticsEntity(ids[row], links[row], ips[row], userAgents[row], referers[row],
+                                LocalDateTime.ofEpochSecond(clickedAt[row], 0, ZoneOffset.UTC)));
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to scan the archive file " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Lists the committed files of a table in a range of days.
+     *
+     * @param table the name of the table
+     * @param first the first day, inclusive
+     * @param last the last day, inclusive
+     * @return the files in day order and, within a day, in partition order
+     * @throws UncheckedIOException if a directory cannot be listed
+     */
+    private List<Path> files(String table, LocalDate first, LocalDate last) {
+        List<Path> files = new ArrayList<>();
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            Path directory = directory(table, day);
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.list(directory)) {
+                paths.filter(path -> path.getFileName().toString().endsWith(EXTENSION) && Files.isRegularFile(path))
+                        .sorted()
+                        .forEach(files::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list the archive directory " + directory, e);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Provides the directory of the files of a table and day.
+     *
+     * @param table the name of the table
+     * @param day the day
+     * @return the path of the directory
+     */
+    private Path directory(String table, LocalDate day) {
+        return Path.of(properties.getDirectory(), table, DAY.format(day));
+    }
+}
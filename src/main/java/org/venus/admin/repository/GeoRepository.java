@@ -6,23 +6,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.venus.admin.domain.GeoEntity;
 
-import java.util.List;
-
 /**
  * GeoRepository is a Spring Data JPA repository for managing GeoEntity objects.
  *
  * This repository provides CRUD operations and custom query methods to interact with the "geo" table in the database.
  */
 @Repository
-public interface GeoRepository extends JpaRepository<GeoEntity, Long> {
-    /**
-     * Retrieves all GeoEntity records from the "geo" table in the database.
-     *
-     * @return A list of all GeoEntity objects retrieved from the database.
-     */
-    @Query(value = "SELECT * FROM geo", nativeQuery = true)
-    List<GeoEntity> lists();
-
+public interface GeoRepository extends JpaRepository<GeoEntity, Long>, GeoRepositoryCustom {
     /**
      * Executes a native SQL query to retrieve a GeoEntity object from the "geo" table by its unique identifier.
      *
@@ -0,0 +1,33 @@
+package org.venus.admin.repository;
+
+import org.venus.admin.domain.GeoEntity;
+import org.venus.support.KeysetPage;
+
+import java.util.function.Consumer;
+
+/**
+ * The keyset-paginated and streaming reads of the geographical data, which never load the whole table
+ * (see {@link org.venus.support.KeysetQuery}).
+ */
+public interface GeoRepositoryCustom {
+    /**
+     * Reads a page of geographical data entries in id order.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of entries
+     * @return the page of entries
+     */
+    KeysetPage<GeoEntity> page(Long clickId, String country, long after, int limit);
+
+    /**
+     * Streams all geographical data entries in id order, page by page.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the stream starts, 0 for all entries
+     * @param action the action that consumes every entry
+     */
+    void stream(Long clickId, String country, long after, Consumer<GeoEntity> action);
+}
@@ -0,0 +1,79 @@
+package org.venus.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.venus.admin.configuration.PaginationProperties;
+import org.venus.admin.domain.GeoEntity;
+import org.venus.support.KeysetPage;
+import org.venus.support.KeysetQuery;
+
+import java.util.function.Consumer;
+
+/**
+ * Implements the keyset-paginated and streaming reads of the geographical data with plain JDBC.
+ */
+public class GeoRepositoryCustomImpl implements GeoRepositoryCustom {
+    /**
+     * Maps a row of {@code geo} to a GeoEntity.
+     */
+    private static final RowMapper<GeoEntity> ROW_MAPPER = (rs, i) -> new GeoEntity(
+            rs.getLong("id"),
+            rs.getDouble("latitude"),
+            rs.getDouble("longitude"),
+            rs.getLong("click_id"),
+            rs.getString("city"),
+            rs.getString("country"));
+
+    /**
+     * Executes the queries.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The configuration of the list endpoints.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Reads a page of geographical data entries in id order.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of entries
+     * @return the page of entries
+     */
+    @Override
+    public KeysetPage<GeoEntity> page(Long clickId, String country, long after, int limit) {
+        return query(clickId, country).page(jdbcTemplate, ROW_MAPPER, GeoEntity::getId, after, limit);
+    }
+
+    /**
+     * Streams all geographical data entries in id order, page by page.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the stream starts, 0 for all entries
+     * @param action the action that consumes every entry
+     */
+    @Override
+    public void stream(Long clickId, String country, long after, Consumer<GeoEntity> action) {
+        query(clickId, country).stream(jdbcTemplate, ROW_MAPPER, GeoEntity::getId, after, paginationProperties.getStreamFetchSize(), action);
+    }
+
+    /**
+     * Builds the query of the geographical data.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @return the query
+     */
+    private static KeysetQuery query(Long clickId, String country) {
+        return new KeysetQuery("SELECT id, latitude, longitude, click_id, city, country FROM geo", "id")
+                .where("click_id = ?", clickId)
+                .where("country = ?", country);
+    }
+}
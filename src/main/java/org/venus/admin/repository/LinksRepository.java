@@ -9,22 +9,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.venus.admin.domain.LinksDao;
 import org.venus.admin.domain.LinksEntity;
 
-import java.util.List;
-
 /**
  * Repository interface for performing CRUD operations on the LinksEntity.
  * Extends JpaRepository for additional JPA functionalities.
  */
 @Repository
-public interface LinksRepository extends JpaRepository<LinksEntity, Long> {
-    /**
-     * Retrieves all LinkEntity records from the "links" table.
-     *
-     * @return A list of all LinkEntity objects present in the database.
-     */
-    @Query(value = "SELECT * FROM links", nativeQuery = true)
-    List<LinksEntity> list();
-
+public interface LinksRepository extends JpaRepository<LinksEntity, Long>, LinksRepositoryCustom {
     /**
      * Retrieves a LinksEntity from the database based on the provided unique identifier.
      *
@@ -54,6 +44,38 @@ public interface LinksRepository extends JpaRepository<LinksEntity, Long> {
     @Query(value = "UPDATE links SET code = :#{#ld.code}, redirect = :#{#ld.redirect}, original_url = :#{#ld.originalUrl}, expires_at = :#{#ld.expiresAt}, is_active = :#{#ld.isActive} WHERE id = :#{#ld.id}", nativeQuery = true)
     void update(@Param("ld") LinksDao ld);
 
+    /**
+     * Updates the activation status of all links whose original URL has the given origin, that is, which is the
+     * origin itself or continues it with a path, a query or a fragment. The URLs are matched with prefix patterns,
+     * so that the update is a range scan of the index of the original URLs instead of a scan of the whole table.
+     *
+     * @param origin the lower-cased origin ({@code scheme://host[:port]}) of the original URLs
+     * @param isActive the new activation status
+     * @return the number of updated links
+     */
+    @Transactional
+    default int updateStatusByOrigin(String origin, short isActive) {
+        String prefix = origin.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return updateStatusByPrefixes(origin, prefix + "/%", prefix + "?%", prefix + "#%", isActive);
+    }
+
+    /**
+     * Updates the activation status of the links whose original URL is the given origin or matches one of the
+     * given prefix patterns.
+     *
+     * @param origin the origin
+     * @param path the pattern of the URLs that continue the origin with a path
+     * @param query the pattern of the URLs that continue the origin with a query
+     * @param fragment the pattern of the URLs that continue the origin with a fragment
+     * @param isActive the new activation status
+     * @return the number of updated links
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE links SET is_active = :isActive WHERE original_url = :origin OR original_url LIKE :path OR original_url LIKE :query OR original_url LIKE :fragment", nativeQuery = true)
+    int updateStatusByPrefixes(@Param("origin") String origin, @Param("path") String path, @Param("query") String query,
+                               @Param("fragment") String fragment, @Param("isActive") short isActive);
+
     /**
      * Deletes a link from the database based on the provided id.
      *
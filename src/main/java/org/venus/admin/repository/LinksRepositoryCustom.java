@@ -0,0 +1,36 @@
+package org.venus.admin.repository;
+
+import org.venus.admin.domain.LinksEntity;
+import org.venus.support.KeysetPage;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * The keyset-paginated and streaming reads of the links, which never load the whole table
+ * (see {@link org.venus.support.KeysetQuery}).
+ */
+public interface LinksRepositoryCustom {
+    /**
+     * Reads a page of links in id order.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links
+     * @return the page of links
+     */
+    KeysetPage<LinksEntity> page(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, int limit);
+
+    /**
+     * Streams all links in id order, page by page.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every link
+     */
+    void stream(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Consumer<LinksEntity> action);
+}
@@ -0,0 +1,85 @@
+package org.venus.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.venus.admin.configuration.PaginationProperties;
+import org.venus.admin.domain.LinksEntity;
+import org.venus.support.KeysetPage;
+import org.venus.support.KeysetQuery;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Implements the keyset-paginated and streaming reads of the links with plain JDBC.
+ */
+public class LinksRepositoryCustomImpl implements LinksRepositoryCustom {
+    /**
+     * Maps a row of {@code links} to a LinksEntity.
+     */
+    private static final RowMapper<LinksEntity> ROW_MAPPER = (rs, i) -> new LinksEntity(
+            rs.getLong("id"),
+            rs.getString("code"),
+            rs.getInt("redirect"),
+            rs.getString("original_url"),
+            rs.getObject("created_at", LocalDateTime.class),
+            rs.getObject("expires_at", LocalDateTime.class),
+            rs.getShort("is_active"));
+
+    /**
+     * Executes the queries.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The configuration of the list endpoints.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Reads a page of links in id order.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links
+     * @return the page of links
+     */
+    @Override
+    public KeysetPage<LinksEntity> page(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, int limit) {
+        return query(isActive, createdFrom, createdTo).page(jdbcTemplate, ROW_MAPPER, LinksEntity::getId, after, limit);
+    }
+
+    /**
+     * Streams all links in id order, page by page.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every link
+     */
+    @Override
+    public void stream(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Consumer<LinksEntity> action) {
+        query(isActive, createdFrom, createdTo).stream(jdbcTemplate, ROW_MAPPER, LinksEntity::getId, after, paginationProperties.getStreamFetchSize(), action);
+    }
+
+    /**
+     * Builds the query of the links.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @return the query
+     */
+    private static KeysetQuery query(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo) {
+        return new KeysetQuery("SELECT id, code, redirect, original_url, created_at, expires_at, is_active FROM links", "id")
+                .where("is_active = ?", isActive)
+                .where("created_at >= ?", createdFrom)
+                .where("created_at < ?", createdTo);
+    }
+}
@@ -0,0 +1,156 @@
+package org.venus.admin.repository;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Repository of the time partitions of the click tables, which are partitioned by
+ * {@code RANGE (TO_DAYS(<time column>))} and end with a {@code MAXVALUE} partition that catches the rows beyond the
+ * created partitions.
+ *
+ * The statements run with plain JDBC, since partitions are managed with DDL, and take table and partition names
+ * that the callers build, never names from a request.
+ */
+@Repository
+public class PartitionRepository {
+    /**
+     * The {@code TO_DAYS} of 1970-01-01, the offset between MySQL day numbers and epoch days.
+     */
+    private static final long TO_DAYS_EPOCH = 719528;
+
+    /**
+     * A partition of a table.
+     *
+     * @param name the name of the partition
+     * @param upperBound the day before which the rows of the partition are, exclusive, null for the
+     *                   {@code MAXVALUE} partition
+     */
+    public record Partition(String name, LocalDate upperBound) {
+    }
+
+    /**
+     * Executes the statements.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the partitions of a table.
+     *
+     * @param table the name of the table
+     * @return the partitions in ascending order, empty if the table is not partitioned
+     */
+    public List<Partition> partitions(String table) {
+        return jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, i) -> {
+                    String description = rs.getString("PARTITION_DESCRIPTION");
+                    LocalDate upperBound = "MAXVALUE".equalsIgnoreCase(description)
+                            ? null : LocalDate.ofEpochDay(Long.parseLong(description.trim()) - TO_DAYS_EPOCH);
+                    return new Partition(rs.getString("PARTITION_NAME"), upperBound);
+                }, table);
+    }
+
+    /**
+     * Creates partitions by splitting them off the {@code MAXVALUE} partition. The split copies the rows of the
+     * {@code MAXVALUE} partition, which is empty while the partitions are created ahead of time.
+     *
+     * @param table the name of the table
+     * @param maxPartition the name of the {@code MAXVALUE} partition
+     * @param partitions the partitions to create, in ascending order, after the last bounded one
+     */
+    public void split(String table, String maxPartition, List<Partition> partitions) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION " + maxPartition + " INTO (" +
+                partitions.stream().map(PartitionRepository::definition).collect(Collectors.joining(", ")) +
+                ", PARTITION " + maxPartition + " VALUES LESS THAN MAXVALUE)");
+    }
+
+    /**
+     * Creates partitions after the last one of a table without {@code MAXVALUE} partition.
+     *
+     * @param table the name of the table
+     * @param partitions the partitions to create, in ascending order, after the last one
+     */
+    public void add(String table, List<Partition> partitions) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD PARTITION (" +
+                partitions.stream().map(PartitionRepository::definition).collect(Collectors.joining(", ")) + ")");
+    }
+
+    /**
+     * Reads the rows of a partition as they arrive from the database, so that a partition of any size is read without
+     * loading it into memory.
+     *
+     * With MySQL the statement alone streams its rows one by one, the other statements of the pool keep buffering
+     * their results, and the connection is held until the last row is read. Other drivers fetch a fixed number of
+     * rows at a time.
+     *
+     * @param table the name of the table
+     * @param partition the name of the partition
+     * @param columns the selected columns
+     * @param orderBy the order of the rows
+     * @param fetchSize the number of rows fetched at a time by the drivers other than MySQL
+     * @param handler the handler of every row
+     */
+    public void scan(String table, String partition, String columns, String orderBy, int fetchSize, RowCallbackHandler handler) {
+        String sql = "SELECT " + columns + " FROM " + table + " PARTITION (" + partition + ") ORDER BY " + orderBy;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (ps.isWrapperFor(JdbcStatement.class)) {
+                ps.unwrap(JdbcStatement.class).enableStreamingResults();
+            } else {
+                ps.setFetchSize(fetchSize);
+            }
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Drops partitions with all their rows.
+     *
+     * @param table the name of the table
+     * @param names the names of the partitions
+     */
+    public void drop(String table, List<String> names) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + String.join(", ", names));
+    }
+
+    /**
+     * Tries to take a named lock of the database for the session of the current transaction.
+     *
+     * @param name the name of the lock
+     * @return true if the lock is taken, false if another session holds it
+     */
+    public boolean tryLock(String name) {
+        Integer locked = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, name);
+        return locked != null && locked == 1;
+    }
+
+    /**
+     * Releases a named lock taken by {@link #tryLock(String)}.
+     *
+     * @param name the name of the lock
+     */
+    public void releaseLock(String name) {
+        jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, name);
+    }
+
+    /**
+     * Builds the definition of a bounded partition.
+     *
+     * @param partition the partition
+     * @return the definition
+     */
+    private static String definition(Partition partition) {
+        return "PARTITION " + partition.name() + " VALUES LESS THAN (TO_DAYS('" + partition.upperBound() + "'))";
+    }
+}
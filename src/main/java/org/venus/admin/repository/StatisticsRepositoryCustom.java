@@ -0,0 +1,36 @@
+package org.venus.admin.repository;
+
+import org.venus.admin.domain.StatisticsEntity;
+import org.venus.support.KeysetPage;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * The keyset-paginated and streaming reads of the clicks, which never load the whole table
+ * (see {@link org.venus.support.KeysetQuery}).
+ */
+public interface StatisticsRepositoryCustom {
+    /**
+     * Reads a page of clicks in id order.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of clicks
+     * @return the page of clicks
+     */
+    KeysetPage<StatisticsEntity> page(Long linkId, LocalDateTime from, LocalDateTime to, long after, int limit);
+
+    /**
+     * Streams all clicks in id order, page by page.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all clicks
+     * @param action the action that consumes every click
+     */
+    void stream(Long linkId, LocalDateTime from, LocalDateTime to, long after, Consumer<StatisticsEntity> action);
+}
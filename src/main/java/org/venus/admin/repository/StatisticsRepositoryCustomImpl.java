@@ -0,0 +1,84 @@
+package org.venus.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.venus.admin.configuration.PaginationProperties;
+import org.venus.admin.domain.StatisticsEntity;
+import org.venus.support.KeysetPage;
+import org.venus.support.KeysetQuery;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Implements the keyset-paginated and streaming reads of the clicks with plain JDBC.
+ */
+public class StatisticsRepositoryCustomImpl implements StatisticsRepositoryCustom {
+    /**
+     * Maps a row of {@code statistics} to a StatisticsEntity.
+     */
+    private static final RowMapper<StatisticsEntity> ROW_MAPPER = (rs, i) -> new StatisticsEntity(
+            rs.getLong("id"),
+            rs.getLong("link_id"),
+            rs.getString("ip"),
+            rs.getString("user_agent"),
+            rs.getString("referer"),
+            rs.getObject("clicked_at", LocalDateTime.class));
+
+    /**
+     * Executes the queries.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The configuration of the list endpoints.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Reads a page of clicks in id order.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of clicks
+     * @return the page of clicks
+     */
+    @Override
+    public KeysetPage<StatisticsEntity> page(Long linkId, LocalDateTime from, LocalDateTime to, long after, int limit) {
+        return query(linkId, from, to).page(jdbcTemplate, ROW_MAPPER, StatisticsEntity::getId, after, limit);
+    }
+
+    /**
+     * Streams all clicks in id order, page by page.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all clicks
+     * @param action the action that consumes every click
+     */
+    @Override
+    public void stream(Long linkId, LocalDateTime from, LocalDateTime to, long after, Consumer<StatisticsEntity> action) {
+        query(linkId, from, to).stream(jdbcTemplate, ROW_MAPPER, StatisticsEntity::getId, after, paginationProperties.getStreamFetchSize(), action);
+    }
+
+    /**
+     * Builds the query of the clicks.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @return the query
+     */
+    private static KeysetQuery query(Long linkId, LocalDateTime from, LocalDateTime to) {
+        return new KeysetQuery("SELECT id, link_id, ip, user_agent, referer, clicked_at FROM statistics", "id")
+                .where("link_id = ?", linkId)
+                .where("clicked_at >= ?", from)
+                .where("clicked_at < ?", to);
+    }
+}
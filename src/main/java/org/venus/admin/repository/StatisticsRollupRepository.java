@@ -0,0 +1,243 @@
+package org.venus.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.venus.admin.domain.StatisticsGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository of the statistics rollups: the clicks, unique visitor sketches and referer domains of every link per
+ * minute, hour and day bucket, and the watermark up to which the clicks of {@code statistics} are folded into them.
+ *
+ * The rollups are maintained with plain JDBC, because a batch of clicks is folded into many rows at once with
+ * upserts that add to the stored counts, which the JPA repositories cannot express.
+ */
+@Repository
+public class StatisticsRollupRepository {
+    /**
+     * The maximum number of keys in one query of the stored sketches.
+     */
+    private static final int SKETCH_QUERY_KEYS = 500;
+
+    /**
+     * The key of a rollup row.
+     *
+     * @param linkId the id of the link
+     * @param granularity the granularity of the bucket
+     * @param bucket the start of the bucket
+     */
+    public record RollupKey(long linkId, StatisticsGranularity granularity, LocalDateTime bucket) {
+    }
+
+    /**
+     * A click to fold into the rollups.
+     *
+     * @param id the id of the click
+     * @param linkId the id of the link
+     * @param clickedAt the time of the click
+     * @param ip the IP address of the visitor
+     * @param referer the referer of the click
+     * @param settled whether the click was inserted before the settle lag, so that every click with a lower id has
+     *        committed
+     */
+    public record Click(long id, long linkId, LocalDateTime clickedAt, String ip, String referer, boolean settled) {
+    }
+
+    /**
+     * The clicks of a batch to add to a rollup row, with the merged sketch of its unique visitors.
+     *
+     * @param key the key of the row
+     * @param clicks the number of clicks to add
+     * @param uniques the estimated number of unique visitors of the merged sketch
+     * @param visitors the merged sketch of the unique visitors
+     */
+    public record Rollup(RollupKey key, long clicks, long uniques, byte[] visitors) {
+    }
+
+    /**
+     * The clicks of a batch from a referer domain to add to a rollup bucket.
+     *
+     * @param key the key of the bucket
+     * @param referer the referer domain
+     * @param clicks the number of clicks to add
+     */
+    public record RefererClicks(RollupKey key, String referer, long clicks) {
+    }
+
+    /**
+     * A stored rollup row of a series.
+     *
+     * @param bucket the start of the bucket
+     * @param clicks the number of clicks
+     * @param uniques the estimated number of unique visitors
+     * @param visitors the sketch of the unique visitors, null if there is none
+     */
+    public record SeriesRow(LocalDateTime bucket, long clicks, long uniques, byte[] visitors) {
+    }
+
+    /**
+     * Executes the statements.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads and locks the watermark of a source until the end of the transaction, creating it at zero first if
+     * there is none, so that only one node folds a batch at a time.
+     *
+     * @param name the name of the source
+     * @return the id of the last click folded into the rollups
+     */
+    public long lockWatermark(String name) {
+        jdbcTemplate.update("INSERT IGNORE INTO statistics_rollup_watermark (name, last_id) VALUES (?, 0)", name);
+        Long lastId = jdbcTemplate.queryForObject(
+                "SELECT last_id FROM statistics_rollup_watermark WHERE name = ? FOR UPDATE", Long.class, name);
+        return lastId == null ? 0 : lastId;
+    }
+
+    /**
+     * Moves the watermark of a source.
+     *
+     * @param name the name of the source
+     * @param lastId the id of the last click folded into the rollups
+     */
+    public void updateWatermark(String name, long lastId) {
+        jdbcTemplate.update("UPDATE statistics_rollup_watermark SET last_id = ?, updated_at = NOW() WHERE name = ?",
+                lastId, name);
+    }
+
+    /**
+     * Reads the clicks after an id, in id order, with whether each was inserted more than the settle lag ago by the
+     * clock of the database. The ids must be assigned by the database, so that a click inserted later never gets a
+     * lower id than a click that is already read.
+     *
+     * @param afterId the id after which the clicks are read
+     * @param limit the maximum number of clicks
+     * @param settleLag the settle lag in milliseconds
+     * @return the clicks
+     */
+    public List<Click> clicksAfter(long afterId, int limit, long settleLag) {
+        return jdbcTemplate.query(
+                "SELECT id, link_id, clicked_at, ip, referer, inserted_at < NOW(3) - INTERVAL ? MICROSECOND AS settled " +
+                        "FROM statistics WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, i) -> {
+                    Timestamp clickedAt = rs.getTimestamp("clicked_at");
+                    return new Click(rs.getLong("id"), rs.getLong("link_id"),
+                            clickedAt == null ? null : clickedAt.toLocalDateTime(), rs.getString("ip"), rs.getString("referer"),
+                            rs.getBoolean("settled"));
+                }, settleLag * 1000, afterId, limit);
+    }
+
+    /**
+     * Reads the stored sketches of rollup rows.
+     *
+     * @param keys the keys of the rows
+     * @return the sketches by key, without the rows that are not stored or have no sketch
+     */
+    public Map<RollupKey, byte[]> sketches(Collection<RollupKey> keys) {
+        Map<RollupKey, byte[]> sketches = new HashMap<>(keys.size() * 2);
+        List<RollupKey> all = new ArrayList<>(keys);
+        for (int from = 0; from < all.size(); from += SKETCH_QUERY_KEYS) {
+            List<RollupKey> chunk = all.subList(from, Math.min(all.size(), from + SKETCH_QUERY_KEYS));
+            StringBuilder sql = new StringBuilder(
+                    "SELECT link_id, granularity, bucket, visitors FROM statistics_rollup WHERE (link_id, granularity, bucket) IN (");
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                RollupKey key = chunk.get(i);
+                args.add(key.linkId());
+                args.add(key.granularity().column());
+                args.add(Timestamp.valueOf(key.bucket()));
+            }
+            sql.append(')');
+            jdbcTemplate.query(sql.toString(), rs -> {
+                byte[] visitors = rs.getBytes("visitors");
+                if (visitors != null) {
+                    sketches.put(new RollupKey(rs.getLong("link_id"), StatisticsGranularity.of(rs.getString("granularity")),
+                            rs.getTimestamp("bucket").toLocalDateTime()), visitors);
+                }
+            }, args.toArray());
+        }
+        return sketches;
+    }
+
+    /**
+     * Adds the clicks of a batch to rollup rows and replaces their sketches by the merged ones.
+     *
+     * @param rollups the rollups of the batch
+     */
+    public void upsertRollups(List<Rollup> rollups) {
+        jdbcTemplate.batchUpdate("INSERT INTO statistics_rollup (link_id, granularity, bucket, clicks, uniques, visitors) " +
+                        "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks), " +
+                        "uniques = VALUES(uniques), visitors = VALUES(visitors)",
+                rollups, rollups.size(), (ps, rollup) -> {
+                    ps.setLong(1, rollup.key().linkId());
+                    ps.setString(2, rollup.key().granularity().column());
+                    ps.setTimestamp(3, Timestamp.valueOf(rollup.key().bucket()));
+                    ps.setLong(4, rollup.clicks());
+                    ps.setLong(5, rollup.uniques());
+                    ps.setBytes(6, rollup.visitors());
+                });
+    }
+
+    /**
+     * Adds the clicks of a batch from referer domains to the rollup buckets.
+     *
+     * @param referers the referer clicks of the batch
+     */
+    public void upsertReferers(List<RefererClicks> referers) {
+        jdbcTemplate.batchUpdate("INSERT INTO statistics_rollup_referer (link_id, granularity, bucket, referer, clicks) " +
+                        "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks)",
+                referers, referers.size(), (ps, referer) -> {
+                    ps.setLong(1, referer.key().linkId());
+                    ps.setString(2, referer.key().granularity().column());
+                    ps.setTimestamp(3, Timestamp.valueOf(referer.key().bucket()));
+                    ps.setString(4, referer.referer());
+                    ps.setLong(5, referer.clicks());
+                });
+    }
+
+    /**
+     * Reads the rollup rows of a link in a range.
+     *
+     * @param linkId the id of the link
+     * @param granularity the granularity of the buckets
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the rows in bucket order
+     */
+    public List<SeriesRow> series(long linkId, StatisticsGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket, clicks, uniques, visitors FROM statistics_rollup " +
+                        "WHERE link_id = ? AND granularity = ? AND bucket >= ? AND bucket < ? ORDER BY bucket",
+                (rs, i) -> new SeriesRow(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("clicks"),
+                        rs.getLong("uniques"), rs.getBytes("visitors")),
+                linkId, granularity.column(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Reads the referer domains with the most clicks of a link in a range.
+     *
+     * @param linkId the id of the link
+     * @param granularity the granularity of the buckets
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @param limit the maximum number of referer domains
+     * @return the referer domains and their clicks in the range, the most frequent first
+     */
+    public List<RefererClicks> topReferers(long linkId, StatisticsGranularity granularity, LocalDateTime from,
+                                           LocalDateTime to, int limit) {
+        return jdbcTemplate.query("SELECT referer, SUM(clicks) AS clicks FROM statistics_rollup_referer " +
+                        "WHERE link_id = ? AND granularity = ? AND bucket >= ? AND bucket < ? " +
+                        "GROUP BY referer ORDER BY clicks DESC LIMIT ?",
+                (rs, i) -> new RefererClicks(null, rs.getString("referer"), rs.getLong("clicks")),
+                linkId, granularity.column(), Timestamp.valueOf(from), Timestamp.valueOf(to), limit);
+    }
+}
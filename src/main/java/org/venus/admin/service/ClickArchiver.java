@@ -0,0 +1,278 @@
+package org.venus.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.venus.admin.configuration.ArchiveProperties;
+import org.venus.admin.repository.ClickArchiveRepository;
+import org.venus.admin.repository.PartitionRepository;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.ColumnarFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+/**
+ * Exports the partitions of the click tables to the cold archive before the partition job drops them.
+ *
+ * A partition is streamed from the database sorted by day, so that its rows are written to the file of their day
+ * one day after the other, and within a day by link or click, so that the row groups of a file cover few of them.
+ * Every partition writes its own files, so that the late rows of an archived day, which the next partition takes
+ * once the earlier one is dropped, never replace the rows archived before. A file only replaces the file of a
+ * previous export of the same partition, once complete; when the export of a partition fails, the files of its
+ * completed days stay and are written again by the next export of the partition, which is kept until an export
+ * succeeds.
+ *
+ * The archiver publishes the archived rows in {@code venus_archive_rows_total} and the written files in
+ * {@code venus_archive_files_total}, tagged by table.
+ */
+@Component
+@Slf4j
+public class ClickArchiver {
+    /**
+     * Writes the current row of a result set to an archive file.
+     */
+    @FunctionalInterface
+    private interface RowWriter {
+        /**
+         * Writes the current row.
+         *
+         * @param rs the result set
+         * @param writer the writer of the file
+         * @throws SQLException if the row cannot be read
+         */
+        void write(ResultSet rs, ColumnarFile.Writer writer) throws SQLException;
+    }
+
+    /**
+     * The export of a table.
+     *
+     * @param columns the selected columns
+     * @param timeColumn the time column, which selects the file of a row
+     * @param orderBy the order of the rows, by day first
+     * @param rowWriter writes a row to a file
+     */
+    private record Layout(String columns, String timeColumn, String orderBy, RowWriter rowWriter) {
+    }
+
+    /**
+     * The exports of the archived tables.
+     */
+    private static final Map<String, Layout> LAYOUTS = Map.of(
+            "statistics", new Layout("id, link_id, clicked_at, ip, user_agent, referer, click_id", "clicked_at",
+                    "TO_DAYS(clicked_at), link_id, clicked_at",
+                    (rs, writer) -> writer.setLong(0, rs.getLong("id"))
+                            .setLong(1, rs.getLong("link_id"))
+                            .setLong(2, epochSecond(rs, "clicked_at"))
+                            .setString(3, rs.getString("ip"))
+                            .setString(4, rs.getString("user_agent"))
+                            .setString(5, rs.getString("referer"))
+                            .setLong(6, rs.getLong("click_id"))),
+            "geo", new Layout("id, click_id, created_at, country, city, latitude, longitude", "created_at",
+                    "TO_DAYS(created_at), click_id",
+                    (rs, writer) -> writer.setLong(0, rs.getLong("id"))
+                            .setLong(1, rs.getLong("click_id"))
+                            .setLong(2, epochSecond(rs, "created_at"))
+                            .setString(3, rs.getString("country"))
+                            .setString(4, rs.getString("city"))
+                            .setLong(5, coordinate(rs, "latitude"))
+                            .setLong(6, coordinate(rs, "longitude"))));
+
+    /**
+     * The configuration of the archive.
+     */
+    @Autowired
+    private ArchiveProperties properties;
+    /**
+     * Reads the partitions.
+     */
+    @Autowired
+    private PartitionRepository partitionRepository;
+    /**
+     * Writes the archive files.
+     */
+    @Autowired
+    private ClickArchiveRepository clickArchiveRepository;
+
+    /**
+     * Indicates whether the partitions are archived before they are dropped.
+     *
+     * @return true if the archive is enabled
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Exports a partition to the files of its days.
+     *
+     * @param table the name of the table, statistics or geo
+     * @param partition the name of the partition
+     * @return the number of archived rows
+     * @throws IOException if a file cannot be written
+     * @throws IllegalArgumentException if the table is not archived
+     */
+    public long archive(String table, String partition) throws IOException {
+        Layout layout = LAYOUTS.get(table);
+        if (layout == null) {
+            throw new IllegalArgumentException("The table " + table + " is not archived");
+        }
+        Export export = new Export(table, partition, layout);
+        try {
+            partitionRepository.scan(table, partition, layout.columns(), layout.orderBy(), properties.getFetchSize(), export::row);
+            export.commit();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            export.close();
+        }
+        Counter.builder("venus_archive_rows_total").tags(tags(table)).register(Metrics.globalRegistry).increment(export.rows);
+        if (log.isInfoEnabled()) {
+            log.info("Archived {} rows of the partition {} of {} in {} files", export.rows, partition, table, export.files);
+        }
+        return export.rows;
+    }
+
+    /**
+     * The export of a partition, which rolls the file over when the day of the rows changes.
+     */
+    private class Export {
+        /**
+         * The name of the table.
+         */
+        private final String table;
+        /**
+         * The name of the partition.
+         */
+        private final String partition;
+        /**
+         * The export of the table.
+         */
+        private final Layout layout;
+        /**
+         * The day of the current file.
+         */
+        private LocalDate day;
+        /**
+         * The writer of the current file, null before the first row.
+         */
+        private ColumnarFile.Writer writer;
+        /**
+         * The number of exported rows.
+         */
+        private long rows;
+        /**
+         * The number of written files.
+         */
+        private int files;
+
+        /**
+         * Constructs an Export.
+         *
+         * @param table the name of the table
+         * @param partition the name of the partition
+         * @param layout the export of the table
+         */
+        private Export(String table, String partition, Layout layout) {
+            this.table = table;
+            this.partition = partition;
+            this.layout = layout;
+        }
+
+        /**
+         * Writes the current row of the partition.
+         *
+         * @param rs the result set
+         * @throws SQLException if the row cannot be read
+         * @throws UncheckedIOException if a file cannot be written
+         */
+        private void row(ResultSet rs) throws SQLException {
+            LocalDate rowDay = rs.getObject(layout.timeColumn(), LocalDateTime.class).toLocalDate();
+            try {
+                if (!rowDay.equals(day)) {
+                    commit();
+                    close();
+                    day = rowDay;
+                    writer = clickArchiveRepository.writer(table, day, partition);
+                }
+                layout.rowWriter().write(rs, writer);
+                writer.endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        /**
+         * Commits the current file.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        private void commit() throws IOException {
+            if (writer != null) {
+                writer.commit();
+                files++;
+                Counter.builder("venus_archive_files_total").tags(tags(table)).register(Metrics.globalRegistry).increment();
+            }
+        }
+
+        /**
+         * Releases the current file, deleting it unless it was committed.
+         *
+         * @throws IOException if the file cannot be released
+         */
+        private void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a time column as the epoch second of its wall-clock value.
+     *
+     * @param rs the result set
+     * @param column the name of the column
+     * @return the epoch second
+     * @throws SQLException if the column cannot be read
+     */
+    private static long epochSecond(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, LocalDateTime.class).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads a coordinate column in units of 10<sup>-8</sup> degree, 0 for a missing coordinate.
+     *
+     * @param rs the result set
+     * @param column the name of the column
+     * @return the coordinate
+     * @throws SQLException if the column cannot be read
+     */
+    private static long coordinate(ResultSet rs, String column) throws SQLException {
+        BigDecimal value = rs.getBigDecimal(column);
+        return value == null ? 0 : value.movePointRight(8).longValue();
+    }
+
+    /**
+     * Provides the tags of the meters of a table.
+     *
+     * @param table the name of the table
+     * @return the tags
+     */
+    private static Tags tags(String table) {
+        return Tags.of("table", table)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+    }
+}
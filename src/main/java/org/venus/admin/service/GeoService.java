@@ -3,10 +3,12 @@ package org.venus.admin.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.venus.admin.configuration.PaginationProperties;
 import org.venus.admin.domain.GeoEntity;
 import org.venus.admin.repository.GeoRepository;
+import org.venus.support.KeysetPage;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service class responsible for handling geographic entities.
@@ -31,13 +33,36 @@ public class GeoService implements IGeoService {
     private GeoRepository geoRepository;
 
     /**
-     * Retrieves a list of geographical entities.
+     * The configuration of the list endpoints, which bounds the pages.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Retrieves a page of geographical entities in id order.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of entries, null for the default, lowered to the maximum page size
+     * @return the page of GeoEntity instances, with the cursor of the next page
+     */
+    @Override
+    public KeysetPage<GeoEntity> lists(Long clickId, String country, long after, Integer limit) {
+        return geoRepository.page(clickId, country, after, paginationProperties.limit(limit));
+    }
+
+    /**
+     * Streams all geographical entities in id order, page by page, without loading them into memory.
      *
-     * @return a list of GeoEntity objects representing various geographical entities
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the stream starts, 0 for all entries
+     * @param action the action that consumes every GeoEntity
      */
     @Override
-    public List<GeoEntity> lists() {
-        return geoRepository.lists();
+    public void stream(Long clickId, String country, long after, Consumer<GeoEntity> action) {
+        geoRepository.stream(clickId, country, after, action);
     }
 
     /**
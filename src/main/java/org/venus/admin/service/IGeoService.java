@@ -1,8 +1,9 @@
 package org.venus.admin.service;
 
 import org.venus.admin.domain.GeoEntity;
+import org.venus.support.KeysetPage;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for geographical services.
@@ -12,11 +13,25 @@ import java.util.List;
  */
 public interface IGeoService {
     /**
-     * Retrieves a list of geographical entities.
+     * Retrieves a page of geographical entities in id order.
      *
-     * @return a list of GeoEntity objects representing various geographical entities
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of entries, null for the default, lowered to the maximum page size
+     * @return the page of GeoEntity instances, with the cursor of the next page
      */
-    List<GeoEntity> lists();
+    KeysetPage<GeoEntity> lists(Long clickId, String country, long after, Integer limit);
+
+    /**
+     * Streams all geographical entities in id order, page by page, without loading them into memory.
+     *
+     * @param clickId the id of the click of the entries, null for all clicks
+     * @param country the country of the entries, null for all countries
+     * @param after the id after which the stream starts, 0 for all entries
+     * @param action the action that consumes every GeoEntity
+     */
+    void stream(Long clickId, String country, long after, Consumer<GeoEntity> action);
 
     /**
      * Retrieves the details of a geographical entity by its ID.
@@ -3,8 +3,10 @@ package org.venus.admin.service;
 import org.springframework.data.repository.query.Param;
 import org.venus.admin.domain.LinksDao;
 import org.venus.admin.domain.LinksEntity;
+import org.venus.support.KeysetPage;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 /**
  * Interface defining the service layer for managing links.
@@ -13,11 +15,27 @@ import java.util.List;
  */
 public interface ILinksService {
     /**
-     * Retrieves a list of all link entities from the system.
+     * Retrieves a page of link entities in id order.
      *
-     * @return A list containing all instances of {@link LinksEntity}.
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links, null for the default, lowered to the maximum page size
+     * @return the page of LinksEntity instances, with the cursor of the next page
      */
-    List<LinksEntity> lists();
+    KeysetPage<LinksEntity> lists(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Integer limit);
+
+    /**
+     * Streams all link entities in id order, page by page, without loading them into memory.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every LinksEntity
+     */
+    void stream(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Consumer<LinksEntity> action);
 
     /**
      * Retrieves a link entity based on its unique identifier.
@@ -43,6 +61,16 @@ public interface ILinksService {
      */
     boolean update(@Param("ld") LinksDao ld);
 
+    /**
+     * Updates the activation status of all links whose original URL has the given origin, such as all links
+     * of a campaign, and invalidates their cache entries at once.
+     *
+     * @param origin the origin ({@code scheme://host[:port]}) of the original URLs
+     * @param isActive the new activation status
+     * @return the number of updated links
+     */
+    int updateStatusByOrigin(String origin, short isActive);
+
     /**
      * Deletes a link entity based on its unique identifier.
      *
@@ -1,9 +1,16 @@
 package org.venus.admin.service;
 
 import org.springframework.data.repository.query.Param;
+import org.venus.admin.domain.StatisticsDimension;
 import org.venus.admin.domain.StatisticsEntity;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.domain.StatisticsQueryResponse;
+import org.venus.admin.domain.StatisticsSeriesResponse;
+import org.venus.admin.domain.StatisticsVisitorsResponse;
+import org.venus.support.KeysetPage;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 /**
  * Service interface for handling statistics-related operations.
@@ -13,11 +20,39 @@ import java.util.List;
  */
 public interface IStatisticsService {
     /**
-     * Retrieves a list of all statistics entries.
+     * Retrieves a page of statistics entries in id order.
      *
-     * @return a list of {@link StatisticsEntity} instances representing all the statistics entries
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of clicks, null for the default, lowered to the maximum page size
+     * @return the page of StatisticsEntity instances, with the cursor of the next page
      */
-    List<StatisticsEntity> lists();
+    KeysetPage<StatisticsEntity> lists(Long linkId, LocalDateTime from, LocalDateTime to, long after, Integer limit);
+
+    /**
+     * Streams all statistics entries in id order, page by page, without loading them into memory.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all clicks
+     * @param action the action that consumes every StatisticsEntity
+     */
+    void stream(Long linkId, LocalDateTime from, LocalDateTime to, long after, Consumer<StatisticsEntity> action);
+
+    /**
+     * Streams the archived statistics entries of a time range from the cold archive, day by day and, within a day,
+     * by link and time.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive
+     * @param to the latest time of the clicks, exclusive
+     * @param action the action that consumes every StatisticsEntity
+     * @throws IllegalArgumentException if the range is empty or spans more days than allowed
+     */
+    void archived(Long linkId, LocalDateTime from, LocalDateTime to, Consumer<StatisticsEntity> action);
 
     /**
      * Fetches the details of a specific statistic based on the provided unique identifier.
@@ -26,4 +61,46 @@ public interface IStatisticsService {
      * @return the {@link StatisticsEntity} containing detailed information of the specified statistic
      */
     StatisticsEntity detail(@Param("id") long id);
+
+    /**
+     * Reads the clicks and unique visitors of a link per bucket from the rollups, with the referer domains
+     * with the most clicks in the range.
+     *
+     * @param linkId the id of the link
+     * @param from the start of the range, inclusive, truncated to the granularity
+     * @param to the end of the range, exclusive
+     * @param granularity the granularity of the buckets
+     * @return the series of the link
+     * @throws IllegalArgumentException if the range is empty or spans more buckets than allowed
+     */
+    StatisticsSeriesResponse series(long linkId, LocalDateTime from, LocalDateTime to, StatisticsGranularity granularity);
+
+    /**
+     * Counts the recent clicks of a time range grouped by a dimension, from the in-memory store of recent clicks.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the start of the range, inclusive, truncated to the bucket for a time dimension
+     * @param to the end of the range, exclusive
+     * @param groupBy the dimension of the groups
+     * @param limit the maximum number of groups by value, null for the maximum
+     * @return the clicks of the range by group
+     * @throws IllegalStateException if the store is disabled
+     * @throws IllegalArgumentException if the range is empty or spans more buckets than allowed
+     */
+    StatisticsQueryResponse query(Long linkId, LocalDateTime from, LocalDateTime to, StatisticsDimension groupBy, Integer limit);
+
+    /**
+     * Counts the approximate unique visitors of a link per bucket and over a time range, from the HyperLogLog
+     * sketches of the visitor counter.
+     *
+     * @param linkId the id of the link
+     * @param from the start of the range, inclusive, truncated to the granularity
+     * @param to the end of the range, exclusive
+     * @param granularity the granularity of the buckets, hour or day
+     * @return the visitors of the link
+     * @throws IllegalStateException if the counts are disabled
+     * @throws IllegalArgumentException if the granularity is not counted, or the range is empty or spans more
+     *         buckets than allowed
+     */
+    StatisticsVisitorsResponse visitors(long linkId, LocalDateTime from, LocalDateTime to, StatisticsGranularity granularity);
 }
@@ -5,14 +5,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.venus.admin.configuration.PaginationProperties;
 import org.venus.admin.domain.LinksDao;
 import org.venus.admin.domain.LinksEntity;
 import org.venus.admin.repository.LinksRepository;
+import org.venus.cache.CacheGenerations;
+import org.venus.cache.MultiLevelValueAdaptingCache;
 import org.venus.cache.ValueWrapper;
+import org.venus.support.DatabaseGuard;
+import org.venus.support.KeysetPage;
 import org.venus.support.VenusException;
 
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 import static org.venus.cache.MultiLevelCacheConstants.VENUS_REDIRECT_CACHE_NAME;
 
@@ -30,6 +36,12 @@ public class LinksService implements ILinksService {
      */
     @Autowired
     private LinksRepository linksRepository;
+
+    /**
+     * The configuration of the list endpoints, which bounds the pages.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
     /**
      * A CacheManager instance used to manage caching operations within the LinksService.
      * This component is responsible for accessing, storing, and evicting cache entries,
@@ -39,6 +51,12 @@ public class LinksService implements ILinksService {
      */
     @Autowired
     private CacheManager cacheManager;
+    /**
+     * The guard of the database, which rejects link writes at once while the database is unavailable,
+     * instead of letting them wait for a connection and fail.
+     */
+    @Autowired
+    private DatabaseGuard databaseGuard;
 
     /**
      * A ScheduledExecutorService designed to handle retry logic for updating the cache in case of errors.
@@ -48,13 +66,32 @@ public class LinksService implements ILinksService {
     private static final ScheduledThreadPoolExecutor retryUpdateCacheIfErrorExecutor = (ScheduledThreadPoolExecutor)Executors.newScheduledThreadPool(1, Thread.ofVirtual().name("retry-update-cache-with-error").factory());
 
     /**
-     * Retrieves a list of all link entities from the system.
+     * Retrieves a page of link entities in id order.
+     *
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links, null for the default, lowered to the maximum page size
+     * @return the page of LinksEntity instances, with the cursor of the next page
+     */
+    @Override
+    public KeysetPage<LinksEntity> lists(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Integer limit) {
+        return linksRepository.page(isActive, createdFrom, createdTo, after, paginationProperties.limit(limit));
+    }
+
+    /**
+     * Streams all link entities in id order, page by page, without loading them into memory.
      *
-     * @return A list containing all instances of {@link LinksEntity}.
+     * @param isActive the activation status of the links, null for all
+     * @param createdFrom the earliest creation time of the links, inclusive, null for no bound
+     * @param createdTo the latest creation time of the links, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every LinksEntity
      */
     @Override
-    public List<LinksEntity> lists() {
-        return linksRepository.list();
+    public void stream(Short isActive, LocalDateTime createdFrom, LocalDateTime createdTo, long after, Consumer<LinksEntity> action) {
+        linksRepository.stream(isActive, createdFrom, createdTo, after, action);
     }
 
     /**
@@ -70,7 +107,8 @@ public class LinksService implements ILinksService {
 
     /**
      * Adds a new LinksDao object to the repository and updates the cache.
-     * If an entity with the same ID already exists, a VenusException is thrown.
+     * If an entity with the same ID already exists, a VenusException is thrown, and while the database
+     * is unavailable, a DatabaseUnavailableException.
      * In case of an error while adding the links to the cache, it retries the update at fixed intervals.
      *
      * @param ld the LinksDao object to be added.
@@ -78,6 +116,7 @@ public class LinksService implements ILinksService {
      */
     @Override
     public boolean add(LinksDao ld) {
+        databaseGuard.checkAvailable("create links");
         LinksEntity entity = get(ld.getId());
         if (entity != null) {
             throw new VenusException(String.format("Duplicate id[%d], multiple mapping URLs are not supported", ld.getId()));
@@ -133,6 +172,7 @@ public class LinksService implements ILinksService {
      */
     @Override
     public boolean update(LinksDao ld) {
+        databaseGuard.checkAvailable("update links");
         linksRepository.update(ld);
         try {
             Cache cache = cacheManager.getCache(VENUS_REDIRECT_CACHE_NAME);
@@ -174,6 +214,39 @@ public class LinksService implements ILinksService {
         return true;
     }
 
+    /**
+     * Updates the activation status of all links of the given origin in the repository with a single statement,
+     * and invalidates their cache entries by bumping the generation of the origin, which costs one Redis command
+     * and one message instead of a write and a message per link.
+     *
+     * @param origin the origin ({@code scheme://host[:port]}) of the original URLs
+     * @param isActive the new activation status
+     * @return the number of updated links
+     */
+    @Override
+    public int updateStatusByOrigin(String origin, short isActive) {
+        databaseGuard.checkAvailable("update links status");
+        String group = CacheGenerations.origin(origin);
+        if (group == null) {
+            throw new VenusException(String.format("Invalid origin[%s], an origin is scheme://host[:port]", origin));
+        }
+        int updated = linksRepository.updateStatusByOrigin(group, isActive);
+        if (updated > 0 && cacheManager.getCache(VENUS_REDIRECT_CACHE_NAME) instanceof MultiLevelValueAdaptingCache cache) {
+            if (cache.isGenerationEnabled()) {
+                long generation = cache.invalidateGroup(group);
+                if (log.isInfoEnabled()) {
+                    log.info("Update the status of {} links of origin[{}] and bump its generation to {}", updated, group, generation);
+                }
+            } else {
+                if (log.isWarnEnabled()) {
+                    log.warn("The generations of the cache are not enabled, clear the whole cache for {} links of origin[{}]", updated, group);
+                }
+                cache.clear();
+            }
+        }
+        return updated;
+    }
+
     /**
      * Deletes a LinksEntity with the given id from the repository and evicts its cache entry.
      *
@@ -182,6 +255,7 @@ public class LinksService implements ILinksService {
      */
     @Override
     public boolean delete(long id) {
+        databaseGuard.checkAvailable("delete links");
         LinksEntity entity = this.get(id);
         linksRepository.remove(id);
         try {
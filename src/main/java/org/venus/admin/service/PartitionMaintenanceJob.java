@@ -0,0 +1,261 @@
+package org.venus.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.venus.admin.configuration.PartitionProperties;
+import org.venus.admin.domain.PartitionGranularity;
+import org.venus.admin.repository.PartitionRepository;
+import org.venus.admin.repository.PartitionRepository.Partition;
+import org.venus.metrics.MetricsConstants;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the time partitions of the click tables: creates the partitions of the coming periods ahead of time and
+ * drops the partitions older than the retention.
+ *
+ * Creating the partitions ahead of time keeps the {@code MAXVALUE} partition empty, so that splitting it only
+ * rewrites the definition of the table. Dropping a partition removes its rows at the cost of a file deletion instead
+ * of a {@code DELETE} that locks and logs every row, a few partitions per run so that a long backlog does not stall
+ * the table. While the archive is enabled, a partition is exported to the archive before it is dropped, and kept
+ * when its export fails. The job runs at startup and then every interval; the nodes of a cluster take a named
+ * database lock so that one node at a time alters the tables.
+ *
+ * The job publishes the created partitions in {@code venus_partition_created_total} and the dropped ones in
+ * {@code venus_partition_dropped_total}, tagged by table.
+ */
+@Component
+@Slf4j
+public class PartitionMaintenanceJob {
+    /**
+     * The partitioned tables.
+     */
+    static final List<String> TABLES = List.of("statistics", "geo");
+    /**
+     * The name of the database lock of the job.
+     */
+    private static final String LOCK = "venus-partition-maintenance";
+
+    /**
+     * A plan of the partitions of a table to create and drop.
+     *
+     * @param create the partitions to create, in ascending order
+     * @param drop the names of the partitions to drop
+     * @param maxPartition the name of the {@code MAXVALUE} partition, null if there is none
+     */
+    record Plan(List<Partition> create, List<String> drop, String maxPartition) {
+    }
+
+    /**
+     * The configuration of the partitions.
+     */
+    @Autowired
+    private PartitionProperties properties;
+    /**
+     * Reads and alters the partitions.
+     */
+    @Autowired
+    private PartitionRepository partitionRepository;
+    /**
+     * Manages the transaction that holds the connection of the database lock.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    /**
+     * Archives the partitions before they are dropped, while the archive is enabled.
+     */
+    @Autowired
+    private ClickArchiver clickArchiver;
+
+    /**
+     * Runs the job, null while it is disabled.
+     */
+    private ScheduledExecutorService scheduledPool;
+
+    /**
+     * Schedules the job if it is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        scheduledPool = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("venus-partition-maintenance").factory());
+        scheduledPool.scheduleWithFixedDelay(() -> {
+            try {
+                // the transaction keeps the lock, the DDL and its release on one connection
+                transactionTemplate.executeWithoutResult(status -> maintain(LocalDate.now()));
+            } catch (Exception e) {
+                if (log.isErrorEnabled()) {
+                    log.error("Failed to maintain the partitions of the click tables", e);
+                }
+            }
+        }, 0, properties.getInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the job.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledPool != null) {
+            scheduledPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Maintains the partitions of all tables, unless another node holds the lock.
+     *
+     * @param today the current day
+     */
+    void maintain(LocalDate today) {
+        if (!partitionRepository.tryLock(LOCK)) {
+            return;
+        }
+        try {
+            for (String table : TABLES) {
+                maintain(table, today);
+            }
+        } finally {
+            partitionRepository.releaseLock(LOCK);
+        }
+    }
+
+    /**
+     * Maintains the partitions of a table.
+     *
+     * @param table the name of the table
+     * @param today the current day
+     */
+    private void maintain(String table, LocalDate today) {
+        List<Partition> partitions = partitionRepository.partitions(table);
+        if (partitions.isEmpty()) {
+            if (log.isWarnEnabled()) {
+                log.warn("The table {} is not partitioned, its partitions are not maintained", table);
+            }
+            return;
+        }
+        Plan plan = plan(partitions, today, properties.getGranularity(), properties.getPremake(),
+                properties.getRetention(), properties.getMaxDropsPerRun());
+        if (!plan.create().isEmpty()) {
+            if (plan.maxPartition() != null) {
+                partitionRepository.split(table, plan.maxPartition(), plan.create());
+            } else {
+                partitionRepository.add(table, plan.create());
+            }
+            counter("venus_partition_created_total", table).increment(plan.create().size());
+            if (log.isInfoEnabled()) {
+                log.info("Created the partitions {} of {}", plan.create().stream().map(Partition::name).toList(), table);
+            }
+        }
+        if (!plan.drop().isEmpty()) {
+            if (clickArchiver.isEnabled()) {
+                // a partition is only dropped once its rows are in the archive
+                for (String partition : plan.drop()) {
+                    try {
+                        clickArchiver.archive(table, partition);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to archive the partition " + partition + " of " + table, e);
+                    }
+                    partitionRepository.drop(table, List.of(partition));
+                    counter("venus_partition_dropped_total", table).increment();
+                }
+            } else {
+                partitionRepository.drop(table, plan.drop());
+                counter("venus_partition_dropped_total", table).increment(plan.drop().size());
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Dropped the partitions {} of {}", plan.drop(), table);
+            }
+        }
+    }
+
+    /**
+     * Plans the partitions of a table to create and drop.
+     *
+     * The partitions are created up to the one of the period {@code premake} periods after the current one; the
+     * first partition created for a table without bounded partition holds all rows before the next period. The
+     * bounded partitions that end before the start of the period {@code retention} periods before the current one
+     * are dropped, the oldest first and at most {@code maxDrops} of them.
+     *
+     * @param partitions the partitions of the table, in ascending order
+     * @param today the current day
+     * @param granularity the period of a partition
+     * @param premake the number of partitions created ahead of the current period
+     * @param retention the number of past partitions kept, zero or less to keep them all
+     * @param maxDrops the maximum number of partitions dropped
+     * @return the plan
+     */
+    static Plan plan(List<Partition> partitions, LocalDate today, PartitionGranularity granularity, int premake,
+                     int retention, int maxDrops) {
+        String maxPartition = null;
+        LocalDate lastBound = null;
+        for (Partition partition : partitions) {
+            if (partition.upperBound() == null) {
+                maxPartition = partition.name();
+            } else if (lastBound == null || partition.upperBound().isAfter(lastBound)) {
+                lastBound = partition.upperBound();
+            }
+        }
+
+        LocalDate current = granularity.start(today);
+        LocalDate target = granularity.plus(current, Math.max(0, premake) + 1);
+        List<Partition> create = new ArrayList<>();
+        LocalDate start = lastBound == null ? current : granularity.start(lastBound);
+        if (lastBound != null && start.isBefore(lastBound)) {
+            // a bound off the period, after a change of granularity, is followed by a partition up to the next period
+            start = granularity.plus(start, 1);
+            create.add(new Partition(granularity.partitionName(lastBound), start));
+        }
+        while (start.isBefore(target)) {
+            LocalDate end = granularity.plus(start, 1);
+            create.add(new Partition(granularity.partitionName(start), end));
+            start = end;
+        }
+
+        List<String> drop = new ArrayList<>();
+        if (retention > 0) {
+            LocalDate cutoff = granularity.plus(current, -retention);
+            for (Partition partition : partitions) {
+                if (drop.size() >= maxDrops) {
+                    break;
+                }
+                if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+                    drop.add(partition.name());
+                }
+            }
+        }
+        return new Plan(create, drop, maxPartition);
+    }
+
+    /**
+     * Provides a counter of the partitions of a table.
+     *
+     * @param name the name of the counter
+     * @param table the name of the table
+     * @return the counter
+     */
+    private static Counter counter(String name, String table) {
+        return Counter.builder(name)
+                .tags(Tags.of("table", table)
+                        .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                        .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION))
+                .register(Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,272 @@
+package org.venus.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.venus.admin.configuration.ClickStoreProperties;
+import org.venus.admin.domain.StatisticsDimension;
+import org.venus.admin.domain.StatisticsQueryResponse;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.ClickColumnStore;
+import org.venus.support.Referers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the recent clicks in an in-memory {@link ClickColumnStore} and answers the statistics queries from it.
+ *
+ * The report pipeline records every reported click and the country of its geo report, before they are queued for
+ * the database, so that the store holds the clicks of the retention whatever the sampling of the raw rows. The
+ * times are kept as the epoch seconds of their local value, like the database stores them. The store lives in the
+ * memory of each node and starts empty: a node only counts the clicks reported to it since it started.
+ *
+ * The store publishes its clicks in {@code venus_click_store_rows}, its segments in
+ * {@code venus_click_store_segments}, the recorded clicks in {@code venus_click_store_appended_total}, the clicks
+ * older than the retention in {@code venus_click_store_rejected_total} and the duration of the queries in
+ * {@code venus_click_store_query_seconds}.
+ */
+@Component
+@Slf4j
+public class StatisticsClickStore {
+    /**
+     * The configuration of the store.
+     */
+    @Autowired
+    private ClickStoreProperties properties;
+
+    /**
+     * The store, null while it is disabled.
+     */
+    private ClickColumnStore store;
+    /**
+     * Evicts the expired segments.
+     */
+    private ScheduledExecutorService scheduledPool;
+    /**
+     * Counts the recorded clicks.
+     */
+    private Counter appended;
+    /**
+     * Counts the clicks older than the retention.
+     */
+    private Counter rejected;
+    /**
+     * Times the queries.
+     */
+    private Timer queries;
+
+    /**
+     * Creates the store and schedules its evictions if it is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int parallelism = properties.getParallelism() > 0 ? properties.getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.store = new ClickColumnStore(properties.getSegmentDuration() / 1000, properties.getSegmentCapacity(),
+                properties.getMaxSegments(), properties.getRetention() / 1000, properties.getMaxDictionarySize(),
+                properties.getRecentClicks(), Duration.ofMillis(properties.getRecentClickTtl()), parallelism);
+        this.appended = Counter.builder("venus_click_store_appended_total").tags(tags()).register(Metrics.globalRegistry);
+        this.rejected = Counter.builder("venus_click_store_rejected_total").tags(tags()).register(Metrics.globalRegistry);
+        this.queries = Timer.builder("venus_click_store_query_seconds").tags(tags()).register(Metrics.globalRegistry);
+        Gauge.builder("venus_click_store_rows", store, ClickColumnStore::rows).tags(tags()).register(Metrics.globalRegistry);
+        Gauge.builder("venus_click_store_segments", store, ClickColumnStore::segments).tags(tags()).register(Metrics.globalRegistry);
+
+        scheduledPool = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("venus-click-store-eviction").factory());
+        scheduledPool.scheduleWithFixedDelay(() -> {
+            try {
+                int evicted = store.evict(nowSecond());
+                if (evicted > 0 && log.isDebugEnabled()) {
+                    log.debug("Evicted {} segments of the click store", evicted);
+                }
+            } catch (Exception e) {
+                if (log.isErrorEnabled()) {
+                    log.error("Failed to evict the segments of the click store", e);
+                }
+            }
+        }, properties.getEvictionInterval(), properties.getEvictionInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the evictions and releases the store.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledPool != null) {
+            scheduledPool.shutdownNow();
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Indicates whether the clicks are kept in the store.
+     *
+     * @return true if the store is enabled
+     */
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Records a reported click.
+     *
+     * @param clickId the id of the click, zero if the database assigns it
+     * @param linkId the id of the link
+     * @param clickedAt the time of the click, null for now
+     * @param referer the referer of the click, may be null
+     * @param userAgent the user agent of the click, may be null
+     */
+    public void recordClick(long clickId, long linkId, LocalDateTime clickedAt, String referer, String userAgent) {
+        long now = nowSecond();
+        long second = clickedAt == null ? now : clickedAt.toEpochSecond(ZoneOffset.UTC);
+        if (store.append(clickId, linkId, second, Referers.domain(referer), userAgent, now)) {
+            appended.increment();
+        } else {
+            rejected.increment();
+        }
+    }
+
+    /**
+     * Records the country of a reported click, if the click is still known.
+     *
+     * @param clickId the id of the click
+     * @param country the country, may be null
+     */
+    public void recordGeo(long clickId, String country) {
+        store.country(clickId, country == null ? null : country.trim());
+    }
+
+    /**
+     * Counts the clicks of a time range grouped by a dimension.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the start of the range, inclusive, truncated to the bucket for a time dimension
+     * @param to the end of the range, exclusive
+     * @param groupBy the dimension of the groups
+     * @param limit the maximum number of groups by value, null for the maximum
+     * @return the clicks of the range by group
+     * @throws IllegalStateException if the store is disabled
+     * @throws IllegalArgumentException if the range is empty or spans more buckets than allowed
+     */
+    public StatisticsQueryResponse query(Long linkId, LocalDateTime from, LocalDateTime to, StatisticsDimension groupBy,
+                                         Integer limit) {
+        if (store == null) {
+            throw new IllegalStateException("The click store is disabled");
+        }
+        LocalDateTime start = groupBy.unit() == null ? from : from.truncatedTo(groupBy.unit());
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+        long fromSecond = start.toEpochSecond(ZoneOffset.UTC) + (start.getNano() > 0 ? 1 : 0);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC) + (to.getNano() > 0 ? 1 : 0);
+        List<StatisticsQueryResponse.Group> groups = queries.record(() -> groupBy.unit() == null
+                ? byValue(linkId, fromSecond, toSecond, groupBy)
+                : byTime(linkId, fromSecond, toSecond, groupBy));
+        long clicks = 0;
+        for (StatisticsQueryResponse.Group group : groups) {
+            clicks += group.getClicks();
+        }
+        if (groupBy.unit() == null) {
+            int max = limit == null || limit <= 0 ? properties.getMaxGroups() : Math.min(limit, properties.getMaxGroups());
+            groups = groups.subList(0, Math.min(max, groups.size()));
+        }
+        Long oldest = store.oldestSecond();
+        return StatisticsQueryResponse.builder()
+                .linkId(linkId)
+                .groupBy(groupBy.value())
+                .from(start)
+                .to(to)
+                .since(oldest == null ? null : LocalDateTime.ofEpochSecond(oldest, 0, ZoneOffset.UTC))
+                .clicks(clicks)
+                .groups(groups)
+                .build();
+    }
+
+    /**
+     * Counts the clicks by the values of a column, the most frequent first.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param fromSecond the start of the range, inclusive
+     * @param toSecond the end of the range, exclusive
+     * @param groupBy the column
+     * @return the groups
+     */
+    private List<StatisticsQueryResponse.Group> byValue(Long linkId, long fromSecond, long toSecond,
+                                                        StatisticsDimension groupBy) {
+        ClickColumnStore.Column column = switch (groupBy) {
+            case REFERER -> ClickColumnStore.Column.REFERER;
+            case USER_AGENT -> ClickColumnStore.Column.USER_AGENT;
+            default -> ClickColumnStore.Column.COUNTRY;
+        };
+        return store.countBy(column, linkId, fromSecond, toSecond).stream()
+                .sorted(Comparator.comparingLong(ClickColumnStore.Group::clicks).reversed())
+                .map(group -> new StatisticsQueryResponse.Group(group.value(), group.clicks()))
+                .toList();
+    }
+
+    /**
+     * Counts the clicks by time bucket, in time order, without the buckets without clicks.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param fromSecond the start of the range, inclusive, the start of a bucket
+     * @param toSecond the end of the range, exclusive
+     * @param groupBy the time dimension
+     * @return the groups
+     * @throws IllegalArgumentException if the range spans more buckets than allowed
+     */
+    private List<StatisticsQueryResponse.Group> byTime(Long linkId, long fromSecond, long toSecond,
+                                                       StatisticsDimension groupBy) {
+        long step = groupBy.unit().getDuration().toSeconds();
+        long buckets = (toSecond - fromSecond + step - 1) / step;
+        if (buckets > properties.getMaxBuckets()) {
+            throw new IllegalArgumentException("The range spans " + buckets + " buckets, more than the maximum of "
+                    + properties.getMaxBuckets());
+        }
+        long[] counts = store.countByTime(linkId, fromSecond, toSecond, step);
+        List<StatisticsQueryResponse.Group> groups = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                groups.add(new StatisticsQueryResponse.Group(
+                        LocalDateTime.ofEpochSecond(fromSecond + i * step, 0, ZoneOffset.UTC).toString(), counts[i]));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Provides the current time as the epoch second of its local value.
+     *
+     * @return the epoch second
+     */
+    private static long nowSecond() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Provides the tags of the meters.
+     *
+     * @return the tags
+     */
+    private static Tags tags() {
+        return Tags.of(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME,
+                MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+    }
+}
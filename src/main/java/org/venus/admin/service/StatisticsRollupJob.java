@@ -0,0 +1,206 @@
+package org.venus.admin.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.venus.admin.configuration.StatisticsRollupProperties;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.repository.StatisticsRollupRepository;
+import org.venus.admin.repository.StatisticsRollupRepository.Click;
+import org.venus.admin.repository.StatisticsRollupRepository.RefererClicks;
+import org.venus.admin.repository.StatisticsRollupRepository.Rollup;
+import org.venus.admin.repository.StatisticsRollupRepository.RollupKey;
+import org.venus.support.HyperLogLog;
+import org.venus.support.Referers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds the clicks of {@code statistics} into the per-link minute, hour and day rollups.
+ *
+ * Every run reads the clicks after the watermark in batches of the batch size. A batch is folded in one transaction
+ * that locks the watermark, so that the nodes of a cluster never fold the same clicks twice: its clicks are grouped
+ * by link and bucket of each granularity, the unique visitors of a bucket are counted in a HyperLogLog sketch of the
+ * IP addresses merged with the stored one, and the clicks per referer domain are added to the bucket, the less
+ * frequent domains beyond the maximum per bucket as "(other)". A click without a time is skipped.
+ *
+ * The watermark relies on the ids of the clicks growing with their insertion, so they must be assigned by the
+ * database: the statistics service never inserts an id, the one reported by the client is kept as the click id.
+ * A row inserted with an explicit id below the watermark would never be folded. The ids are assigned when the
+ * clicks are inserted but become visible when they commit, and the parallel chunks of the bulk writers of several
+ * nodes commit out of id order. A batch therefore ends before the first click inserted less than the settle lag ago:
+ * every click with a lower id has committed by then, so the watermark never passes a click that is still in flight.
+ */
+@Component
+@Slf4j
+public class StatisticsRollupJob {
+    /**
+     * The name of the watermark of the clicks.
+     */
+    static final String WATERMARK = "statistics";
+    /**
+     * The referer domain that collects the domains beyond the maximum per bucket.
+     */
+    static final String OTHER_REFERER = "(other)";
+
+    /**
+     * The configuration of the rollups.
+     */
+    @Autowired
+    private StatisticsRollupProperties properties;
+    /**
+     * Reads the clicks and writes the rollups.
+     */
+    @Autowired
+    private StatisticsRollupRepository rollupRepository;
+    /**
+     * Manages the transaction of a batch.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Runs the job, null while it is disabled.
+     */
+    private ScheduledExecutorService scheduledPool;
+
+    /**
+     * Schedules the job if it is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        scheduledPool = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("venus-statistics-rollup").factory());
+        scheduledPool.scheduleWithFixedDelay(() -> {
+            try {
+                for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+                    Integer folded = transactionTemplate.execute(status -> foldBatch());
+                    if (folded == null || folded < properties.getBatchSize()) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                if (log.isErrorEnabled()) {
+                    log.error("Failed to roll up the statistics", e);
+                }
+            }
+        }, properties.getInterval(), properties.getInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the job.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledPool != null) {
+            scheduledPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Folds the next batch of clicks into the rollups and moves the watermark past it.
+     * Must run in a transaction, which holds the lock of the watermark.
+     *
+     * @return the number of clicks folded
+     */
+    int foldBatch() {
+        long lastId = rollupRepository.lockWatermark(WATERMARK);
+        List<Click> clicks = settled(rollupRepository.clicksAfter(lastId, properties.getBatchSize(), properties.getSettleLag()));
+        if (clicks.isEmpty()) {
+            return 0;
+        }
+        Map<RollupKey, Long> counts = new HashMap<>();
+        Map<RollupKey, HyperLogLog> visitors = new HashMap<>();
+        Map<RollupKey, Map<String, Long>> referers = new HashMap<>();
+        for (Click click : clicks) {
+            if (click.clickedAt() == null) {
+                continue;
+            }
+            String referer = Referers.domain(click.referer());
+            for (StatisticsGranularity granularity : StatisticsGranularity.values()) {
+                RollupKey key = new RollupKey(click.linkId(), granularity, granularity.truncate(click.clickedAt()));
+                counts.merge(key, 1L, Long::sum);
+                visitors.computeIfAbsent(key, k -> new HyperLogLog(properties.getPrecision())).add(click.ip());
+                referers.computeIfAbsent(key, k -> new HashMap<>()).merge(referer, 1L, Long::sum);
+            }
+        }
+        if (!counts.isEmpty()) {
+            Map<RollupKey, byte[]> stored = rollupRepository.sketches(counts.keySet());
+            List<Rollup> rollups = new ArrayList<>(counts.size());
+            counts.forEach((key, clicksInBucket) -> {
+                HyperLogLog sketch = visitors.get(key);
+                byte[] previous = stored.get(key);
+                if (previous != null) {
+                    HyperLogLog storedSketch = HyperLogLog.fromBytes(previous);
+                    if (storedSketch.precision() == sketch.precision()) {
+                        sketch.merge(storedSketch);
+                    }
+                }
+                rollups.add(new Rollup(key, clicksInBucket, sketch.estimate(), sketch.toBytes()));
+            });
+            rollupRepository.upsertRollups(rollups);
+            rollupRepository.upsertReferers(capReferers(referers));
+        }
+        rollupRepository.updateWatermark(WATERMARK, clicks.getLast().id());
+        if (log.isDebugEnabled()) {
+            log.debug("Rolled up {} clicks into {} buckets", clicks.size(), counts.size());
+        }
+        return clicks.size();
+    }
+
+    /**
+     * Keeps the clicks before the first one that is not settled, in id order.
+     *
+     * @param clicks the clicks after the watermark, in id order
+     * @return the clicks that can be folded
+     */
+    static List<Click> settled(List<Click> clicks) {
+        for (int i = 0; i < clicks.size(); i++) {
+            if (!clicks.get(i).settled()) {
+                return clicks.subList(0, i);
+            }
+        }
+        return clicks;
+    }
+
+    /**
+     * Keeps the referer domains with the most clicks of every bucket and adds the others as "(other)".
+     *
+     * @param referers the clicks per referer domain of every bucket
+     * @return the referer clicks to add
+     */
+    private List<RefererClicks> capReferers(Map<RollupKey, Map<String, Long>> referers) {
+        int max = properties.getMaxReferersPerBucket();
+        List<RefererClicks> capped = new ArrayList<>();
+        referers.forEach((key, domains) -> {
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(domains.entrySet());
+            sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            long other = 0;
+            for (int i = 0; i < sorted.size(); i++) {
+                Map.Entry<String, Long> domain = sorted.get(i);
+                if (i < max) {
+                    capped.add(new RefererClicks(key, domain.getKey(), domain.getValue()));
+                } else {
+                    other += domain.getValue();
+                }
+            }
+            if (other > 0) {
+                capped.add(new RefererClicks(key, OTHER_REFERER, other));
+            }
+        });
+        return capped;
+    }
+}
@@ -3,10 +3,28 @@ package org.venus.admin.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.venus.admin.configuration.ArchiveProperties;
+import org.venus.admin.configuration.PaginationProperties;
+import org.venus.admin.configuration.StatisticsRollupProperties;
+import org.venus.admin.domain.StatisticsDimension;
 import org.venus.admin.domain.StatisticsEntity;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.domain.StatisticsQueryResponse;
+import org.venus.admin.domain.StatisticsSeriesResponse;
+import org.venus.admin.domain.StatisticsVisitorsResponse;
+import org.venus.admin.repository.ClickArchiveRepository;
 import org.venus.admin.repository.StatisticsRepository;
+import org.venus.admin.repository.StatisticsRollupRepository;
+import org.venus.admin.repository.StatisticsRollupRepository.SeriesRow;
+import org.venus.support.HyperLogLog;
+import org.venus.support.KeysetPage;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service implementation for handling statistics-related operations.
@@ -28,13 +46,96 @@ public class StatisticsService implements IStatisticsService {
     private StatisticsRepository statisticsRepository;
 
     /**
-     * Retrieves a list of all statistics entries.
+     * The configuration of the list endpoints, which bounds the pages.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Repository of the per-link rollups of the clicks.
+     */
+    @Autowired
+    private StatisticsRollupRepository statisticsRollupRepository;
+
+    /**
+     * The configuration of the rollups, which bounds the series requests.
+     */
+    @Autowired
+    private StatisticsRollupProperties statisticsRollupProperties;
+
+    /**
+     * Repository of the cold archive of the clicks.
+     */
+    @Autowired
+    private ClickArchiveRepository clickArchiveRepository;
+
+    /**
+     * The configuration of the archive, which bounds the archive scans.
+     */
+    @Autowired
+    private ArchiveProperties archiveProperties;
+
+    /**
+     * The in-memory store of the recent clicks.
+     */
+    @Autowired
+    private StatisticsClickStore statisticsClickStore;
+    /**
+     * The HyperLogLog counts of the unique visitors.
+     */
+    @Autowired
+    private StatisticsVisitorCounter statisticsVisitorCounter;
+
+    /**
+     * Retrieves a page of statistics entries in id order.
      *
-     * @return a list of {@link StatisticsEntity} instances representing all the statistics entries
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of clicks, null for the default, lowered to the maximum page size
+     * @return the page of StatisticsEntity instances, with the cursor of the next page
      */
     @Override
-    public List<StatisticsEntity> lists() {
-        return statisticsRepository.lists();
+    public KeysetPage<StatisticsEntity> lists(Long linkId, LocalDateTime from, LocalDateTime to, long after, Integer limit) {
+        return statisticsRepository.page(linkId, from, to, after, paginationProperties.limit(limit));
+    }
+
+    /**
+     * Streams all statistics entries in id order, page by page, without loading them into memory.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive, null for no bound
+     * @param to the latest time of the clicks, exclusive, null for no bound
+     * @param after the id after which the stream starts, 0 for all clicks
+     * @param action the action that consumes every StatisticsEntity
+     */
+    @Override
+    public void stream(Long linkId, LocalDateTime from, LocalDateTime to, long after, Consumer<StatisticsEntity> action) {
+        statisticsRepository.stream(linkId, from, to, after, action);
+    }
+
+    /**
+     * Streams the archived statistics entries of a time range from the cold archive. Only the files of the days of
+     * the range are opened, and only the row groups whose bounds overlap the range and the link are read.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the earliest time of the clicks, inclusive
+     * @param to the latest time of the clicks, exclusive
+     * @param action the action that consumes every StatisticsEntity
+     * @throws IllegalArgumentException if the range is empty or spans more days than allowed
+     */
+    @Override
+    public void archived(Long linkId, LocalDateTime from, LocalDateTime to, Consumer<StatisticsEntity> action) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+        long days = ChronoUnit.DAYS.between(from.toLocalDate(), to.minusNanos(1).toLocalDate()) + 1;
+        if (days > archiveProperties.getMaxScanDays()) {
+            throw new IllegalArgumentException("The range spans " + days + " days, more than the maximum of "
+                    + archiveProperties.getMaxScanDays());
+        }
+        clickArchiveRepository.scanStatistics(linkId, from, to, action);
     }
 
     /**
@@ -47,4 +148,93 @@ public class StatisticsService implements IStatisticsService {
     public StatisticsEntity detail(long id) {
         return statisticsRepository.detail(id);
     }
+
+    /**
+     * Reads the clicks and unique visitors of a link per bucket from the rollups. The unique visitors of the range
+     * are estimated by merging the sketches of its buckets, so a visitor seen in several buckets counts once.
+     *
+     * @param linkId the id of the link
+     * @param from the start of the range, inclusive, truncated to the granularity
+     * @param to the end of the range, exclusive
+     * @param granularity the granularity of the buckets
+     * @return the series of the link, without the buckets that have no clicks
+     * @throws IllegalArgumentException if the range is empty or spans more buckets than allowed
+     */
+    @Override
+    public StatisticsSeriesResponse series(long linkId, LocalDateTime from, LocalDateTime to, StatisticsGranularity granularity) {
+        LocalDateTime start = granularity.truncate(from);
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+        long buckets = (Duration.between(start, to).toMillis() + granularity.step().toMillis() - 1) / granularity.step().toMillis();
+        if (buckets > statisticsRollupProperties.getMaxPoints()) {
+            throw new IllegalArgumentException("The range spans " + buckets + " buckets, more than the maximum of "
+                    + statisticsRollupProperties.getMaxPoints());
+        }
+        List<SeriesRow> rows = statisticsRollupRepository.series(linkId, granularity, start, to);
+        List<StatisticsSeriesResponse.Point> points = new ArrayList<>(rows.size());
+        HyperLogLog visitors = null;
+        long clicks = 0;
+        for (SeriesRow row : rows) {
+            points.add(new StatisticsSeriesResponse.Point(row.bucket(), row.clicks(), row.uniques()));
+            clicks += row.clicks();
+            if (row.visitors() != null) {
+                HyperLogLog sketch = HyperLogLog.fromBytes(row.visitors());
+                if (visitors == null) {
+                    visitors = sketch;
+                } else if (visitors.precision() == sketch.precision()) {
+                    visitors.merge(sketch);
+                }
+            }
+        }
+        List<StatisticsSeriesResponse.Referer> topReferers = statisticsRollupRepository
+                .topReferers(linkId, granularity, start, to, statisticsRollupProperties.getTopReferers()).stream()
+                .map(referer -> new StatisticsSeriesResponse.Referer(referer.referer(), referer.clicks()))
+                .toList();
+        return StatisticsSeriesResponse.builder()
+                .linkId(linkId)
+                .granularity(granularity.column())
+                .from(start)
+                .to(to)
+                .clicks(clicks)
+                .uniques(visitors == null ? 0 : visitors.estimate())
+                .points(points)
+                .topReferers(topReferers)
+                .build();
+    }
+
+    /**
+     * Counts the recent clicks of a time range grouped by a dimension, from the in-memory store of recent clicks.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param from the start of the range, inclusive, truncated to the bucket for a time dimension
+     * @param to the end of the range, exclusive
+     * @param groupBy the dimension of the groups
+     * @param limit the maximum number of groups by value, null for the maximum
+     * @return the clicks of the range by group
+     * @throws IllegalStateException if the store is disabled
+     * @throws IllegalArgumentException if the range is empty or spans more buckets than allowed
+     */
+    @Override
+    public StatisticsQueryResponse query(Long linkId, LocalDateTime from, LocalDateTime to, StatisticsDimension groupBy, Integer limit) {
+        return statisticsClickStore.query(linkId, from, to, groupBy, limit);
+    }
+
+    /**
+     * Counts the approximate unique visitors of a link per bucket and over a time range, from the HyperLogLog
+     * sketches of the visitor counter.
+     *
+     * @param linkId the id of the link
+     * @param from the start of the range, inclusive, truncated to the granularity
+     * @param to the end of the range, exclusive
+     * @param granularity the granularity of the buckets, hour or day
+     * @return the visitors of the link
+     * @throws IllegalStateException if the counts are disabled
+     * @throws IllegalArgumentException if the granularity is not counted, or the range is empty or spans more
+     *         buckets than allowed
+     */
+    @Override
+    public StatisticsVisitorsResponse visitors(long linkId, LocalDateTime from, LocalDateTime to, StatisticsGranularity granularity) {
+        return statisticsVisitorCounter.query(linkId, from, to, granularity);
+    }
 }
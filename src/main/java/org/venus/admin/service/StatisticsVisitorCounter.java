@@ -0,0 +1,319 @@
+package org.venus.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.venus.admin.configuration.VisitorCounterProperties;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.domain.StatisticsVisitorsResponse;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the approximate unique visitors of every link per hour and per day in Redis HyperLogLog sketches.
+ *
+ * The report pipeline records the visitor of every reported click, before the sampling of the raw rows, so that the
+ * sketches count all the visitors. A visitor is the 64-bit hash of the ip of the click, like in the rollups, so the
+ * ips themselves are not sent to Redis. The visitors are buffered per sketch, without duplicates, and sent every
+ * flush interval with one pipelined {@code PFADD} per sketch, which also renews its expiry. All nodes add to the
+ * same sketches, so Redis holds the merged counts of the cluster in 12 KB per link and bucket at most, whatever the
+ * number of visitors.
+ *
+ * The key of a sketch is {@code <prefix>:{<link-id>}:<granularity>:<bucket>}; the hash tag keeps the sketches of a
+ * link in one slot of a Redis cluster, so that the visitors of a range are counted by a single {@code PFCOUNT} of
+ * the keys of its buckets, which merges them in Redis.
+ *
+ * The counter publishes the recorded clicks in {@code venus_visitors_recorded_total}, the visitors dropped while the
+ * buffer was full in {@code venus_visitors_dropped_total}, the failed flushes in
+ * {@code venus_visitors_flush_failures_total}, the buffered visitors in {@code venus_visitors_pending} and the
+ * duration of the queries in {@code venus_visitors_query_seconds}.
+ */
+@Component
+@Slf4j
+public class StatisticsVisitorCounter {
+    /**
+     * The format of the bucket of an hour in the keys.
+     */
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+    /**
+     * The format of the bucket of a day in the keys.
+     */
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * A sketch and the time it is kept after its last visitor.
+     *
+     * @param key the key of the sketch
+     * @param retention the expiry of the key in milliseconds
+     */
+    private record Sketch(String key, long retention) {
+    }
+
+    /**
+     * The configuration of the counts.
+     */
+    @Autowired
+    private VisitorCounterProperties properties;
+    /**
+     * The connection factory of Redis.
+     */
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    /**
+     * The template that adds to and counts the sketches, null while the counts are disabled.
+     */
+    private StringRedisTemplate template;
+    /**
+     * The visitors not sent yet, by sketch.
+     */
+    private final Map<Sketch, Set<String>> pending = new ConcurrentHashMap<>();
+    /**
+     * The number of visitors not sent yet.
+     */
+    private final AtomicInteger pendingVisitors = new AtomicInteger();
+    /**
+     * Sends the buffered visitors.
+     */
+    private ScheduledExecutorService scheduledPool;
+    /**
+     * Counts the recorded clicks.
+     */
+    private Counter recorded;
+    /**
+     * Counts the visitors dropped while the buffer was full.
+     */
+    private Counter dropped;
+    /**
+     * Counts the failed flushes.
+     */
+    private Counter failures;
+    /**
+     * Times the queries.
+     */
+    private Timer queries;
+
+    /**
+     * Creates the template and schedules the flushes if the counts are enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        this.template = new StringRedisTemplate(connectionFactory);
+        this.recorded = Counter.builder("venus_visitors_recorded_total").tags(tags()).register(Metrics.globalRegistry);
+        this.dropped = Counter.builder("venus_visitors_dropped_total").tags(tags()).register(Metrics.globalRegistry);
+        this.failures = Counter.builder("venus_visitors_flush_failures_total").tags(tags()).register(Metrics.globalRegistry);
+        this.queries = Timer.builder("venus_visitors_query_seconds").tags(tags()).register(Metrics.globalRegistry);
+        Gauge.builder("venus_visitors_pending", pendingVisitors, AtomicInteger::get).tags(tags()).register(Metrics.globalRegistry);
+
+        scheduledPool = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("venus-visitors-flush").factory());
+        scheduledPool.scheduleWithFixedDelay(this::flush, properties.getFlushInterval(), properties.getFlushInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the flushes and sends the visitors that are still buffered.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledPool != null) {
+            scheduledPool.shutdownNow();
+            flush();
+        }
+    }
+
+    /**
+     * Indicates whether the visitors of the reported clicks are counted.
+     *
+     * @return true if the counts are enabled
+     */
+    public boolean isEnabled() {
+        return template != null;
+    }
+
+    /**
+     * Records the visitor of a reported click in the sketches of its hour and day.
+     *
+     * @param linkId the id of the link
+     * @param clickedAt the time of the click, null for now
+     * @param ip the ip of the visitor, a click without ip is not counted
+     */
+    public void recordClick(long linkId, LocalDateTime clickedAt, String ip) {
+        if (ip == null || ip.isBlank()) {
+            return;
+        }
+        if (pendingVisitors.get() >= properties.getMaxPending()) {
+            dropped.increment();
+            return;
+        }
+        LocalDateTime time = clickedAt == null ? LocalDateTime.now() : clickedAt;
+        String visitor = Long.toHexString(HyperLogLog.hash(ip.trim()));
+        buffer(new Sketch(key(properties.getKeyPrefix(), linkId, StatisticsGranularity.HOUR, time), properties.getHourRetention()), visitor);
+        buffer(new Sketch(key(properties.getKeyPrefix(), linkId, StatisticsGranularity.DAY, time), properties.getDayRetention()), visitor);
+        recorded.increment();
+    }
+
+    /**
+     * Counts the unique visitors of a link per bucket and over a time range.
+     *
+     * @param linkId the id of the link
+     * @param from the start of the range, inclusive, truncated to the granularity
+     * @param to the end of the range, exclusive
+     * @param granularity the granularity of the buckets, hour or day
+     * @return the visitors of the link
+     * @throws IllegalStateException if the counts are disabled
+     * @throws IllegalArgumentException if the granularity is not counted, or the range is empty or spans more
+     *         buckets than allowed
+     */
+    public StatisticsVisitorsResponse query(long linkId, LocalDateTime from, LocalDateTime to, StatisticsGranularity granularity) {
+        if (template == null) {
+            throw new IllegalStateException("The unique visitor counts are disabled");
+        }
+        if (granularity == StatisticsGranularity.MINUTE) {
+            throw new IllegalArgumentException("The unique visitors are counted per hour or day");
+        }
+        LocalDateTime start = granularity.truncate(from);
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+        List<LocalDateTime> times = new ArrayList<>();
+        for (LocalDateTime time = start; time.isBefore(to); time = time.plus(granularity.step())) {
+            if (times.size() == properties.getMaxBuckets()) {
+                throw new IllegalArgumentException("The range spans more than the maximum of " + properties.getMaxBuckets() + " buckets");
+            }
+            times.add(time);
+        }
+        String[] keys = times.stream().map(time -> key(properties.getKeyPrefix(), linkId, granularity, time)).toArray(String[]::new);
+
+        return queries.record(() -> {
+            List<Object> counts = template.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (String key : keys) {
+                    redis.pfCount(key);
+                }
+                return null;
+            });
+            List<StatisticsVisitorsResponse.Bucket> buckets = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                long visitors = counts.get(i) instanceof Number count ? count.longValue() : 0;
+                if (visitors > 0) {
+                    buckets.add(new StatisticsVisitorsResponse.Bucket(times.get(i), visitors));
+                }
+            }
+            Long total = buckets.isEmpty() ? Long.valueOf(0) : template.opsForHyperLogLog().size(keys);
+            return StatisticsVisitorsResponse.builder()
+                    .linkId(linkId)
+                    .granularity(granularity.column())
+                    .from(start)
+                    .to(to)
+                    .visitors(total == null ? 0 : total)
+                    .buckets(buckets)
+                    .build();
+        });
+    }
+
+    /**
+     * Builds the key of the sketch of a link and bucket.
+     *
+     * @param prefix the prefix of the keys
+     * @param linkId the id of the link
+     * @param granularity the granularity of the bucket, hour or day
+     * @param time a time of the bucket
+     * @return the key
+     */
+    static String key(String prefix, long linkId, StatisticsGranularity granularity, LocalDateTime time) {
+        DateTimeFormatter format = granularity == StatisticsGranularity.DAY ? DAY_FORMAT : HOUR_FORMAT;
+        return prefix + ":{" + linkId + "}:" + granularity.column() + ":" + format.format(time);
+    }
+
+    /**
+     * Adds a visitor to the buffer of a sketch. The buffer of a sketch is only changed under the lock of its entry,
+     * so a visitor is either in a buffer taken by the flush or in the next one.
+     *
+     * @param sketch the sketch
+     * @param visitor the hash of the visitor
+     */
+    private void buffer(Sketch sketch, String visitor) {
+        pending.compute(sketch, (key, visitors) -> {
+            Set<String> set = visitors == null ? new HashSet<>() : visitors;
+            if (set.add(visitor)) {
+                pendingVisitors.incrementAndGet();
+            }
+            return set;
+        });
+    }
+
+    /**
+     * Sends the buffered visitors to their sketches in one pipeline. On a failure, the visitors are buffered again
+     * for the next flush.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Sketch, Set<String>> batch = new HashMap<>();
+        for (Sketch sketch : pending.keySet()) {
+            Set<String> visitors = pending.remove(sketch);
+            if (visitors != null) {
+                batch.put(sketch, visitors);
+                pendingVisitors.addAndGet(-visitors.size());
+            }
+        }
+        try {
+            template.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (Map.Entry<Sketch, Set<String>> entry : batch.entrySet()) {
+                    redis.pfAdd(entry.getKey().key(), entry.getValue().toArray(String[]::new));
+                    redis.pExpire(entry.getKey().key(), entry.getKey().retention());
+                }
+                return null;
+            });
+            if (log.isDebugEnabled()) {
+                log.debug("Sent the visitors of {} sketches", batch.size());
+            }
+        } catch (Exception e) {
+            failures.increment();
+            if (log.isErrorEnabled()) {
+                log.error("Failed to send the visitors of {} sketches", batch.size(), e);
+            }
+            batch.forEach((sketch, visitors) -> visitors.forEach(visitor -> buffer(sketch, visitor)));
+        }
+    }
+
+    /**
+     * Provides the tags of the meters.
+     *
+     * @return the tags
+     */
+    private static Tags tags() {
+        return Tags.of(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME,
+                MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+    }
+}
@@ -0,0 +1,459 @@
+package org.venus.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.venus.support.BinaryReader;
+import org.venus.support.BinaryWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compact, versioned binary serializer for the values that the multi-level cache keeps in Redis.
+ *
+ * {@link CacheWrapper} and {@link CacheListenerMessage} are written without any class names or field names:
+ * numbers are varints, {@link LocalDateTime} values are epoch milliseconds and strings are length-prefixed UTF-8.
+ * Every payload starts with a magic byte and a format version. {@link ValueWrapper} is written as a length-prefixed
+ * record, so that fields appended by a newer version are skipped by older readers and fields missing in older
+ * payloads keep their default values. Original URLs longer than the configured threshold are deflated.
+ * If a {@link UrlPrefixDictionaryRegistry} is enabled, original URLs that start with a prefix of the current
+ * dictionary are written as the dictionary version, the prefix id and the remaining suffix. Old versions are pruned
+ * by the registry, so a {@link CacheWrapper} whose URL refers to a version that is no longer known is read as a miss
+ * (null) and reloaded, rather than failing the read, and an update message whose value refers to such a version is
+ * read as an invalidation of its key.
+ * The generation of a {@link CacheWrapper} is appended after its value only if it is not zero,
+ * so entries of groups that were never invalidated keep the exact layout that older readers expect. Likewise the
+ * generation of an updated entry is appended to a {@link CacheListenerMessage} after its source only if it is set.
+ *
+ * Any other value, and any payload that does not start with the magic byte (for example entries written
+ * by the Jackson serializer before switching), is handled by the delegate serializer.
+ */
+public class BinaryCacheRedisSerializer implements RedisSerializer<Object> {
+    /**
+     * Thrown when an original URL refers to a URL prefix dictionary or a prefix that is not known.
+     */
+    private static class UnknownPrefixException extends SerializationException {
+        UnknownPrefixException(String msg) {
+            super(msg);
+        }
+    }
+
+    /**
+     * The first byte of every binary payload. It can never start a JSON document,
+     * which allows binary and JSON payloads to coexist in Redis during a rollout.
+     */
+    static final int MAGIC = 0xB7;
+    /**
+     * The current version of the binary format.
+     */
+    static final int VERSION = 2;
+    /**
+     * The version of the binary format without URL prefix dictionary encoding. It is still written while the
+     * dictionary is disabled, so that nodes that only know this version keep reading the payloads.
+     */
+    static final int VERSION_WITHOUT_URL_PREFIX = 1;
+    /**
+     * The payload type of a {@link CacheWrapper}.
+     */
+    private static final int TYPE_CACHE_WRAPPER = 1;
+    /**
+     * The payload type of a {@link CacheListenerMessage}.
+     */
+    private static final int TYPE_LISTENER_MESSAGE = 2;
+    /**
+     * The value tag of a null value.
+     */
+    private static final int VALUE_NULL = 0;
+    /**
+     * The value tag of a {@link ValueWrapper} record.
+     */
+    private static final int VALUE_WRAPPER = 1;
+    /**
+     * The value tag of a {@link String}.
+     */
+    private static final int VALUE_STRING = 2;
+    /**
+     * The value tag of a {@link Long}.
+     */
+    private static final int VALUE_LONG = 3;
+    /**
+     * The value tag of any other value, whose bytes are produced by the delegate serializer.
+     */
+    private static final int VALUE_DELEGATED = 15;
+    /**
+     * The record flag that indicates that the expiration time is present.
+     */
+    private static final int FLAG_EXPIRES_AT = 1;
+    /**
+     * The record flag that indicates that the original URL is deflated.
+     */
+    private static final int FLAG_URL_DEFLATED = 1 << 1;
+    /**
+     * The record flag that indicates that the original URL is written as a dictionary prefix and a suffix.
+     */
+    private static final int FLAG_URL_PREFIXED = 1 << 2;
+
+    /**
+     * The serializer used for values that have no binary representation and for non-binary payloads.
+     */
+    private final RedisSerializer<Object> delegate;
+    /**
+     * The UTF-8 length in bytes from which original URLs are deflated, zero or less disables compression.
+     */
+    private final int urlCompressThreshold;
+    /**
+     * The registry of the URL prefix dictionaries, or null if URLs are not dictionary-encoded.
+     */
+    private final UrlPrefixDictionaryRegistry dictionaryRegistry;
+
+    /**
+     * Constructs a BinaryCacheRedisSerializer without URL prefix dictionary encoding.
+     *
+     * @param delegate the serializer used for values without a binary representation and for non-binary payloads
+     * @param urlCompressThreshold the URL length in bytes from which original URLs are deflated, zero or less disables compression
+     */
+    public BinaryCacheRedisSerializer(RedisSerializer<Object> delegate, int urlCompressThreshold) {
+        this(delegate, urlCompressThreshold, null);
+    }
+
+    /**
+     * Constructs a BinaryCacheRedisSerializer.
+     *
+     * @param delegate the serializer used for values without a binary representation and for non-binary payloads
+     * @param urlCompressThreshold the URL length in bytes from which original URLs are deflated, zero or less disables compression
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries, null disables dictionary encoding
+     */
+    public BinaryCacheRedisSerializer(RedisSerializer<Object> delegate, int urlCompressThreshold, UrlPrefixDictionaryRegistry dictionaryRegistry) {
+        this.delegate = delegate;
+        this.urlCompressThreshold = urlCompressThreshold;
+        this.dictionaryRegistry = dictionaryRegistry;
+    }
+
+    /**
+     * Serializes the given value. Cache wrappers and listener messages are written in the binary format,
+     * any other value is passed to the delegate serializer.
+     *
+     * @param value the value to serialize, may be null
+     * @return the serialized bytes
+     * @throws SerializationException if the value cannot be serialized
+     */
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof CacheWrapper wrapper) {
+            BinaryWriter writer = header(TYPE_CACHE_WRAPPER);
+            writer.writeString(wrapper.getKey());
+            writeValue(writer, wrapper.getValue());
+            if (wrapper.getGeneration() != 0) {
+                writer.writeVarLong(wrapper.getGeneration());
+            }
+            return writer.toByteArray();
+        }
+        if (value instanceof CacheListenerMessage message) {
+            BinaryWriter writer = header(TYPE_LISTENER_MESSAGE);
+            writer.writeString(message.getName());
+            writer.writeVarInt(message.getType() == null ? 0 : message.getType().ordinal() + 1);
+            writer.writeString(message.getKey());
+            writeValue(writer, message.getValue());
+            writer.writeString(message.getSource());
+            if (message.getGeneration() != null) {
+                writer.writeVarLong(message.getGeneration());
+            }
+            return writer.toByteArray();
+        }
+        return delegate.serialize(value);
+    }
+
+    /**
+     * Deserializes the given bytes. Binary payloads are decoded directly, anything else is passed
+     * to the delegate serializer.
+     *
+     * @param bytes the bytes to deserialize, may be null
+     * @return the deserialized value, or null if the bytes are null or empty
+     * @throws SerializationException if the bytes cannot be deserialized
+     */
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            return delegate.deserialize(bytes);
+        }
+        try {
+            BinaryReader reader = new BinaryReader(bytes);
+            reader.readByte();
+            int version = reader.readByte();
+            if (version > VERSION) {
+                throw new SerializationException("Unsupported binary cache format version: " + version);
+            }
+            int type = reader.readVarInt();
+            if (type == TYPE_CACHE_WRAPPER) {
+                String key = reader.readString();
+                Object value;
+                try {
+                    value = readValue(reader);
+                } catch (UnknownPrefixException e) {
+                    // the dictionary of the URL is pruned, the entry misses and is reloaded
+                    return null;
+                }
+                return new CacheWrapper(key, value, reader.hasRemaining() ? reader.readVarLong() : 0);
+            }
+            if (type == TYPE_LISTENER_MESSAGE) {
+                CacheListenerMessage message = new CacheListenerMessage();
+                message.setName(reader.readString());
+                int ordinal = reader.readVarInt();
+                message.setType(ordinal == 0 ? null : CacheMessageListenerType.values()[ordinal - 1]);
+                message.setKey(reader.readString());
+                try {
+                    message.setValue(readValue(reader));
+                } catch (UnknownPrefixException e) {
+                    // the value is a length-prefixed record that has been skipped, the receivers drop the key instead
+                    message.setType(CacheMessageListenerType.INVALIDATE);
+                }
+                message.setSource(reader.readString());
+                if (reader.hasRemaining()) {
+                    message.setGeneration(reader.readVarLong());
+                }
+                return message;
+            }
+            throw new SerializationException("Unknown binary cache payload type: " + type);
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            throw new SerializationException("Malformed binary cache payload", e);
+        }
+    }
+
+    /**
+     * Creates a writer that already holds the payload header.
+     *
+     * @param type the payload type
+     * @return a writer positioned after the header
+     */
+    private BinaryWriter header(int type) {
+        return new BinaryWriter().writeByte(MAGIC).writeByte(prefixEnabled() ? VERSION : VERSION_WITHOUT_URL_PREFIX).writeVarInt(type);
+    }
+
+    /**
+     * Indicates whether original URLs are written with the URL prefix dictionary.
+     *
+     * @return true if dictionary encoding is enabled
+     */
+    private boolean prefixEnabled() {
+        return dictionaryRegistry != null && dictionaryRegistry.isEnabled();
+    }
+
+    /**
+     * Writes a tagged value.
+     *
+     * @param writer the writer to write into
+     * @param value the value to write, may be null
+     */
+    private void writeValue(BinaryWriter writer, Object value) {
+        if (value == null) {
+            writer.writeVarInt(VALUE_NULL);
+        } else if (value instanceof ValueWrapper valueWrapper) {
+            writer.writeVarInt(VALUE_WRAPPER);
+            writeValueWrapper(writer, valueWrapper);
+        } else if (value instanceof String s) {
+            writer.writeVarInt(VALUE_STRING).writeString(s);
+        } else if (value instanceof Long l) {
+            writer.writeVarInt(VALUE_LONG).writeZigZagLong(l);
+        } else {
+            writer.writeVarInt(VALUE_DELEGATED).writeBytes(delegate.serialize(value));
+        }
+    }
+
+    /**
+     * Reads a tagged value.
+     *
+     * @param reader the reader to read from
+     * @return the value, may be null
+     */
+    private Object readValue(BinaryReader reader) {
+        int tag = reader.readVarInt();
+        return switch (tag) {
+            case VALUE_NULL -> null;
+            case VALUE_WRAPPER -> readValueWrapper(reader);
+            case VALUE_STRING -> reader.readString();
+            case VALUE_LONG -> reader.readZigZagLong();
+            case VALUE_DELEGATED -> delegate.deserialize(reader.readBytes());
+            default -> throw new SerializationException("Unknown binary cache value tag: " + tag);
+        };
+    }
+
+    /**
+     * Writes a {@link ValueWrapper} as a length-prefixed record.
+     * New fields must only ever be appended to the end of the record.
+     *
+     * @param writer the writer to write into
+     * @param value the value to write
+     */
+    private void writeValueWrapper(BinaryWriter writer, ValueWrapper value) {
+        String originalUrl = value.getOriginalUrl();
+        UrlPrefixDictionary dictionary = null;
+        int prefixId = -1;
+        if (originalUrl != null && prefixEnabled()) {
+            dictionaryRegistry.observe(originalUrl);
+            dictionary = dictionaryRegistry.current();
+            prefixId = dictionary.match(originalUrl);
+            if (prefixId >= 0) {
+                originalUrl = originalUrl.substring(dictionary.prefix(prefixId).length());
+            }
+        }
+        byte[] url = originalUrl == null ? null : originalUrl.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = null;
+        if (url != null && urlCompressThreshold > 0 && url.length >= urlCompressThreshold) {
+            deflated = deflate(url);
+            if (deflated.length >= url.length) {
+                deflated = null;
+            }
+        }
+
+        int flags = 0;
+        if (value.getExpiresAt() != null) {
+            flags |= FLAG_EXPIRES_AT;
+        }
+        if (deflated != null) {
+            flags |= FLAG_URL_DEFLATED;
+        }
+        if (prefixId >= 0) {
+            flags |= FLAG_URL_PREFIXED;
+        }
+
+        BinaryWriter record = new BinaryWriter(32 + (url == null ? 0 : url.length));
+        record.writeVarInt(flags);
+        record.writeZigZagLong(value.getId());
+        record.writeString(value.getCode());
+        record.writeZigZagInt(value.getRedirect());
+        if (prefixId >= 0) {
+            record.writeVarInt(dictionary.version());
+            record.writeVarInt(prefixId);
+        }
+        if (deflated != null) {
+            record.writeVarInt(url.length);
+            record.writeBytes(deflated);
+        } else {
+            record.writeBytes(url);
+        }
+        if (value.getExpiresAt() != null) {
+            record.writeZigZagLong(value.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        record.writeZigZagInt(value.getIsActive());
+
+        writer.writeVarInt(record.size());
+        writer.writeRaw(record.buffer(), 0, record.size());
+    }
+
+    /**
+     * Reads a {@link ValueWrapper} record, skipping any trailing fields that this version does not know.
+     *
+     * @param reader the reader to read from
+     * @return the value
+     */
+    private ValueWrapper readValueWrapper(BinaryReader reader) {
+        BinaryReader record = reader.slice(reader.readVarInt());
+        ValueWrapper value = new ValueWrapper();
+        int flags = record.readVarInt();
+        value.setId(record.readZigZagLong());
+        value.setCode(record.readString());
+        value.setRedirect(record.readZigZagInt());
+        String prefix = null;
+        if ((flags & FLAG_URL_PREFIXED) != 0) {
+            prefix = readPrefix(record.readVarInt(), record.readVarInt());
+        }
+        String url;
+        if ((flags & FLAG_URL_DEFLATED) != 0) {
+            int length = record.readVarInt();
+            url = new String(inflate(record.readBytes(), length), StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = record.readBytes();
+            url = bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+        value.setOriginalUrl(prefix == null ? url : prefix.concat(url));
+        if ((flags & FLAG_EXPIRES_AT) != 0) {
+            long millis = record.readZigZagLong();
+            value.setExpiresAt(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC));
+        }
+        if (record.hasRemaining()) {
+            value.setIsActive((short) record.readZigZagInt());
+        }
+        return value;
+    }
+
+    /**
+     * Resolves a prefix of the URL prefix dictionary.
+     *
+     * @param version the version of the dictionary
+     * @param id the id of the prefix
+     * @return the prefix
+     * @throws UnknownPrefixException if the dictionary or the prefix is unknown, e.g. because the version is pruned
+     */
+    private String readPrefix(int version, int id) {
+        UrlPrefixDictionary dictionary = dictionaryRegistry == null ? null : dictionaryRegistry.dictionary(version);
+        String prefix = dictionary == null ? null : dictionary.prefix(id);
+        if (prefix == null) {
+            throw new UnknownPrefixException("Unknown URL prefix " + id + " of dictionary version " + version);
+        }
+        return prefix;
+    }
+
+    /**
+     * Deflates the given bytes.
+     *
+     * @param input the bytes to deflate
+     * @return the deflated bytes
+     */
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            byte[] output = new byte[input.length + 16];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length << 1);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates the given bytes.
+     *
+     * @param input the deflated bytes
+     * @param length the length of the original bytes
+     * @return the original bytes
+     */
+    private static byte[] inflate(byte[] input, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[length];
+            int n = 0;
+            while (n < length) {
+                int read = inflater.inflate(output, n, length - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Truncated deflated URL, expected " + length + " bytes but got " + n);
+                }
+                n += read;
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Malformed deflated URL", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
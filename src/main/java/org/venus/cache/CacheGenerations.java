@@ -0,0 +1,330 @@
+package org.venus.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the generations of the groups of entries of one multi-level cache, so that all entries of a group can be
+ * invalidated at once in O(1).
+ *
+ * The group of a link is the origin ({@code scheme://host[:port]}) of its original URL, which is what a campaign
+ * usually shares. Every entry records the generation of its group when it is written, and an entry whose generation
+ * is older than the current generation of its group is treated as a miss on its next access. Bumping a group
+ * increments its counter in the Redis hash {@code <cache-name>:generations} and is announced to the other nodes
+ * with a single message, instead of one write and one message per entry. Nodes that missed the message adopt
+ * the counters from Redis at the latest after the refresh interval.
+ *
+ * An entry is stamped with the generation its group had when its value was read, not when it is written: a load
+ * that read the database before an update committed may write after the bump that followed the update, and must
+ * not be served as fresh. A writer therefore takes a {@link #snapshot()} before it reads, and every change of a
+ * generation known to this node is numbered with a local version, so that a group changed after the snapshot
+ * stamps the entry as stale.
+ *
+ * The check of an entry runs on every hit of the primary cache, so it does not allocate: the generations of the
+ * bumped groups are also kept in an open-addressing table, which is rebuilt on the rare change of a generation and
+ * probed with the hash of the origin computed in place from the URL. Only origins with non-ASCII characters take
+ * the path that extracts the origin.
+ */
+@Slf4j
+public class CacheGenerations {
+    /**
+     * The Redis hash that holds the generation of every group that has been bumped.
+     */
+    private final String generationsKey;
+    /**
+     * The template used to read and increment the generations.
+     */
+    private final StringRedisTemplate template;
+    /**
+     * The generation of a group and the local version of its last change.
+     *
+     * @param value the generation
+     * @param version the version of this node at which the generation was adopted
+     */
+    private record Generation(long value, long version) {
+    }
+
+    /**
+     * An immutable open-addressing table of the generations of the bumped groups, probed linearly.
+     *
+     * @param groups the groups by slot, null for an empty slot
+     * @param values the generations by slot
+     */
+    private record Index(String[] groups, long[] values) {
+        /**
+         * The table without any group.
+         */
+        static final Index EMPTY = new Index(new String[0], new long[0]);
+
+        /**
+         * Builds the table of the given generations, with at most half of the slots taken.
+         *
+         * @param generations the generations by group
+         * @return the table
+         */
+        static Index of(Map<String, Generation> generations) {
+            if (generations.isEmpty()) {
+                return EMPTY;
+            }
+            int size = Integer.highestOneBit(Math.max(1, generations.size()) * 4 - 1);
+            String[] groups = new String[size];
+            long[] values = new long[size];
+            generations.forEach((group, generation) -> {
+                int slot = group.hashCode() & (size - 1);
+                while (groups[slot] != null) {
+                    slot = (slot + 1) & (size - 1);
+                }
+                groups[slot] = group;
+                values[slot] = generation.value();
+            });
+            return new Index(groups, values);
+        }
+    }
+
+    /**
+     * The generations known to this node, keyed by group. Groups that were never bumped are at generation zero.
+     */
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+    /**
+     * The version of the last change of a generation known to this node.
+     */
+    private final AtomicLong versions = new AtomicLong();
+    /**
+     * The generations of the bumped groups, for the checks of the entries.
+     */
+    private volatile Index index = Index.EMPTY;
+    /**
+     * The interval in milliseconds in which the generations are reloaded from Redis.
+     */
+    private final long refreshInterval;
+    /**
+     * The time in milliseconds when the generations were last reloaded from Redis.
+     */
+    private volatile long lastRefresh;
+    /**
+     * Indicates whether a reload of the generations is in progress.
+     */
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Constructs a CacheGenerations and loads the current generations from Redis.
+     *
+     * @param cacheName the name of the cache
+     * @param factory the connection factory of the second level cache
+     * @param properties the properties of the cache
+     */
+    public CacheGenerations(String cacheName, RedisConnectionFactory factory, MultiLevelCacheProperties properties) {
+        this.generationsKey = cacheName + ":generations";
+        this.template = new StringRedisTemplate(factory);
+        this.refreshInterval = properties.getGenerationRefreshInterval();
+        refresh();
+    }
+
+    /**
+     * Determines the group of a cached value.
+     *
+     * @param value the cached value
+     * @return the origin of the original URL of a link, or null if the value belongs to no group
+     */
+    public static String group(Object value) {
+        return value instanceof ValueWrapper link ? origin(link.getOriginalUrl()) : null;
+    }
+
+    /**
+     * Extracts the lower-cased origin, the scheme and the authority, of a URL.
+     *
+     * @param url the URL
+     * @return the origin, or null if the URL has no scheme
+     */
+    public static String origin(String url) {
+        if (url == null) {
+            return null;
+        }
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return null;
+        }
+        int end = url.length();
+        for (int i = scheme + 3; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return end == scheme + 3 ? null : url.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Provides the current generation of the given group.
+     *
+     * @param group the group
+     * @return the generation, zero if the group has never been bumped
+     */
+    public long current(String group) {
+        refreshIfDue();
+        Generation generation = generations.get(group);
+        return generation == null ? 0 : generation.value();
+    }
+
+    /**
+     * Takes a snapshot of the generations known to this node, before a value is read.
+     *
+     * @return the snapshot, to pass to {@link #wrap(String, Object, long)}
+     */
+    public long snapshot() {
+        return versions.get();
+    }
+
+    /**
+     * Wraps a value into an entry stamped with the generation of its group at the time of a snapshot. If the
+     * generation changed after the snapshot, the entry is stamped below the current generation, so it is stale.
+     *
+     * @param key the key of the entry
+     * @param value the value, may be null
+     * @param snapshot the snapshot taken before the value was read
+     * @return the stamped entry
+     */
+    public CacheWrapper wrap(String key, Object value, long snapshot) {
+        String group = group(value);
+        if (group == null) {
+            return new CacheWrapper(key, value);
+        }
+        long current = current(group);
+        Generation generation = generations.get(group);
+        return new CacheWrapper(key, value, generation != null && generation.version() > snapshot ? generation.value() - 1 : current);
+    }
+
+    /**
+     * Checks whether the given entry was written before the last bump of the generation of its group.
+     * It does not allocate unless the origin of the entry has non-ASCII characters.
+     *
+     * @param wrapper the entry to check
+     * @return true if the entry is stale
+     */
+    public boolean isStale(CacheWrapper wrapper) {
+        refreshIfDue();
+        Index index = this.index;
+        if (index.groups().length == 0 || !(wrapper.getValue() instanceof ValueWrapper link)) {
+            return false;
+        }
+        return wrapper.getGeneration() < generation(index, link.getOriginalUrl());
+    }
+
+    /**
+     * Looks up the generation of the origin of a URL in a table, without extracting the origin.
+     *
+     * @param index the table of the generations
+     * @param url the URL
+     * @return the generation of the origin, zero if it has never been bumped or the URL has no origin
+     */
+    private long generation(Index index, String url) {
+        if (url == null) {
+            return 0;
+        }
+        int scheme = url.indexOf("://");
+        if (scheme <= 0) {
+            return 0;
+        }
+        // the hash of the lower-cased origin, as String#hashCode computes it for the group
+        int hash = 0;
+        int end = url.length();
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (i >= scheme + 3 && (c == '/' || c == '?' || c == '#')) {
+                end = i;
+                break;
+            }
+            if (c >= 0x80) {
+                String group = origin(url);
+                Generation generation = group == null ? null : generations.get(group);
+                return generation == null ? 0 : generation.value();
+            }
+            hash = 31 * hash + (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+        if (end == scheme + 3) {
+            return 0;
+        }
+        String[] groups = index.groups();
+        int mask = groups.length - 1;
+        for (int slot = hash & mask; groups[slot] != null; slot = (slot + 1) & mask) {
+            String group = groups[slot];
+            if (group.length() == end && group.regionMatches(true, 0, url, 0, end)) {
+                return index.values()[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reloads the generations from Redis in the background once the refresh interval has passed.
+     */
+    private void refreshIfDue() {
+        if (System.currentTimeMillis() - lastRefresh > refreshInterval && refreshing.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("venus-cache-generations-refresh").start(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Bumps the generation of the given group in Redis, which invalidates all its entries.
+     *
+     * @param group the group
+     * @return the new generation of the group
+     */
+    public long bump(String group) {
+        Long generation = template.opsForHash().increment(generationsKey, group, 1);
+        advance(group, generation);
+        return generation;
+    }
+
+    /**
+     * Adopts the given generation of a group announced by another node, unless a newer one is known already.
+     *
+     * @param group the group
+     * @param generation the generation of the group
+     */
+    public void advance(String group, long generation) {
+        long before = versions.get();
+        generations.compute(group, (key, known) -> known != null && known.value() >= generation
+                ? known : new Generation(generation, versions.incrementAndGet()));
+        if (versions.get() != before) {
+            reindex();
+        }
+    }
+
+    /**
+     * Rebuilds the table of the generations after a change. The table is built from the generations as they are
+     * under the lock, so the last rebuild includes every change that triggered a rebuild before it.
+     */
+    private synchronized void reindex() {
+        index = Index.of(generations);
+    }
+
+    /**
+     * Reloads the generations of all groups from Redis.
+     */
+    public void refresh() {
+        lastRefresh = System.currentTimeMillis();
+        try {
+            Map<Object, Object> entries = template.opsForHash().entries(generationsKey);
+            entries.forEach((group, generation) -> advance((String) group, Long.parseLong((String) generation)));
+        } catch (Exception e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Load the generations[key:{}] of the cache is failure", generationsKey, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.venus.cache;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hands out the fill leases of one multi-level cache, in the style of memcache leases.
+ *
+ * The first node that misses a key acquires a short-lived lease, a random token stored in Redis under
+ * {@code <cache-name>:lease:<key>}, and is the only one that loads the value, while the other nodes wait for
+ * the value to appear in the second level cache. The value is only written back if the lease is still held,
+ * which is checked atomically by the second cache layout. Writing or evicting the key deletes the lease,
+ * so a fill that started before the change is rejected instead of writing stale data back.
+ */
+public class CacheLeases {
+    /**
+     * Deletes a lease only if it is still held with the given token.
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0", Long.class);
+
+    /**
+     * The name of the cache, used as the prefix of the lease keys.
+     */
+    private final String cacheName;
+    /**
+     * The template used to acquire and delete the leases.
+     */
+    private final StringRedisTemplate template;
+    /**
+     * The time in milliseconds after which an unused lease expires.
+     */
+    private final Duration leaseTimeout;
+
+    /**
+     * Constructs a CacheLeases.
+     *
+     * @param cacheName the name of the cache
+     * @param factory the connection factory of the second level cache
+     * @param properties the properties of the cache
+     */
+    public CacheLeases(String cacheName, RedisConnectionFactory factory, MultiLevelCacheProperties properties) {
+        this.cacheName = cacheName;
+        this.template = new StringRedisTemplate(factory);
+        this.leaseTimeout = Duration.ofMillis(properties.getLeaseTimeout());
+    }
+
+    /**
+     * Builds the Redis key of the lease of the given cache key.
+     *
+     * @param key the cache key
+     * @return the lease key
+     */
+    public String leaseKey(String key) {
+        return cacheName + ":lease:" + key;
+    }
+
+    /**
+     * Tries to acquire the lease of the given cache key.
+     *
+     * @param key the cache key
+     * @return the token of the lease, or null if another caller holds the lease
+     */
+    public String acquire(String key) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = template.opsForValue().setIfAbsent(leaseKey(key), token, leaseTimeout);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * Gives up the lease of the given cache key if it is still held with the given token,
+     * so that waiting callers do not have to wait for it to expire.
+     *
+     * @param key the cache key
+     * @param token the token of the lease
+     */
+    public void release(String key, String token) {
+        template.execute(RELEASE_SCRIPT, List.of(leaseKey(key)), token);
+    }
+
+    /**
+     * Invalidates any outstanding lease of the given cache key, so that its fill is rejected.
+     *
+     * @param key the cache key
+     */
+    public void invalidate(String key) {
+        template.delete(leaseKey(key));
+    }
+}
@@ -24,6 +24,7 @@ import java.io.Serializable;
  * - key: The specific cache key that is affected by this message.
  * - value: The value to be associated with the cache key (typically used for updates).
  * - source: The source of the message, used to identify the origin of the cache change.
+ * - generation: The generation the updated entry was stamped with by its sender, if generations are enabled.
  *
  * Overrides:
  * - toString: Provides a string representation of the object for logging or debugging purposes.
@@ -72,11 +73,17 @@ public class CacheListenerMessage implements Serializable {
      * The source of the cache message, used to identify the origin of the cache change.
      */
     private String source;
+    /**
+     * The generation of the group of the value that the sender stamped the updated entry with, null if the cache
+     * has no generations or the sender does not announce them. Receivers stamp their copy with it, so that a value
+     * read before the last bump of its group is stale on every node and not only on its sender.
+     */
+    private Long generation;
 
     /**
      * Returns a string representation of the CacheListenerMessage object.
      *
-     * @return A string that contains the values of the name, type, key, value, and source fields.
+     * @return A string that contains the values of the name, type, key, value, source, and generation fields.
      */
     @Override
     public String toString() {
@@ -86,6 +93,7 @@ public class CacheListenerMessage implements Serializable {
                 ", key='" + key + '\'' +
                 ", value=" + value +
                 ", source='" + source + '\'' +
+                ", generation=" + generation +
                 '}';
     }
 }
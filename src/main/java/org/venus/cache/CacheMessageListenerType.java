@@ -5,8 +5,10 @@ package org.venus.cache;
  *
  * The {@code CacheMessageListenerType} enum is used to indicate the type of action to be performed
  * on the cache in response to a message. It can be either {@code UPDATE} to update the cache with
- * a new value or {@code INVALIDATE} to remove the cache entry.
+ * a new value, {@code INVALIDATE} to remove the cache entry, or {@code GENERATION} to adopt the new generation
+ * of a group of entries, which lazily invalidates all entries of the group.
+ * The binary serializer writes the ordinal of the type, so new types must be appended.
  */
 public enum CacheMessageListenerType {
-    UPDATE, INVALIDATE
+    UPDATE, INVALIDATE, GENERATION
 }
@@ -28,7 +28,6 @@ public class CacheWrapper implements Serializable {
      * This key is used to uniquely identify and access the corresponding value in the cache.
      */
     @Getter
-    @Setter
     private String key;
     /**
      * The value associated with the cache entry.
@@ -37,12 +36,16 @@ public class CacheWrapper implements Serializable {
     private Object value;
     /**
      * The precomputed hash code for the cache entry, combining the hash codes of the key and value.
-     * This value is calculated when a CacheWrapper object is instantiated and is used in the
-     * hashCode() method to efficiently retrieve the hash code for the cache entry.
      */
     @Getter
-    @Setter
-    private int hash;
+    private final int hash;
+    /**
+     * The generation of the group of the cached value when the entry was written, zero if the value belongs to no group
+     * or its group has never been invalidated. The entry is stale once the generation of its group is bumped,
+     * see {@link CacheGenerations}. It is not part of the equality of entries.
+     */
+    @Getter
+    private final long generation;
 
     /**
      * A constant placeholder object used to represent a null value.
@@ -56,19 +59,33 @@ public class CacheWrapper implements Serializable {
      * Initializes a new instance of CacheWrapper with no key or value set.
      */
     private CacheWrapper() {
+        this.hash = 0;
+        this.generation = 0;
     }
 
     /**
-     * Constructs a new CacheWrapper with the specified key and value,
-     * then computes and stores the hash code based on these two parameters.
+     * Constructs a new CacheWrapper with the specified key and value.
      *
      * @param key the key associated with the cached data
      * @param value the value associated with the cached data
      */
     public CacheWrapper(String key, Object value) {
+        this(key, value, 0);
+    }
+
+    /**
+     * Constructs a new CacheWrapper with the specified key and value, written in the given generation of the group
+     * of the value.
+     *
+     * @param key the key associated with the cached data
+     * @param value the value associated with the cached data
+     * @param generation the generation of the group of the value, zero if it belongs to no group
+     */
+    public CacheWrapper(String key, Object value, long generation) {
         this.key = key;
         this.value = maskNullValues(value);
-        this.hash = 31 * (1 + 31 * key.hashCode()) + value.hashCode();
+        this.hash = 31 * (1 + 31 * Objects.hashCode(key)) + Objects.hashCode(value);
+        this.generation = generation;
     }
 
     /**
@@ -80,17 +97,6 @@ public class CacheWrapper implements Serializable {
         return unmaskNullValues(value);
     }
 
-    /**
-     * Sets the value for the cache wrapper.
-     *
-     * This method assigns a masked version of the input value to the instance variable.
-     *
-     * @param value The new value to be set, which will be masked if null.
-     */
-    public void setValue(Object value) {
-        this.value = maskNullValues(value);
-    }
-
     /**
      * Masks null values with a predefined constant.
      *
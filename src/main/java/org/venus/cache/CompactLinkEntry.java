@@ -0,0 +1,186 @@
+package org.venus.cache;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A compact, immutable in-memory form of a {@link ValueWrapper}.
+ *
+ * The code is not kept, because it is the key of the entry, the redirect status and the activation flag
+ * are packed into a single int, the expiration time is kept as epoch milliseconds instead of a
+ * {@link LocalDateTime} object graph, and the original URL is kept as UTF-8 bytes.
+ * If the URL starts with a prefix of a {@link UrlPrefixDictionary}, only the suffix is kept as bytes together with
+ * a reference to the prefix, which is shared by all entries with that prefix.
+ */
+@Getter
+public final class CompactLinkEntry {
+    /**
+     * The expiration time of an entry without expiration.
+     */
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+    /**
+     * The approximate heap cost of an entry besides its URL suffix bytes: the entry, the URL array header,
+     * the boxed key and the node of the cache. Shared prefixes are not accounted.
+     * It is used by the weigher of the primary cache.
+     */
+    static final int ENTRY_OVERHEAD = 128;
+
+    /**
+     * The identifier of the link.
+     */
+    private final long id;
+    /**
+     * The redirect status code in the upper 16 bits and the activation flag in the lower 16 bits.
+     */
+    private final int status;
+    /**
+     * The expiration time as epoch milliseconds, or {@link #NO_EXPIRY}.
+     */
+    private final long expiresAtMillis;
+    /**
+     * The dictionary prefix of the original URL, shared with the dictionary, or null.
+     */
+    private final String urlPrefix;
+    /**
+     * The original URL after its dictionary prefix as UTF-8 bytes, or null.
+     */
+    private final byte[] url;
+    /**
+     * The generation of the group of the link when the entry was written, see {@link CacheGenerations}.
+     */
+    private final long generation;
+
+    /**
+     * Constructs a CompactLinkEntry.
+     *
+     * @param id the identifier of the link
+     * @param status the packed redirect status and activation flag
+     * @param expiresAtMillis the expiration time as epoch milliseconds
+     * @param urlPrefix the dictionary prefix of the original URL
+     * @param url the original URL after its prefix as UTF-8 bytes
+     * @param generation the generation of the group of the link
+     */
+    private CompactLinkEntry(long id, int status, long expiresAtMillis, String urlPrefix, byte[] url, long generation) {
+        this.id = id;
+        this.status = status;
+        this.expiresAtMillis = expiresAtMillis;
+        this.urlPrefix = urlPrefix;
+        this.url = url;
+        this.generation = generation;
+    }
+
+    /**
+     * Creates the compact form of the given value.
+     *
+     * @param value the value to convert
+     * @return the compact entry
+     */
+    public static CompactLinkEntry of(ValueWrapper value) {
+        return of(value, UrlPrefixDictionary.EMPTY);
+    }
+
+    /**
+     * Creates the compact form of the given value, sharing the longest matching prefix of the given dictionary.
+     *
+     * @param value the value to convert
+     * @param dictionary the dictionary of URL prefixes
+     * @return the compact entry
+     */
+    public static CompactLinkEntry of(ValueWrapper value, UrlPrefixDictionary dictionary) {
+        return of(value, dictionary, 0);
+    }
+
+    /**
+     * Creates the compact form of the given value written in the given generation of its group,
+     * sharing the longest matching prefix of the given dictionary.
+     *
+     * @param value the value to convert
+     * @param dictionary the dictionary of URL prefixes
+     * @param generation the generation of the group of the link
+     * @return the compact entry
+     */
+    public static CompactLinkEntry of(ValueWrapper value, UrlPrefixDictionary dictionary, long generation) {
+        LocalDateTime expiresAt = value.getExpiresAt();
+        String originalUrl = value.getOriginalUrl();
+        String urlPrefix = null;
+        int prefixId = dictionary.match(originalUrl);
+        if (prefixId >= 0) {
+            urlPrefix = dictionary.prefix(prefixId);
+            originalUrl = originalUrl.substring(urlPrefix.length());
+        }
+        return new CompactLinkEntry(value.getId(),
+                (value.getRedirect() << 16) | (value.getIsActive() & 0xFFFF),
+                expiresAt == null ? NO_EXPIRY : expiresAt.toInstant(ZoneOffset.UTC).toEpochMilli(),
+                urlPrefix,
+                originalUrl == null ? null : originalUrl.getBytes(StandardCharsets.UTF_8),
+                generation);
+    }
+
+    /**
+     * Restores the cache entry of this entry, including the generation it was written in.
+     *
+     * @param code the code of the link, which is the key of this entry
+     * @return the cache entry
+     */
+    public CacheWrapper toCacheWrapper(String code) {
+        return new CacheWrapper(code, toValueWrapper(code), generation);
+    }
+
+    /**
+     * Restores the value of this entry.
+     *
+     * @param code the code of the link, which is the key of this entry
+     * @return the value
+     */
+    public ValueWrapper toValueWrapper(String code) {
+        LocalDateTime expiresAt = null;
+        if (expiresAtMillis != NO_EXPIRY) {
+            expiresAt = LocalDateTime.ofEpochSecond(Math.floorDiv(expiresAtMillis, 1000L), (int) Math.floorMod(expiresAtMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+        return ValueWrapper.builder()
+                .id(id)
+                .code(code)
+                .redirect(status >> 16)
+                .originalUrl(originalUrl())
+                .expiresAt(expiresAt)
+                .isActive((short) status)
+                .build();
+    }
+
+    /**
+     * Restores the original URL of this entry.
+     *
+     * @return the original URL, or null
+     */
+    private String originalUrl() {
+        if (url == null) {
+            return null;
+        }
+        String suffix = new String(url, StandardCharsets.UTF_8);
+        return urlPrefix == null ? suffix : urlPrefix.concat(suffix);
+    }
+
+    /**
+     * Checks whether the given value can be restored exactly from its compact form, which requires
+     * millisecond precision of the expiration time and a redirect status that fits into 16 bits.
+     *
+     * @param value the value to check
+     * @return true if the value has an exact compact form
+     */
+    public static boolean isCompactable(ValueWrapper value) {
+        return (value.getRedirect() >>> 15) == 0
+                && (value.getExpiresAt() == null || value.getExpiresAt().getNano() % 1_000_000 == 0);
+    }
+
+    /**
+     * Estimates the heap cost of this entry in bytes.
+     *
+     * @return the weight of this entry
+     */
+    public int weight() {
+        return ENTRY_OVERHEAD + (url == null ? 0 : url.length);
+    }
+}
@@ -0,0 +1,224 @@
+package org.venus.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.venus.support.Base64Encoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A memory-efficient layout of the primary cache for link entries.
+ *
+ * Codes that are the canonical Base64 form of a number are decoded to a primitive {@code long} key, and link
+ * values are kept as {@link CompactLinkEntry} instead of a {@link CacheWrapper} holding a {@link ValueWrapper},
+ * its duplicated code and a {@link java.time.LocalDateTime}. The cache should be bounded by weight, so that long
+ * URLs count for what they cost. Any other entry, such as a custom code or a cached miss, is kept in a fallback
+ * layout, so the behavior of the cache does not depend on the layout.
+ *
+ * URLs share their longest prefix of the current {@link UrlPrefixDictionary} if a registry is given.
+ * A hit restores the {@link ValueWrapper}, which trades a few short-lived allocations for several times more
+ * links per GB of heap.
+ */
+public class CompactPrimaryCacheLayout implements PrimaryCacheLayout {
+    /**
+     * The Caffeine cache that holds the compact link entries, keyed by the decoded code.
+     */
+    private final Cache<Long, CompactLinkEntry> compactCache;
+    /**
+     * The layout that holds the entries that have no compact form.
+     */
+    private final PrimaryCacheLayout fallback;
+    /**
+     * The registry of the URL prefix dictionaries, or null if URLs are kept whole.
+     */
+    private final UrlPrefixDictionaryRegistry dictionaryRegistry;
+
+    /**
+     * Constructs a CompactPrimaryCacheLayout that keeps URLs whole.
+     *
+     * @param compactCache the Caffeine cache that holds the compact link entries
+     * @param fallback the layout that holds the entries that have no compact form
+     */
+    public CompactPrimaryCacheLayout(Cache<Long, CompactLinkEntry> compactCache, PrimaryCacheLayout fallback) {
+        this(compactCache, fallback, null);
+    }
+
+    /**
+     * Constructs a CompactPrimaryCacheLayout.
+     *
+     * @param compactCache the Caffeine cache that holds the compact link entries
+     * @param fallback the layout that holds the entries that have no compact form
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries, null keeps URLs whole
+     */
+    public CompactPrimaryCacheLayout(Cache<Long, CompactLinkEntry> compactCache, PrimaryCacheLayout fallback, UrlPrefixDictionaryRegistry dictionaryRegistry) {
+        this.compactCache = compactCache;
+        this.fallback = fallback;
+        this.dictionaryRegistry = dictionaryRegistry;
+    }
+
+    /**
+     * Retrieves the entry of the given cache key, restoring it from its compact form if possible.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        long id = Base64Encoder.INSTANCE.decode(key);
+        if (id >= 0) {
+            CompactLinkEntry entry = compactCache.getIfPresent(id);
+            if (entry != null) {
+                return entry.toCacheWrapper(key);
+            }
+        }
+        return fallback.get(key);
+    }
+
+    /**
+     * Retrieves the entries of the given cache keys with one bulk lookup of the compact cache
+     * and one of the fallback layout for the remaining keys.
+     *
+     * @param keys the cache keys
+     * @return the cached entries by their key, without the keys that are not present
+     */
+    @Override
+    public Map<String, CacheWrapper> getAll(Collection<String> keys) {
+        Map<Long, String> codes = new HashMap<>(keys.size() * 2);
+        List<String> others = new ArrayList<>();
+        for (String key : keys) {
+            long id = Base64Encoder.INSTANCE.decode(key);
+            if (id >= 0) {
+                codes.put(id, key);
+            } else {
+                others.add(key);
+            }
+        }
+
+        Map<String, CacheWrapper> wrappers = new HashMap<>(keys.size() * 2);
+        Map<Long, CompactLinkEntry> entries = compactCache.getAllPresent(codes.keySet());
+        for (Map.Entry<Long, String> code : codes.entrySet()) {
+            CompactLinkEntry entry = entries.get(code.getKey());
+            if (entry != null) {
+                wrappers.put(code.getValue(), entry.toCacheWrapper(code.getValue()));
+            } else {
+                others.add(code.getValue());
+            }
+        }
+        if (!others.isEmpty()) {
+            wrappers.putAll(fallback.getAll(others));
+        }
+        return wrappers;
+    }
+
+    /**
+     * Computes the time until the entry of the given cache key expires, looking it up in the compact cache first.
+     *
+     * @param key the cache key
+     * @return the remaining time-to-live in nanoseconds, or -1 if the entry is not present or does not expire
+     */
+    @Override
+    public long expiresAfterNanos(String key) {
+        long id = Base64Encoder.INSTANCE.decode(key);
+        if (id >= 0) {
+            long remaining = ObjectPrimaryCacheLayout.expiresAfterNanos(compactCache, id);
+            if (remaining >= 0) {
+                return remaining;
+            }
+        }
+        return fallback.expiresAfterNanos(key);
+    }
+
+    /**
+     * Stores the entry of the given cache key, in its compact form if it has one.
+     *
+     * @param key the cache key
+     * @param wrapper the entry to store
+     */
+    @Override
+    public void put(String key, CacheWrapper wrapper) {
+        long id = Base64Encoder.INSTANCE.decode(key);
+        if (id >= 0 && wrapper.getValue() instanceof ValueWrapper value
+                && key.equals(value.getCode()) && CompactLinkEntry.isCompactable(value)) {
+            UrlPrefixDictionary dictionary = dictionaryRegistry == null ? UrlPrefixDictionary.EMPTY : dictionaryRegistry.current();
+            compactCache.put(id, CompactLinkEntry.of(value, dictionary, wrapper.getGeneration()));
+            fallback.invalidate(key);
+            return;
+        }
+        fallback.put(key, wrapper);
+        if (id >= 0) {
+            compactCache.invalidate(id);
+        }
+    }
+
+    /**
+     * Stores the given entries, each in its compact form if it has one.
+     *
+     * @param wrappers the entries to store by their key
+     */
+    @Override
+    public void putAll(Map<String, CacheWrapper> wrappers) {
+        wrappers.forEach(this::put);
+    }
+
+    /**
+     * Removes the entry of the given cache key.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void invalidate(String key) {
+        long id = Base64Encoder.INSTANCE.decode(key);
+        if (id >= 0) {
+            compactCache.invalidate(id);
+        }
+        fallback.invalidate(key);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @Override
+    public void invalidateAll() {
+        compactCache.invalidateAll();
+        fallback.invalidateAll();
+    }
+
+    /**
+     * Returns a snapshot of the keys that are currently cached, encoding the primitive keys back to codes.
+     *
+     * @return the cached keys
+     */
+    @Override
+    public Set<String> keys() {
+        Set<String> keys = new HashSet<>(fallback.keys());
+        for (Long id : compactCache.asMap().keySet()) {
+            keys.add(Base64Encoder.INSTANCE.encode(id));
+        }
+        return keys;
+    }
+
+    /**
+     * Provides the Caffeine cache of the fallback layout, which holds the entries that have no compact form.
+     *
+     * @return the cache of wrapped entries
+     */
+    @Override
+    public Cache<String, Object> objectCache() {
+        return fallback.objectCache();
+    }
+
+    /**
+     * Provides the Caffeine cache that holds the compact link entries.
+     *
+     * @return the Caffeine cache
+     */
+    @Override
+    public Cache<Long, CompactLinkEntry> nativeCache() {
+        return compactCache;
+    }
+}
@@ -0,0 +1,92 @@
+package org.venus.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The layout of a cache that does not use the second level (Redis) cache.
+ * Nothing is stored and every lookup misses, so the cache is backed by the primary cache alone,
+ * which is still kept in sync across nodes by the cache synchronization messages.
+ */
+public class DisabledSecondCacheLayout implements SecondCacheLayout {
+    /**
+     * The shared instance, the layout has no state.
+     */
+    public static final DisabledSecondCacheLayout INSTANCE = new DisabledSecondCacheLayout();
+
+    /**
+     * Retrieves nothing.
+     *
+     * @param key the cache key
+     * @return always null
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        return null;
+    }
+
+    /**
+     * Retrieves nothing.
+     *
+     * @param keys the cache keys
+     * @return a list of nulls of the size of the given keys
+     */
+    @Override
+    public List<CacheWrapper> multiGet(List<String> keys) {
+        return new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
+    /**
+     * Stores nothing.
+     *
+     * @param key the cache key
+     * @param value the value to store
+     * @param snapshot the snapshot of the generations
+     */
+    @Override
+    public void set(String key, Object value, long snapshot) {
+    }
+
+    /**
+     * Stores nothing.
+     *
+     * @param values the values to store by their cache key
+     * @param snapshot the snapshot of the generations
+     */
+    @Override
+    public void setAll(Map<String, Object> values, long snapshot) {
+    }
+
+    /**
+     * Stores nothing.
+     *
+     * @param key the cache key
+     * @param value the value to store
+     * @param leaseKey the Redis key of the lease
+     * @param token the token of the lease
+     * @param snapshot the snapshot of the generations
+     * @return always true
+     */
+    @Override
+    public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+        return true;
+    }
+
+    /**
+     * Deletes nothing.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void delete(String key) {
+    }
+
+    /**
+     * Clears nothing.
+     */
+    @Override
+    public void clear() {
+    }
+}
@@ -0,0 +1,460 @@
+package org.venus.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.CircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A second cache layout that protects the cache from a slow or unavailable Redis with a {@link CircuitBreaker}.
+ *
+ * While the breaker is open, lookups miss immediately, so that an L1 miss goes to the database instead of waiting
+ * for the Redis timeout, and writes are kept in a bounded write buffer instead of failing. The buffer holds the
+ * latest write of every key, so repeated writes of a hot key take one slot, and it is replayed in the background
+ * once Redis recovers, the replay also being the probe that detects the recovery. A direct write of a key drops
+ * its buffered write, and supersedes it if it is being replayed: the replay skips the key if it has not written it
+ * yet, and otherwise writes the newer value again after it, so a replay never leaves older data behind. Writes that
+ * do not fit into the full buffer are dropped and counted; the second level time-to-live bounds how long such a key
+ * may be stale in Redis.
+ */
+@Slf4j
+public class GuardedSecondCacheLayout implements SecondCacheLayout {
+    /**
+     * Replays the write buffers of all guarded caches.
+     */
+    private static final ScheduledExecutorService REPLAY_EXECUTOR = Executors.newScheduledThreadPool(1,
+            Thread.ofVirtual().name("venus-cache-replay-buffered-writes").factory());
+    /**
+     * The maximum number of buffered writes replayed with a single bulk write.
+     */
+    private static final int REPLAY_BATCH_SIZE = 500;
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * A buffered write of a key.
+     *
+     * @param value the value to write, may be null
+     * @param delete true if the key is deleted
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    private record PendingWrite(Object value, boolean delete, long snapshot) {
+    }
+
+    /**
+     * The name of the cache, used in the logs.
+     */
+    private final String cacheName;
+    /**
+     * The layout that accesses Redis.
+     */
+    private final SecondCacheLayout delegate;
+    /**
+     * The circuit breaker of the Redis calls.
+     */
+    private final CircuitBreaker breaker;
+    /**
+     * The maximum number of buffered writes.
+     */
+    private final int bufferSize;
+    /**
+     * The buffered writes by their cache key, in the order of their first write.
+     */
+    private final Map<String, PendingWrite> buffer = new LinkedHashMap<>();
+    /**
+     * The keys of the batch being replayed, guarded by the lock of the buffer.
+     */
+    private final Set<String> replaying = new HashSet<>();
+    /**
+     * The latest direct writes of keys that were being replayed, by their cache key, guarded by the lock of the buffer.
+     */
+    private final Map<String, PendingWrite> superseded = new HashMap<>();
+    /**
+     * Counts the writes that have been buffered.
+     */
+    private final Counter bufferedWrites;
+    /**
+     * Counts the writes that have been dropped because the buffer was full.
+     */
+    private final Counter droppedWrites;
+    /**
+     * Counts the buffered writes that have been replayed.
+     */
+    private final Counter replayedWrites;
+
+    /**
+     * Constructs a GuardedSecondCacheLayout and schedules the replay of its write buffer.
+     *
+     * @param cacheName the name of the cache
+     * @param delegate the layout that accesses Redis
+     * @param breaker the circuit breaker of the Redis calls
+     * @param properties the properties of the cache
+     */
+    public GuardedSecondCacheLayout(String cacheName, SecondCacheLayout delegate, CircuitBreaker breaker, MultiLevelCacheProperties properties) {
+        this.cacheName = cacheName;
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.bufferSize = properties.getSecondLevelWriteBufferSize();
+
+        Tags tags = Tags.of("cache", cacheName)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.bufferedWrites = Counter.builder("venus_cache_second_level_buffered_writes_total").tags(tags).register(registry);
+        this.droppedWrites = Counter.builder("venus_cache_second_level_dropped_writes_total").tags(tags).register(registry);
+        this.replayedWrites = Counter.builder("venus_cache_second_level_replayed_writes_total").tags(tags).register(registry);
+        Gauge.builder("venus_cache_second_level_write_buffer_size", this, GuardedSecondCacheLayout::bufferedWriteCount)
+                .tags(tags).register(registry);
+        Gauge.builder("venus_cache_second_level_breaker_state", breaker, b -> b.state().ordinal())
+                .description("0 closed, 1 open, 2 half open")
+                .tags(tags).register(registry);
+
+        long interval = properties.getSecondLevelReplayInterval();
+        REPLAY_EXECUTOR.scheduleWithFixedDelay(this::replay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retrieves the entry of the given cache key, or misses immediately while the breaker is open.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present or Redis is unavailable
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        return call(() -> delegate.get(key), null);
+    }
+
+    /**
+     * Retrieves the entries of the given cache keys, or misses all of them immediately while the breaker is open.
+     *
+     * @param keys the cache keys
+     * @return the cached entries in the order of the given keys, with null for the entries that are not present
+     */
+    @Override
+    public List<CacheWrapper> multiGet(List<String> keys) {
+        return call(() -> delegate.multiGet(keys), new ArrayList<>(Collections.nCopies(keys.size(), null)));
+    }
+
+    /**
+     * Stores the value of the given cache key, or buffers the write if Redis is unavailable.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    @Override
+    public void set(String key, Object value, long snapshot) {
+        write(Map.of(key, new PendingWrite(value, false, snapshot)), () -> delegate.set(key, value, snapshot));
+    }
+
+    /**
+     * Stores the given values, or buffers the writes if Redis is unavailable.
+     *
+     * @param values the values to store by their cache key, values may be null
+     * @param snapshot the snapshot of the generations taken before the values were read
+     */
+    @Override
+    public void setAll(Map<String, Object> values, long snapshot) {
+        Map<String, PendingWrite> writes = new HashMap<>(values.size() * 2);
+        values.forEach((key, value) -> writes.put(key, new PendingWrite(value, false, snapshot)));
+        write(writes, () -> delegate.setAll(values, snapshot));
+    }
+
+    /**
+     * Stores the value of the given cache key if the lease is still held. If Redis is unavailable, the lease cannot
+     * be checked, the write is buffered and the fill is accepted, so that the value is at least kept in the primary cache.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param leaseKey the Redis key of the lease
+     * @param token the token of the lease
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return true if the value was stored or buffered, false if the lease has been invalidated
+     */
+    @Override
+    public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+        PendingWrite write = new PendingWrite(value, false, snapshot);
+        synchronized (buffer) {
+            supersede(Map.of(key, write));
+        }
+        Boolean stored = call(() -> delegate.setIfLeased(key, value, leaseKey, token, snapshot), null);
+        if (stored == null) {
+            buffer(Map.of(key, write));
+            return true;
+        }
+        if (!stored) {
+            // the fill was rejected, so it must not be written again after a replay either
+            synchronized (buffer) {
+                superseded.remove(key, write);
+                buffer.remove(key, write);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Removes the entry of the given cache key, or buffers the deletion if Redis is unavailable.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void delete(String key) {
+        write(Map.of(key, new PendingWrite(null, true, 0)), () -> delegate.delete(key));
+    }
+
+    /**
+     * Drops the buffered writes and removes all entries. Clearing is not buffered,
+     * it fails if Redis is unavailable.
+     */
+    @Override
+    public void clear() {
+        synchronized (buffer) {
+            buffer.clear();
+        }
+        delegate.clear();
+    }
+
+    /**
+     * Provides the number of buffered writes.
+     *
+     * @return the number of buffered writes
+     */
+    public int bufferedWriteCount() {
+        synchronized (buffer) {
+            return buffer.size();
+        }
+    }
+
+    /**
+     * Makes a Redis call through the breaker. A call cancelled by its caller is not recorded as failed.
+     *
+     * @param call the call
+     * @param fallback the result if the call is rejected or fails
+     * @param <T> the type of the result
+     * @return the result of the call, or the fallback
+     */
+    private <T> T call(Callable<T> call, T fallback) {
+        if (!breaker.tryAcquire()) {
+            return fallback;
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            breaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            if (CircuitBreaker.isCancellation(e)) {
+                // e.g. a hedged read that lost its race, Redis is not to blame
+                breaker.onCancelled();
+                return fallback;
+            }
+            breaker.onFailure();
+            if (log.isWarnEnabled()) {
+                log.warn("The second cache of the cache[{}] is unavailable: {}", cacheName, e.getMessage());
+            }
+            return fallback;
+        }
+    }
+
+    /**
+     * Writes to Redis through the breaker, or buffers the writes if the call is rejected or fails.
+     * The buffered writes of the keys are dropped first and those being replayed are superseded, so that they
+     * cannot overwrite this write later.
+     *
+     * @param writes the writes by their cache key
+     * @param write the Redis write
+     */
+    private void write(Map<String, PendingWrite> writes, Runnable write) {
+        synchronized (buffer) {
+            buffer.keySet().removeAll(writes.keySet());
+            supersede(writes);
+        }
+        Boolean written = call(() -> {
+            write.run();
+            return Boolean.TRUE;
+        }, null);
+        if (written == null) {
+            buffer(writes);
+        }
+    }
+
+    /**
+     * Records the given direct writes of the keys that are being replayed. Must be called with the lock of the buffer.
+     *
+     * @param writes the writes by their cache key
+     */
+    private void supersede(Map<String, PendingWrite> writes) {
+        writes.forEach((key, write) -> {
+            if (replaying.contains(key)) {
+                superseded.put(key, write);
+            }
+        });
+    }
+
+    /**
+     * Puts the given writes back into the buffer, unless newer writes of their keys have been buffered in the
+     * meantime, and drops those that do not fit. Must be called with the lock of the buffer.
+     *
+     * @param writes the writes by their cache key
+     * @return the number of dropped writes
+     */
+    private int restore(Map<String, PendingWrite> writes) {
+        int dropped = 0;
+        for (Map.Entry<String, PendingWrite> write : writes.entrySet()) {
+            if (buffer.containsKey(write.getKey())) {
+                continue;
+            }
+            if (buffer.size() >= bufferSize) {
+                dropped++;
+            } else {
+                buffer.put(write.getKey(), write.getValue());
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Counts and reports the given number of dropped writes.
+     *
+     * @param dropped the number of dropped writes
+     */
+    private void dropped(int dropped) {
+        if (dropped > 0) {
+            droppedWrites.increment(dropped);
+            if (log.isWarnEnabled()) {
+                log.warn("The write buffer of the cache[{}] is full, {} writes are dropped", cacheName, dropped);
+            }
+        }
+    }
+
+    /**
+     * Buffers the given writes, replacing earlier writes of the same keys, and drops those that do not fit.
+     *
+     * @param writes the writes by their cache key
+     */
+    private void buffer(Map<String, PendingWrite> writes) {
+        int dropped = 0;
+        synchronized (buffer) {
+            for (Map.Entry<String, PendingWrite> write : writes.entrySet()) {
+                if (buffer.size() >= bufferSize && !buffer.containsKey(write.getKey())) {
+                    dropped++;
+                } else {
+                    buffer.put(write.getKey(), write.getValue());
+                }
+            }
+        }
+        bufferedWrites.increment(writes.size() - dropped);
+        dropped(dropped);
+    }
+
+    /**
+     * Replays the buffered writes in batches while Redis accepts them. The first batch is let through by a half-open
+     * breaker as its probe, so the recovery is detected even without traffic. The values of a batch are stamped as of
+     * the earliest snapshot among them, so that none is stamped fresher than it was read.
+     *
+     * The keys of a batch are marked as being replayed until it is done. Keys that a direct write supersedes before
+     * the batch is written are skipped, keys superseded while it is written get the newer write buffered again, as
+     * the replay may have overwritten it. A batch that fails is put back, except for its superseded keys and for keys
+     * with newer buffered writes, as far as the buffer has room.
+     */
+    private void replay() {
+        try {
+            while (bufferedWriteCount() > 0) {
+                Map<String, PendingWrite> batch = new LinkedHashMap<>();
+                synchronized (buffer) {
+                    Iterator<Map.Entry<String, PendingWrite>> iterator = buffer.entrySet().iterator();
+                    while (iterator.hasNext() && batch.size() < REPLAY_BATCH_SIZE) {
+                        Map.Entry<String, PendingWrite> entry = iterator.next();
+                        batch.put(entry.getKey(), entry.getValue());
+                        iterator.remove();
+                    }
+                    replaying.addAll(batch.keySet());
+                }
+                if (!replay(batch)) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Replay the buffered writes of the cache[{}] is failure", cacheName, e);
+            }
+        }
+    }
+
+    /**
+     * Replays a batch of buffered writes whose keys are marked as being replayed, and unmarks them.
+     *
+     * @param batch the buffered writes by their cache key
+     * @return true if the batch was replayed, false if Redis is unavailable
+     */
+    private boolean replay(Map<String, PendingWrite> batch) {
+        Map<String, PendingWrite> writes = new LinkedHashMap<>(batch);
+        Boolean replayed = null;
+        try {
+            synchronized (buffer) {
+                writes.keySet().removeAll(superseded.keySet());
+            }
+            replayed = writes.isEmpty() ? Boolean.TRUE : call(() -> {
+                Map<String, Object> values = new HashMap<>(writes.size() * 2);
+                long snapshot = Long.MAX_VALUE;
+                for (Map.Entry<String, PendingWrite> entry : writes.entrySet()) {
+                    PendingWrite write = entry.getValue();
+                    if (write.delete()) {
+                        delegate.delete(entry.getKey());
+                    } else {
+                        values.put(entry.getKey(), write.value());
+                        snapshot = Math.min(snapshot, write.snapshot());
+                    }
+                }
+                delegate.setAll(values, snapshot);
+                return Boolean.TRUE;
+            }, null);
+        } finally {
+            int dropped;
+            synchronized (buffer) {
+                Map<String, PendingWrite> restored = new LinkedHashMap<>();
+                for (String key : batch.keySet()) {
+                    replaying.remove(key);
+                    PendingWrite newer = superseded.remove(key);
+                    if (!writes.containsKey(key)) {
+                        continue;
+                    }
+                    if (replayed == null && newer == null) {
+                        restored.put(key, writes.get(key));
+                    } else if (replayed != null && newer != null) {
+                        restored.put(key, newer);
+                    }
+                }
+                dropped = restore(restored);
+            }
+            dropped(dropped);
+        }
+        if (replayed == null) {
+            return false;
+        }
+        replayedWrites.increment(writes.size());
+        if (log.isInfoEnabled()) {
+            log.info("Replay {} buffered writes of the cache[{}]", writes.size(), cacheName);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,309 @@
+package org.venus.cache;
+
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * A memory-efficient layout of the second level cache, in which entries are grouped by the hash of their key
+ * into a fixed number of Redis hashes named {@code <cache-name>:bucket:<n>}.
+ *
+ * A small hash is stored in the compact listpack encoding, so an entry costs a few bytes of overhead instead of
+ * a key object, a dictionary entry and the duplicated key name inside the value. To keep the buckets compact,
+ * the bucket count should be chosen so that a bucket holds fewer entries than {@code hash-max-listpack-entries}
+ * (128 by default), and {@code hash-max-listpack-value} must be raised above the size of an encoded entry
+ * (the default of 64 bytes is too small for most URLs).
+ * Clearing the cache deletes the bucket keys directly, without a SCAN over the keyspace.
+ *
+ * Redis expires whole keys only (per-field expiration needs Redis 7.4), so the time-to-live derived from the
+ * {@code expiresAt} of a link cannot be applied here: a bucket expires after the idle time-to-live
+ * of {@link SecondCacheExpiry} since its last write instead.
+ */
+public class HashBucketSecondCacheLayout implements SecondCacheLayout {
+    /**
+     * Sets the field of the bucket only if the lease is still held with the given token, and deletes the lease.
+     */
+    private static final RedisScript<Long> SET_IF_LEASED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[2]) == ARGV[1] then redis.call('HSET', KEYS[1], ARGV[3], ARGV[2]); "
+                    + "if ARGV[4] ~= '0' then redis.call('PEXPIRE', KEYS[1], ARGV[4]) end; "
+                    + "redis.call('DEL', KEYS[2]); return 1 end return 0",
+            Long.class);
+
+    /**
+     * The name of the cache, used as the prefix of the bucket keys.
+     */
+    private final String cacheName;
+    /**
+     * Redis template instance used for interacting with the second level cache.
+     */
+    private final RedisTemplate<String, CacheWrapper> secondCache;
+    /**
+     * The number of hash buckets of the cache.
+     */
+    private final int bucketCount;
+    /**
+     * The number of bucket keys deleted with a single command when the cache is cleared.
+     */
+    private final int deleteBatchSize;
+    /**
+     * The time in milliseconds after which a bucket that is not written expires, zero if it does not.
+     */
+    private final long idleTtl;
+    /**
+     * Stamps the entries with the generation of their group, or null if the cache has no generations.
+     */
+    private final CacheGenerations generations;
+
+    /**
+     * Constructs a HashBucketSecondCacheLayout.
+     *
+     * @param cacheName the name of the cache
+     * @param secondCache the Redis template of the second level cache
+     * @param properties the properties of the multi-level cache
+     */
+    public HashBucketSecondCacheLayout(String cacheName, RedisTemplate<String, CacheWrapper> secondCache, MultiLevelCacheProperties properties) {
+        this(cacheName, secondCache, properties, null);
+    }
+
+    /**
+     * Constructs a HashBucketSecondCacheLayout that stamps its entries with the generation of their group.
+     *
+     * @param cacheName the name of the cache
+     * @param secondCache the Redis template of the second level cache
+     * @param properties the properties of the multi-level cache
+     * @param generations the generations of the groups of the cache, or null if the cache has none
+     */
+    public HashBucketSecondCacheLayout(String cacheName, RedisTemplate<String, CacheWrapper> secondCache, MultiLevelCacheProperties properties,
+                                       CacheGenerations generations) {
+        if (properties.getHashBucketCount() <= 0) {
+            throw new IllegalArgumentException("The hash bucket count of the multi-level cache must be positive");
+        }
+        this.cacheName = cacheName;
+        this.secondCache = secondCache;
+        this.bucketCount = properties.getHashBucketCount();
+        this.deleteBatchSize = properties.getRedisScanCount() > 0 ? (int) Math.min(properties.getRedisScanCount(), 10_000) : 1000;
+        this.idleTtl = new SecondCacheExpiry(properties).idleTtlMillis();
+        this.generations = generations;
+    }
+
+    /**
+     * Retrieves the entry of the given cache key from its bucket.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        return hashOperations().get(bucketKey(key), key);
+    }
+
+    /**
+     * Retrieves the entries of the given cache keys with one pipelined HMGET per bucket.
+     *
+     * @param keys the cache keys
+     * @return the cached entries in the order of the given keys, with null for the entries that are not present
+     */
+    @Override
+    public List<CacheWrapper> multiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, List<String>> fieldsByBucket = new LinkedHashMap<>();
+        for (String key : keys) {
+            fieldsByBucket.computeIfAbsent(bucketKey(key), b -> new ArrayList<>()).add(key);
+        }
+
+        List<Object> results = secondCache.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, List<String>> entry : fieldsByBucket.entrySet()) {
+                List<String> fields = entry.getValue();
+                byte[][] rawFields = new byte[fields.size()][];
+                for (int i = 0; i < fields.size(); i++) {
+                    rawFields[i] = fields.get(i).getBytes(StandardCharsets.UTF_8);
+                }
+                connection.hashCommands().hMGet(entry.getKey().getBytes(StandardCharsets.UTF_8), rawFields);
+            }
+            return null;
+        });
+
+        Map<String, CacheWrapper> found = new HashMap<>(keys.size() * 2);
+        int bucket = 0;
+        for (List<String> fields : fieldsByBucket.values()) {
+            Object values = bucket < results.size() ? results.get(bucket) : null;
+            if (values instanceof List<?> list) {
+                for (int i = 0; i < fields.size() && i < list.size(); i++) {
+                    if (list.get(i) instanceof CacheWrapper wrapper) {
+                        found.put(fields.get(i), wrapper);
+                    }
+                }
+            }
+            bucket++;
+        }
+
+        List<CacheWrapper> wrappers = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            wrappers.add(found.get(key));
+        }
+        return wrappers;
+    }
+
+    /**
+     * Stores the value of the given cache key as a field of its bucket.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    @Override
+    public void set(String key, Object value, long snapshot) {
+        // the field name already identifies the entry, so the wrapper only carries the short cache key
+        if (idleTtl <= 0) {
+            hashOperations().put(bucketKey(key), key, wrap(key, value, snapshot));
+            return;
+        }
+        putAll(Map.of(bucketKey(key), Map.of(key, wrap(key, value, snapshot))));
+    }
+
+    /**
+     * Stores the values of the given cache keys with one pipelined HSET per bucket.
+     *
+     * @param values the values to store by their cache key, values may be null
+     * @param snapshot the snapshot of the generations taken before the values were read
+     */
+    @Override
+    public void setAll(Map<String, Object> values, long snapshot) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, CacheWrapper>> fieldsByBucket = new HashMap<>();
+        values.forEach((key, value) ->
+                fieldsByBucket.computeIfAbsent(bucketKey(key), b -> new HashMap<>()).put(key, wrap(key, value, snapshot)));
+        putAll(fieldsByBucket);
+    }
+
+    /**
+     * Stores the given fields with one pipelined HSET per bucket, each followed by a PEXPIRE of the bucket
+     * if buckets expire when idle.
+     *
+     * @param fieldsByBucket the entries to store by their field, by their bucket key
+     */
+    private void putAll(Map<String, Map<String, CacheWrapper>> fieldsByBucket) {
+        secondCache.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+                RedisOperations<String, CacheWrapper> redisOperations = (RedisOperations<String, CacheWrapper>) operations;
+                HashOperations<String, String, CacheWrapper> hashOperations = redisOperations.opsForHash();
+                fieldsByBucket.forEach((bucketKey, fields) -> {
+                    hashOperations.putAll(bucketKey, fields);
+                    if (idleTtl > 0) {
+                        redisOperations.expire(bucketKey, Duration.ofMillis(idleTtl));
+                    }
+                });
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Sets the field of the given cache key only if the lease is still held, with a single script call.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param leaseKey the Redis key of the lease
+     * @param token the token of the lease
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return true if the value was stored, false if the lease has been invalidated
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+        byte[] wrapper = ((RedisSerializer<Object>) secondCache.getHashValueSerializer()).serialize(wrap(key, value, snapshot));
+        Long stored = secondCache.execute(SET_IF_LEASED_SCRIPT, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                List.of(bucketKey(key), leaseKey), RedisSerializer.string().serialize(token), wrapper, key.getBytes(StandardCharsets.UTF_8),
+                RedisSerializer.string().serialize(Long.toString(idleTtl)));
+        return stored != null && stored == 1L;
+    }
+
+    /**
+     * Removes the field of the given cache key from its bucket.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void delete(String key) {
+        hashOperations().delete(bucketKey(key), key);
+    }
+
+    /**
+     * Removes all buckets of the cache, in batches of bucket keys.
+     */
+    @Override
+    public void clear() {
+        List<String> batch = new ArrayList<>(Math.min(deleteBatchSize, bucketCount));
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            batch.add(bucketKey(bucket));
+            if (batch.size() >= deleteBatchSize) {
+                secondCache.unlink(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            secondCache.unlink(batch);
+        }
+    }
+
+    /**
+     * Wraps a value into the entry of a field, stamped with the generation of its group.
+     *
+     * @param key the cache key
+     * @param value the value, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return the entry
+     */
+    private CacheWrapper wrap(String key, Object value, long snapshot) {
+        return generations == null ? new CacheWrapper(key, value) : generations.wrap(key, value, snapshot);
+    }
+
+    /**
+     * Computes the bucket key of the given cache key. {@link String#hashCode()} is specified by the JDK,
+     * so every node maps a key to the same bucket.
+     *
+     * @param key the cache key
+     * @return the bucket key
+     */
+    String bucketKey(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return bucketKey((h & 0x7FFFFFFF) % bucketCount);
+    }
+
+    /**
+     * Builds the key of the given bucket.
+     *
+     * @param bucket the bucket number
+     * @return the bucket key
+     */
+    private String bucketKey(int bucket) {
+        return cacheName + ":bucket:" + bucket;
+    }
+
+    /**
+     * Provides the hash operations of the second level cache.
+     *
+     * @return the hash operations with string fields and wrapped values
+     */
+    private HashOperations<String, String, CacheWrapper> hashOperations() {
+        return secondCache.opsForHash();
+    }
+}
@@ -0,0 +1,202 @@
+package org.venus.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.DeadlineExceededException;
+import org.venus.support.LatencyTracker;
+import org.venus.support.RequestDeadline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedges the second level reads of one multi-level cache against the tail latency of Redis.
+ *
+ * A read runs on a virtual thread. If it has not answered within the tracked percentile of the recent read latencies,
+ * the hedge, the load of the value, is started in parallel on another virtual thread; the first of them that
+ * provides the value wins, and the other one is cancelled without being interrupted: it runs to its end and its
+ * result is dropped, so that an interrupted Redis or database call is not mistaken for a failure by their circuit
+ * breakers. Only the latencies of reads that completed are tracked. A read that misses does not win,
+ * the load then decides. Hedges are paid from a token bucket shared by all caches, which every read fills by
+ * the configured hedge rate, so that at most that share of reads is hedged and a slow Redis under overload is not
+ * answered with even more load.
+ */
+public class HedgedReads {
+    /**
+     * Runs the reads and the hedges of all caches.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("venus-cache-hedged-read-", 0).factory());
+    /**
+     * One hedge in the units of the token bucket.
+     */
+    private static final long HEDGE = 1_000_000;
+    /**
+     * The maximum number of hedges that may be saved up in the token bucket.
+     */
+    private static final long BURST = 10 * HEDGE;
+    /**
+     * The token bucket of the hedges of all caches, in millionths of a hedge.
+     */
+    private static final AtomicLong tokens = new AtomicLong(BURST);
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * The outcome of a hedged read.
+     *
+     * @param value the entry that won, null if the read missed and no hedge was started
+     * @param loaded true if the value was loaded by the hedge rather than read from Redis
+     */
+    public record Outcome(CacheWrapper value, boolean loaded) {
+    }
+
+    /**
+     * Tracks the percentile of the read latencies after which a read is hedged.
+     */
+    private final LatencyTracker tracker;
+    /**
+     * The tokens that every read adds to the bucket, in millionths of a hedge.
+     */
+    private final long tokensPerRead;
+    /**
+     * The minimum time in nanoseconds before a read is hedged.
+     */
+    private final long minDelayNanos;
+    /**
+     * Counts the hedged reads won by the second level cache.
+     */
+    private final Counter secondWins;
+    /**
+     * Counts the hedged reads won by the load.
+     */
+    private final Counter loadWins;
+    /**
+     * Counts the slow reads that were not hedged because the bucket was empty.
+     */
+    private final Counter rejected;
+
+    /**
+     * Constructs a HedgedReads.
+     *
+     * @param cacheName the name of the cache
+     * @param properties the properties of the cache
+     */
+    public HedgedReads(String cacheName, MultiLevelCacheProperties properties) {
+        this.tracker = new LatencyTracker(1024, properties.getHedgePercentile());
+        this.tokensPerRead = Math.round(Math.max(0, properties.getHedgeMaxRate()) * HEDGE);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHedgeMinDelay());
+
+        Tags tags = Tags.of("cache", cacheName)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.secondWins = Counter.builder("venus_cache_hedged_reads_total").tags(tags.and("winner", "second-cache")).register(registry);
+        this.loadWins = Counter.builder("venus_cache_hedged_reads_total").tags(tags.and("winner", "load")).register(registry);
+        this.rejected = Counter.builder("venus_cache_hedge_rejected_total").tags(tags).register(registry);
+        Gauge.builder("venus_cache_hedge_delay_seconds", this, h -> h.delayNanos() / 1e9)
+                .tags(tags).register(registry);
+    }
+
+    /**
+     * Reads an entry from Redis and hedges the read with the load if it is slow.
+     *
+     * @param read reads the entry from Redis, returning null on a miss or for an entry that must not be served
+     * @param load loads the value and wraps it, never returning null
+     * @return the outcome of the read
+     * @throws Exception if the read missed or failed and the load failed
+     */
+    public Outcome read(Callable<CacheWrapper> read, Callable<CacheWrapper> load) throws Exception {
+        tokens.getAndUpdate(t -> Math.min(BURST, t + tokensPerRead));
+        ExecutorCompletionService<CacheWrapper> completion = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<CacheWrapper>> tasks = new ArrayList<>(2);
+        long start = System.nanoTime();
+        Future<CacheWrapper> readTask = completion.submit(RequestDeadline.bind(() -> {
+            CacheWrapper value = read.call();
+            tracker.record(System.nanoTime() - start);
+            return value;
+        }));
+        tasks.add(readTask);
+        Future<CacheWrapper> loadTask = null;
+        try {
+            Future<CacheWrapper> done = completion.poll(Math.min(delayNanos(), RequestDeadline.remainingNanos()), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                if (tryHedge()) {
+                    loadTask = completion.submit(RequestDeadline.bind(load));
+                    tasks.add(loadTask);
+                } else {
+                    rejected.increment();
+                }
+            }
+
+            Exception failure = null;
+            for (int pending = tasks.size(); pending > 0; pending--) {
+                if (done == null) {
+                    done = completion.poll(RequestDeadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        throw new DeadlineExceededException(RequestDeadline.STAGE_SECOND_CACHE);
+                    }
+                }
+                try {
+                    CacheWrapper value = done.get();
+                    if (done == loadTask) {
+                        loadWins.increment();
+                        return new Outcome(value, true);
+                    }
+                    if (value != null) {
+                        if (loadTask != null) {
+                            secondWins.increment();
+                        }
+                        return new Outcome(value, false);
+                    }
+                } catch (ExecutionException e) {
+                    // a failed read counts as a miss, a failed load is thrown unless the read still provides the value
+                    if (done == loadTask) {
+                        failure = e.getCause() instanceof Exception cause ? cause : e;
+                    }
+                }
+                done = null;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new Outcome(null, false);
+        } finally {
+            for (Future<CacheWrapper> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Provides the time after which a read is hedged.
+     *
+     * @return the tracked percentile of the read latencies, at least the minimum delay, in nanoseconds
+     */
+    public long delayNanos() {
+        long percentile = tracker.percentileNanos();
+        return percentile < 0 ? Long.MAX_VALUE : Math.max(minDelayNanos, percentile);
+    }
+
+    /**
+     * Takes a hedge from the token bucket of all caches.
+     *
+     * @return true if the read may be hedged
+     */
+    private static boolean tryHedge() {
+        return tokens.getAndUpdate(t -> t >= HEDGE ? t - HEDGE : t) >= HEDGE;
+    }
+}
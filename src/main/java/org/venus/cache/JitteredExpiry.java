@@ -0,0 +1,94 @@
+package org.venus.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Caffeine expiry that shortens the time-to-live of every entry by a random fraction.
+ *
+ * Entries that are written at the same moment, such as links created in bulk or a warm-up after a restart,
+ * would otherwise all expire in the same second and miss to Redis and the database together.
+ * With a jitter of {@code j}, the time-to-live of an entry is uniformly distributed in {@code [ttl * (1 - j), ttl]}.
+ */
+public final class JitteredExpiry<K, V> implements Expiry<K, V> {
+    /**
+     * The maximum time-to-live in nanoseconds.
+     */
+    private final long ttlNanos;
+    /**
+     * The maximum fraction by which the time-to-live is shortened, between zero and one.
+     */
+    private final double jitter;
+    /**
+     * Indicates whether a read starts a new time-to-live, which emulates an expiry after access.
+     */
+    private final boolean resetOnRead;
+
+    /**
+     * Constructs a JitteredExpiry.
+     *
+     * @param ttlMillis the maximum time-to-live in milliseconds
+     * @param jitter the maximum fraction by which the time-to-live is shortened, between zero and one
+     * @param resetOnRead true if a read starts a new time-to-live
+     */
+    public JitteredExpiry(long ttlMillis, double jitter, boolean resetOnRead) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("The expiration jitter must be between 0 and 1");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.jitter = jitter;
+        this.resetOnRead = resetOnRead;
+    }
+
+    /**
+     * Starts a jittered time-to-live for a new entry.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @param currentTime the current time in nanoseconds
+     * @return the time-to-live in nanoseconds
+     */
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return jittered();
+    }
+
+    /**
+     * Starts a jittered time-to-live for an updated entry.
+     *
+     * @param key the key of the entry
+     * @param value the new value of the entry
+     * @param currentTime the current time in nanoseconds
+     * @param currentDuration the remaining time-to-live in nanoseconds
+     * @return the time-to-live in nanoseconds
+     */
+    @Override
+    public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+        return jittered();
+    }
+
+    /**
+     * Keeps the remaining time-to-live of a read entry, or starts a new one if reads reset it.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @param currentTime the current time in nanoseconds
+     * @param currentDuration the remaining time-to-live in nanoseconds
+     * @return the time-to-live in nanoseconds
+     */
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+        return resetOnRead ? jittered() : currentDuration;
+    }
+
+    /**
+     * Computes a time-to-live shortened by a random fraction of at most the jitter.
+     *
+     * @return the time-to-live in nanoseconds
+     */
+    private long jittered() {
+        return ttlNanos - (long) (ttlNanos * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+}
@@ -8,17 +8,11 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.cache.Cache;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.common.TemplateParserContext;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.venus.support.VenusException;
 
 import java.lang.reflect.Method;
-import java.util.TreeMap;
-
-import static org.venus.cache.MultiLevelCacheConstants.VENUS_REDIRECT_CACHE_NAME;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aspect for handling multi-level caching functionality using VenusMultiLevelCache annotation.
@@ -45,6 +39,11 @@ public class MultiLevelCacheAspect {
      * when cache-related operations such as updates or evictions occur.
      */
     private Callback callback;
+    /**
+     * The resolved cache operations of the annotated methods, so that the annotation is read
+     * and the key expression is parsed only once per method.
+     */
+    private final Map<Method, CacheOperation> operations = new ConcurrentHashMap<>();
 
     /**
      * Pointcut that matches methods annotated with @VenusMultiLevelCache.
@@ -71,17 +70,14 @@ public class MultiLevelCacheAspect {
     public Object doAround(ProceedingJoinPoint point) throws Throwable {
         MethodSignature signature = (MethodSignature) point.getSignature();
         Method method = signature.getMethod();
-
-        String[] paramNames = signature.getParameterNames();
-        Object[] args = point.getArgs();
-        TreeMap<String, Object> treeMap = new TreeMap<>();
-        for (int i = 0; i < paramNames.length; i++) {
-            treeMap.put(paramNames[i], args[i]);
+        CacheOperation operation = operations.get(method);
+        if (operation == null) {
+            operation = operations.computeIfAbsent(method, m -> CacheOperation.of(m, signature.getParameterNames()));
         }
 
-        MultiLevelCache annotation = method.getAnnotation(MultiLevelCache.class);
-        String elResult = parse(annotation.key(), treeMap);
-        Cache cache = manager.getCache(VENUS_REDIRECT_CACHE_NAME);
+        MultiLevelCache annotation = operation.annotation();
+        String elResult = operation.keyExtractor().extract(point.getArgs());
+        Cache cache = manager.getCache(annotation.cacheName());
 
         if (annotation.type() == MultiLevelCacheType.PUT) {
             Object object = point.proceed();
@@ -97,33 +93,35 @@ public class MultiLevelCacheAspect {
         }
 
         // MultiLevelCacheType: ALL
+        // a failed load is rethrown rather than returned as null, so that it is not cached as a miss
         return cache.get(elResult, () -> {
             try {
                 return point.proceed();
+            } catch (Exception | Error e) {
+                throw e;
             } catch (Throwable e) {
-                if (log.isErrorEnabled()) {
-                    log.error("Multi-level cache handle failure", e);
-                }
-                return null;
+                throw new VenusException(e);
             }
         });
     }
 
     /**
-     * Parses the given string as a SpEL (Spring Expression Language) expression using the provided map
-     * to populate the context variables. The method uses the TemplateParserContext to evaluate the expression.
+     * The resolved cache operation of an annotated method.
      *
-     * @param elString The string to be parsed as a SpEL expression.
-     * @param map A map containing variable names and their corresponding values to be used in
-     *  the expression context.
-     * @return The string result of evaluating the expression with the provided context.
+     * @param annotation the annotation of the method
+     * @param keyExtractor the extractor of the cache key
      */
-    public static String parse(String elString, TreeMap<String, Object> map) {
-        elString = String.format("#{%s}", elString);
-        ExpressionParser parser = new SpelExpressionParser();
-        EvaluationContext context = new StandardEvaluationContext();
-        map.forEach(context::setVariable);
-        Expression expression = parser.parseExpression(elString, new TemplateParserContext());
-        return expression.getValue(context, String.class);
+    private record CacheOperation(MultiLevelCache annotation, MultiLevelCacheKeyExtractor keyExtractor) {
+        /**
+         * Resolves the cache operation of the given method.
+         *
+         * @param method the annotated method
+         * @param paramNames the parameter names of the method
+         * @return the cache operation
+         */
+        static CacheOperation of(Method method, String[] paramNames) {
+            MultiLevelCache annotation = method.getAnnotation(MultiLevelCache.class);
+            return new CacheOperation(annotation, MultiLevelCacheKeyExtractor.of(annotation.key(), paramNames));
+        }
     }
 }
@@ -37,41 +37,37 @@ import static org.venus.cache.MultiLevelCacheConstants.DEFAULT_LISTENER_NAME;
 @EnableConfigurationProperties(MultiLevelCacheProperties.class)
 public class MultiLevelCacheAutoConfiguration {
 
+    /**
+     * Creates the registry of the URL prefix dictionaries shared by the cache serializers and the primary cache.
+     * It stays idle unless {@link MultiLevelCacheProperties#isUrlPrefixDictionaryEnabled()} is set.
+     *
+     * @param factory the RedisConnectionFactory used to publish and load the dictionaries
+     * @param properties the properties used to configure the multi-level caching system
+     * @return the registry of the URL prefix dictionaries
+     */
+    @Bean(initMethod = "init", destroyMethod = "shutdown")
+    public UrlPrefixDictionaryRegistry urlPrefixDictionaryRegistry(RedisConnectionFactory factory, MultiLevelCacheProperties properties) {
+        return new UrlPrefixDictionaryRegistry(factory, properties);
+    }
+
     @Configuration(proxyBeanMethods = false)
     static class VenusMultiLevelCacheRedisAutoConfiguration {
         @Bean
-        public RedisTemplate<String, CacheWrapper> redisTemplate(RedisConnectionFactory factory) {
-            RedisTemplate<String, CacheWrapper> template = new RedisTemplate<>();
-            template.setConnectionFactory(factory);
-
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.registerModule(new JavaTimeModule());
-            mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
-            Jackson2JsonRedisSerializer<CacheWrapper> serializer = new Jackson2JsonRedisSerializer<>(mapper, CacheWrapper.class);
-
-            RedisSerializer<?> stringSerializer = new StringRedisSerializer();
-            template.setKeySerializer(stringSerializer);
-            template.setValueSerializer(serializer);
-            template.setHashKeySerializer(stringSerializer);
-            template.setHashValueSerializer(serializer);
-            template.afterPropertiesSet();
-            return template;
+        public RedisTemplate<String, CacheWrapper> redisTemplate(RedisConnectionFactory factory, MultiLevelCacheProperties properties,
+                                                                 UrlPrefixDictionaryRegistry dictionaryRegistry) {
+            return cacheWrapperTemplate(factory, properties, dictionaryRegistry);
         }
 
         @Bean
-        public RedisTemplate<String, CacheListenerMessage> cacheListenerMessageRedisTemplate(RedisConnectionFactory factory) {
+        public RedisTemplate<String, CacheListenerMessage> cacheListenerMessageRedisTemplate(RedisConnectionFactory factory, MultiLevelCacheProperties properties,
+                                                                                             UrlPrefixDictionaryRegistry dictionaryRegistry) {
             RedisTemplate<String, CacheListenerMessage> template = new RedisTemplate<>();
             template.setConnectionFactory(factory);
 
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.registerModule(new JavaTimeModule());
-            mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-            mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-            mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
-            Jackson2JsonRedisSerializer<CacheListenerMessage> serializer = new Jackson2JsonRedisSerializer<>(mapper, CacheListenerMessage.class);
-
+            // messages are sent with the serializer of their cache, the binary serializer reads both formats
+            RedisSerializer<?> serializer = properties.isSerializerUsed(MultiLevelCacheSerializerType.BINARY)
+                    ? new BinaryCacheRedisSerializer(new Jackson2JsonRedisSerializer<>(objectMapper(), Object.class), properties.getUrlCompressThreshold(), dictionaryRegistry)
+                    : valueSerializer(properties, CacheListenerMessage.class, dictionaryRegistry);
             RedisSerializer<?> stringSerializer = new StringRedisSerializer();
             template.setKeySerializer(stringSerializer);
             template.setValueSerializer(serializer);
@@ -82,18 +78,75 @@ public class MultiLevelCacheAutoConfiguration {
         }
     }
 
+    /**
+     * Creates a RedisTemplate for the cache entries, whose values are written by the serializer
+     * selected by {@link MultiLevelCacheProperties#getSerializer()}.
+     *
+     * @param factory the RedisConnectionFactory of the template
+     * @param properties the properties used to configure the multi-level caching system or a single cache
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries used by the binary serializer, may be null
+     * @return the initialized template
+     */
+    static RedisTemplate<String, CacheWrapper> cacheWrapperTemplate(RedisConnectionFactory factory, MultiLevelCacheProperties properties,
+                                                                    UrlPrefixDictionaryRegistry dictionaryRegistry) {
+        RedisTemplate<String, CacheWrapper> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+
+        RedisSerializer<?> serializer = valueSerializer(properties, CacheWrapper.class, dictionaryRegistry);
+        RedisSerializer<?> stringSerializer = new StringRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setValueSerializer(serializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setHashValueSerializer(serializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Creates the value serializer selected by {@link MultiLevelCacheProperties#getSerializer()}.
+     * The binary serializer falls back to polymorphic JSON for values without a binary representation
+     * and for values that were written as JSON.
+     *
+     * @param properties the properties used to configure the multi-level caching system
+     * @param type the root type of the values written by the JSON serializer
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries used by the binary serializer, may be null
+     * @return the value serializer
+     */
+    static RedisSerializer<?> valueSerializer(MultiLevelCacheProperties properties, Class<?> type, UrlPrefixDictionaryRegistry dictionaryRegistry) {
+        if (properties.getSerializer() == MultiLevelCacheSerializerType.BINARY) {
+            return new BinaryCacheRedisSerializer(new Jackson2JsonRedisSerializer<>(objectMapper(), Object.class), properties.getUrlCompressThreshold(), dictionaryRegistry);
+        }
+        return new Jackson2JsonRedisSerializer<>(objectMapper(), type);
+    }
+
+    /**
+     * Creates the object mapper used for the polymorphic JSON values kept in Redis.
+     *
+     * @return the object mapper
+     */
+    static ObjectMapper objectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
+        return mapper;
+    }
+
     /**
      * Creates and configures a VenusMultiLevelCacheManager bean.
      *
      * @param template the RedisTemplate used for operations on the remote cache
      * @param properties the properties used to configure the multi-level caching system
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries used by the compact primary cache layout
      * @return an instance of VenusMultiLevelCacheManager configured with the specified properties and template
      */
     @ConditionalOnBean(Initializer.class)
     @DependsOn("venusInitializer")
     @Bean
-    public MultiLevelCacheManager venusMultiLevelCacheManager(RedisTemplate<String, CacheWrapper> template, MultiLevelCacheProperties properties) {
-        return new MultiLevelCacheManager(properties, template);
+    public MultiLevelCacheManager venusMultiLevelCacheManager(RedisTemplate<String, CacheWrapper> template, MultiLevelCacheProperties properties,
+                                                              UrlPrefixDictionaryRegistry dictionaryRegistry) {
+        return new MultiLevelCacheManager(properties, template, dictionaryRegistry);
     }
 
     @Configuration(proxyBeanMethods = false)
@@ -128,7 +181,10 @@ public class MultiLevelCacheAutoConfiguration {
                 return new MessageListenerAdapter();
             }
             String methodName = defaultListenerMethod.getName();
-            return new MessageListenerAdapter(receiver, methodName);
+            MessageListenerAdapter adapter = new MessageListenerAdapter(receiver, methodName);
+            // hand over the raw message body, binary payloads must not go through a string conversion
+            adapter.setSerializer(RedisSerializer.byteArray());
+            return adapter;
         }
 
         /**
@@ -0,0 +1,119 @@
+package org.venus.cache;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the cache key of a {@link MultiLevelCache} method invocation from its arguments.
+ *
+ * An extractor is resolved once per method. A key that only references a parameter, such as {@code #encode},
+ * is read from the argument array directly. Any other key is parsed once into a SpEL expression,
+ * which Spring compiles to bytecode after a few evaluations.
+ */
+@FunctionalInterface
+public interface MultiLevelCacheKeyExtractor {
+    /**
+     * The pattern of a key that only references a parameter.
+     */
+    Pattern PARAMETER_KEY = Pattern.compile("#\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
+
+    /**
+     * Extracts the cache key from the arguments of an invocation.
+     *
+     * @param args the arguments of the invocation
+     * @return the cache key
+     */
+    String extract(Object[] args);
+
+    /**
+     * Resolves the extractor of the given key expression.
+     *
+     * @param key the key expression of the annotation
+     * @param paramNames the parameter names of the annotated method
+     * @return the key extractor
+     */
+    static MultiLevelCacheKeyExtractor of(String key, String[] paramNames) {
+        String trimmed = key.trim();
+        if (PARAMETER_KEY.matcher(trimmed).matches()) {
+            String name = trimmed.substring(1);
+            for (int i = 0; i < paramNames.length; i++) {
+                if (paramNames[i].equals(name)) {
+                    return new ArgumentKeyExtractor(i);
+                }
+            }
+        }
+        return new ExpressionKeyExtractor(trimmed, paramNames);
+    }
+
+    /**
+     * Reads the cache key from one argument.
+     *
+     * @param index the index of the argument
+     */
+    record ArgumentKeyExtractor(int index) implements MultiLevelCacheKeyExtractor {
+        /**
+         * Converts the argument to its string form.
+         *
+         * @param args the arguments of the invocation
+         * @return the cache key, or null if the argument is null
+         */
+        @Override
+        public String extract(Object[] args) {
+            return Objects.toString(args[index], null);
+        }
+    }
+
+    /**
+     * Evaluates a pre-parsed SpEL expression with the arguments as variables named after the parameters.
+     */
+    final class ExpressionKeyExtractor implements MultiLevelCacheKeyExtractor {
+        /**
+         * The parser shared by all expressions. It compiles an expression once it has been interpreted
+         * a few times, and falls back to interpretation if a compiled expression fails.
+         */
+        private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+                new SpelParserConfiguration(SpelCompilerMode.MIXED, MultiLevelCacheKeyExtractor.class.getClassLoader()));
+
+        /**
+         * The parsed key expression.
+         */
+        private final Expression expression;
+        /**
+         * The parameter names of the annotated method.
+         */
+        private final String[] paramNames;
+
+        /**
+         * Constructs an ExpressionKeyExtractor.
+         *
+         * @param key the key expression
+         * @param paramNames the parameter names of the annotated method
+         */
+        ExpressionKeyExtractor(String key, String[] paramNames) {
+            this.expression = PARSER.parseExpression(key);
+            this.paramNames = paramNames;
+        }
+
+        /**
+         * Evaluates the expression.
+         *
+         * @param args the arguments of the invocation
+         * @return the cache key
+         */
+        @Override
+        public String extract(Object[] args) {
+            EvaluationContext context = new StandardEvaluationContext();
+            for (int i = 0; i < paramNames.length; i++) {
+                context.setVariable(paramNames[i], args[i]);
+            }
+            return expression.getValue(context, String.class);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.venus.cache;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -34,14 +35,17 @@ public class MultiLevelCacheManager implements CacheManager {
      * This cache acts as the remote cache layer, extending the caching mechanism beyond the local in-memory cache.
      * It uses {@code RedisTemplate<String, CacheWrapper>} to interact with Redis, where each cache entry is
      * wrapped in a {@code CacheWrapper} object that holds the key-value pair.
+     * It writes with the global serializer, caches that select another serializer get a template of their own.
      */
     private final RedisTemplate<String, CacheWrapper> secondCache;
     /**
-     * The primary local-level cache using Caffeine as the caching library.
-     * This cache is designed to store in-memory data for fast access,
-     * reducing the need to fetch frequently accessed data from remote caches.
+     * The templates of the caches whose serializer differs from the global one, keyed by the serializer.
      */
-    private final com.github.benmanes.caffeine.cache.Cache<String, Object> primaryCache;
+    private final Map<MultiLevelCacheSerializerType, RedisTemplate<String, CacheWrapper>> secondCaches = new ConcurrentHashMap<>();
+    /**
+     * The registry of the URL prefix dictionaries, or null if URLs are kept whole.
+     */
+    private final UrlPrefixDictionaryRegistry dictionaryRegistry;
 
     /**
      * Constructs a new VenusMultiLevelCacheManager with the specified properties and Redis template.
@@ -50,14 +54,28 @@ public class MultiLevelCacheManager implements CacheManager {
      * @param secondCache the RedisTemplate instance used for operations on the remote cache
      */
     public MultiLevelCacheManager(MultiLevelCacheProperties properties, RedisTemplate<String, CacheWrapper> secondCache) {
+        this(properties, secondCache, null);
+    }
+
+    /**
+     * Constructs a new VenusMultiLevelCacheManager with the specified properties, Redis template and
+     * URL prefix dictionary registry, which is used by the compact primary cache layout.
+     *
+     * @param properties the properties used to configure the multi-level caching system
+     * @param secondCache the RedisTemplate instance used for operations on the remote cache
+     * @param dictionaryRegistry the registry of the URL prefix dictionaries, may be null
+     */
+    public MultiLevelCacheManager(MultiLevelCacheProperties properties, RedisTemplate<String, CacheWrapper> secondCache,
+                                  UrlPrefixDictionaryRegistry dictionaryRegistry) {
         this.properties = properties;
         this.secondCache = secondCache;
-        this.primaryCache = buildCaffeineCache();
+        this.dictionaryRegistry = dictionaryRegistry != null && dictionaryRegistry.isEnabled() ? dictionaryRegistry : null;
     }
 
     /**
      * Retrieves the cache associated with the given name. If the cache does not exist,
-     * it creates a new multi-level cache using the provided name and configuration properties.
+     * it creates a new multi-level cache with its own primary cache, configured by the
+     * specification of the cache merged with the global properties.
      *
      * @param name the name of the cache to retrieve
      * @return the cache instance associated with the given name
@@ -68,28 +86,125 @@ public class MultiLevelCacheManager implements CacheManager {
         if (cache != null) {
             return cache;
         }
-        return caches.computeIfAbsent(name, s -> new MultiLevelValueAdaptingCache(name, secondCache, primaryCache, properties));
+        return caches.computeIfAbsent(name, this::createCache);
     }
 
     /**
-     * Builds and configures a Caffeine cache instance based on the properties specified
-     * in the VenusMultiLevelCacheProperties instance.
+     * Creates the multi-level cache of the given name.
      *
+     * @param name the name of the cache
+     * @return the new cache
+     */
+    private MultiLevelValueAdaptingCache createCache(String name) {
+        MultiLevelCacheProperties cacheProperties = properties.resolve(name);
+        MultiLevelCacheRefreshMetrics metrics = new MultiLevelCacheRefreshMetrics(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> primaryCache = buildCaffeineCache(cacheProperties, metrics);
+        PrimaryCacheLayout primaryLayout = cacheProperties.getPrimaryLayout() == MultiLevelCachePrimaryLayout.COMPACT
+                ? new CompactPrimaryCacheLayout(buildCompactCaffeineCache(cacheProperties, metrics), new ObjectPrimaryCacheLayout(primaryCache), dictionaryRegistry)
+                : new ObjectPrimaryCacheLayout(primaryCache);
+        return new MultiLevelValueAdaptingCache(name, secondCache(cacheProperties), primaryLayout, cacheProperties, metrics);
+    }
+
+    /**
+     * Provides the Redis template that writes with the serializer selected by the given cache properties.
+     *
+     * @param cacheProperties the effective properties of a cache
+     * @return the Redis template of the cache
+     */
+    private RedisTemplate<String, CacheWrapper> secondCache(MultiLevelCacheProperties cacheProperties) {
+        if (cacheProperties.getSerializer() == properties.getSerializer() || secondCache.getConnectionFactory() == null) {
+            return secondCache;
+        }
+        return secondCaches.computeIfAbsent(cacheProperties.getSerializer(), serializer ->
+                MultiLevelCacheAutoConfiguration.cacheWrapperTemplate(secondCache.getConnectionFactory(), cacheProperties, dictionaryRegistry));
+    }
+
+    /**
+     * Builds and configures a Caffeine cache instance based on the given cache properties.
+     * It is bounded by weight, approximating the heap usage of the entries, when
+     * {@link MultiLevelCacheProperties#getMaxWeight()} is positive, and by size otherwise.
+     *
+     * @param cacheProperties the effective properties of a cache
+     * @param metrics the metrics that record the expirations of the cache
      * @return a configured Caffeine cache instance with the provided settings for initial capacity,
-     *         maximum size, and expiration policies for access and write.
+     *         maximum size or weight, and expiration policies for access and write.
      */
-    private com.github.benmanes.caffeine.cache.Cache<String, Object> buildCaffeineCache() {
+    private com.github.benmanes.caffeine.cache.Cache<String, Object> buildCaffeineCache(MultiLevelCacheProperties cacheProperties,
+                                                                                        MultiLevelCacheRefreshMetrics metrics) {
         Caffeine<Object, Object> caffeineBuilder = Caffeine.newBuilder();
-        Optional<MultiLevelCacheProperties> opt = Optional.ofNullable(this.properties);
+        Optional<MultiLevelCacheProperties> opt = Optional.ofNullable(cacheProperties);
         opt.map(MultiLevelCacheProperties::getInitCapacity)
                 .ifPresent(caffeineBuilder::initialCapacity);
-        opt.map(MultiLevelCacheProperties::getMaxCapacity)
-                .ifPresent(caffeineBuilder::maximumSize);
-        opt.map(MultiLevelCacheProperties::getExpireAfterAccess)
-                .ifPresent(eaa -> caffeineBuilder.expireAfterAccess(eaa, TimeUnit.MILLISECONDS));
-        opt.map(MultiLevelCacheProperties::getExpireAfterWrite)
-                .ifPresent(eaa -> caffeineBuilder.expireAfterWrite(eaa, TimeUnit.MILLISECONDS));
-        return caffeineBuilder.recordStats().build();
+        if (!expireWithJitter(caffeineBuilder, cacheProperties, metrics)) {
+            opt.map(MultiLevelCacheProperties::getExpireAfterAccess)
+                    .ifPresent(eaa -> caffeineBuilder.expireAfterAccess(eaa, TimeUnit.MILLISECONDS));
+            opt.map(MultiLevelCacheProperties::getExpireAfterWrite)
+                    .ifPresent(eaa -> caffeineBuilder.expireAfterWrite(eaa, TimeUnit.MILLISECONDS));
+        }
+        caffeineBuilder.recordStats();
+        if (cacheProperties.getMaxWeight() > 0) {
+            return caffeineBuilder.maximumWeight(cacheProperties.getMaxWeight())
+                    .weigher((String key, Object value) -> ObjectPrimaryCacheLayout.weight(value))
+                    .build();
+        }
+        return caffeineBuilder.maximumSize(cacheProperties.getMaxCapacity()).build();
+    }
+
+    /**
+     * Builds the Caffeine cache of the compact primary cache layout. It is bounded by weight when
+     * {@link MultiLevelCacheProperties#getMaxWeight()} is positive, and by size otherwise.
+     *
+     * @param cacheProperties the effective properties of a cache
+     * @param metrics the metrics that record the expirations of the cache
+     * @return a configured Caffeine cache keyed by the decoded link codes
+     */
+    private com.github.benmanes.caffeine.cache.Cache<Long, CompactLinkEntry> buildCompactCaffeineCache(MultiLevelCacheProperties cacheProperties,
+                                                                                                       MultiLevelCacheRefreshMetrics metrics) {
+        Caffeine<Object, Object> caffeineBuilder = Caffeine.newBuilder()
+                .initialCapacity(cacheProperties.getInitCapacity());
+        if (!expireWithJitter(caffeineBuilder, cacheProperties, metrics)) {
+            if (cacheProperties.getExpireAfterAccess() > 0) {
+                caffeineBuilder.expireAfterAccess(cacheProperties.getExpireAfterAccess(), TimeUnit.MILLISECONDS);
+            }
+            if (cacheProperties.getExpireAfterWrite() > 0) {
+                caffeineBuilder.expireAfterWrite(cacheProperties.getExpireAfterWrite(), TimeUnit.MILLISECONDS);
+            }
+        }
+        caffeineBuilder.recordStats();
+        if (cacheProperties.getMaxWeight() > 0) {
+            return caffeineBuilder.maximumWeight(cacheProperties.getMaxWeight())
+                    .weigher((Long id, CompactLinkEntry entry) -> entry.weight())
+                    .build();
+        }
+        return caffeineBuilder.maximumSize(cacheProperties.getMaxCapacity()).build();
+    }
+
+    /**
+     * Records the expirations of a Caffeine cache and, if {@link MultiLevelCacheProperties#getExpireJitter()}
+     * is positive, lets its entries expire after a jittered time-to-live. Caffeine cannot combine a variable
+     * expiration with fixed ones, so the expiration after write takes precedence, and the expiration after access
+     * is only used, restarting on every read, if no expiration after write is set.
+     *
+     * @param caffeineBuilder the builder of the Caffeine cache
+     * @param cacheProperties the effective properties of a cache
+     * @param metrics the metrics that record the expirations of the cache
+     * @return true if the jittered expiration has been configured, false if the fixed expirations should be used
+     */
+    private boolean expireWithJitter(Caffeine<Object, Object> caffeineBuilder, MultiLevelCacheProperties cacheProperties,
+                                     MultiLevelCacheRefreshMetrics metrics) {
+        caffeineBuilder.evictionListener((Object key, Object value, RemovalCause cause) -> {
+            if (cause == RemovalCause.EXPIRED) {
+                metrics.expired();
+            }
+        });
+        long afterWrite = cacheProperties.getExpireAfterWrite();
+        long afterAccess = cacheProperties.getExpireAfterAccess();
+        if (cacheProperties.getExpireJitter() <= 0 || (afterWrite <= 0 && afterAccess <= 0)) {
+            return false;
+        }
+        caffeineBuilder.expireAfter(new JitteredExpiry<>(afterWrite > 0 ? afterWrite : afterAccess,
+                cacheProperties.getExpireJitter(), afterWrite <= 0));
+        return true;
     }
 
     /**
@@ -0,0 +1,13 @@
+package org.venus.cache;
+
+/**
+ * Enum representing the layouts that can be used for the entries of the multi-level cache in memory.
+ *
+ * OBJECT: Every entry is kept as a {@link CacheWrapper} keyed by the cache key.
+ * COMPACT: Link entries with a canonical Base64 code are kept as {@link CompactLinkEntry} keyed by the decoded
+ * code, all other entries are kept as in the OBJECT layout.
+ */
+public enum MultiLevelCachePrimaryLayout {
+    OBJECT,
+    COMPACT
+}
@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * This class holds the configuration properties for the Venus multi-level cache system.
  * It includes settings for both the in-memory and remote (i.e., Redis) caching layers.
@@ -44,4 +47,295 @@ public class MultiLevelCacheProperties {
      * within a Redis database, allowing for optimized memory and processing efficiency.
      */
     private long redisScanCount;
+    /**
+     * The serializer used for the values kept in Redis and for the cache synchronization messages.
+     * Switching from JACKSON to BINARY is safe at runtime, because the binary serializer still reads JSON values.
+     */
+    private MultiLevelCacheSerializerType serializer = MultiLevelCacheSerializerType.JACKSON;
+    /**
+     * The UTF-8 length in bytes from which the binary serializer deflates original URLs.
+     * A value of zero or less disables the compression.
+     */
+    private int urlCompressThreshold;
+    /**
+     * The layout of the cache entries in Redis, either one string key per entry or entries grouped into hash buckets.
+     */
+    private MultiLevelCacheRedisLayout redisLayout = MultiLevelCacheRedisLayout.STRING;
+    /**
+     * The number of hash buckets per cache when the HASH_BUCKET layout is used.
+     * It should be chosen so that a bucket holds fewer entries than the {@code hash-max-listpack-entries} of Redis.
+     */
+    private int hashBucketCount;
+    /**
+     * The layout of the cache entries in memory, either the wrapped objects or compact link entries with primitive keys.
+     */
+    private MultiLevelCachePrimaryLayout primaryLayout = MultiLevelCachePrimaryLayout.OBJECT;
+    /**
+     * The maximum weight of a primary cache, which approximates its heap usage in bytes.
+     * When it is positive, the primary cache is bounded by weight, growing with the URL length
+     * of each entry, instead of {@link #maxCapacity}.
+     */
+    private long maxWeight;
+    /**
+     * Indicates whether destination URLs are stored as a prefix of a learned, shared dictionary plus a suffix,
+     * both by the binary serializer and by the COMPACT primary cache layout.
+     */
+    private boolean urlPrefixDictionaryEnabled;
+    /**
+     * The maximum number of prefixes of the URL prefix dictionary.
+     */
+    private int urlPrefixDictionarySize = 1024;
+    /**
+     * The interval between two rebuilds of the URL prefix dictionary in milliseconds.
+     */
+    private long urlPrefixDictionaryRebuildInterval = 600000;
+    /**
+     * The minimum relative gain over the current URL prefix dictionary, in bytes saved on the sampled URLs,
+     * for a rebuilt dictionary to be published, e.g. 0.1 for 10 percent.
+     */
+    private double urlPrefixDictionaryMinGain = 0.1;
+    /**
+     * The maximum number of published URL prefix dictionaries kept in Redis, older versions are pruned
+     * and the entries that refer to them miss.
+     */
+    private int urlPrefixDictionaryMaxVersions = 8;
+    /**
+     * Indicates whether caches use the second level (Redis) cache. A cache without it is backed by its
+     * primary cache alone, which is still kept in sync across nodes by the cache synchronization messages.
+     */
+    private boolean secondLevelEnabled = true;
+    /**
+     * Indicates whether misses are filled under a lease in Redis, so that only one node loads a missing key
+     * and a fill that raced with an update or eviction of the key is rejected.
+     */
+    private boolean leaseEnabled;
+    /**
+     * The time in milliseconds after which an unused fill lease expires.
+     */
+    private long leaseTimeout = 3000;
+    /**
+     * The maximum time in milliseconds that a miss waits for the value filled by the lease holder,
+     * before it loads the value itself without caching it.
+     */
+    private long leaseWaitTimeout = 500;
+    /**
+     * The interval in milliseconds in which a waiting miss checks the second level cache for the filled value.
+     */
+    private long leaseRetryInterval = 20;
+    /**
+     * The maximum fraction by which the time-to-live of a primary cache entry is randomly shortened, between 0 and 1,
+     * so that entries written together do not expire together. Zero disables the jitter.
+     * With a jitter, the expiration after write takes precedence over the expiration after access.
+     */
+    private double expireJitter;
+    /**
+     * The beta of the probabilistic early refresh of primary cache hits (XFetch), zero disables it.
+     * A hit is refreshed in the background before its expiration with a probability that grows as the entry
+     * approaches its expiration and with the measured time to load it. Values above 1 favor earlier refreshes.
+     */
+    private double earlyRefreshBeta;
+    /**
+     * The time in milliseconds after which a second level cache entry that is not accessed expires, zero if it does not.
+     * It also caps the time-to-live of links that expire later. With the HASH_BUCKET layout,
+     * a whole bucket expires after this time since its last write.
+     */
+    private long secondLevelIdleTtl;
+    /**
+     * The time in milliseconds that a deactivated or expired link is kept in the second level cache as a cached miss,
+     * zero if it does not expire. A link that can be redirected is kept until its expiration.
+     */
+    private long secondLevelExpiredTtl;
+    /**
+     * Indicates whether entries record the generation of their group (the origin of the URL of a link),
+     * so that all entries of a group can be invalidated at once by bumping its generation.
+     */
+    private boolean generationEnabled;
+    /**
+     * The interval in milliseconds in which the generations are reloaded from Redis, which bounds how long
+     * a node that missed the announcement of a bump serves stale entries.
+     */
+    private long generationRefreshInterval = 60000;
+    /**
+     * Indicates whether the calls to the second level cache are guarded by a circuit breaker. While it is open,
+     * lookups miss immediately and writes are buffered and replayed once Redis recovers.
+     */
+    private boolean secondLevelBreakerEnabled;
+    /**
+     * The number of the most recent second level cache calls whose outcome the circuit breaker records.
+     */
+    private int secondLevelBreakerWindowSize = 100;
+    /**
+     * The minimum number of recorded calls before the circuit breaker may open.
+     */
+    private int secondLevelBreakerMinimumCalls = 20;
+    /**
+     * The share of failed or slow calls, between 0 and 1, at which the circuit breaker opens.
+     */
+    private double secondLevelBreakerFailureRate = 0.5;
+    /**
+     * The duration in milliseconds from which a second level cache call counts as slow, zero if no call is slow.
+     */
+    private long secondLevelBreakerSlowCallThreshold = 250;
+    /**
+     * The duration in milliseconds for which an open circuit breaker skips the second level cache before probing it.
+     */
+    private long secondLevelBreakerOpenDuration = 5000;
+    /**
+     * The maximum number of keys whose second level cache writes are buffered while Redis is unavailable.
+     */
+    private int secondLevelWriteBufferSize = 10000;
+    /**
+     * The interval in milliseconds in which buffered second level cache writes are replayed.
+     */
+    private long secondLevelReplayInterval = 1000;
+    /**
+     * Indicates whether a second level read that is slower than the hedge percentile is hedged with the load.
+     */
+    private boolean hedgeEnabled;
+    /**
+     * The percentile, between 0 and 1, of the recent second level read latencies after which a read is hedged.
+     */
+    private double hedgePercentile = 0.95;
+    /**
+     * The minimum time in milliseconds before a second level read is hedged.
+     */
+    private long hedgeMinDelay = 2;
+    /**
+     * The maximum share of second level reads, between 0 and 1, that may be hedged, shared by all caches.
+     */
+    private double hedgeMaxRate = 0.05;
+    /**
+     * The configuration of the individual caches, keyed by the cache name.
+     * Settings that a cache does not configure fall back to the global settings above.
+     */
+    private Map<String, MultiLevelCacheSpec> caches = new HashMap<>();
+
+    /**
+     * Checks whether the given serializer is used globally or by any of the configured caches.
+     *
+     * @param serializer the serializer to check
+     * @return true if at least one cache writes with the serializer
+     */
+    public boolean isSerializerUsed(MultiLevelCacheSerializerType serializer) {
+        if (this.serializer == serializer) {
+            return true;
+        }
+        for (MultiLevelCacheSpec spec : caches.values()) {
+            if (spec.getSerializer() == serializer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the effective properties of the given cache by applying its specification,
+     * if there is one, to a copy of the global properties.
+     *
+     * @param cacheName the name of the cache
+     * @return the effective properties of the cache
+     */
+    public MultiLevelCacheProperties resolve(String cacheName) {
+        MultiLevelCacheProperties resolved = new MultiLevelCacheProperties();
+        resolved.setAllowNull(allowNull);
+        resolved.setInitCapacity(initCapacity);
+        resolved.setMaxCapacity(maxCapacity);
+        resolved.setExpireAfterWrite(expireAfterWrite);
+        resolved.setExpireAfterAccess(expireAfterAccess);
+        resolved.setRedisScanCount(redisScanCount);
+        resolved.setSerializer(serializer);
+        resolved.setUrlCompressThreshold(urlCompressThreshold);
+        resolved.setRedisLayout(redisLayout);
+        resolved.setHashBucketCount(hashBucketCount);
+        resolved.setPrimaryLayout(primaryLayout);
+        resolved.setMaxWeight(maxWeight);
+        resolved.setUrlPrefixDictionaryEnabled(urlPrefixDictionaryEnabled);
+        resolved.setUrlPrefixDictionarySize(urlPrefixDictionarySize);
+        resolved.setUrlPrefixDictionaryRebuildInterval(urlPrefixDictionaryRebuildInterval);
+        resolved.setUrlPrefixDictionaryMinGain(urlPrefixDictionaryMinGain);
+        resolved.setUrlPrefixDictionaryMaxVersions(urlPrefixDictionaryMaxVersions);
+        resolved.setSecondLevelEnabled(secondLevelEnabled);
+        resolved.setLeaseEnabled(leaseEnabled);
+        resolved.setLeaseTimeout(leaseTimeout);
+        resolved.setLeaseWaitTimeout(leaseWaitTimeout);
+        resolved.setLeaseRetryInterval(leaseRetryInterval);
+        resolved.setExpireJitter(expireJitter);
+        resolved.setEarlyRefreshBeta(earlyRefreshBeta);
+        resolved.setSecondLevelIdleTtl(secondLevelIdleTtl);
+        resolved.setSecondLevelExpiredTtl(secondLevelExpiredTtl);
+        resolved.setGenerationEnabled(generationEnabled);
+        resolved.setGenerationRefreshInterval(generationRefreshInterval);
+        resolved.setSecondLevelBreakerEnabled(secondLevelBreakerEnabled);
+        resolved.setSecondLevelBreakerWindowSize(secondLevelBreakerWindowSize);
+        resolved.setSecondLevelBreakerMinimumCalls(secondLevelBreakerMinimumCalls);
+        resolved.setSecondLevelBreakerFailureRate(secondLevelBreakerFailureRate);
+        resolved.setSecondLevelBreakerSlowCallThreshold(secondLevelBreakerSlowCallThreshold);
+        resolved.setSecondLevelBreakerOpenDuration(secondLevelBreakerOpenDuration);
+        resolved.setSecondLevelWriteBufferSize(secondLevelWriteBufferSize);
+        resolved.setSecondLevelReplayInterval(secondLevelReplayInterval);
+        resolved.setHedgeEnabled(hedgeEnabled);
+        resolved.setHedgePercentile(hedgePercentile);
+        resolved.setHedgeMinDelay(hedgeMinDelay);
+        resolved.setHedgeMaxRate(hedgeMaxRate);
+
+        MultiLevelCacheSpec spec = caches.get(cacheName);
+        if (spec == null) {
+            return resolved;
+        }
+        if (spec.getAllowNull() != null) {
+            resolved.setAllowNull(spec.getAllowNull());
+        }
+        if (spec.getInitCapacity() != null) {
+            resolved.setInitCapacity(spec.getInitCapacity());
+        }
+        if (spec.getMaxCapacity() != null) {
+            resolved.setMaxCapacity(spec.getMaxCapacity());
+        }
+        if (spec.getMaxWeight() != null) {
+            resolved.setMaxWeight(spec.getMaxWeight());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            resolved.setExpireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            resolved.setExpireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getExpireJitter() != null) {
+            resolved.setExpireJitter(spec.getExpireJitter());
+        }
+        if (spec.getEarlyRefreshBeta() != null) {
+            resolved.setEarlyRefreshBeta(spec.getEarlyRefreshBeta());
+        }
+        if (spec.getSecondLevelIdleTtl() != null) {
+            resolved.setSecondLevelIdleTtl(spec.getSecondLevelIdleTtl());
+        }
+        if (spec.getSecondLevelExpiredTtl() != null) {
+            resolved.setSecondLevelExpiredTtl(spec.getSecondLevelExpiredTtl());
+        }
+        if (spec.getGenerationEnabled() != null) {
+            resolved.setGenerationEnabled(spec.getGenerationEnabled());
+        }
+        if (spec.getHedgeEnabled() != null) {
+            resolved.setHedgeEnabled(spec.getHedgeEnabled());
+        }
+        if (spec.getSecondLevelEnabled() != null) {
+            resolved.setSecondLevelEnabled(spec.getSecondLevelEnabled());
+        }
+        if (spec.getLeaseEnabled() != null) {
+            resolved.setLeaseEnabled(spec.getLeaseEnabled());
+        }
+        if (spec.getSerializer() != null) {
+            resolved.setSerializer(spec.getSerializer());
+        }
+        if (spec.getRedisLayout() != null) {
+            resolved.setRedisLayout(spec.getRedisLayout());
+        }
+        if (spec.getHashBucketCount() != null) {
+            resolved.setHashBucketCount(spec.getHashBucketCount());
+        }
+        if (spec.getPrimaryLayout() != null) {
+            resolved.setPrimaryLayout(spec.getPrimaryLayout());
+        }
+        return resolved;
+    }
 }
@@ -0,0 +1,13 @@
+package org.venus.cache;
+
+/**
+ * Enum representing the layouts that can be used for the entries of the multi-level cache in Redis.
+ *
+ * STRING: Every entry is a separate string key named {@code <cache-name>:<key>}.
+ * HASH_BUCKET: Entries are grouped by the hash of their key into a fixed number of hashes named
+ * {@code <cache-name>:bucket:<n>}, which are small enough to stay in the compact listpack encoding.
+ */
+public enum MultiLevelCacheRedisLayout {
+    STRING,
+    HASH_BUCKET
+}
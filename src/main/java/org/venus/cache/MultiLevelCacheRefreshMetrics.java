@@ -0,0 +1,124 @@
+package org.venus.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.venus.metrics.MetricsConstants;
+
+/**
+ * Records the expirations and early refreshes of the primary cache of one multi-level cache.
+ *
+ * Besides the totals, it keeps the number of expirations of each of the last {@link #WINDOW_SECONDS} seconds
+ * and reports the busiest second as a gauge, which shows how tightly expirations cluster.
+ * A peak far above the average rate means that many entries share the same deadline.
+ */
+public class MultiLevelCacheRefreshMetrics {
+    /**
+     * The number of seconds over which the busiest second of expirations is reported.
+     */
+    static final int WINDOW_SECONDS = 60;
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * Counts the entries refreshed before their expiration.
+     */
+    private final Counter earlyRefreshes;
+    /**
+     * Counts the entries that expired.
+     */
+    private final Counter expirations;
+    /**
+     * The epoch second of each slot of {@link #expirationsPerSecond}.
+     */
+    private final long[] seconds = new long[WINDOW_SECONDS];
+    /**
+     * The number of expirations in the second of each slot.
+     */
+    private final long[] expirationsPerSecond = new long[WINDOW_SECONDS];
+    /**
+     * The average time to load a missing entry in nanoseconds, an exponentially weighted moving average.
+     */
+    private volatile long loadCostNanos;
+
+    /**
+     * Constructs a MultiLevelCacheRefreshMetrics and registers its meters.
+     *
+     * @param cacheName the name of the cache, used as a tag of the meters
+     */
+    public MultiLevelCacheRefreshMetrics(String cacheName) {
+        Tags tags = Tags.of("cache", cacheName)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.earlyRefreshes = Counter.builder("venus_cache_early_refresh_total").tags(tags).register(registry);
+        this.expirations = Counter.builder("venus_cache_expiration_total").tags(tags).register(registry);
+        Gauge.builder("venus_cache_expiration_peak_per_second", this, MultiLevelCacheRefreshMetrics::peakExpirationsPerSecond)
+                .tags(tags).register(registry);
+        Gauge.builder("venus_cache_load_cost_seconds", this, m -> m.loadCostNanos / 1e9)
+                .tags(tags).register(registry);
+    }
+
+    /**
+     * Records an early refresh.
+     */
+    public void earlyRefresh() {
+        earlyRefreshes.increment();
+    }
+
+    /**
+     * Records an expiration of an entry.
+     */
+    public void expired() {
+        expirations.increment();
+        long second = System.currentTimeMillis() / 1000L;
+        int slot = (int) (second % WINDOW_SECONDS);
+        synchronized (seconds) {
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                expirationsPerSecond[slot] = 0;
+            }
+            expirationsPerSecond[slot]++;
+        }
+    }
+
+    /**
+     * Records the time it took to load a missing entry.
+     *
+     * @param nanos the load time in nanoseconds
+     */
+    public void loaded(long nanos) {
+        long cost = loadCostNanos;
+        loadCostNanos = cost == 0 ? nanos : cost + (nanos - cost) / 8;
+    }
+
+    /**
+     * Provides the average time to load a missing entry.
+     *
+     * @return the load cost in nanoseconds, zero if nothing has been loaded yet
+     */
+    public long loadCostNanos() {
+        return loadCostNanos;
+    }
+
+    /**
+     * Computes the largest number of expirations within one second of the window.
+     *
+     * @return the peak number of expirations per second
+     */
+    public long peakExpirationsPerSecond() {
+        long oldest = System.currentTimeMillis() / 1000L - WINDOW_SECONDS;
+        long peak = 0;
+        synchronized (seconds) {
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                if (seconds[i] > oldest) {
+                    peak = Math.max(peak, expirationsPerSecond[i]);
+                }
+            }
+        }
+        return peak;
+    }
+}
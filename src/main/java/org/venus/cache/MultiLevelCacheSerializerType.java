@@ -0,0 +1,12 @@
+package org.venus.cache;
+
+/**
+ * Enum representing the serializers that can be used for the values that the multi-level cache keeps in Redis.
+ *
+ * JACKSON: Polymorphic JSON, every value carries the class names of the cached types.
+ * BINARY: The compact, versioned binary format of {@link BinaryCacheRedisSerializer}, which still reads JSON values.
+ */
+public enum MultiLevelCacheSerializerType {
+    JACKSON,
+    BINARY
+}
@@ -0,0 +1,87 @@
+package org.venus.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The configuration of a single cache of the multi-level cache system.
+ *
+ * Every setting is optional, a setting that is not set falls back to the global setting of
+ * {@link MultiLevelCacheProperties}. This allows each cache to be sized and tuned for its own access pattern.
+ */
+@Getter
+@Setter
+public class MultiLevelCacheSpec {
+    /**
+     * Determines whether null values are allowed in the cache.
+     */
+    private Boolean allowNull;
+    /**
+     * The initial capacity of the primary cache.
+     */
+    private Integer initCapacity;
+    /**
+     * The maximum number of entries of the primary cache, used when no maximum weight is set.
+     */
+    private Integer maxCapacity;
+    /**
+     * The maximum weight of the primary cache, which approximates its heap usage in bytes.
+     */
+    private Long maxWeight;
+    /**
+     * The duration in milliseconds after which a primary cache entry expires since it was written.
+     */
+    private Long expireAfterWrite;
+    /**
+     * The duration in milliseconds after which a primary cache entry expires since it was last accessed.
+     */
+    private Long expireAfterAccess;
+    /**
+     * The maximum fraction by which the time-to-live of a primary cache entry is randomly shortened.
+     */
+    private Double expireJitter;
+    /**
+     * The beta of the probabilistic early refresh of primary cache hits, zero disables it.
+     */
+    private Double earlyRefreshBeta;
+    /**
+     * Indicates whether the cache uses the second level (Redis) cache.
+     */
+    private Boolean secondLevelEnabled;
+    /**
+     * The time in milliseconds after which a second level cache entry that is not accessed expires.
+     */
+    private Long secondLevelIdleTtl;
+    /**
+     * The time in milliseconds that a deactivated or expired link is kept in the second level cache.
+     */
+    private Long secondLevelExpiredTtl;
+    /**
+     * Indicates whether misses of the cache are filled under a lease in Redis.
+     */
+    private Boolean leaseEnabled;
+    /**
+     * Indicates whether entries record the generation of their group, so that a group can be invalidated at once.
+     */
+    private Boolean generationEnabled;
+    /**
+     * Indicates whether slow second level reads of this cache are hedged with the load.
+     */
+    private Boolean hedgeEnabled;
+    /**
+     * The serializer used for the values of the cache kept in Redis.
+     */
+    private MultiLevelCacheSerializerType serializer;
+    /**
+     * The layout of the entries of the cache in Redis.
+     */
+    private MultiLevelCacheRedisLayout redisLayout;
+    /**
+     * The number of hash buckets when the HASH_BUCKET layout is used.
+     */
+    private Integer hashBucketCount;
+    /**
+     * The layout of the entries of the cache in memory.
+     */
+    private MultiLevelCachePrimaryLayout primaryLayout;
+}
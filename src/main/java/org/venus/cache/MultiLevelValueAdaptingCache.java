@@ -3,17 +3,30 @@ package org.venus.cache;
 import com.github.benmanes.caffeine.cache.Cache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
-import org.springframework.data.redis.connection.DataType;
-import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.lang.NonNull;
+import org.venus.support.CircuitBreaker;
+import org.venus.support.DatabaseUnavailableException;
+import org.venus.support.DeadlineExceededException;
+import org.venus.support.RequestDeadline;
 
-import java.util.HashSet;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import static org.venus.cache.MultiLevelCacheConstants.DEFAULT_LISTENER_NAME;
 
@@ -25,6 +38,11 @@ import static org.venus.cache.MultiLevelCacheConstants.DEFAULT_LISTENER_NAME;
  */
 @Slf4j
 public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache implements CacheSelector {
+    /**
+     * Runs the early refreshes of primary cache hits in the background, one virtual thread per refresh.
+     */
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("venus-cache-refresh-", 0).factory());
     /**
      * Represents the name of the cache.
      * This variable holds the identifier used for the cache.
@@ -42,11 +60,48 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
      * The cache serves as the main storage for frequently accessed data to optimize retrieval times.
      */
     private Cache<String, Object> primaryCache;
+    /**
+     * The layout of the entries of this cache in the primary cache.
+     */
+    private PrimaryCacheLayout primaryLayout;
     /**
      * An instance of VenusMultiLevelCacheProperties that holds the configuration
      * settings for the multi-level caching system.
      */
     private MultiLevelCacheProperties properties;
+    /**
+     * The layout of the entries of this cache in the second level cache.
+     */
+    private SecondCacheLayout layout;
+    /**
+     * The fill leases of this cache, or null if misses are filled without a lease.
+     */
+    private CacheLeases leases;
+    /**
+     * The generations of the groups of entries of this cache, or null if groups cannot be invalidated at once.
+     */
+    private CacheGenerations generations;
+    /**
+     * The circuit breaker of the second level cache, or null if Redis calls are not guarded.
+     */
+    private CircuitBreaker breaker;
+    /**
+     * The loads in progress on this node, keyed by the cache key, so that concurrent misses of
+     * the same key on this node share a single load.
+     */
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    /**
+     * The keys that are being refreshed early on this node, so that a hot key is refreshed once at a time.
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    /**
+     * Records the load cost, the expirations and the early refreshes of this cache.
+     */
+    private MultiLevelCacheRefreshMetrics metrics;
+    /**
+     * Hedges the second level reads of misses of the primary cache with the load, or null if reads are not hedged.
+     */
+    private HedgedReads hedging;
 
     /**
      * Constructs a VenusMultiLevelValueAdaptingCache.
@@ -57,11 +112,64 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
      * @param properties properties for configuring the multi-level cache.
      */
     public MultiLevelValueAdaptingCache(String cacheName, RedisTemplate<String, CacheWrapper> template, Cache<String, Object> primaryCache, MultiLevelCacheProperties properties) {
+        this(cacheName, template, new ObjectPrimaryCacheLayout(primaryCache), properties);
+    }
+
+    /**
+     * Constructs a VenusMultiLevelValueAdaptingCache with the given primary cache layout.
+     *
+     * @param cacheName the name of the cache.
+     * @param template the Redis template to be used for the secondary cache.
+     * @param primaryLayout the layout of the entries in the primary cache.
+     * @param properties properties for configuring the multi-level cache.
+     */
+    public MultiLevelValueAdaptingCache(String cacheName, RedisTemplate<String, CacheWrapper> template, PrimaryCacheLayout primaryLayout, MultiLevelCacheProperties properties) {
+        this(cacheName, template, primaryLayout, properties, new MultiLevelCacheRefreshMetrics(cacheName));
+    }
+
+    /**
+     * Constructs a VenusMultiLevelValueAdaptingCache with the given primary cache layout and metrics.
+     *
+     * @param cacheName the name of the cache.
+     * @param template the Redis template to be used for the secondary cache.
+     * @param primaryLayout the layout of the entries in the primary cache.
+     * @param properties properties for configuring the multi-level cache.
+     * @param metrics the metrics of the load cost, expirations and early refreshes of the cache.
+     */
+    public MultiLevelValueAdaptingCache(String cacheName, RedisTemplate<String, CacheWrapper> template, PrimaryCacheLayout primaryLayout,
+                                        MultiLevelCacheProperties properties, MultiLevelCacheRefreshMetrics metrics) {
         super(properties.isAllowNull());
+        this.metrics = metrics;
         this.cacheName = cacheName;
         this.secondCache = template;
-        this.primaryCache = primaryCache;
+        this.primaryLayout = primaryLayout;
+        this.primaryCache = primaryLayout.objectCache();
         this.properties = properties;
+        if (properties.isGenerationEnabled() && template.getConnectionFactory() != null) {
+            this.generations = new CacheGenerations(cacheName, template.getConnectionFactory(), properties);
+        }
+        if (!properties.isSecondLevelEnabled()) {
+            this.layout = DisabledSecondCacheLayout.INSTANCE;
+        } else if (properties.getRedisLayout() == MultiLevelCacheRedisLayout.HASH_BUCKET) {
+            this.layout = new HashBucketSecondCacheLayout(cacheName, template, properties, generations);
+        } else {
+            this.layout = new StringSecondCacheLayout(cacheName, template, properties, generations);
+        }
+        if (properties.isSecondLevelEnabled() && properties.isSecondLevelBreakerEnabled()) {
+            this.breaker = new CircuitBreaker(cacheName + "-second-cache",
+                    properties.getSecondLevelBreakerWindowSize(),
+                    properties.getSecondLevelBreakerMinimumCalls(),
+                    properties.getSecondLevelBreakerFailureRate(),
+                    properties.getSecondLevelBreakerSlowCallThreshold(),
+                    properties.getSecondLevelBreakerOpenDuration());
+            this.layout = new GuardedSecondCacheLayout(cacheName, layout, breaker, properties);
+        }
+        if (properties.isHedgeEnabled() && properties.isSecondLevelEnabled()) {
+            this.hedging = new HedgedReads(cacheName, properties);
+        }
+        if (properties.isLeaseEnabled() && properties.isSecondLevelEnabled() && template.getConnectionFactory() != null) {
+            this.leases = new CacheLeases(cacheName, template.getConnectionFactory(), properties);
+        }
     }
 
     /**
@@ -76,28 +184,60 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
     /**
      * Retrieves an object associated with the provided key from the primary cache or, if not found,
      * from the secondary cache. If the object is found in the secondary cache, it is stored in
-     * the primary cache for faster future retrievals.
+     * the primary cache for faster future retrievals. An entry written before the last bump of the generation
+     * of its group is stale and treated as a miss. The secondary cache is skipped once the deadline of the request
+     * is exceeded, see {@link RequestDeadline}.
      *
      * @param key the key whose associated object is to be retrieved
      * @return the object associated with the specified key, or null if no such object exists
      */
     @Override
     protected Object lookup(@NonNull Object key) {
-        CacheWrapper wrapper = (CacheWrapper) primaryCache.getIfPresent((String) key);
+        CacheWrapper wrapper = lookupPrimary((String) key);
         if (wrapper != null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Get data[key:{}, value-wrapper:{}] from primary cache", key, wrapper);
-            }
             return wrapper;
         }
+        if (!RequestDeadline.tryEnter(RequestDeadline.STAGE_SECOND_CACHE)) {
+            return null;
+        }
+        return lookupSecond((String) key);
+    }
 
-        String redisKey = buildKey(key);
-        wrapper = secondCache.opsForValue().get(redisKey);
+    /**
+     * Retrieves the entry of the given key from the primary cache, dropping it if it is stale.
+     *
+     * @param key the key whose entry is to be retrieved
+     * @return the entry, or null if it is not present or stale
+     */
+    private CacheWrapper lookupPrimary(String key) {
+        CacheWrapper wrapper = RequestDeadline.stage(RequestDeadline.STAGE_PRIMARY_CACHE, () -> primaryLayout.get(key));
+        if (wrapper != null && generations != null && generations.isStale(wrapper)) {
+            primaryLayout.invalidate(key);
+            wrapper = null;
+        }
+        if (wrapper != null && log.isDebugEnabled()) {
+            log.debug("Get data[key:{}, value-wrapper:{}] from primary cache", key, wrapper);
+        }
+        return wrapper;
+    }
+
+    /**
+     * Retrieves the entry of the given key from the secondary cache and stores it in the primary cache.
+     *
+     * @param key the key whose entry is to be retrieved
+     * @return the entry, or null if it is not present or stale
+     */
+    private CacheWrapper lookupSecond(String key) {
+        CacheWrapper wrapper = RequestDeadline.stage(RequestDeadline.STAGE_SECOND_CACHE, () -> layout.get(key));
+        if (wrapper != null && generations != null && generations.isStale(wrapper)) {
+            // the reload overwrites the stale entry of the second cache
+            wrapper = null;
+        }
         if (wrapper != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Get data[key:{}, value-wrapper:{}] from second cache", key, wrapper);
             }
-            primaryCache.put((String) key, wrapper);
+            primaryLayout.put(key, wrapper);
         }
         return wrapper;
     }
@@ -126,7 +266,9 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
 
     /**
      * Retrieves the value associated with the given key from the cache, loading it using the provided
-     * valueLoader if it is not already present.
+     * valueLoader if it is not already present. If the value cannot be loaded, nothing is cached and a stale value
+     * of the key is returned if there is one, null otherwise. With hedged reads, a second level read that is slower
+     * than usual races with the load, see {@link HedgedReads}.
      *
      * @param key The key whose associated value is to be returned. It should not be null.
      * @param valueLoader A callable used to load the value if it is not present in the cache. It should not be null.
@@ -137,11 +279,34 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
     @Override
     public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
         try {
-            CacheWrapper wrapper = (CacheWrapper) lookup(key);
+            CacheWrapper wrapper;
+            if (hedging != null && isSecondLevelAvailable()) {
+                wrapper = lookupPrimary((String) key);
+                if (wrapper == null && RequestDeadline.tryEnter(RequestDeadline.STAGE_SECOND_CACHE)) {
+                    long snapshot = snapshot();
+                    HedgedReads.Outcome outcome = hedging.read(() -> lookupSecond((String) key),
+                            () -> new CacheWrapper((String) key, timedLoad(valueLoader)));
+                    if (outcome.loaded()) {
+                        T t = (T) outcome.value().getValue();
+                        put(key, t, snapshot);
+                        return t;
+                    }
+                    wrapper = outcome.value();
+                }
+            } else {
+                wrapper = (CacheWrapper) lookup(key);
+            }
             if (wrapper != null) {
+                if (properties.getEarlyRefreshBeta() > 0) {
+                    refreshEarly((String) key, valueLoader);
+                }
                 return (T) wrapper.getValue();
             }
-            T t = valueLoader.call();
+            if (leases != null && isSecondLevelAvailable()) {
+                return (T) loadShared((String) key, valueLoader);
+            }
+            long snapshot = snapshot();
+            T t = timedLoad(valueLoader);
             synchronized (this) {
                 wrapper = (CacheWrapper) lookup(key);
                 if (wrapper != null) {
@@ -150,18 +315,288 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
                     if (log.isDebugEnabled()) {
                         log.debug("The key[{}]-value[{}] is not exists in the cache", key, t);
                     }
-                    put(key, t);
+                    put(key, t, snapshot);
                 }
             }
             return t;
         } catch (Exception e) {
-            if (log.isErrorEnabled()) {
+            Object stale = lookupStale((String) key);
+            if (stale != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Load data[key:{}] of cache is failure, serve its stale value: {}", key, e.getMessage());
+                }
+                return (T) stale;
+            }
+            if (e instanceof DatabaseUnavailableException || e instanceof DeadlineExceededException) {
+                // expected for every miss of an outage or an overload, the guard and the deadline meters report them
+                if (log.isDebugEnabled()) {
+                    log.debug("Load data[key:{}] of cache is rejected: {}", key, e.getMessage());
+                }
+            } else if (log.isErrorEnabled()) {
                 log.error("Get data[key:{}] from cache is failure", key, e);
             }
         }
         return null;
     }
 
+    /**
+     * Looks up an entry that is not served normally because it was written before the last bump of the generation
+     * of its group. It is the best value left when the value of a key cannot be loaded, e.g. during a database outage.
+     * Without generations there are no such entries, as every other entry is served by {@link #lookup(Object)}.
+     *
+     * @param key the key whose value cannot be loaded
+     * @return the stale value, or null if there is none
+     */
+    private Object lookupStale(String key) {
+        if (generations == null) {
+            return null;
+        }
+        try {
+            CacheWrapper wrapper = layout.get(key);
+            return wrapper == null ? null : wrapper.getValue();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calls the given loader and records how long it took, which is the cost that the early refresh weighs.
+     *
+     * @param valueLoader loads the value of a key
+     * @param <T> the type of the value
+     * @return the loaded value
+     * @throws Exception if the value cannot be loaded
+     */
+    private <T> T timedLoad(Callable<T> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        T value = valueLoader.call();
+        metrics.loaded(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Refreshes a hit in the background before it expires, with the probabilistic early expiration of XFetch:
+     * the key is refreshed if {@code -cost * beta * ln(random)} reaches its remaining time-to-live, where the cost
+     * is the average load time of this cache. Hot keys are thus refreshed once, shortly before their expiration,
+     * instead of all missing together after it, and the earlier the more expensive they are to load.
+     * A refresh that fails or loads nothing keeps the current entry until it expires.
+     *
+     * @param key the key that was hit
+     * @param valueLoader loads the value of the key
+     */
+    private void refreshEarly(String key, Callable<?> valueLoader) {
+        long cost = metrics.loadCostNanos();
+        if (cost <= 0) {
+            return;
+        }
+        long remaining = primaryLayout.expiresAfterNanos(key);
+        if (remaining < 0) {
+            return;
+        }
+        double gap = -cost * properties.getEarlyRefreshBeta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        if (gap < remaining || !refreshing.add(key)) {
+            return;
+        }
+        metrics.earlyRefresh();
+        if (log.isDebugEnabled()) {
+            log.debug("Refresh the key[{}] {}ms before its expiration", key, TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+        try {
+            REFRESH_EXECUTOR.execute(() -> {
+                try {
+                    long snapshot = snapshot();
+                    Object value = timedLoad(valueLoader);
+                    if (value != null) {
+                        put(key, value, snapshot);
+                    }
+                } catch (Exception e) {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Refresh data[key:{}] of cache is failure", key, e);
+                    }
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a missing key once per node: the first miss fills the key under a lease, concurrent misses
+     * of the same key on this node wait for its result.
+     *
+     * @param key the missing key
+     * @param valueLoader loads the value of the key
+     * @return the value of the key
+     * @throws Exception if the value cannot be loaded
+     */
+    private Object loadShared(String key, Callable<?> valueLoader) throws Exception {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inProgress = loading.putIfAbsent(key, load);
+        if (inProgress != null) {
+            try {
+                return inProgress.get(RequestDeadline.boundMillis(properties.getLeaseTimeout()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (TimeoutException e) {
+                return valueLoader.call();
+            }
+        }
+        try {
+            Object value = loadWithLease(key, valueLoader);
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * Fills a missing key under a lease. The lease holder loads the value and writes it back only if the lease
+     * has not been invalidated by an update or eviction in the meantime. Any other caller waits for the value
+     * to appear in the second level cache, and loads it without caching it if it does not appear in time.
+     *
+     * @param key the missing key
+     * @param valueLoader loads the value of the key
+     * @return the value of the key
+     * @throws Exception if the value cannot be loaded
+     */
+    private Object loadWithLease(String key, Callable<?> valueLoader) throws Exception {
+        String token = leases.acquire(key);
+        if (token != null) {
+            long snapshot = snapshot();
+            Object value;
+            try {
+                value = timedLoad(valueLoader);
+            } catch (Exception e) {
+                leases.release(key, token);
+                throw e;
+            }
+            if (value == null && !isAllowNullValues()) {
+                leases.release(key, token);
+                return null;
+            }
+            if (layout.setIfLeased(key, value, leases.leaseKey(key), token, snapshot)) {
+                CacheWrapper wrapper = wrap(key, value, snapshot);
+                primaryLayout.put(key, wrapper);
+                publish(CacheMessageListenerType.UPDATE, wrapper);
+            } else if (log.isDebugEnabled()) {
+                log.debug("The fill of key[{}] is rejected, because its lease has been invalidated", key);
+            }
+            return value;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RequestDeadline.boundMillis(properties.getLeaseWaitTimeout()));
+        while (System.nanoTime() < deadline) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(TimeUnit.MILLISECONDS.toNanos(properties.getLeaseRetryInterval()), deadline - System.nanoTime()));
+            CacheWrapper wrapper = RequestDeadline.stage(RequestDeadline.STAGE_SECOND_CACHE, () -> layout.get(key));
+            if (wrapper != null && (generations == null || !generations.isStale(wrapper))) {
+                primaryLayout.put(key, wrapper);
+                return wrapper.getValue();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("The lease of key[{}] is held by another node, load it without caching", key);
+        }
+        return valueLoader.call();
+    }
+
+    /**
+     * Retrieves the values of the given keys in bulk, level by level: one bulk lookup of the primary cache,
+     * one multi-get of the secondary cache for the misses, and a single call of the loader for the keys that
+     * are in neither. Entries found in the secondary cache are back-filled into the primary cache, loaded values
+     * are back-filled into both levels in bulk and announced to the other nodes.
+     * A key that the loader does not return is cached as null if null values are allowed.
+     *
+     * @param keys the keys to retrieve
+     * @param loader loads the values of the keys that are not cached, returning them by their key
+     * @return the values in the order of the given keys, with null for the keys that have no value
+     */
+    public Map<String, Object> getAll(Collection<String> keys, Function<List<String>, Map<String, ?>> loader) {
+        Map<String, CacheWrapper> found = new HashMap<>(primaryLayout.getAll(keys));
+        if (generations != null) {
+            found.values().removeIf(generations::isStale);
+        }
+        List<String> misses = new ArrayList<>();
+        for (String key : keys) {
+            if (!found.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            List<CacheWrapper> wrappers = layout.multiGet(misses);
+            Map<String, CacheWrapper> backFill = new HashMap<>(misses.size() * 2);
+            List<String> remaining = new ArrayList<>();
+            for (int i = 0; i < misses.size(); i++) {
+                String key = misses.get(i);
+                CacheWrapper wrapper = i < wrappers.size() ? wrappers.get(i) : null;
+                if (wrapper != null && (generations == null || !generations.isStale(wrapper))) {
+                    backFill.put(key, wrapper);
+                } else {
+                    remaining.add(key);
+                }
+            }
+            if (!backFill.isEmpty()) {
+                primaryLayout.putAll(backFill);
+                found.putAll(backFill);
+            }
+            if (!remaining.isEmpty()) {
+                found.putAll(load(remaining, loader));
+            }
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            CacheWrapper wrapper = found.get(key);
+            values.put(key, wrapper == null ? null : wrapper.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Loads the values of the given keys and stores them in both levels in bulk.
+     *
+     * @param keys the keys that are in neither level
+     * @param loader loads the values of the keys, returning them by their key
+     * @return the stored entries by their key
+     */
+    private Map<String, CacheWrapper> load(List<String> keys, Function<List<String>, Map<String, ?>> loader) {
+        long snapshot = snapshot();
+        Map<String, ?> loaded;
+        try {
+            loaded = loader.apply(keys);
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Load data[keys:{}] of cache is failure", keys.size(), e);
+            }
+            return Map.of();
+        }
+
+        Map<String, CacheWrapper> wrappers = new HashMap<>(keys.size() * 2);
+        Map<String, Object> values = new HashMap<>(keys.size() * 2);
+        for (String key : keys) {
+            Object value = loaded == null ? null : loaded.get(key);
+            if (value == null && !isAllowNullValues()) {
+                continue;
+            }
+            wrappers.put(key, wrap(key, value, snapshot));
+            values.put(key, value);
+        }
+        if (wrappers.isEmpty()) {
+            return wrappers;
+        }
+        primaryLayout.putAll(wrappers);
+        layout.setAll(values, snapshot);
+        wrappers.values().forEach(wrapper -> publish(CacheMessageListenerType.UPDATE, wrapper));
+        return wrappers;
+    }
+
     /**
      * Stores the given key-value pair in the cache. If the cache is configured
      * to disallow null values and the provided value is null, then the key-value
@@ -172,6 +607,17 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
      */
     @Override
     public void put(@NonNull Object key, Object value) {
+        put(key, value, snapshot());
+    }
+
+    /**
+     * Stores the given key-value pair in the cache, stamped with the generation of its group as of the given snapshot.
+     *
+     * @param key the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    private void put(Object key, Object value, long snapshot) {
         // Allows storage of NULL values, which in some cases can avoid problems such as cache penetration
         if (!isAllowNullValues() && value == null) {
             if (log.isWarnEnabled()) {
@@ -179,25 +625,14 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
             }
             return;
         }
-        primaryCache.put((String) key, new CacheWrapper((String) key, value));
-
-        String redisKey = buildKey(key);
-        // the second cache is not permits the key-value expire
-        secondCache.opsForValue().set(redisKey, new CacheWrapper(redisKey, value));
-        try {
-            CacheListenerMessage cacheMassage = CacheListenerMessage.builder()
-                    .name(this.cacheName)
-                    .type(CacheMessageListenerType.UPDATE)
-                    .value(value)
-                    .key((String) key)
-                    .source(ListenerSourceSupport.getSourceAddress())
-                    .build();
-            secondCache.convertAndSend(DEFAULT_LISTENER_NAME, cacheMassage);
-        } catch (Exception e) {
-            if (log.isErrorEnabled()) {
-                log.error(e.getMessage());
-            }
+        if (leases != null && isSecondLevelAvailable()) {
+            // reject fills that loaded the value before this update
+            leases.invalidate((String) key);
         }
+        CacheWrapper wrapper = wrap((String) key, value, snapshot);
+        primaryLayout.put((String) key, wrapper);
+        layout.set((String) key, value, snapshot);
+        publish(CacheMessageListenerType.UPDATE, wrapper);
     }
 
     /**
@@ -207,16 +642,135 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
      */
     @Override
     public void evict(@NonNull Object key) {
-        secondCache.delete(buildKey(key));
-        primaryCache.invalidate((String) key);
+        if (leases != null && isSecondLevelAvailable()) {
+            // reject fills that loaded the value before this eviction
+            leases.invalidate((String) key);
+        }
+        layout.delete((String) key);
+        primaryLayout.invalidate((String) key);
+        publish(CacheMessageListenerType.INVALIDATE, (String) key, null);
+    }
+
+    /**
+     * Invalidates all entries of the given group at once by bumping its generation, in Redis and on this node,
+     * and announcing it to the other nodes with a single message. The entries are dropped lazily on their
+     * next access.
+     *
+     * @param group the group, the origin of the original URL of a link as returned by {@link CacheGenerations#group(Object)}
+     * @return the new generation of the group
+     * @throws UnsupportedOperationException if generations are not enabled for this cache
+     */
+    public long invalidateGroup(String group) {
+        if (generations == null) {
+            throw new UnsupportedOperationException("The generations of the cache[" + cacheName + "] are not enabled");
+        }
+        long generation = generations.bump(group);
+        publish(CacheMessageListenerType.GENERATION, group, generation);
+        return generation;
+    }
+
+    /**
+     * Indicates whether entries of this cache record the generation of their group.
+     *
+     * @return true if groups of entries can be invalidated at once
+     */
+    public boolean isGenerationEnabled() {
+        return generations != null;
+    }
+
+    /**
+     * Adopts the generation of a group announced by another node.
+     *
+     * @param group the group
+     * @param generation the new generation of the group
+     */
+    public void advanceGeneration(String group, long generation) {
+        if (generations != null) {
+            generations.advance(group, generation);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the generations before a value is read, so that the value is stamped with the generation
+     * of its group at that time rather than when it is written, see {@link CacheGenerations#snapshot()}.
+     *
+     * @return the snapshot, zero if generations are not enabled
+     */
+    private long snapshot() {
+        return generations == null ? 0 : generations.snapshot();
+    }
+
+    /**
+     * Wraps a value into a primary cache entry, stamped with the generation of its group as of the given snapshot.
+     *
+     * @param key the cache key
+     * @param value the value, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return the entry
+     */
+    private CacheWrapper wrap(String key, Object value, long snapshot) {
+        return generations == null ? new CacheWrapper(key, value) : generations.wrap(key, value, snapshot);
+    }
+
+    /**
+     * Wraps a value announced by another node into a primary cache entry, stamped with the generation its sender
+     * stamped it with. Senders that do not announce generations are trusted with the current one.
+     *
+     * @param key the cache key
+     * @param value the value, may be null
+     * @param generation the announced generation, null if it was not announced
+     * @return the entry
+     */
+    public CacheWrapper wrapAnnounced(String key, Object value, Long generation) {
+        if (generations == null || generation == null) {
+            return wrap(key, value, snapshot());
+        }
+        return new CacheWrapper(key, value, generation);
+    }
+
+    /**
+     * Announces a change of an entry to the other nodes, which apply it to their primary cache.
+     *
+     * @param type the type of the change
+     * @param key the key of the entry
+     * @param value the new value of an updated entry, null otherwise
+     */
+    private void publish(CacheMessageListenerType type, String key, Object value) {
+        publish(type, key, value, null);
+    }
+
+    /**
+     * Announces an updated entry to the other nodes, with the generation it is stamped with if generations are enabled.
+     *
+     * @param type the type of the change
+     * @param wrapper the updated entry
+     */
+    private void publish(CacheMessageListenerType type, CacheWrapper wrapper) {
+        publish(type, wrapper.getKey(), wrapper.getValue(), generations == null ? null : wrapper.getGeneration());
+    }
+
+    /**
+     * Announces a change of an entry to the other nodes, which apply it to their primary cache.
+     *
+     * @param type the type of the change
+     * @param key the key of the entry
+     * @param value the new value of an updated entry, null otherwise
+     * @param generation the generation of an updated entry, null if it is not announced
+     */
+    private void publish(CacheMessageListenerType type, String key, Object value, Long generation) {
+        if (!isSecondLevelAvailable()) {
+            // the other nodes cannot be reached either, their entries expire on their own
+            return;
+        }
         try {
             CacheListenerMessage message = CacheListenerMessage.builder()
                     .name(this.cacheName)
-                    .type(CacheMessageListenerType.INVALIDATE)
-                    .key((String) key)
+                    .type(type)
+                    .value(value)
+                    .key(key)
                     .source(ListenerSourceSupport.getSourceAddress())
+                    .generation(generation)
                     .build();
-
             secondCache.convertAndSend(DEFAULT_LISTENER_NAME, message);
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
@@ -226,17 +780,13 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
     }
 
     /**
-     * Clears the cache by removing all entries associated with the specified cache name.
-     *
-     * This method will retrieve all keys that match the pattern specified by the
-     * cache name concatenated with ":*" and delete them from the secondary cache.
-     * Additionally, it will invalidate all entries in the primary cache.
+     * Clears the cache by removing all entries of the cache from the secondary cache,
+     * as laid out by the configured {@link SecondCacheLayout}, and invalidating all entries in the primary cache.
      */
     @Override
     public void clear() {
-        Set<String> keys = getCacheKeys(this.cacheName.concat(":*"));
-        secondCache.delete(keys);
-        primaryCache.invalidateAll();
+        layout.clear();
+        primaryLayout.invalidateAll();
     }
 
     /**
@@ -246,32 +796,42 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
      * @return a set of cache keys that match the specified pattern.
      */
     public Set<String> getCacheKeys(String pattern) {
-        Set<String> keys = new HashSet<>();
-        ScanOptions options = ScanOptions.scanOptions()
-                .count(properties.getRedisScanCount())
-                .type(DataType.STRING)
-                .match(pattern)
-                .build();
-        Cursor.CursorId cursorId;
-        do {
-            Cursor<String> cursor = secondCache.scan(options);
-            cursorId = cursor.getId();
-        } while (!"0".equals(cursorId.getCursorId()));
-        return keys;
+        return StringSecondCacheLayout.scan(secondCache, pattern, properties.getRedisScanCount());
     }
 
     /**
-     * Constructs a cache key by combining the cache name with the provided key.
+     * Indicates whether Redis is considered available, that is, the circuit breaker of the second level cache
+     * is closed or there is none. Leases and cache synchronization messages are skipped while it is not.
      *
-     * @param key the object to be used as a key in the cache
-     * @return a concatenated string representing the full cache key
+     * @return true if Redis calls are made normally
      */
-    private String buildKey(Object key) {
-        return this.cacheName + ":" + key;
+    public boolean isSecondLevelAvailable() {
+        return breaker == null || breaker.isClosed();
     }
 
     /**
-     * Provides access to the primary cache.
+     * Indicates whether this cache uses the second level (Redis) cache.
+     *
+     * @return true if entries are also kept in Redis
+     */
+    public boolean isSecondLevelEnabled() {
+        return properties.isSecondLevelEnabled();
+    }
+
+    /**
+     * Retrieves the entries of the given keys from the secondary cache with as few round trips as possible,
+     * without touching the primary cache.
+     *
+     * @param keys the cache keys
+     * @return the cached entries in the order of the given keys, with null for the entries that are not present
+     */
+    public List<CacheWrapper> secondCacheMultiGet(List<String> keys) {
+        return layout.multiGet(keys);
+    }
+
+    /**
+     * Provides access to the primary cache. With the compact primary cache layout, it only holds
+     * the entries that have no compact form, use {@link #primaryLayout()} to access all entries.
      *
      * @return the primary cache instance.
      */
@@ -280,6 +840,15 @@ public class MultiLevelValueAdaptingCache extends AbstractValueAdaptingCache imp
         return primaryCache;
     }
 
+    /**
+     * Provides access to the layout of the entries of this cache in the primary cache.
+     *
+     * @return the primary cache layout.
+     */
+    public PrimaryCacheLayout primaryLayout() {
+        return primaryLayout;
+    }
+
     /**
      * Retrieves the second-level cache which is implemented using Redis.
      *
@@ -0,0 +1,199 @@
+package org.venus.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default layout of the primary cache, in which every entry is kept as the {@link CacheWrapper} itself,
+ * keyed by the cache key.
+ */
+public class ObjectPrimaryCacheLayout implements PrimaryCacheLayout {
+    /**
+     * The approximate heap cost of an entry besides its URL: the wrapper, the value, its strings and
+     * {@link java.time.LocalDateTime}, the key and the node of the cache. It is used by the weigher of the primary cache.
+     */
+    static final int ENTRY_OVERHEAD = 320;
+    /**
+     * The Caffeine cache that holds the entries.
+     */
+    private final Cache<String, Object> primaryCache;
+
+    /**
+     * Constructs an ObjectPrimaryCacheLayout.
+     *
+     * @param primaryCache the Caffeine cache that holds the entries
+     */
+    public ObjectPrimaryCacheLayout(Cache<String, Object> primaryCache) {
+        this.primaryCache = primaryCache;
+    }
+
+    /**
+     * Estimates the heap cost of a cached object in bytes, which grows with the length of the URL of a link.
+     *
+     * @param value the cached object
+     * @return the weight of the object
+     */
+    static int weight(Object value) {
+        if (value instanceof CacheWrapper wrapper && wrapper.getValue() instanceof ValueWrapper link
+                && link.getOriginalUrl() != null) {
+            return ENTRY_OVERHEAD + link.getOriginalUrl().length();
+        }
+        return ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Computes the time until the entry of the given key of a Caffeine cache expires, from its variable
+     * expiration if the cache has one, and from the earliest of its fixed expirations otherwise.
+     *
+     * @param cache the Caffeine cache
+     * @param key the key of the entry
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the remaining time-to-live in nanoseconds, or -1 if the entry is not present or does not expire
+     */
+    static <K, V> long expiresAfterNanos(Cache<K, V> cache, K key) {
+        Policy<K, V> policy = cache.policy();
+        Optional<Policy.VarExpiration<K, V>> variable = policy.expireVariably();
+        if (variable.isPresent()) {
+            return variable.get().getExpiresAfter(key, TimeUnit.NANOSECONDS).orElse(-1);
+        }
+        long afterWrite = remaining(policy.expireAfterWrite(), key);
+        long afterAccess = remaining(policy.expireAfterAccess(), key);
+        if (afterWrite < 0 || afterAccess < 0) {
+            return Math.max(afterWrite, afterAccess);
+        }
+        return Math.min(afterWrite, afterAccess);
+    }
+
+    /**
+     * Computes the time until the entry of the given key expires by a fixed expiration.
+     *
+     * @param expiration the fixed expiration, if the cache has one
+     * @param key the key of the entry
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the remaining time-to-live in nanoseconds, or -1 if the entry is not present or does not expire
+     */
+    private static <K, V> long remaining(Optional<Policy.FixedExpiration<K, V>> expiration, K key) {
+        if (expiration.isEmpty()) {
+            return -1;
+        }
+        Policy.FixedExpiration<K, V> fixed = expiration.get();
+        OptionalLong age = fixed.ageOf(key, TimeUnit.NANOSECONDS);
+        return age.isPresent() ? Math.max(0, fixed.getExpiresAfter(TimeUnit.NANOSECONDS) - age.getAsLong()) : -1;
+    }
+
+    /**
+     * Retrieves the entry of the given cache key.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        return (CacheWrapper) primaryCache.getIfPresent(key);
+    }
+
+    /**
+     * Retrieves the entries of the given cache keys with a single bulk lookup.
+     *
+     * @param keys the cache keys
+     * @return the cached entries by their key, without the keys that are not present
+     */
+    @Override
+    public Map<String, CacheWrapper> getAll(Collection<String> keys) {
+        Map<String, Object> present = primaryCache.getAllPresent(keys);
+        Map<String, CacheWrapper> wrappers = new HashMap<>(present.size() * 2);
+        present.forEach((key, value) -> wrappers.put(key, (CacheWrapper) value));
+        return wrappers;
+    }
+
+    /**
+     * Computes the time until the entry of the given cache key expires.
+     *
+     * @param key the cache key
+     * @return the remaining time-to-live in nanoseconds, or -1 if the entry is not present or does not expire
+     */
+    @Override
+    public long expiresAfterNanos(String key) {
+        return expiresAfterNanos(primaryCache, key);
+    }
+
+    /**
+     * Stores the entry of the given cache key as-is.
+     *
+     * @param key the cache key
+     * @param wrapper the entry to store
+     */
+    @Override
+    public void put(String key, CacheWrapper wrapper) {
+        primaryCache.put(key, wrapper);
+    }
+
+    /**
+     * Stores the given entries as-is with a single bulk insert.
+     *
+     * @param wrappers the entries to store by their key
+     */
+    @Override
+    public void putAll(Map<String, CacheWrapper> wrappers) {
+        primaryCache.putAll(wrappers);
+    }
+
+    /**
+     * Removes the entry of the given cache key.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void invalidate(String key) {
+        primaryCache.invalidate(key);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @Override
+    public void invalidateAll() {
+        primaryCache.invalidateAll();
+    }
+
+    /**
+     * Returns a snapshot of the keys that are currently cached.
+     *
+     * @return the cached keys
+     */
+    @Override
+    public Set<String> keys() {
+        return new HashSet<>(primaryCache.asMap().keySet());
+    }
+
+    /**
+     * Provides the Caffeine cache that holds the entries.
+     *
+     * @return the Caffeine cache
+     */
+    @Override
+    public Cache<String, Object> objectCache() {
+        return primaryCache;
+    }
+
+    /**
+     * Provides the Caffeine cache that holds the entries.
+     *
+     * @return the Caffeine cache
+     */
+    @Override
+    public Cache<String, Object> nativeCache() {
+        return primaryCache;
+    }
+}
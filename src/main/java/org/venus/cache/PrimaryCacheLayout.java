@@ -0,0 +1,88 @@
+package org.venus.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Defines how the entries of one multi-level cache are stored in the primary (in-memory) cache.
+ *
+ * A layout may keep entries in a different form than the {@link CacheWrapper} it returns,
+ * so that {@link MultiLevelValueAdaptingCache} and the cache synchronization components
+ * do not depend on the in-memory representation.
+ */
+public interface PrimaryCacheLayout {
+    /**
+     * Retrieves the entry of the given cache key.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    CacheWrapper get(String key);
+
+    /**
+     * Retrieves the entries of the given cache keys in bulk.
+     *
+     * @param keys the cache keys
+     * @return the cached entries by their key, without the keys that are not present
+     */
+    Map<String, CacheWrapper> getAll(Collection<String> keys);
+
+    /**
+     * Computes the time until the entry of the given cache key expires.
+     *
+     * @param key the cache key
+     * @return the remaining time-to-live in nanoseconds, or -1 if the entry is not present or does not expire
+     */
+    long expiresAfterNanos(String key);
+
+    /**
+     * Stores the entry of the given cache key.
+     *
+     * @param key the cache key
+     * @param wrapper the entry to store
+     */
+    void put(String key, CacheWrapper wrapper);
+
+    /**
+     * Stores the given entries in bulk.
+     *
+     * @param wrappers the entries to store by their key
+     */
+    void putAll(Map<String, CacheWrapper> wrappers);
+
+    /**
+     * Removes the entry of the given cache key.
+     *
+     * @param key the cache key
+     */
+    void invalidate(String key);
+
+    /**
+     * Removes all entries.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns a snapshot of the keys that are currently cached.
+     *
+     * @return the cached keys
+     */
+    Set<String> keys();
+
+    /**
+     * Provides the Caffeine cache that holds the entries kept as {@link CacheWrapper}.
+     *
+     * @return the cache of wrapped entries
+     */
+    Cache<String, Object> objectCache();
+
+    /**
+     * Provides the native cache that holds the bulk of the entries, mainly for its statistics.
+     *
+     * @return the native cache
+     */
+    Cache<?, ?> nativeCache();
+}
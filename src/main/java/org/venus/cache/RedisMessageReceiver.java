@@ -1,8 +1,8 @@
 package org.venus.cache;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.SerializationException;
 
 import java.net.UnknownHostException;
 
@@ -49,14 +49,22 @@ public class RedisMessageReceiver {
      * This method is triggered when a message is received, either updating or invalidating
      * a cache key based on the type of operation specified in the message.
      *
-     * @param message The serialized cache message as a String. It includes information such as
+     * @param message The serialized cache message as raw bytes. It includes information such as
      *                the cache name, key, value, and the type of cache operation (update or invalidate).
      * @throws UnknownHostException If there is an error identifying the host in cases where the message source is compared.
      */
     @CacheMessageListener
     @SuppressWarnings("ConstantConditions")
-    public void receive(String message) throws UnknownHostException {
-        CacheListenerMessage clm = (CacheListenerMessage) redisTemplate.getValueSerializer().deserialize(message.getBytes());
+    public void receive(byte[] message) throws UnknownHostException {
+        CacheListenerMessage clm;
+        try {
+            clm = (CacheListenerMessage) redisTemplate.getValueSerializer().deserialize(message);
+        } catch (SerializationException e) {
+            if (log.isWarnEnabled()) {
+                log.warn("Failed to deserialize a cache message, it is skipped", e);
+            }
+            return;
+        }
         if (clm == null) {
             if (log.isDebugEnabled()) {
                 log.debug("Receive messages is NULL that it's without updating the cache.");
@@ -71,14 +79,18 @@ public class RedisMessageReceiver {
             return;
         }
 
-        CacheSelector selector = (MultiLevelValueAdaptingCache) manager.getCache(clm.getName());
-        Cache<String, Object> primaryCache = selector.primaryCache();
+        MultiLevelValueAdaptingCache cache = (MultiLevelValueAdaptingCache) manager.getCache(clm.getName());
+        PrimaryCacheLayout primaryLayout = cache.primaryLayout();
         if (clm.getType() == CacheMessageListenerType.UPDATE) {
-            primaryCache.put(clm.getKey(), new CacheWrapper(clm.getKey(), clm.getValue()));
+            primaryLayout.put(clm.getKey(), cache.wrapAnnounced(clm.getKey(), clm.getValue(), clm.getGeneration()));
         }
 
         if (clm.getType() == CacheMessageListenerType.INVALIDATE) {
-            primaryCache.invalidate(clm.getKey());
+            primaryLayout.invalidate(clm.getKey());
+        }
+
+        if (clm.getType() == CacheMessageListenerType.GENERATION && clm.getValue() instanceof Number generation) {
+            cache.advanceGeneration(clm.getKey(), generation.longValue());
         }
     }
 }
@@ -0,0 +1,66 @@
+package org.venus.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Computes the time-to-live of the entries of the second level (Redis) cache, so that Redis keeps the live links
+ * instead of every link that was ever cached.
+ *
+ * A link that can still be redirected lives until its {@code expiresAt}, a link that is deactivated or expired
+ * is kept as a cached miss for {@link MultiLevelCacheProperties#getSecondLevelExpiredTtl()}, and any entry
+ * expires after {@link MultiLevelCacheProperties#getSecondLevelIdleTtl()} at the latest.
+ * Zero stands for no expiration everywhere.
+ */
+public class SecondCacheExpiry {
+    /**
+     * The time in milliseconds after which an entry that is not accessed expires, zero if it does not.
+     */
+    private final long idleTtl;
+    /**
+     * The time in milliseconds that a deactivated or expired link is kept, zero if it does not expire.
+     */
+    private final long expiredTtl;
+
+    /**
+     * Constructs a SecondCacheExpiry.
+     *
+     * @param properties the properties of the multi-level cache
+     */
+    public SecondCacheExpiry(MultiLevelCacheProperties properties) {
+        this.idleTtl = Math.max(0, properties.getSecondLevelIdleTtl());
+        this.expiredTtl = Math.max(0, properties.getSecondLevelExpiredTtl());
+    }
+
+    /**
+     * Computes the time-to-live of the given value.
+     *
+     * @param value the cached value, may be null
+     * @return the time-to-live in milliseconds, zero if the entry does not expire
+     */
+    public long ttlMillis(Object value) {
+        long ttl = 0;
+        if (value instanceof ValueWrapper link) {
+            LocalDateTime expiresAt = link.getExpiresAt();
+            long remaining = expiresAt == null ? 0 : Duration.between(LocalDateTime.now(), expiresAt).toMillis();
+            if (link.getIsActive() == 0 || (expiresAt != null && remaining <= 0)) {
+                ttl = expiredTtl;
+            } else {
+                ttl = remaining;
+            }
+        }
+        if (idleTtl > 0 && (ttl <= 0 || ttl > idleTtl)) {
+            return idleTtl;
+        }
+        return ttl;
+    }
+
+    /**
+     * Provides the time after which an entry that is not accessed expires.
+     *
+     * @return the idle time-to-live in milliseconds, zero if entries do not expire when idle
+     */
+    public long idleTtlMillis() {
+        return idleTtl;
+    }
+}
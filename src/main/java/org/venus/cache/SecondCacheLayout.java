@@ -0,0 +1,71 @@
+package org.venus.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines how the entries of one multi-level cache are laid out in the second level (Redis) cache.
+ *
+ * A layout translates cache keys into Redis keys and data structures, so that
+ * {@link MultiLevelValueAdaptingCache} does not need to know whether an entry is a plain string key
+ * or a field of a hash bucket.
+ */
+public interface SecondCacheLayout {
+    /**
+     * Retrieves the entry of the given cache key.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    CacheWrapper get(String key);
+
+    /**
+     * Retrieves the entries of the given cache keys with as few round trips as possible.
+     *
+     * @param keys the cache keys
+     * @return the cached entries in the order of the given keys, with null for the entries that are not present
+     */
+    List<CacheWrapper> multiGet(List<String> keys);
+
+    /**
+     * Stores the value of the given cache key.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    void set(String key, Object value, long snapshot);
+
+    /**
+     * Stores the values of the given cache keys with as few round trips as possible.
+     *
+     * @param values the values to store by their cache key, values may be null
+     * @param snapshot the snapshot of the generations taken before the values were read
+     */
+    void setAll(Map<String, Object> values, long snapshot);
+
+    /**
+     * Stores the value of the given cache key only if the given lease is still held with the given token,
+     * and releases the lease, atomically.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param leaseKey the Redis key of the lease
+     * @param token the token of the lease
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return true if the value was stored, false if the lease has been invalidated
+     */
+    boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot);
+
+    /**
+     * Removes the entry of the given cache key.
+     *
+     * @param key the cache key
+     */
+    void delete(String key);
+
+    /**
+     * Removes all entries of the cache.
+     */
+    void clear();
+}
@@ -0,0 +1,305 @@
+package org.venus.cache;
+
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The default layout of the second level cache, in which every entry is a separate Redis string key
+ * named {@code <cache-name>:<key>}.
+ *
+ * Every key is written with the time-to-live of its {@link SecondCacheExpiry}, and a single lookup extends it
+ * to the idle time-to-live with GETEX, so that the keys of links that are no longer used expire on their own.
+ */
+public class StringSecondCacheLayout implements SecondCacheLayout {
+    /**
+     * Sets the string key only if the lease is still held with the given token, and deletes the lease.
+     */
+    private static final RedisScript<Long> SET_IF_LEASED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[2]) == ARGV[1] then "
+                    + "if ARGV[3] == '0' then redis.call('SET', KEYS[1], ARGV[2]) else redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) end; "
+                    + "redis.call('DEL', KEYS[2]); return 1 end return 0",
+            Long.class);
+
+    /**
+     * The name of the cache, used as the prefix of the Redis keys.
+     */
+    private final String cacheName;
+    /**
+     * Redis template instance used for interacting with the second level cache.
+     */
+    private final RedisTemplate<String, CacheWrapper> secondCache;
+    /**
+     * The properties of the multi-level cache, used for the scan batch size.
+     */
+    private final MultiLevelCacheProperties properties;
+    /**
+     * Computes the time-to-live of the string keys.
+     */
+    private final SecondCacheExpiry expiry;
+    /**
+     * The number of keys unlinked with a single command when the cache is cleared.
+     */
+    private final int deleteBatchSize;
+    /**
+     * Stamps the entries with the generation of their group, or null if the cache has no generations.
+     */
+    private final CacheGenerations generations;
+
+    /**
+     * Constructs a StringSecondCacheLayout.
+     *
+     * @param cacheName the name of the cache
+     * @param secondCache the Redis template of the second level cache
+     * @param properties the properties of the multi-level cache
+     */
+    public StringSecondCacheLayout(String cacheName, RedisTemplate<String, CacheWrapper> secondCache, MultiLevelCacheProperties properties) {
+        this(cacheName, secondCache, properties, null);
+    }
+
+    /**
+     * Constructs a StringSecondCacheLayout that stamps its entries with the generation of their group.
+     *
+     * @param cacheName the name of the cache
+     * @param secondCache the Redis template of the second level cache
+     * @param properties the properties of the multi-level cache
+     * @param generations the generations of the groups of the cache, or null if the cache has none
+     */
+    public StringSecondCacheLayout(String cacheName, RedisTemplate<String, CacheWrapper> secondCache, MultiLevelCacheProperties properties,
+                                   CacheGenerations generations) {
+        this.cacheName = cacheName;
+        this.generations = generations;
+        this.secondCache = secondCache;
+        this.properties = properties;
+        this.expiry = new SecondCacheExpiry(properties);
+        this.deleteBatchSize = properties.getRedisScanCount() > 0 ? (int) Math.min(properties.getRedisScanCount(), 10_000) : 1000;
+    }
+
+    /**
+     * Retrieves the entry of the given cache key from its string key. With an idle time-to-live, the key is read
+     * with GETEX, which extends its time-to-live in the same round trip, and shortened again with PEXPIRE in the
+     * rare case that the link expires before the idle time-to-live.
+     *
+     * @param key the cache key
+     * @return the cached entry, or null if it is not present
+     */
+    @Override
+    public CacheWrapper get(String key) {
+        String redisKey = buildKey(key);
+        if (expiry.idleTtlMillis() <= 0) {
+            return secondCache.opsForValue().get(redisKey);
+        }
+        CacheWrapper wrapper = secondCache.opsForValue().getAndExpire(redisKey, Duration.ofMillis(expiry.idleTtlMillis()));
+        if (wrapper != null) {
+            long ttl = expiry.ttlMillis(wrapper.getValue());
+            if (ttl > 0 && ttl < expiry.idleTtlMillis()) {
+                secondCache.expire(redisKey, Duration.ofMillis(ttl));
+            }
+        }
+        return wrapper;
+    }
+
+    /**
+     * Retrieves the entries of the given cache keys with a single MGET.
+     *
+     * @param keys the cache keys
+     * @return the cached entries in the order of the given keys, with null for the entries that are not present
+     */
+    @Override
+    public List<CacheWrapper> multiGet(List<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            redisKeys.add(buildKey(key));
+        }
+        List<CacheWrapper> wrappers = secondCache.opsForValue().multiGet(redisKeys);
+        return wrappers == null ? Collections.nCopies(keys.size(), null) : wrappers;
+    }
+
+    /**
+     * Stores the value of the given cache key in its string key.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     */
+    @Override
+    public void set(String key, Object value, long snapshot) {
+        String redisKey = buildKey(key);
+        set(secondCache.opsForValue(), redisKey, wrap(redisKey, value, snapshot), expiry.ttlMillis(value));
+    }
+
+    /**
+     * Stores the values of the given cache keys in their string keys with a single MSET, or with pipelined
+     * SETs if any of the keys expires, because MSET cannot set a time-to-live.
+     *
+     * @param values the values to store by their cache key, values may be null
+     * @param snapshot the snapshot of the generations taken before the values were read
+     */
+    @Override
+    public void setAll(Map<String, Object> values, long snapshot) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Map<String, CacheWrapper> wrappers = new HashMap<>(values.size() * 2);
+        Map<String, Long> ttls = new HashMap<>(values.size() * 2);
+        values.forEach((key, value) -> {
+            String redisKey = buildKey(key);
+            wrappers.put(redisKey, wrap(redisKey, value, snapshot));
+            long ttl = expiry.ttlMillis(value);
+            if (ttl > 0) {
+                ttls.put(redisKey, ttl);
+            }
+        });
+        if (ttls.isEmpty()) {
+            secondCache.opsForValue().multiSet(wrappers);
+            return;
+        }
+        secondCache.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+                ValueOperations<String, CacheWrapper> valueOperations = ((RedisOperations<String, CacheWrapper>) operations).opsForValue();
+                wrappers.forEach((redisKey, wrapper) -> set(valueOperations, redisKey, wrapper, ttls.getOrDefault(redisKey, 0L)));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Sets a string key, with a time-to-live if it expires.
+     *
+     * @param valueOperations the value operations used to set the key
+     * @param redisKey the Redis key
+     * @param wrapper the entry to store
+     * @param ttl the time-to-live in milliseconds, zero if the key does not expire
+     */
+    private static void set(ValueOperations<String, CacheWrapper> valueOperations, String redisKey, CacheWrapper wrapper, long ttl) {
+        if (ttl > 0) {
+            valueOperations.set(redisKey, wrapper, Duration.ofMillis(ttl));
+        } else {
+            valueOperations.set(redisKey, wrapper);
+        }
+    }
+
+    /**
+     * Sets the string key of the given cache key only if the lease is still held, with a single script call.
+     *
+     * @param key the cache key
+     * @param value the value to store, may be null
+     * @param leaseKey the Redis key of the lease
+     * @param token the token of the lease
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return true if the value was stored, false if the lease has been invalidated
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+        String redisKey = buildKey(key);
+        byte[] wrapper = ((RedisSerializer<Object>) secondCache.getValueSerializer()).serialize(wrap(redisKey, value, snapshot));
+        byte[] ttl = RedisSerializer.string().serialize(Long.toString(expiry.ttlMillis(value)));
+        Long stored = secondCache.execute(SET_IF_LEASED_SCRIPT, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                List.of(redisKey, leaseKey), RedisSerializer.string().serialize(token), wrapper, ttl);
+        return stored != null && stored == 1L;
+    }
+
+    /**
+     * Removes the string key of the given cache key.
+     *
+     * @param key the cache key
+     */
+    @Override
+    public void delete(String key) {
+        secondCache.delete(buildKey(key));
+    }
+
+    /**
+     * Removes all string keys of the cache while scanning the keyspace, unlinking them in batches,
+     * so that neither the scanned keys nor a single large delete have to be held at once.
+     */
+    @Override
+    public void clear() {
+        ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions()
+                .type(DataType.STRING)
+                .match(cacheName.concat(":*"));
+        if (properties.getRedisScanCount() > 0) {
+            builder.count(properties.getRedisScanCount());
+        }
+        List<String> batch = new ArrayList<>(deleteBatchSize);
+        try (Cursor<String> cursor = secondCache.scan(builder.build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= deleteBatchSize) {
+                    secondCache.unlink(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            secondCache.unlink(batch);
+        }
+    }
+
+    /**
+     * Retrieves the string keys that match the given pattern with SCAN.
+     *
+     * @param template the Redis template used for the scan
+     * @param pattern the pattern to match keys against
+     * @param count the number of keys to scan in a single iteration, zero or less uses the Redis default
+     * @return the keys that match the pattern
+     */
+    static Set<String> scan(RedisTemplate<String, ?> template, String pattern, long count) {
+        ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions()
+                .type(DataType.STRING)
+                .match(pattern);
+        if (count > 0) {
+            builder.count(count);
+        }
+        Set<String> keys = new HashSet<>();
+        try (Cursor<String> cursor = template.scan(builder.build())) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Wraps a value into the entry of a string key, stamped with the generation of its group.
+     *
+     * @param redisKey the Redis key
+     * @param value the value, may be null
+     * @param snapshot the snapshot of the generations taken before the value was read
+     * @return the entry
+     */
+    private CacheWrapper wrap(String redisKey, Object value, long snapshot) {
+        return generations == null ? new CacheWrapper(redisKey, value) : generations.wrap(redisKey, value, snapshot);
+    }
+
+    /**
+     * Constructs a Redis key by combining the cache name with the provided key.
+     *
+     * @param key the cache key
+     * @return a concatenated string representing the full Redis key
+     */
+    private String buildKey(String key) {
+        return this.cacheName + ":" + key;
+    }
+}
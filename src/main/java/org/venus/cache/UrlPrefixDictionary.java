@@ -0,0 +1,179 @@
+package org.venus.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, versioned dictionary of common destination URL prefixes.
+ *
+ * A URL whose prefix is in the dictionary can be stored as the small id of the prefix plus the remaining
+ * suffix. Prefixes always end at a path boundary, that is after {@code scheme://host/} or after one of the
+ * following path segments, so a URL has only a handful of candidate prefixes to look up.
+ * Every dictionary carries a version, which is stored alongside the encoded URLs, so that URLs encoded with an
+ * older dictionary remain decodable after the dictionary has been rebuilt.
+ */
+public final class UrlPrefixDictionary {
+    /**
+     * The dictionary without any prefix, used when no dictionary has been built yet.
+     */
+    public static final UrlPrefixDictionary EMPTY = new UrlPrefixDictionary(0, Collections.emptyList());
+    /**
+     * The maximum number of path segments of a candidate prefix after the host.
+     */
+    static final int MAX_PREFIX_SEGMENTS = 4;
+    /**
+     * The separator of the prefixes in the serialized form of a dictionary.
+     */
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * The version of the dictionary, zero for the empty dictionary.
+     */
+    private final int version;
+    /**
+     * The prefixes, indexed by their id.
+     */
+    private final String[] prefixes;
+    /**
+     * The ids of the prefixes, indexed by the prefix.
+     */
+    private final Map<String, Integer> ids;
+
+    /**
+     * Constructs a UrlPrefixDictionary.
+     *
+     * @param version the version of the dictionary
+     * @param prefixes the prefixes, whose list index becomes their id
+     */
+    public UrlPrefixDictionary(int version, List<String> prefixes) {
+        this.version = version;
+        this.prefixes = prefixes.toArray(new String[0]);
+        this.ids = new HashMap<>(Math.max(16, prefixes.size() * 2));
+        for (int i = 0; i < this.prefixes.length; i++) {
+            ids.put(this.prefixes[i], i);
+        }
+    }
+
+    /**
+     * Returns the version of the dictionary.
+     *
+     * @return the version, zero for the empty dictionary
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of prefixes of the dictionary.
+     *
+     * @return the number of prefixes
+     */
+    public int size() {
+        return prefixes.length;
+    }
+
+    /**
+     * Returns the prefix of the given id.
+     *
+     * @param id the id of the prefix
+     * @return the prefix, or null if the id is unknown
+     */
+    public String prefix(int id) {
+        return id >= 0 && id < prefixes.length ? prefixes[id] : null;
+    }
+
+    /**
+     * Finds the longest prefix of the dictionary that the given URL starts with.
+     *
+     * @param url the URL
+     * @return the id of the longest matching prefix, or -1 if no prefix matches
+     */
+    public int match(String url) {
+        if (prefixes.length == 0 || url == null) {
+            return -1;
+        }
+        List<String> candidates = candidates(url);
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            Integer id = ids.get(candidates.get(i));
+            if (id != null) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the candidate prefixes of the given URL, from the shortest to the longest.
+     * The shortest candidate is {@code scheme://host/}, every further candidate adds one path segment.
+     *
+     * @param url the URL
+     * @return the candidate prefixes, empty if the URL has no scheme and host
+     */
+    static List<String> candidates(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return Collections.emptyList();
+        }
+        int end = url.length();
+        int query = url.indexOf('?', schemeEnd + 3);
+        if (query >= 0) {
+            end = query;
+        }
+        int fragment = url.indexOf('#', schemeEnd + 3);
+        if (fragment >= 0 && fragment < end) {
+            end = fragment;
+        }
+
+        List<String> candidates = new ArrayList<>(MAX_PREFIX_SEGMENTS + 1);
+        int slash = url.indexOf('/', schemeEnd + 3);
+        while (slash >= 0 && slash < end && candidates.size() <= MAX_PREFIX_SEGMENTS) {
+            candidates.add(url.substring(0, slash + 1));
+            slash = url.indexOf('/', slash + 1);
+        }
+        return candidates;
+    }
+
+    /**
+     * Serializes the prefixes of the dictionary, separated by new lines, which cannot occur in a URL.
+     *
+     * @return the serialized prefixes
+     */
+    public String serialize() {
+        return String.join(String.valueOf(SEPARATOR), prefixes);
+    }
+
+    /**
+     * Restores a dictionary from its serialized prefixes.
+     *
+     * @param version the version of the dictionary
+     * @param serialized the serialized prefixes
+     * @return the dictionary
+     */
+    public static UrlPrefixDictionary parse(int version, String serialized) {
+        if (serialized == null || serialized.isEmpty()) {
+            return new UrlPrefixDictionary(version, Collections.emptyList());
+        }
+        List<String> prefixes = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= serialized.length(); i++) {
+            if (i == serialized.length() || serialized.charAt(i) == SEPARATOR) {
+                prefixes.add(serialized.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return new UrlPrefixDictionary(version, prefixes);
+    }
+
+    /**
+     * Checks whether this dictionary holds the same prefixes as the given list.
+     *
+     * @param other the prefixes to compare with
+     * @return true if both hold the same prefixes
+     */
+    boolean hasPrefixes(List<String> other) {
+        return other.size() == prefixes.length && ids.keySet().containsAll(other);
+    }
+}
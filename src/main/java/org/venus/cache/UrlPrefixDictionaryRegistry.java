@@ -0,0 +1,435 @@
+package org.venus.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Learns, publishes and resolves the {@link UrlPrefixDictionary} shared by all nodes.
+ *
+ * Every destination URL written to the cache is sampled: the occurrences of its candidate prefixes are counted
+ * in a bounded table. The dictionary is rebuilt periodically from the prefixes that save the most bytes, and the
+ * counters are halved on every rebuild, so the dictionary follows the corpus as it changes.
+ * A new dictionary gets a cluster-wide version from Redis and is stored in a Redis hash before it is used,
+ * so any node can decode a URL encoded by another node, with whatever version it was encoded.
+ *
+ * A rebuilt dictionary is only published if it saves significantly more bytes on the sampled URLs than the current
+ * one, so that a stable corpus does not produce a new version on every rebuild. The published versions are pruned
+ * to a bounded window of the newest ones, and a version that was superseded longer ago than the maximum idle
+ * time-to-live of the second level cache is pruned as well, since the entries encoded with it have expired unless
+ * they kept being read. The current version is never pruned. An entry that still refers to a pruned version is read
+ * as a miss and reloaded. A version that is not found in Redis is remembered as missing for one rebuild interval,
+ * so that the reads of entries that refer to it do not each wait for a lookup in Redis.
+ */
+@Slf4j
+public class UrlPrefixDictionaryRegistry {
+    /**
+     * The Redis hash that holds the published dictionaries, keyed by their version.
+     */
+    static final String DICTIONARY_KEY = "venus-url-prefix-dictionary";
+    /**
+     * The Redis key of the counter that hands out dictionary versions.
+     */
+    static final String VERSION_KEY = "venus-url-prefix-dictionary:version";
+    /**
+     * The field of {@link #DICTIONARY_KEY} that holds the version of the current dictionary.
+     */
+    static final String CURRENT_FIELD = "current";
+    /**
+     * The field of {@link #DICTIONARY_KEY} that holds the newest pruned version, all older versions are pruned too.
+     */
+    static final String PRUNED_FIELD = "pruned";
+    /**
+     * The Redis hash that holds the publication time in epoch milliseconds of the published dictionaries,
+     * keyed by their version.
+     */
+    static final String PUBLISHED_KEY = "venus-url-prefix-dictionary:published";
+    /**
+     * The minimum number of sampled URLs that must share a prefix for it to enter the dictionary.
+     */
+    private static final long MIN_OCCURRENCES = 2;
+    /**
+     * The number of candidate prefixes tracked per dictionary entry.
+     */
+    private static final int CANDIDATES_PER_ENTRY = 16;
+
+    /**
+     * Indicates whether URL prefix dictionary encoding is enabled.
+     */
+    private final boolean enabled;
+    /**
+     * The maximum number of prefixes of a dictionary.
+     */
+    private final int maxSize;
+    /**
+     * The interval between two rebuilds of the dictionary in milliseconds.
+     */
+    private final long rebuildInterval;
+    /**
+     * The minimum relative gain over the current dictionary for a rebuilt dictionary to be published.
+     */
+    private final double minGain;
+    /**
+     * The maximum number of published versions kept in Redis.
+     */
+    private final int maxVersions;
+    /**
+     * The time in milliseconds after which a superseded version is pruned, zero if only the window prunes versions.
+     */
+    private final long retention;
+    /**
+     * The template used to publish and load the dictionaries.
+     */
+    private final StringRedisTemplate template;
+    /**
+     * The occurrences of the candidate prefixes of the sampled URLs.
+     */
+    private final Map<String, LongAdder> occurrences = new ConcurrentHashMap<>();
+    /**
+     * The dictionaries that are known to this node, keyed by their version.
+     */
+    private final Map<Integer, UrlPrefixDictionary> dictionaries = new ConcurrentHashMap<>();
+    /**
+     * The time in milliseconds at which the versions that were not found in Redis were looked up, keyed by version.
+     */
+    private final Map<Integer, Long> missing = new ConcurrentHashMap<>();
+    /**
+     * The dictionary used to encode URLs.
+     */
+    private volatile UrlPrefixDictionary current = UrlPrefixDictionary.EMPTY;
+    /**
+     * The newest pruned version known to this node, zero if none is pruned.
+     */
+    private volatile int pruned;
+    /**
+     * The executor that rebuilds the dictionary.
+     */
+    private ScheduledThreadPoolExecutor scheduledPool;
+
+    /**
+     * Constructs a UrlPrefixDictionaryRegistry.
+     *
+     * @param factory the connection factory of the Redis server that holds the dictionaries
+     * @param properties the properties of the multi-level cache
+     */
+    public UrlPrefixDictionaryRegistry(RedisConnectionFactory factory, MultiLevelCacheProperties properties) {
+        this.enabled = properties.isUrlPrefixDictionaryEnabled();
+        this.maxSize = properties.getUrlPrefixDictionarySize();
+        this.rebuildInterval = properties.getUrlPrefixDictionaryRebuildInterval();
+        this.minGain = Math.max(0, properties.getUrlPrefixDictionaryMinGain());
+        this.maxVersions = Math.max(1, properties.getUrlPrefixDictionaryMaxVersions());
+        this.retention = maxIdleTtl(properties);
+        this.template = new StringRedisTemplate(factory);
+        dictionaries.put(UrlPrefixDictionary.EMPTY.version(), UrlPrefixDictionary.EMPTY);
+    }
+
+    /**
+     * Loads the current dictionary from Redis and schedules the periodic rebuild.
+     */
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Failed to load the current URL prefix dictionary", e);
+        }
+        scheduledPool = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1, Thread.ofVirtual().name("url-prefix-dictionary-rebuild").factory());
+        scheduledPool.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+                rebuild();
+                prune();
+            } catch (Exception e) {
+                log.error("Failed to rebuild the URL prefix dictionary", e);
+            }
+        }, rebuildInterval, rebuildInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic rebuild.
+     */
+    public void shutdown() {
+        if (scheduledPool != null) {
+            scheduledPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Indicates whether URL prefix dictionary encoding is enabled.
+     *
+     * @return true if URLs are encoded with the dictionary
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Provides the dictionary used to encode URLs.
+     *
+     * @return the current dictionary, empty if encoding is disabled or no dictionary has been built yet
+     */
+    public UrlPrefixDictionary current() {
+        return current;
+    }
+
+    /**
+     * Resolves the dictionary of the given version, loading it from Redis if this node does not know it yet
+     * and has not failed to find it within the last rebuild interval.
+     *
+     * @param version the version of the dictionary
+     * @return the dictionary, or null if no dictionary of that version has been published or it has been pruned
+     */
+    public UrlPrefixDictionary dictionary(int version) {
+        UrlPrefixDictionary dictionary = dictionaries.get(version);
+        if (dictionary != null) {
+            return dictionary;
+        }
+        if (version > 0 && version <= pruned) {
+            return null;
+        }
+        Long missedAt = missing.get(version);
+        if (missedAt != null && System.currentTimeMillis() - missedAt < rebuildInterval) {
+            return null;
+        }
+        dictionary = dictionaries.computeIfAbsent(version, this::load);
+        if (dictionary == null) {
+            missing.put(version, System.currentTimeMillis());
+        } else {
+            missing.remove(version);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Samples a destination URL written to the cache.
+     * Candidate prefixes that are not tracked yet are dropped once the table is full.
+     *
+     * @param url the destination URL
+     */
+    public void observe(String url) {
+        if (!enabled || url == null) {
+            return;
+        }
+        for (String candidate : UrlPrefixDictionary.candidates(url)) {
+            LongAdder adder = occurrences.get(candidate);
+            if (adder == null) {
+                if (occurrences.size() >= (long) maxSize * CANDIDATES_PER_ENTRY) {
+                    continue;
+                }
+                adder = occurrences.computeIfAbsent(candidate, k -> new LongAdder());
+            }
+            adder.increment();
+        }
+    }
+
+    /**
+     * Rebuilds the dictionary from the sampled URLs and publishes it if it saves significantly more bytes than the
+     * current one. A prefix is ranked by the bytes it saves, its occurrences times its length.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(occurrences.size());
+        for (Map.Entry<String, LongAdder> entry : occurrences.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count >= MIN_OCCURRENCES) {
+                ranked.add(Map.entry(entry.getKey(), count * entry.getKey().length()));
+            }
+        }
+        ranked.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<String> prefixes = new ArrayList<>(Math.min(maxSize, ranked.size()));
+        long gain = 0;
+        for (int i = 0; i < ranked.size() && i < maxSize; i++) {
+            prefixes.add(ranked.get(i).getKey());
+            gain += ranked.get(i).getValue();
+        }
+        long currentGain = gain(current);
+        decay();
+
+        if (prefixes.isEmpty() || current.hasPrefixes(prefixes) || gain <= currentGain * (1 + minGain)) {
+            return;
+        }
+        int version = template.opsForValue().increment(VERSION_KEY).intValue();
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(version, prefixes);
+        HashOperations<String, String, String> operations = template.opsForHash();
+        operations.put(DICTIONARY_KEY, String.valueOf(version), dictionary.serialize());
+        operations.put(PUBLISHED_KEY, String.valueOf(version), String.valueOf(System.currentTimeMillis()));
+        operations.put(DICTIONARY_KEY, CURRENT_FIELD, String.valueOf(version));
+        dictionaries.put(version, dictionary);
+        current = dictionary;
+        if (log.isInfoEnabled()) {
+            log.info("Published URL prefix dictionary version {} with {} prefixes, saving {} bytes of the sampled URLs instead of {}",
+                    version, dictionary.size(), gain, currentGain);
+        }
+    }
+
+    /**
+     * Prunes the published versions beyond the window of the newest ones, and those superseded longer ago than the
+     * retention, keeping the current version. Every node may prune, since pruning the same versions twice is
+     * harmless.
+     */
+    void prune() {
+        HashOperations<String, String, String> operations = template.opsForHash();
+        String currentVersion = operations.get(DICTIONARY_KEY, CURRENT_FIELD);
+        if (currentVersion == null) {
+            return;
+        }
+        int latest = Integer.parseInt(currentVersion);
+        TreeMap<Integer, Long> published = new TreeMap<>();
+        for (String field : operations.keys(DICTIONARY_KEY)) {
+            if (!CURRENT_FIELD.equals(field) && !PRUNED_FIELD.equals(field) && Integer.parseInt(field) <= latest) {
+                published.put(Integer.parseInt(field), 0L);
+            }
+        }
+        operations.entries(PUBLISHED_KEY).forEach((field, millis) -> published.computeIfPresent(Integer.parseInt(field), (v, t) -> Long.parseLong(millis)));
+
+        // versions are pruned from the oldest, so that all versions up to the newest pruned one are pruned
+        int newestPruned = 0;
+        long now = System.currentTimeMillis();
+        List<Integer> versions = new ArrayList<>(published.keySet());
+        for (int i = 0; i < versions.size() - 1; i++) {
+            long supersededAt = published.get(versions.get(i + 1));
+            if (versions.size() - i > maxVersions || (retention > 0 && now - supersededAt > retention)) {
+                newestPruned = versions.get(i);
+            }
+        }
+        if (newestPruned > 0) {
+            Object[] fields = published.headMap(newestPruned, true).keySet().stream().map(String::valueOf).toArray();
+            operations.put(DICTIONARY_KEY, PRUNED_FIELD, String.valueOf(Math.max(newestPruned, pruned)));
+            operations.delete(DICTIONARY_KEY, fields);
+            operations.delete(PUBLISHED_KEY, fields);
+            if (log.isInfoEnabled()) {
+                log.info("Pruned URL prefix dictionary versions up to {}", newestPruned);
+            }
+        }
+        forget(newestPruned);
+    }
+
+    /**
+     * Adopts the current dictionary published by another node if it is newer than the local one.
+     */
+    void refresh() {
+        HashOperations<String, String, String> operations = template.opsForHash();
+        String prunedVersion = operations.get(DICTIONARY_KEY, PRUNED_FIELD);
+        if (prunedVersion != null) {
+            forget(Integer.parseInt(prunedVersion));
+        }
+        long now = System.currentTimeMillis();
+        missing.values().removeIf(missedAt -> now - missedAt >= rebuildInterval);
+        String version = operations.get(DICTIONARY_KEY, CURRENT_FIELD);
+        if (version == null) {
+            return;
+        }
+        // the current version is published before it becomes current, so it is looked up even if it was missing
+        missing.remove(Integer.parseInt(version));
+        UrlPrefixDictionary dictionary = dictionary(Integer.parseInt(version));
+        if (dictionary != null && dictionary.version() > current.version()) {
+            current = dictionary;
+        }
+    }
+
+    /**
+     * Drops the pruned versions that this node knows, except its current dictionary, and stops loading them.
+     *
+     * @param version the newest pruned version
+     */
+    private void forget(int version) {
+        if (version <= pruned) {
+            return;
+        }
+        pruned = version;
+        dictionaries.keySet().removeIf(v -> v > 0 && v <= version && v != current.version());
+        missing.keySet().removeIf(v -> v <= version);
+    }
+
+    /**
+     * Estimates the bytes that a dictionary saves on the sampled URLs, with the same ranking as the rebuild.
+     *
+     * @param dictionary the dictionary
+     * @return the occurrences times the length of its prefixes, summed
+     */
+    private long gain(UrlPrefixDictionary dictionary) {
+        long gain = 0;
+        for (int id = 0; id < dictionary.size(); id++) {
+            String prefix = dictionary.prefix(id);
+            LongAdder adder = occurrences.get(prefix);
+            if (adder != null) {
+                gain += adder.sum() * prefix.length();
+            }
+        }
+        return gain;
+    }
+
+    /**
+     * Computes the time after which a superseded version is pruned, the longest idle time-to-live of the second
+     * level caches, since entries expire after it unless they are read.
+     *
+     * @param properties the properties of the multi-level cache
+     * @return the time in milliseconds, zero if a cache keeps its entries without idle time-to-live
+     */
+    private static long maxIdleTtl(MultiLevelCacheProperties properties) {
+        long max = properties.getSecondLevelIdleTtl();
+        if (max <= 0) {
+            return 0;
+        }
+        for (String cacheName : properties.getCaches().keySet()) {
+            MultiLevelCacheProperties resolved = properties.resolve(cacheName);
+            if (!resolved.isSecondLevelEnabled()) {
+                continue;
+            }
+            if (resolved.getSecondLevelIdleTtl() <= 0) {
+                return 0;
+            }
+            max = Math.max(max, resolved.getSecondLevelIdleTtl());
+        }
+        return max;
+    }
+
+    /**
+     * Halves the occurrences of all candidate prefixes and drops those that no longer occur,
+     * so that old URLs lose their weight over time.
+     */
+    private void decay() {
+        occurrences.entrySet().removeIf(entry -> {
+            long count = entry.getValue().sumThenReset();
+            if (count < MIN_OCCURRENCES) {
+                return true;
+            }
+            entry.getValue().add(count / 2);
+            return false;
+        });
+    }
+
+    /**
+     * Loads the dictionary of the given version from Redis.
+     *
+     * @param version the version of the dictionary
+     * @return the dictionary, or null if no dictionary of that version has been published
+     */
+    private UrlPrefixDictionary load(int version) {
+        HashOperations<String, String, String> operations = template.opsForHash();
+        String serialized = operations.get(DICTIONARY_KEY, String.valueOf(version));
+        if (serialized == null) {
+            if (log.isWarnEnabled()) {
+                log.warn("URL prefix dictionary version {} has not been published or has been pruned", version);
+            }
+            return null;
+        }
+        return UrlPrefixDictionary.parse(version, serialized);
+    }
+}
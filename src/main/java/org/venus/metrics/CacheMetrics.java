@@ -103,7 +103,7 @@ public class CacheMetrics {
      * A final cache instance to hold key-value pairs where the key is a {@code String} and the value is an {@code Object}.
      * This cache is used to store and retrieve objects efficiently to enhance performance and reduce repetitive computations or data retrieval.
      */
-    private final Cache<String, Object> cache;
+    private final Cache<?, ?> cache;
     /**
      * A singleton instance of MeterRegistry that serves as the global registry for managing all metrics.
      * It is initialized with the global registry provided by the Metrics library.
@@ -152,7 +152,7 @@ public class CacheMetrics {
      * @param period the duration at which metrics should be collected
      * @param enabled flag to indicate if metric collection is enabled
      */
-    public CacheMetrics(Cache<String, Object> cache, Duration period, boolean enabled) {
+    public CacheMetrics(Cache<?, ?> cache, Duration period, boolean enabled) {
         this.cache = cache;
         this.enabled = enabled;
         this.period = period;
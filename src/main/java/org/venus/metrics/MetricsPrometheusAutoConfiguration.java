@@ -67,8 +67,8 @@ public class MetricsPrometheusAutoConfiguration {
     @DependsOn("venusMultiLevelCacheManager")
     @Bean(initMethod = "init", destroyMethod = "shutdown")
     public CacheMetrics cacheMetrics(MultiLevelCacheManager cacheManager, MetricsProperties properties) {
-        CacheSelector selector = (MultiLevelValueAdaptingCache)cacheManager.getCache(MultiLevelCacheConstants.VENUS_CACHE_CALLBACK_NAME);
-        Cache<String, Object> primaryCache = selector.primaryCache();
+        MultiLevelValueAdaptingCache cache = (MultiLevelValueAdaptingCache) cacheManager.getCache(MultiLevelCacheConstants.VENUS_REDIRECT_CACHE_NAME);
+        Cache<?, ?> primaryCache = cache.primaryLayout().nativeCache();
         return new CacheMetrics(primaryCache, properties.getCacheMetricsPeriod(), properties.isCacheMetricsEnabled());
     }
 
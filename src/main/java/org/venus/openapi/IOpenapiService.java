@@ -1,8 +1,10 @@
 package org.venus.openapi;
 
 import org.venus.cache.ValueWrapper;
+import org.venus.support.KeysetPage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface defining the operations for handling OpenAPI entities.
@@ -29,6 +31,23 @@ public interface IOpenapiService {
      */
     List<ValueWrapper> lists();
 
+    /**
+     * Retrieves a page of the URL mappings that are active and not expired, in id order.
+     *
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of mappings, null for the default, lowered to the maximum page size
+     * @return the page of {@link ValueWrapper}, with the cursor of the next page
+     */
+    KeysetPage<ValueWrapper> page(long after, Integer limit);
+
+    /**
+     * Streams all URL mappings that are active and not expired, in id order, page by page.
+     *
+     * @param after the id after which the stream starts, 0 for all mappings
+     * @param action the action that consumes every {@link ValueWrapper}
+     */
+    void stream(long after, Consumer<ValueWrapper> action);
+
     /**
      * Redirects the original URL to its corresponding ValueWrapper.
      *
@@ -37,4 +56,12 @@ public interface IOpenapiService {
      */
     ValueWrapper redirect(String original);
 
+    /**
+     * Resolves the redirect information of many short codes at once, as {@link #redirect(String)} does for one.
+     *
+     * @param codes the short codes to resolve
+     * @return the ValueWrapper of every code that is active and not expired, in the order of the given codes
+     */
+    List<ValueWrapper> resolve(List<String> codes);
+
 }
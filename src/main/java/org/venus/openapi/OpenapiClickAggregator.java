@@ -0,0 +1,356 @@
+package org.venus.openapi;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.venus.metrics.MetricsConstants;
+import org.venus.support.JdbcBulkWriter;
+import org.venus.support.Referers;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-aggregates the reported clicks into counts per link, minute and dimension before they are persisted.
+ *
+ * Every click counts once for the {@code total} of its link and minute, once for the domain of its referer and,
+ * once its geo report arrives, once for its country. The counts are kept in {@link LongAdder}s, striped counters
+ * that do not contend under the clicks of a viral link, and are flushed every flush interval as
+ * {@code statistics_aggregate} rows that add to the counts already stored, so that a link with thousands of clicks
+ * per minute costs a few rows per minute. Geo reports only carry the id of their click, so the link and minute of
+ * recent clicks are remembered to attribute the countries; a geo report of an unknown click is not aggregated.
+ *
+ * Alongside the aggregates, the raw rows can be sampled: {@link #sampled(long)} keeps a click with the raw sample
+ * rate, decided by its id so that a sampled click keeps both its statistics and its geo row.
+ *
+ * The aggregator publishes the number of counters in {@code venus_click_aggregate_keys}, the aggregated clicks in
+ * {@code venus_click_aggregated_total} and the geo reports of unknown clicks in
+ * {@code venus_click_aggregate_unresolved_total}.
+ */
+@Component
+@Slf4j
+public class OpenapiClickAggregator {
+    /**
+     * The dimension that counts all clicks of a link.
+     */
+    public static final String DIMENSION_TOTAL = "total";
+    /**
+     * The dimension that counts the clicks of a link by the domain of the referer.
+     */
+    public static final String DIMENSION_REFERER = "referer";
+    /**
+     * The dimension that counts the clicks of a link by country.
+     */
+    public static final String DIMENSION_COUNTRY = "country";
+    /**
+     * The value of a dimension that collects the values beyond the maximum number of counters.
+     */
+    static final String OTHER_VALUE = "(other)";
+    /**
+     * The statement that adds the counts of an aggregate row.
+     */
+    private static final String UPSERT_SQL = "INSERT INTO statistics_aggregate (link_id, bucket, dimension, dimension_value, clicks) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE clicks = clicks + VALUES(clicks)";
+
+    /**
+     * The key of a counter.
+     *
+     * @param linkId the id of the link
+     * @param minute the minute of the clicks, in minutes since the epoch
+     * @param dimension the dimension
+     * @param value the value of the dimension, empty for the total and for clicks without referer or country
+     */
+    record AggregateKey(long linkId, long minute, String dimension, String value) {
+    }
+
+    /**
+     * A counted aggregate row.
+     *
+     * @param key the key of the counter
+     * @param clicks the number of clicks
+     */
+    record AggregateRow(AggregateKey key, long clicks) {
+    }
+
+    /**
+     * The link and minute of a recent click, used to aggregate its geo report.
+     *
+     * @param linkId the id of the link
+     * @param minute the minute of the click, in minutes since the epoch
+     */
+    private record ClickRef(long linkId, long minute) {
+    }
+
+    /**
+     * Executes the upserts of the aggregate rows.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    /**
+     * The properties of the reports.
+     */
+    @Autowired
+    private OpenapiReportProperties reportProperties;
+    /**
+     * The counters of the current and recent minutes.
+     */
+    private final Map<AggregateKey, LongAdder> counters = new ConcurrentHashMap<>();
+    /**
+     * The counters removed by the last flush, summed once more by the next one for the clicks that were
+     * counted while they were removed.
+     */
+    private final List<Map.Entry<AggregateKey, LongAdder>> retired = new ArrayList<>();
+    /**
+     * Counts the aggregated clicks.
+     */
+    private final Counter aggregated = Counter.builder("venus_click_aggregated_total")
+            .tags(tags()).register(Metrics.globalRegistry);
+    /**
+     * Counts the geo reports of clicks that are not known.
+     */
+    private final Counter unresolved = Counter.builder("venus_click_aggregate_unresolved_total")
+            .tags(tags()).register(Metrics.globalRegistry);
+    /**
+     * The settings of the aggregation.
+     */
+    private OpenapiReportProperties.AggregationProperties properties;
+    /**
+     * The link and minute of the recent clicks by click id.
+     */
+    private Cache<Long, ClickRef> recentClicks;
+    /**
+     * Upserts the aggregate rows.
+     */
+    private JdbcBulkWriter<AggregateRow> writer;
+    /**
+     * Flushes the counters every flush interval.
+     */
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * Starts the flushes if the aggregation is enabled.
+     */
+    @PostConstruct
+    public void init() {
+        this.properties = reportProperties.getAggregation();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        this.recentClicks = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentClicks())
+                .expireAfterWrite(Duration.ofMillis(properties.getRecentClickTtl()))
+                .build();
+        OpenapiReportProperties.BulkWriterProperties writerProperties = reportProperties.getWriter();
+        this.writer = new JdbcBulkWriter<>("statistics-aggregate", jdbcTemplate, UPSERT_SQL, (ps, row) -> {
+            ps.setLong(1, row.key().linkId());
+            ps.setTimestamp(2, Timestamp.valueOf(toDateTime(row.key().minute())));
+            ps.setString(3, row.key().dimension());
+            ps.setString(4, row.key().value());
+            ps.setLong(5, row.clicks());
+        }, writerProperties.getMinBatchSize(), writerProperties.getMaxBatchSize(), writerProperties.getTargetLatency(),
+                writerProperties.getParallelism(), writerProperties.getMaxRetries(), writerProperties.getRetryBackoff());
+        Gauge.builder("venus_click_aggregate_keys", counters, Map::size).tags(tags()).register(Metrics.globalRegistry);
+
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("statistics-aggregate-virtual-thread").factory());
+        this.scheduledExecutorService.scheduleWithFixedDelay(this::flushQuietly, properties.getFlushInterval(),
+                properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indicates whether the clicks are aggregated.
+     *
+     * @return true if the aggregation is enabled
+     */
+    public boolean isEnabled() {
+        return properties != null && properties.isEnabled();
+    }
+
+    /**
+     * Counts a click for the total and the referer domain of its link and minute.
+     *
+     * @param entity the statistics report of the click
+     */
+    public void recordClick(OpenapiStatisticsEntity entity) {
+        long minute = toMinute(entity.getClickedAt());
+        increment(new AggregateKey(entity.getLinkId(), minute, DIMENSION_TOTAL, ""));
+        increment(new AggregateKey(entity.getLinkId(), minute, DIMENSION_REFERER, Referers.domain(entity.getReferer())));
+        if (entity.getClickId() != 0) {
+            recentClicks.put(entity.getClickId(), new ClickRef(entity.getLinkId(), minute));
+        }
+        aggregated.increment();
+    }
+
+    /**
+     * Counts a click for its country, if the click is known.
+     *
+     * @param entity the geo report of the click
+     */
+    public void recordGeo(OpenapiGeoEntity entity) {
+        ClickRef click = recentClicks.getIfPresent(entity.getClickId());
+        if (click == null) {
+            unresolved.increment();
+            return;
+        }
+        String country = entity.getCountry() == null ? "" : entity.getCountry().trim();
+        increment(new AggregateKey(click.linkId(), click.minute(), DIMENSION_COUNTRY, country));
+    }
+
+    /**
+     * Decides whether the raw rows of a click are kept in addition to the aggregates.
+     *
+     * @param clickId the id of the click, zero if the database assigns it
+     * @return true if the raw rows of the click are persisted
+     */
+    public boolean sampled(long clickId) {
+        double rate = properties.getRawSampleRate();
+        if (rate >= 1) {
+            return true;
+        }
+        if (rate <= 0) {
+            return false;
+        }
+        if (clickId == 0) {
+            return ThreadLocalRandom.current().nextDouble() < rate;
+        }
+        // a hash of the click id, so that the statistics and the geo row of a click are sampled alike
+        long hash = clickId * 0x9E3779B97F4A7C15L;
+        return (hash >>> 11) * 0x1.0p-53 < rate;
+    }
+
+    /**
+     * Flushes the counted clicks as aggregate rows. The counts of the rows of the chunks that fail to be written are
+     * added back to be written by the next flush, the rows of the chunks that were written are not.
+     */
+    void flush() {
+        List<AggregateRow> rows = new ArrayList<>();
+        synchronized (retired) {
+            for (Map.Entry<AggregateKey, LongAdder> entry : retired) {
+                long clicks = entry.getValue().sumThenReset();
+                if (clicks > 0) {
+                    rows.add(new AggregateRow(entry.getKey(), clicks));
+                }
+            }
+            retired.clear();
+            long closed = toMinute(null) - 1;
+            for (Map.Entry<AggregateKey, LongAdder> entry : counters.entrySet()) {
+                long clicks = entry.getValue().sumThenReset();
+                if (clicks > 0) {
+                    rows.add(new AggregateRow(entry.getKey(), clicks));
+                } else if (entry.getKey().minute() < closed && counters.remove(entry.getKey(), entry.getValue())) {
+                    retired.add(entry);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        writer.write(rows, failed -> {
+            for (AggregateRow row : failed) {
+                counters.computeIfAbsent(row.key(), k -> new LongAdder()).add(row.clicks());
+            }
+        });
+        if (log.isDebugEnabled()) {
+            log.debug("Flushed {} click aggregate rows", rows.size());
+        }
+    }
+
+    /**
+     * Stops the flushes and flushes the counted clicks one last time.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.scheduledExecutorService == null) {
+            return;
+        }
+        this.scheduledExecutorService.shutdown();
+        try {
+            this.scheduledExecutorService.awaitTermination(properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Flushes the counted clicks, logging a failure instead of throwing it so that the schedule goes on.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Statistics aggregate flush failure", e);
+            }
+        }
+    }
+
+    /**
+     * Increments a counter, collecting the value of the dimension under {@link #OTHER_VALUE} once there are
+     * as many counters as allowed.
+     *
+     * @param key the key of the counter
+     */
+    private void increment(AggregateKey key) {
+        LongAdder adder = counters.get(key);
+        if (adder == null) {
+            if (counters.size() >= properties.getMaxKeys() && !key.value().isEmpty()) {
+                key = new AggregateKey(key.linkId(), key.minute(), key.dimension(), OTHER_VALUE);
+            }
+            adder = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * Converts the time of a click into its minute. The minutes count the local time as if it were UTC, so that an
+     * aggregate row is stored with the same local time as the clicks it counts.
+     *
+     * @param clickedAt the time of the click, null for now
+     * @return the minutes since the epoch
+     */
+    private static long toMinute(LocalDateTime clickedAt) {
+        LocalDateTime time = clickedAt == null ? LocalDateTime.now() : clickedAt;
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts a minute into the local time the aggregate row is stored with.
+     *
+     * @param minute the minutes since the epoch
+     * @return the start of the minute
+     */
+    private static LocalDateTime toDateTime(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Provides the tags of the meters.
+     *
+     * @return the tags
+     */
+    private static Tags tags() {
+        return Tags.of(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME,
+                MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+    }
+}
@@ -4,204 +4,162 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.venus.admin.service.StatisticsClickStore;
+import org.venus.support.BatchingIngestor;
+import org.venus.support.BinaryReader;
+import org.venus.support.BinaryWriter;
+import org.venus.support.DatabaseGuard;
+import org.venus.support.JdbcBulkWriter;
+import org.venus.support.WriteAheadSpool;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.nio.file.Path;
 
 /**
  * Service responsible for handling geographic data reports.
  * <p>
  * This class implements the {@link IOpenapiGeoService} interface for reporting geographic data
- * to a repository. It manages scheduled tasks for collecting and saving geographic data, ensuring
+ * to a repository. It collects the geographic data in a batching ingestor or a write-ahead spool, ensuring
  * that data is saved based on specified time intervals or data size thresholds.
  */
 @Service
 @Slf4j
 public class OpenapiGeoService implements IOpenapiGeoService {
     /**
-     * An instance of the OpenapiGeoRepository that is automatically
-     * injected by the Spring framework.
-     *
-     * This repository interface facilitates CRUD operations and other
-     * interactions with the geographical data persisted in the
-     * underlying data store.
-     *
-     * The OpenapiGeoRepository is used to manage and query geographical
-     * information in accordance with the application's requirements.
-     *
-     * Being marked with @Autowired, the instance will be resolved from
-     * the application context and injected into the dependent component
-     * where it is used.
+     * The statement that inserts a geo row. The database assigns the id of the row, so that a report sent twice is
+     * not rejected as a duplicate key.
      */
-    @Autowired
-    private OpenapiGeoRepository openapiGeoRepository;
+    private static final String INSERT_SQL =
+            "INSERT INTO geo (click_id, country, city, latitude, longitude) VALUES (?, ?, ?, ?, ?)";
     /**
-     * Holds the configuration properties required to generate reports.
-     * This property is automatically injected.
+     * Encodes the geo rows in the spool. The id is kept in the records for the spools written by earlier versions,
+     * but it is not inserted.
+     */
+    private static final WriteAheadSpool.Codec<OpenapiGeoEntity> SPOOL_CODEC = new WriteAheadSpool.Codec<>() {
+        @Override
+        public void encode(OpenapiGeoEntity entity, BinaryWriter out) {
+            out.writeVarLong(entity.getId())
+                    .writeVarLong(entity.getClickId())
+                    .writeVarLong(Double.doubleToRawLongBits(entity.getLat()))
+                    .writeVarLong(Double.doubleToRawLongBits(entity.getLng()))
+                    .writeString(entity.getCity())
+                    .writeString(entity.getCountry());
+        }
+
+        @Override
+        public OpenapiGeoEntity decode(BinaryReader in) {
+            return OpenapiGeoEntity.builder()
+                    .id(in.readVarLong())
+                    .clickId(in.readVarLong())
+                    .lat(Double.longBitsToDouble(in.readVarLong()))
+                    .lng(Double.longBitsToDouble(in.readVarLong()))
+                    .city(in.readString())
+                    .country(in.readString())
+                    .build();
+        }
+    };
+    /**
+     * Executes the batched inserts of the geo rows, see {@link JdbcBulkWriter}.
      */
     @Autowired
-    private OpenapiReportProperties reportProperties;
+    private JdbcTemplate jdbcTemplate;
     /**
-     * A list that holds OpenapiGeoEntity objects.
-     * It is initialized as a LinkedList and is immutable.
+     * Pre-aggregates the clicks and samples their raw rows, if enabled.
      */
-    private final List<OpenapiGeoEntity> entities = new LinkedList<>();
+    @Autowired
+    private OpenapiClickAggregator aggregator;
     /**
-     * Stores the timestamp of the last update. The value is initialized to the current system time
-     * when the instance is created. This variable may be used to track the relevance or freshness
-     * of the data.
+     * Keeps the recent clicks in memory for the statistics queries, if enabled.
      */
-    private long lastUpdatedTime = System.currentTimeMillis();
+    @Autowired
+    private StatisticsClickStore clickStore;
     /**
-     * This is a ReentrantReadWriteLock used to control read/write access to a shared resource.
-     * ReentrantReadWriteLock allows multiple readers to acquire the lock concurrently as long as
-     * no writers hold the lock, and it allows a single writer to acquire the lock if no readers are holding it.
-     * This lock provides better performance in scenarios where reads are frequent and writes are infrequent.
+     * Holds the configuration properties required to generate reports.
+     * This property is automatically injected.
      */
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    @Autowired
+    private OpenapiReportProperties reportProperties;
     /**
-     * A write lock used to enforce exclusive access to resources or critical sections.
-     * This lock is part of a ReentrantReadWriteLock mechanism, which allows multiple
-     * threads to read simultaneously while requiring exclusive access for write operations.
-     * The write lock ensures that only one thread can hold the lock at a time, preventing
-     * data inconsistency and ensuring thread safety for write operations.
+     * Collects the reported geo entities and saves them in batches, see {@link BatchingIngestor}.
      */
-    private final ReentrantReadWriteLock.WriteLock writeLock = readWriteLock.writeLock();
+    private BatchingIngestor<OpenapiGeoEntity> ingestor;
     /**
-     * The read lock component of a ReentrantReadWriteLock.
-     *
-     * This lock is used to allow multiple threads to read a shared resource concurrently,
-     * ensuring that no thread can modify the resource while it is being read.
-     *
-     * The readLock instance is obtained from a ReentrantReadWriteLock, which manages both
-     * the read and write locks for a resource, coordinating access to ensure thread-safety.
-     *
-     * Locking the readLock will only succeed if no thread currently holds the write lock.
-     *
-     * Typical usage involves acquiring the read lock before accessing the shared resource
-     * for reading, and releasing it afterward.
+     * Spools the reported geo entities on local disk before they are inserted, or null if the spool is disabled,
+     * see {@link WriteAheadSpool}.
      */
-    private final ReentrantReadWriteLock.ReadLock readLock = readWriteLock.readLock();
+    private WriteAheadSpool<OpenapiGeoEntity> spool;
     /**
-     * A scheduled thread pool executor that can schedule commands to run after a
-     * given delay or to execute periodically. The ScheduledExecutorService
-     * interface in the java.util.concurrent package is useful for tasks that need
-     * to be executed in parallel and those that should be scheduled to run at a
-     * specific time or interval.
+     * Inserts the batches of the ingestor with batched prepared statements.
      */
-    private ScheduledExecutorService scheduledExecutorService;
+    private JdbcBulkWriter<OpenapiGeoEntity> writer;
 
     /**
-     * Reports the provided OpenapiGeoEntity.
+     * Reports the provided OpenapiGeoEntity. With the in-memory click store enabled, the country is set on the
+     * click in the store. With the pre-aggregation enabled, the click is counted for its country and its raw row is
+     * only persisted if it is sampled.
      *
      * @param entity The OpenapiGeoEntity that needs to be reported.
      * @return true if the entity is successfully reported, false otherwise.
      */
     @Override
     public boolean report(OpenapiGeoEntity entity) {
-        return write(entity);
+        if (clickStore.isEnabled()) {
+            clickStore.recordGeo(entity.getClickId(), entity.getCountry());
+        }
+        if (aggregator.isEnabled()) {
+            aggregator.recordGeo(entity);
+            if (!aggregator.sampled(entity.getClickId())) {
+                return true;
+            }
+        }
+        return spool != null ? spool.append(entity) : ingestor.offer(entity);
     }
 
     /**
-     * Initializes the Geo reporting service. This method sets up a scheduled task
-     * using a virtual thread factory that runs at fixed intervals to check the size
-     * and age of collected geo entities. If the entities exceed a configured size
-     * or age, they are persisted to the repository. The scheduled task handles
-     * errors by logging them.
-     *
-     * The task periodically sleeps for a configured duration when there is no data
-     * to report.
-     *
-     * The schedule is configured with an initial delay and period from the
-     * GeoReportProperties.
-     *
-     * This method is annotated with {@code @PostConstruct} to ensure it is called
-     * after the bean's properties have been initialized.
+     * Starts the ingestion of the geo reports. The reports are queued by {@link #report} and inserted by the
+     * flusher of the ingestor, through the bulk writer, once {@code reportSize} reports are queued or the oldest one
+     * has waited for {@code reportTimeout} milliseconds, see {@link OpenapiReportProperties.GeoReportProperties}.
+     * With the spool enabled, the reports are appended to the spool instead and inserted by its drainer.
      */
     @PostConstruct
     public void init() {
-        OpenapiReportProperties.GeoReportProperties geoReportProperties = reportProperties.getGeo();
-        ThreadFactory factory = Thread.ofVirtual().name("geo-report-virtual-thread").factory();
-        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(factory);
-        this.scheduledExecutorService.scheduleAtFixedRate(() -> {
-            while (true) {
-                try {
-                    int size = entities.size();
-                    if (size > geoReportProperties.getReportSize() ||
-                            System.currentTimeMillis() - lastUpdatedTime > geoReportProperties.getReportTimeout()) {
-                        List<OpenapiGeoEntity> newEntities = readAndClear();
-                        if (newEntities == null || newEntities.isEmpty()) {
-                            continue;
-                        }
-                        lastUpdatedTime = System.currentTimeMillis();
-                        openapiGeoRepository.saveAll(newEntities);
-                    }
+        OpenapiReportProperties.BulkWriterProperties writerProperties = reportProperties.getWriter();
+        this.writer = new JdbcBulkWriter<>("geo", jdbcTemplate, INSERT_SQL, (ps, entity) -> {
+            ps.setLong(1, entity.getClickId());
+            ps.setString(2, entity.getCountry());
+            ps.setString(3, entity.getCity());
+            ps.setDouble(4, entity.getLat());
+            ps.setDouble(5, entity.getLng());
+        }, writerProperties.getMinBatchSize(), writerProperties.getMaxBatchSize(), writerProperties.getTargetLatency(),
+                writerProperties.getParallelism(), writerProperties.getMaxRetries(), writerProperties.getRetryBackoff());
 
-                    TimeUnit.MILLISECONDS.sleep(geoReportProperties.getReportWithoutDataTimeout());
-                } catch (Exception e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Geo report failure", e);
-                    }
-                }
-            }
-        }, geoReportProperties.getScheduledDelay(), geoReportProperties.getScheduledPeriod(), TimeUnit.MILLISECONDS);
-    }
-
-    /**
-     * Reads the current list of OpenapiGeoEntity objects and clears the list simultaneously.
-     * This method safely locks the list during the read and clear operations to maintain thread safety.
-     *
-     * @return a new list containing all the OpenapiGeoEntity objects that were present before clearing the original list.
-     */
-    private List<OpenapiGeoEntity> readAndClear() {
-        writeLock.lock();
-        List<OpenapiGeoEntity> newEntities;
-        try {
-            newEntities = new ArrayList<>(entities);
-            entities.clear();
-        } finally {
-            writeLock.unlock();
-        }
-        return newEntities;
-    }
-
-    /**
-     * Adds the provided OpenapiGeoEntity to the end of the entities list in a thread-safe manner.
-     *
-     * @param entity the OpenapiGeoEntity to be added to the entities list
-     */
-    private boolean write(OpenapiGeoEntity entity) {
-        readLock.lock();
-        try {
-            entities.addLast(entity);
-        } catch (Exception e) {
-            if (log.isErrorEnabled()) {
-                log.error("Write geo report failure", e);
-            }
-            return false;
-        } finally {
-            readLock.unlock();
+        OpenapiReportProperties.SpoolProperties spoolProperties = reportProperties.getSpool();
+        if (spoolProperties.isEnabled()) {
+            this.spool = new WriteAheadSpool<>("geo", Path.of(spoolProperties.getDirectory(), "geo"),
+                    spoolProperties.getSegmentSize(), spoolProperties.getMaxSegments(), spoolProperties.getCommitInterval(),
+                    spoolProperties.getBatchSize(), spoolProperties.getRetryBackoff(), SPOOL_CODEC, writer::write,
+                    DatabaseGuard::isOutage);
+        } else {
+            OpenapiReportProperties.GeoReportProperties properties = reportProperties.getGeo();
+            this.ingestor = new BatchingIngestor<>("geo-report", properties.getQueueCapacity(),
+                    (int) properties.getReportSize(), properties.getReportTimeout(), properties.getOverflowPolicy(),
+                    properties.getOfferTimeout(), writer::write).start();
         }
-        return true;
     }
 
     /**
-     * Shuts down the ScheduledExecutorService if it is not null.
-     * This method is annotated with @PreDestroy to ensure that it is called
-     * during the instance's destruction lifecycle, facilitating a clean and orderly shutdown
-     * of scheduled tasks.
+     * Closes the ingestor, which saves the geo reports that are still queued, or the spool, which keeps the
+     * reports that are not inserted yet for the next start.
+     * This method is annotated with @PreDestroy, so that no report is lost on an orderly shutdown.
      */
     @PreDestroy
     public void shutdown() {
-        if (this.scheduledExecutorService != null) {
-            this.scheduledExecutorService.shutdown();
+        if (this.ingestor != null) {
+            this.ingestor.close();
+        }
+        if (this.spool != null) {
+            this.spool.close();
         }
     }
 }
@@ -66,4 +66,26 @@ public class OpenapiInitializerProperties {
      * in managing fallback redirection within the OpenAPI initialization process.
      */
     private String defaultRedirectUrl = "http://127.0.0.1:8029/error";
+
+    /**
+     * The maximum number of codes that a single batch resolution request may resolve.
+     */
+    private int maxResolveCodes = 1000;
+
+    /**
+     * The time in milliseconds for which a code that could not be resolved during a database outage
+     * is answered with the cached failure response, without looking it up again.
+     */
+    private long unavailableCodeTtl = 5000;
+
+    /**
+     * The maximum number of codes that are answered with the cached failure response during a database outage.
+     */
+    private int maxUnavailableCodes = 100000;
+
+    /**
+     * The latency budget in milliseconds of a redirect, shared by the cache levels and the database,
+     * zero or less for no budget.
+     */
+    private long redirectDeadline;
 }
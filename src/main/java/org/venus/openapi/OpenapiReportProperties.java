@@ -2,12 +2,13 @@ package org.venus.openapi;
 
 import lombok.*;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.venus.support.BatchingIngestor;
 
 /**
  * Configuration properties for OpenAPI reports.
  *
  * This class contains nested configurations for geo and statistics reports.
- * It is primarily used for setting up the scheduled tasks and report parameters.
+ * It is primarily used for setting up the batching of the reports before they are saved.
  */
 @Setter
 @Getter
@@ -20,17 +21,35 @@ public class OpenapiReportProperties {
      * Configuration properties for geo reports.
      *
      * This object holds configuration values for geo-related reports,
-     * including scheduled delays, periods, timeouts, and report size.
+     * including the batch size, the flush timeout and the bounds of the queue.
      */
     private GeoReportProperties geo;
     /**
      * Configuration properties for the statistics report.
      *
      * This field holds the configuration settings specific to generating and scheduling
-     * statistics reports. It includes parameters for scheduled delays, periods, timeouts,
-     * and report sizes.
+     * statistics reports. It includes the batch size, the flush timeout and the bounds of the queue.
      */
     private StatisticsReportProperties statistics;
+    /**
+     * Configuration properties for the bulk writers that insert the geo and statistics reports.
+     *
+     * Each of the two reports has its own writer with these settings.
+     */
+    private BulkWriterProperties writer = new BulkWriterProperties();
+    /**
+     * Configuration properties for the write-ahead spools of the geo and statistics reports.
+     *
+     * If enabled, each of the two reports is spooled to its own subdirectory before it is inserted.
+     */
+    private SpoolProperties spool = new SpoolProperties();
+    /**
+     * Configuration properties for the pre-aggregation of the clicks.
+     *
+     * If enabled, the clicks are counted per link, minute and dimension and flushed as aggregate rows,
+     * and the raw rows are sampled.
+     */
+    private AggregationProperties aggregation = new AggregationProperties();
 
     @Setter
     @Getter
@@ -39,27 +58,27 @@ public class OpenapiReportProperties {
     @Data
     static class GeoReportProperties {
         /**
-         * Delay in milliseconds before the scheduled task is executed.
+         * The maximum time in milliseconds a geo report waits in the queue before it is saved.
          */
-        private long scheduledDelay;
+        private long reportTimeout;
         /**
-         * Represents the period at which a scheduled task or report is repeated.
+         * The number of geo reports saved at once, and the number of queued reports that triggers a save
+         * before the report timeout.
          */
-        private long ScheduledPeriod;
+        private long reportSize;
         /**
-         * The timeout duration for generating a report, in milliseconds.
-         * This variable determines the maximum amount of time to wait before
-         * the report generation process is canceled.
+         * The maximum number of queued geo reports. Reports beyond it are handled by the overflow policy.
          */
-        private long reportTimeout;
+        private int queueCapacity = 100000;
         /**
-         * The duration in milliseconds after which a report is considered outdated if no new data is received.
+         * What happens to a geo report when the queue is full: it is dropped, or the reporter waits up to the
+         * offer timeout for room.
          */
-        private long reportWithoutDataTimeout;
+        private BatchingIngestor.OverflowPolicy overflowPolicy = BatchingIngestor.OverflowPolicy.DROP;
         /**
-         * The maximum size of the report in bytes.
+         * The maximum time in milliseconds a reporter waits for room in a full queue with the BLOCK overflow policy.
          */
-        private long reportSize;
+        private long offerTimeout;
     }
 
     @Setter
@@ -69,24 +88,131 @@ public class OpenapiReportProperties {
     @Data
     static class StatisticsReportProperties {
         /**
-         * The delay in milliseconds before the first execution of the scheduled task.
+         * The maximum time in milliseconds a statistics report waits in the queue before it is saved.
          */
-        private long scheduledDelay;
+        private long reportTimeout;
         /**
-         * Represents the frequency, in milliseconds, with which a scheduled report is generated.
+         * The number of statistics reports saved at once, and the number of queued reports that triggers a save
+         * before the report timeout.
          */
-        private long ScheduledPeriod;
+        private long reportSize;
         /**
-         * The duration in milliseconds before a report operation times out.
+         * The maximum number of queued statistics reports. Reports beyond it are handled by the overflow policy.
          */
-        private long reportTimeout;
+        private int queueCapacity = 100000;
         /**
-         * The timeout period in milliseconds after which a report is generated even if no new data has been received.
+         * What happens to a statistics report when the queue is full: it is dropped, or the reporter waits up to the
+         * offer timeout for room.
          */
-        private long reportWithoutDataTimeout;
+        private BatchingIngestor.OverflowPolicy overflowPolicy = BatchingIngestor.OverflowPolicy.DROP;
         /**
-         * Size of the report in bytes.
+         * The maximum time in milliseconds a reporter waits for room in a full queue with the BLOCK overflow policy.
          */
-        private long reportSize;
+        private long offerTimeout;
+    }
+
+    @Setter
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    static class BulkWriterProperties {
+        /**
+         * The minimum number of rows inserted in one batch, and the step by which the batch size grows
+         * while the database keeps up.
+         */
+        private int minBatchSize = 50;
+        /**
+         * The maximum number of rows inserted in one batch, and the initial batch size.
+         */
+        private int maxBatchSize = 1000;
+        /**
+         * The latency of a batch in milliseconds above which the batch size is halved.
+         */
+        private long targetLatency = 200;
+        /**
+         * The maximum number of batches of a writer that are inserted in parallel, each on its own connection.
+         */
+        private int parallelism = 2;
+        /**
+         * The maximum number of retries of a batch that failed because the database is unreachable or overloaded.
+         */
+        private int maxRetries = 3;
+        /**
+         * The backoff in milliseconds before the first retry of a batch, doubled for every further retry.
+         */
+        private long retryBackoff = 100;
+    }
+
+    @Setter
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    static class SpoolProperties {
+        /**
+         * Whether reports are appended to a spool on local disk before they are inserted, instead of being queued
+         * in memory, so that pending reports survive a crash, a restart or an outage of the database.
+         */
+        private boolean enabled = false;
+        /**
+         * The directory of the spools, each report uses a subdirectory of it.
+         */
+        private String directory = "spool";
+        /**
+         * The size of a segment file of a spool in bytes.
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+        /**
+         * The maximum number of segment files of a spool. Reports are dropped while a spool is full.
+         */
+        private int maxSegments = 64;
+        /**
+         * The interval in milliseconds at which appended reports are forced to the disk.
+         */
+        private long commitInterval = 10;
+        /**
+         * The maximum number of spooled reports inserted at once.
+         */
+        private int batchSize = 1000;
+        /**
+         * The backoff in milliseconds before an insert of spooled reports that failed because the database is
+         * unreachable or overloaded is retried, doubled for every further failure. The reports of other failures are
+         * moved to the dead-letter file of the spool.
+         */
+        private long retryBackoff = 1000;
+    }
+
+    @Setter
+    @Getter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    static class AggregationProperties {
+        /**
+         * Whether the clicks are counted per link, minute and dimension and flushed as {@code statistics_aggregate}
+         * rows.
+         */
+        private boolean enabled = false;
+        /**
+         * The interval in milliseconds at which the counts are flushed.
+         */
+        private long flushInterval = 10000;
+        /**
+         * The maximum number of counters. Beyond it, new referer domains and countries are counted as "(other)".
+         */
+        private int maxKeys = 1000000;
+        /**
+         * The share of the clicks, between 0 and 1, whose raw statistics and geo rows are persisted as well.
+         */
+        private double rawSampleRate = 1.0;
+        /**
+         * The maximum number of recent clicks whose link is remembered to aggregate their geo reports by country.
+         */
+        private long recentClicks = 100000;
+        /**
+         * The time in milliseconds for which the link of a click is remembered for its geo report.
+         */
+        private long recentClickTtl = 300000;
     }
 }
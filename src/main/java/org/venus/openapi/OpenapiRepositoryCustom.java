@@ -0,0 +1,46 @@
+package org.venus.openapi;
+
+import org.venus.support.KeysetPage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The lookups of the redirect path, which are bounded by the deadline of the request
+ * (see {@link org.venus.support.RequestDeadline}).
+ */
+public interface OpenapiRepositoryCustom {
+    /**
+     * Retrieves an OpenapiEntity based on the provided code.
+     *
+     * @param encode the unique code to search for in the links table
+     * @return an OpenapiEntity that matches the provided code, or null if there is none
+     */
+    OpenapiEntity get(String encode);
+
+    /**
+     * Retrieves the OpenapiEntity objects of the provided codes with a single query.
+     *
+     * @param codes the unique codes to search for in the links table
+     * @return the OpenapiEntity objects that match the provided codes
+     */
+    List<OpenapiEntity> getAll(Collection<String> codes);
+
+    /**
+     * Reads a page of the links that are active and not expired, in id order, without the deadline of a request.
+     *
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links
+     * @return the page of OpenapiEntity objects
+     */
+    KeysetPage<OpenapiEntity> page(long after, int limit);
+
+    /**
+     * Streams all links that are active and not expired, in id order, page by page.
+     *
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every OpenapiEntity
+     */
+    void stream(long after, Consumer<OpenapiEntity> action);
+}
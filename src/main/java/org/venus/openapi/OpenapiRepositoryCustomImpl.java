@@ -0,0 +1,140 @@
+package org.venus.openapi;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.venus.admin.configuration.PaginationProperties;
+import org.venus.support.KeysetPage;
+import org.venus.support.KeysetQuery;
+import org.venus.support.RequestDeadline;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Implements the lookups of the redirect path with native queries whose JDBC query timeout is the time that is
+ * left of the deadline of the request, so that a slow database cannot hold a request beyond its budget.
+ * Without a deadline, the queries have no timeout, like the other queries of the repository.
+ *
+ * The paginated and streaming reads of the links run with plain JDBC (see {@link KeysetQuery}).
+ */
+public class OpenapiRepositoryCustomImpl implements OpenapiRepositoryCustom {
+    /**
+     * The hint of the query timeout in seconds, the granularity of the JDBC query timeout.
+     */
+    private static final String HINT_TIMEOUT = "org.hibernate.timeout";
+
+    /**
+     * The entity manager that runs the queries.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Maps a row of {@code links} to an OpenapiEntity.
+     */
+    private static final RowMapper<OpenapiEntity> ROW_MAPPER = (rs, i) -> OpenapiEntity.builder()
+            .id(rs.getLong("id"))
+            .code(rs.getString("code"))
+            .redirect(rs.getInt("redirect"))
+            .originalUrl(rs.getString("original_url"))
+            .createdAt(rs.getObject("created_at", LocalDateTime.class))
+            .expiresAt(rs.getObject("expires_at", LocalDateTime.class))
+            .isActive(rs.getShort("is_active"))
+            .build();
+
+    /**
+     * Executes the paginated and streaming reads.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The configuration of the list endpoints.
+     */
+    @Autowired
+    private PaginationProperties paginationProperties;
+
+    /**
+     * Retrieves an OpenapiEntity based on the provided code within the deadline of the request.
+     *
+     * @param encode the unique code to search for in the links table
+     * @return an OpenapiEntity that matches the provided code, or null if there is none
+     */
+    @Override
+    public OpenapiEntity get(String encode) {
+        Query query = entityManager.createNativeQuery("SELECT * FROM links WHERE code=:encode", OpenapiEntity.class)
+                .setParameter("encode", encode);
+        List<?> entities = withinDeadline(query).getResultList();
+        return entities.isEmpty() ? null : (OpenapiEntity) entities.get(0);
+    }
+
+    /**
+     * Retrieves the OpenapiEntity objects of the provided codes with a single query within the deadline of the request.
+     *
+     * @param codes the unique codes to search for in the links table
+     * @return the OpenapiEntity objects that match the provided codes
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<OpenapiEntity> getAll(Collection<String> codes) {
+        Query query = entityManager.createNativeQuery("SELECT * FROM links WHERE code IN (:codes)", OpenapiEntity.class)
+                .setParameter("codes", codes);
+        return withinDeadline(query).getResultList();
+    }
+
+    /**
+     * Reads a page of the links that are active and not expired, in id order.
+     *
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of links
+     * @return the page of OpenapiEntity objects
+     */
+    @Override
+    public KeysetPage<OpenapiEntity> page(long after, int limit) {
+        return activeQuery().page(jdbcTemplate, ROW_MAPPER, OpenapiEntity::getId, after, limit);
+    }
+
+    /**
+     * Streams all links that are active and not expired, in id order, page by page.
+     *
+     * @param after the id after which the stream starts, 0 for all links
+     * @param action the action that consumes every OpenapiEntity
+     */
+    @Override
+    public void stream(long after, Consumer<OpenapiEntity> action) {
+        activeQuery().stream(jdbcTemplate, ROW_MAPPER, OpenapiEntity::getId, after, paginationProperties.getStreamFetchSize(), action);
+    }
+
+    /**
+     * Builds the query of the links that are active and not expired.
+     *
+     * @return the query
+     */
+    private static KeysetQuery activeQuery() {
+        return new KeysetQuery("SELECT id, code, redirect, original_url, created_at, expires_at, is_active FROM links", "id")
+                .where("is_active <> 0")
+                .where("expires_at > NOW()");
+    }
+
+    /**
+     * Sets the query timeout to the time that is left of the deadline of the request, rounded up to whole seconds.
+     *
+     * @param query the query
+     * @return the query
+     */
+    private static Query withinDeadline(Query query) {
+        long remaining = RequestDeadline.remainingNanos();
+        if (remaining != Long.MAX_VALUE) {
+            long seconds = Math.max(1, (TimeUnit.NANOSECONDS.toMillis(remaining) + 999) / 1000);
+            query.setHint(HINT_TIMEOUT, (int) Math.min(Integer.MAX_VALUE, seconds));
+        }
+        return query;
+    }
+}
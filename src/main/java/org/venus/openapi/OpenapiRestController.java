@@ -1,5 +1,7 @@
 package org.venus.openapi;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
@@ -7,23 +9,37 @@ import io.micrometer.core.instrument.Tags;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.venus.cache.ValueWrapper;
 import org.venus.metrics.MetricsConstants;
+import org.venus.support.DatabaseGuard;
+import org.venus.support.DatabaseUnavailableException;
+import org.venus.support.DeadlineExceededException;
 import org.venus.support.GenericListRestApiResponse;
+import org.venus.support.GenericPageRestApiResponse;
 import org.venus.support.GenericRestApiResponse;
+import org.venus.support.NdjsonResponses;
+import org.venus.support.RequestDeadline;
 import org.venus.support.RestApiCode;
 
 import java.net.URI;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * OpenapiRestController is a REST controller that handles API requests related to
@@ -47,17 +63,58 @@ public class OpenapiRestController {
      */
     private final IOpenapiService iOpenapiService;
     private final String errorUri;
+    /**
+     * The maximum number of codes that a single batch resolution request may resolve.
+     */
+    private final int maxResolveCodes;
+    /**
+     * The guard of the database, which tells whether a code that cannot be resolved is unknown
+     * or could not be loaded because the database is unavailable.
+     */
+    private final DatabaseGuard databaseGuard;
+    /**
+     * The codes that could not be resolved during a database outage, answered with the failure response
+     * without looking them up again until they expire.
+     */
+    private final Cache<String, Boolean> unavailableCodes;
+    /**
+     * The response of a code that cannot be resolved during a database outage, built once.
+     */
+    private final ResponseEntity<Void> unavailableResponse;
+    /**
+     * The latency budget in milliseconds of a redirect, zero or less for no budget.
+     */
+    private final long redirectDeadline;
+    /**
+     * Builds the bounded responses of the streaming list.
+     */
+    private final NdjsonResponses ndjsonResponses;
 
     /**
      * Constructor for OpenapiRestController.
      *
      * @param iOpenapiService the OpenAPI service instance used for handling business logic
      * @param properties      the properties configuration object containing default settings
+     * @param databaseGuard   the guard of the database
+     * @param ndjsonResponses builds the bounded responses of the streaming list
      */
     @Autowired
-    public OpenapiRestController(IOpenapiService iOpenapiService, OpenapiInitializerProperties properties) {
+    public OpenapiRestController(IOpenapiService iOpenapiService, OpenapiInitializerProperties properties, DatabaseGuard databaseGuard,
+                                 NdjsonResponses ndjsonResponses) {
         this.iOpenapiService = iOpenapiService;
+        this.ndjsonResponses = ndjsonResponses;
         this.errorUri = properties.getDefaultRedirectUrl();
+        this.maxResolveCodes = properties.getMaxResolveCodes();
+        this.databaseGuard = databaseGuard;
+        this.redirectDeadline = properties.getRedirectDeadline();
+        this.unavailableCodes = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getUnavailableCodeTtl(), TimeUnit.MILLISECONDS)
+                .maximumSize(properties.getMaxUnavailableCodes())
+                .build();
+        this.unavailableResponse = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getUnavailableCodeTtl()))))
+                .location(URI.create(errorUri))
+                .build();
     }
 
     /**
@@ -126,35 +183,98 @@ public class OpenapiRestController {
     }
 
     /**
-     * Handles GET requests to retrieve a list of OpenAPI responses.
+     * Handles GET requests to retrieve a page of the OpenAPI responses that are active and not expired, in id order.
      *
-     * @return {@code GenericListRestApiResponse<OpenapiResponse>} containing the list of OpenAPI responses if successful,
-     * or an error response otherwise.
+     * @param after the cursor returned as {@code next} by the previous page, 0 for the first page
+     * @param limit the maximum number of mappings, lowered to {@code spring.venus.pagination.max-limit}
+     * @return {@code GenericPageRestApiResponse<OpenapiResponse>} containing the page of OpenAPI responses and the
+     * cursor of the next page if successful, or an error response otherwise.
      */
     @GetMapping("/lists")
-    public GenericListRestApiResponse<OpenapiResponse> lists() {
+    public GenericPageRestApiResponse<OpenapiResponse> lists(@RequestParam(defaultValue = "0") long after,
+                                                             @RequestParam(required = false) Integer limit) {
+        try {
+            return GenericPageRestApiResponse.success(
+                    iOpenapiService.page(after, limit).map(OpenapiResponse::from)
+            );
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("List venus openapi redirect uri failure", e);
+            }
+            return GenericPageRestApiResponse.fail(RestApiCode.OPENAPI_EXCEPTION, RestApiCode.OPENAPI_EXCEPTION.message("List venus openapi redirect uri failure \n" + e.getMessage()));
+        }
+    }
+
+    /**
+     * Handles GET requests to stream all OpenAPI responses that are active and not expired, in id order, as
+     * newline-delimited JSON, one {@link OpenapiResponse} per line, read page by page.
+     *
+     * @param after the id after which the stream starts, 0 for all mappings
+     * @return the streaming response
+     */
+    @GetMapping(value = "/lists/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(defaultValue = "0") long after) {
+        return ndjsonResponses.stream((Consumer<OpenapiResponse> row) ->
+                iOpenapiService.stream(after, mapping -> row.accept(OpenapiResponse.from(mapping))));
+    }
+
+    /**
+     * Handles POST requests to resolve many short codes at once, for clients such as link-preview crawlers
+     * that would otherwise request every code separately.
+     *
+     * @param codes the short codes to resolve, at most {@code spring.venus.openapi.initializer.max-resolve-codes}
+     * @return {@code GenericListRestApiResponse<OpenapiResponse>} containing the mapping of every code that is active
+     *         and not expired, in the order of the request, or an error response otherwise.
+     */
+    @PostMapping("/resolve")
+    public GenericListRestApiResponse<OpenapiResponse> resolve(@RequestBody List<String> codes) {
+        if (codes == null || codes.isEmpty() || codes.size() > maxResolveCodes) {
+            return GenericListRestApiResponse.fail(RestApiCode.BAD_REQUEST, RestApiCode.BAD_REQUEST.message("Resolve between 1 and " + maxResolveCodes + " codes per request"));
+        }
         try {
             return GenericListRestApiResponse.success(OpenapiResponse.from(
-                    iOpenapiService.lists()
+                    iOpenapiService.resolve(codes)
             ));
         } catch (Exception e) {
             if (log.isErrorEnabled()) {
-                log.error("List venus openapi redirect uri failure", e);
+                log.error("Resolve venus openapi codes failure", e);
             }
-            return GenericListRestApiResponse.fail(RestApiCode.OPENAPI_EXCEPTION, RestApiCode.OPENAPI_EXCEPTION.message("List venus openapi redirect uri failure \n" + e.getMessage()));
+            return GenericListRestApiResponse.fail(RestApiCode.OPENAPI_EXCEPTION, RestApiCode.OPENAPI_EXCEPTION.message("Resolve venus openapi codes failure \n" + e.getMessage()));
         }
     }
 
     /**
      * Redirects the request based on the encoded parameter provided.
      *
+     * During a database outage, codes are resolved from the cache only. A code that cannot be resolved then is
+     * answered with 503 and a Retry-After header instead of 404, as it may exist, and the answer is kept for
+     * {@code spring.venus.openapi.initializer.unavailable-code-ttl}, so that repeated requests of the code
+     * do not reach the cache again.
+     *
+     * The lookup runs within the latency budget {@code spring.venus.openapi.initializer.redirect-deadline}, which
+     * the cache levels and the database consult, so that each of them gets only the time that is left. A code that
+     * cannot be resolved within the budget is answered with 503, unless a stale value of it is served.
+     *
      * @param encode the encoded string used to determine the redirect URL; should not be empty and must be valid.
      * @return a ResponseEntity with an appropriate status and location headers based on the redirect information retrieved.
      */
     @GetMapping("/redirect")
     public ResponseEntity<Void> redirect(@RequestParam @NotEmpty @Validated String encode) {
-         try {
+         try (RequestDeadline ignored = RequestDeadline.start(redirectDeadline)) {
+             if (!databaseGuard.isAvailable() && unavailableCodes.getIfPresent(encode) != null) {
+                 submit(encode, "http_redirect_database_unavailable", errorUri);
+                 return unavailableResponse;
+             }
              ValueWrapper wrapper = iOpenapiService.redirect(encode);
+             if (wrapper == null && RequestDeadline.isExpired()) {
+                 submit(encode, "http_redirect_deadline_exceeded", errorUri);
+                 return unavailableResponse;
+             }
+             if (wrapper == null && !databaseGuard.isAvailable()) {
+                 unavailableCodes.put(encode, Boolean.TRUE);
+                 submit(encode, "http_redirect_database_unavailable", errorUri);
+                 return unavailableResponse;
+             }
              if (wrapper == null) {
                  submit(encode, "http_redirect_unknown_url", "unknown");
                  return ResponseEntity.status(HttpStatus.NOT_FOUND).location(URI.create(errorUri)).build();
@@ -177,6 +297,13 @@ public class OpenapiRestController {
 
              submit(encode, "http_redirect_unknown_status", wrapper.getOriginalUrl());
              return ResponseEntity.status(HttpStatus.NOT_FOUND).location(URI.create(errorUri)).build();
+         } catch (DeadlineExceededException e) {
+             submit(encode, "http_redirect_deadline_exceeded", errorUri);
+             return unavailableResponse;
+         } catch (DatabaseUnavailableException e) {
+             unavailableCodes.put(encode, Boolean.TRUE);
+             submit(encode, "http_redirect_database_unavailable", errorUri);
+             return unavailableResponse;
          } catch (Exception e) {
              if (log.isErrorEnabled()) {
                  log.error("Get venus openapi redirect failure, and will redirect the default error uri[{}]", errorUri, e);
@@ -9,14 +9,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.venus.admin.configuration.PaginationProperties;
 import org.venus.cache.*;
+import org.venus.support.DatabaseGuard;
+import org.venus.support.KeysetPage;
+
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.venus.cache.MultiLevelCacheConstants.VENUS_REDIRECT_CACHE_NAME;
@@ -70,6 +80,15 @@ public class OpenapiService implements IOpenapiService, Callback {
      * Can be configured with custom serializers and connection factories.
      */
     private final RedisTemplate<String, CacheWrapper> redisTemplate;
+    /**
+     * The guard of the database loads, which rejects them at once during a database outage,
+     * so that redirects are served from the cache only.
+     */
+    private final DatabaseGuard databaseGuard;
+    /**
+     * The configuration of the list endpoints, which bounds the pages.
+     */
+    private final PaginationProperties paginationProperties;
     /**
      * A constant string representing the key-value pair initializer for Venus-related configurations.
      * This is used to specify the initialization parameters that are particular to the Venus component
@@ -91,11 +110,16 @@ public class OpenapiService implements IOpenapiService, Callback {
      * @param properties the properties for OpenAPI initialization
      * @param provider the object provider for cache consistent alarm
      * @param redisTemplate the Redis template for cache operations
+     * @param databaseGuard the guard of the database loads
+     * @param paginationProperties the configuration of the list endpoints
      */
     @Autowired
     public OpenapiService(OpenapiRepository openapiRepository, MultiLevelCacheManager manager, OpenapiInitializerProperties properties,
-                          ObjectProvider<OpenapiCacheConsistentAlarm> provider, RedisTemplate<String, CacheWrapper> redisTemplate) {
+                          ObjectProvider<OpenapiCacheConsistentAlarm> provider, RedisTemplate<String, CacheWrapper> redisTemplate,
+                          DatabaseGuard databaseGuard, PaginationProperties paginationProperties) {
         this.openapiRepository = openapiRepository;
+        this.databaseGuard = databaseGuard;
+        this.paginationProperties = paginationProperties;
         this.manager = manager;
         this.properties = properties;
         this.redisTemplate = redisTemplate;
@@ -184,13 +208,16 @@ public class OpenapiService implements IOpenapiService, Callback {
     /**
      * Retrieves an OpenapiEntity from the repository based on the provided encode key.
      *
+     * The entity is loaded through the database guard, which throws a
+     * {@link org.venus.support.DatabaseUnavailableException} at once during a database outage.
+     *
      * @param encode a String representing the key used to fetch the desired OpenapiEntity.
      * @return the OpenapiEntity associated with the provided encode key.
      */
     @MultiLevelCache(cacheName = VENUS_REDIRECT_CACHE_NAME, key = "#encode", type = MultiLevelCacheType.ALL)
     @Override
     public ValueWrapper get(String encode) {
-        OpenapiEntity entity = openapiRepository.get(encode);
+        OpenapiEntity entity = databaseGuard.call(() -> openapiRepository.get(encode));
         if (entity == null) {
             return ValueWrapper.builder().build();
         }
@@ -216,17 +243,50 @@ public class OpenapiService implements IOpenapiService, Callback {
     public List<ValueWrapper> lists() {
         return openapiRepository.lists().stream()
                 .filter(f -> f.getIsActive() != 0 && f.getExpiresAt().isAfter(LocalDateTime.now()))
-                .map(v -> ValueWrapper.builder()
-                        .id(v.getId())
-                        .code(v.getCode())
-                        .originalUrl(v.getOriginalUrl())
-                        .redirect(v.getRedirect())
-                        .expiresAt(v.getExpiresAt())
-                        .isActive(v.getIsActive())
-                        .build())
+                .map(OpenapiService::toValueWrapper)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves a page of the OpenapiEntity objects that are active and have not expired, in id order.
+     *
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of mappings, null for the default, lowered to the maximum page size
+     * @return the page of active and non-expired mappings, with the cursor of the next page
+     */
+    @Override
+    public KeysetPage<ValueWrapper> page(long after, Integer limit) {
+        return openapiRepository.page(after, paginationProperties.limit(limit)).map(OpenapiService::toValueWrapper);
+    }
+
+    /**
+     * Streams all OpenapiEntity objects that are active and have not expired, in id order, page by page.
+     *
+     * @param after the id after which the stream starts, 0 for all mappings
+     * @param action the action that consumes every active and non-expired mapping
+     */
+    @Override
+    public void stream(long after, Consumer<ValueWrapper> action) {
+        openapiRepository.stream(after, entity -> action.accept(toValueWrapper(entity)));
+    }
+
+    /**
+     * Wraps an OpenapiEntity into the value cached for its code.
+     *
+     * @param entity the entity
+     * @return the cached value of the entity
+     */
+    private static ValueWrapper toValueWrapper(OpenapiEntity entity) {
+        return ValueWrapper.builder()
+                .id(entity.getId())
+                .code(entity.getCode())
+                .originalUrl(entity.getOriginalUrl())
+                .redirect(entity.getRedirect())
+                .expiresAt(entity.getExpiresAt())
+                .isActive(entity.getIsActive())
+                .build();
+    }
+
     /**
      * Redirects to an {@link OpenapiEntity} based on the provided encode string.
      * This method checks the cache for the entity and verifies its active status
@@ -247,6 +307,65 @@ public class OpenapiService implements IOpenapiService, Callback {
         return entity;
     }
 
+    /**
+     * Resolves many short codes at once through the redirect cache. Codes are looked up in the primary cache
+     * in bulk, the misses in the secondary cache with a single multi-get, and the remaining misses in the
+     * database with a single query, after which both cache levels are back-filled in bulk.
+     *
+     * @param codes the short codes to resolve
+     * @return the ValueWrapper of every code that is active and not expired, in the order of the given codes
+     */
+    @Override
+    public List<ValueWrapper> resolve(List<String> codes) {
+        MultiLevelValueAdaptingCache cache = (MultiLevelValueAdaptingCache) manager.getCache(VENUS_REDIRECT_CACHE_NAME);
+        Map<String, Object> values = cache.getAll(new LinkedHashSet<>(codes), this::loadRedirects);
+        List<ValueWrapper> wrappers = new ArrayList<>(values.size());
+        for (Object value : values.values()) {
+            if (value instanceof ValueWrapper wrapper && isRedirectable(wrapper)) {
+                wrappers.add(wrapper);
+            }
+        }
+        return wrappers;
+    }
+
+    /**
+     * Loads the redirect information of the given codes from the database with a single query.
+     * Codes that are unknown, inactive or expired are left out, so they are cached as misses like
+     * {@link #redirect(String)} does. During a database outage the load is rejected and the codes are not cached.
+     *
+     * @param codes the short codes that are not cached
+     * @return the ValueWrapper of every redirectable code by its code
+     */
+    private Map<String, ValueWrapper> loadRedirects(List<String> codes) {
+        Map<String, ValueWrapper> wrappers = new HashMap<>(codes.size() * 2);
+        for (OpenapiEntity entity : databaseGuard.call(() -> openapiRepository.getAll(codes))) {
+            ValueWrapper wrapper = ValueWrapper.builder()
+                    .id(entity.getId())
+                    .code(entity.getCode())
+                    .originalUrl(entity.getOriginalUrl())
+                    .redirect(entity.getRedirect())
+                    .expiresAt(entity.getExpiresAt())
+                    .isActive(entity.getIsActive())
+                    .build();
+            if (isRedirectable(wrapper)) {
+                wrappers.put(wrapper.getCode(), wrapper);
+            }
+        }
+        return wrappers;
+    }
+
+    /**
+     * Checks whether a link can be redirected, that is, it is known, active and not expired.
+     *
+     * @param wrapper the link
+     * @return true if the link can be redirected
+     */
+    private static boolean isRedirectable(ValueWrapper wrapper) {
+        return wrapper.getCode() != null
+                && OpenapiRedirectStatusEnum.ACTIVE == OpenapiRedirectStatusEnum.of(wrapper.getIsActive())
+                && (wrapper.getExpiresAt() == null || wrapper.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
     /**
      * Handles the callback for updating the Venus cache with the given parameters.
      *
@@ -306,10 +425,12 @@ public class OpenapiService implements IOpenapiService, Callback {
      * attempting to reschedule the consistency task.
      */
     private void checkMultiLevelCacheIsConsistent() {
-        CacheSelector selector = (MultiLevelValueAdaptingCache)manager.getCache(VENUS_REDIRECT_CACHE_NAME);
-        com.github.benmanes.caffeine.cache.Cache<String, Object> primaryCache = selector.primaryCache();
-        RedisTemplate<String, CacheWrapper> secondCache = selector.secondCache();
-        OpenapiService.ConsistentTask consistentTask = new ConsistentTask(primaryCache, secondCache, alarm);
+        MultiLevelValueAdaptingCache cache = (MultiLevelValueAdaptingCache) manager.getCache(VENUS_REDIRECT_CACHE_NAME);
+        if (!cache.isSecondLevelEnabled()) {
+            // without a second level cache there is nothing to compare the primary cache with
+            return;
+        }
+        OpenapiService.ConsistentTask consistentTask = new ConsistentTask(cache.primaryLayout(), cache, alarm);
         try {
             scheduledPool.scheduleAtFixedRate(consistentTask, properties.getInitialDelay().toMillis(), properties.getCheckPrimaryCachePeriod().toMillis(), TimeUnit.MILLISECONDS);
         }catch (Exception e){
@@ -328,27 +449,22 @@ public class OpenapiService implements IOpenapiService, Callback {
 
     static class ConsistentTask implements Runnable {
         /**
-         * A primary cache for storing key-value pairs using the Caffeine caching library.
-         * This cache is used as the main cache in the ConsistentTask class to store and retrieve
-         * objects efficiently.
-         *
-         * The primaryCache variable is thread-safe and designed to handle high-concurrency scenarios,
-         * providing optimal performance for common caching needs. It is marked as final to ensure
-         * that its reference does not change once initialized.
-         *
-         * The cache is expected to store String keys with their corresponding Object values.
-         *
-         * Note: com.github.benmanes.caffeine.cache.Cache library is used for the cache implementation.
+         * The number of keys that are compared with the secondary cache in a single batch.
+         */
+        private static final int CONSISTENT_CHECK_BATCH_SIZE = 1000;
+        /**
+         * The layout of the primary cache, which is checked against the secondary cache.
+         * It hides whether the entries are kept as wrapped objects or in their compact form,
+         * so the check works the same for every primary cache layout.
          */
-        private final com.github.benmanes.caffeine.cache.Cache<String, Object> primaryCache;
+        private final PrimaryCacheLayout primaryCache;
 
         /**
-         * The secondary cache that uses Redis as its storage mechanism.
-         * This cache is used to ensure data consistency by providing a backup
-         * to the primary in-memory cache and serves as the source of truth
-         * during consistency checks.
+         * The multi-level cache whose secondary (Redis) level is used to ensure data consistency.
+         * It serves as the source of truth during consistency checks, and reads the second level
+         * in batches according to the configured Redis layout.
          */
-        private final RedisTemplate<String, CacheWrapper> secondCache;
+        private final MultiLevelValueAdaptingCache cache;
         /**
          * The `alarm` field is an instance of the `OpenapiCacheConsistentAlarm` interface
          * used to handle cache inconsistency alerts in the ConsistentTask class.
@@ -361,13 +477,13 @@ public class OpenapiService implements IOpenapiService, Callback {
         /**
          * Initializes a new instance of ConsistentTask with the specified primary cache, second cache, and alarm.
          *
-         * @param primaryCache the primary in-memory cache used for storing data
-         * @param secondCache the secondary cache using Redis for data storage
+         * @param primaryCache the layout of the primary in-memory cache
+         * @param cache the multi-level cache whose secondary level is the source of truth
          * @param alarm the alarm mechanism used to signal cache inconsistencies
          */
-        public ConsistentTask(com.github.benmanes.caffeine.cache.Cache<String, Object> primaryCache, RedisTemplate<String, CacheWrapper> secondCache, OpenapiCacheConsistentAlarm alarm) {
+        public ConsistentTask(PrimaryCacheLayout primaryCache, MultiLevelValueAdaptingCache cache, OpenapiCacheConsistentAlarm alarm) {
             this.primaryCache = primaryCache;
-            this.secondCache = secondCache;
+            this.cache = cache;
             this.alarm = alarm;
         }
 
@@ -393,49 +509,42 @@ public class OpenapiService implements IOpenapiService, Callback {
         @Override
         public void run() {
             try {
-                ConcurrentMap<String, Object> primaryCacheMap = primaryCache.asMap();
-                if (primaryCacheMap.isEmpty()) {
+                Set<String> primaryCacheKeys = primaryCache.keys();
+                if (primaryCacheKeys.isEmpty()) {
                     if (log.isWarnEnabled()) {
                         log.warn("Primary cache is empty");
                     }
                     return;
                 }
 
-                Set<String> keySet = primaryCacheMap.keySet();
-                List<CacheWrapper> secondCacheWrappers = secondCache.opsForValue().multiGet(keySet);
-                if (secondCacheWrappers == null || secondCacheWrappers.isEmpty()) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("SecondCache cache is empty");
-                    }
-                    return;
-                }
-
-                // if the primary-cache value is not the same as the second-cache,and then it's will update the primary-cache value from the second-cache value
-                List<String> secondCacheKeys = secondCacheWrappers.stream().map(CacheWrapper::getKey).toList();
-                primaryCacheMap.forEach((k, v) -> {
-                    if (v instanceof CacheWrapper) {
-                        String key = ((CacheWrapper) v).getKey();
-                        Object value = ((CacheWrapper) v).getValue();
-                        if (!secondCacheKeys.contains(key)) {
+                List<String> keys = new ArrayList<>(primaryCacheKeys);
+                for (int from = 0; from < keys.size(); from += CONSISTENT_CHECK_BATCH_SIZE) {
+                    List<String> batch = keys.subList(from, Math.min(from + CONSISTENT_CHECK_BATCH_SIZE, keys.size()));
+                    List<CacheWrapper> secondCacheWrappers = cache.secondCacheMultiGet(batch);
+                    for (int i = 0; i < batch.size(); i++) {
+                        String key = batch.get(i);
+                        CacheWrapper wrapper = primaryCache.get(key);
+                        if (wrapper == null) {
+                            continue;
+                        }
+                        Object value = wrapper.getValue();
+                        CacheWrapper secondCacheWrapper = secondCacheWrappers.get(i);
+                        if (secondCacheWrapper == null) {
                             if (log.isWarnEnabled()) {
                                 log.warn("Venus primary cache key[{}] is not exists in secondCache, will be remote it", key);
                             }
                             primaryCache.invalidate(key);
                             alarm.alarm(key, value, "evict");
-                        } else {
-                            for (CacheWrapper cacheWrapper : secondCacheWrappers) {
-                                if (key.equals(cacheWrapper.getKey()) && value.equals(cacheWrapper.getValue())) {
-                                    if (log.isDebugEnabled()) {
-                                        log.debug("Primary cache of key[{}] the same as the second cache", key);
-                                    }
-                                    continue;
-                                }
-                                // put the new value of the cache key
-                                primaryCache.put(key, cacheWrapper);
+                        } else if (Objects.equals(value, secondCacheWrapper.getValue())) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Primary cache of key[{}] the same as the second cache", key);
                             }
+                        } else {
+                            // if the primary-cache value is not the same as the second-cache,and then it's will update the primary-cache value from the second-cache value
+                            primaryCache.put(key, new CacheWrapper(key, secondCacheWrapper.getValue()));
                         }
                     }
-                });
+                }
             } catch (Exception e) {
                 if (log.isErrorEnabled()) {
                     log.error("Venus check cache consistent failure", e);
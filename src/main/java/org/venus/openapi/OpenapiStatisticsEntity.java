@@ -31,6 +31,12 @@ public class OpenapiStatisticsEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
+    /**
+     * The identifier of the click reported by the client, which the geo reports of the click reference.
+     * It is not unique, so it is kept apart from the id that the database assigns to the row.
+     */
+    @Column(name = "click_id")
+    private long clickId;
     /**
      * Represents the unique identifier for the link associated with the OpenAPI statistics.
      * This field is mapped to the "link_id" column in the database.
@@ -74,7 +80,7 @@ public class OpenapiStatisticsEntity {
      */
     public static OpenapiStatisticsEntity from(OpenapiStatisticsRequest request) {
         return OpenapiStatisticsEntity.builder()
-                .id(request.getId())
+                .clickId(request.getId())
                 .clickedAt(request.getClickedAt())
                 .linkId(request.getLinkId())
                 .ip(request.getIp())
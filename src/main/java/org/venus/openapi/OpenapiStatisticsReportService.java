@@ -4,16 +4,20 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.venus.admin.service.StatisticsClickStore;
+import org.venus.admin.service.StatisticsVisitorCounter;
+import org.venus.support.BatchingIngestor;
+import org.venus.support.BinaryReader;
+import org.venus.support.BinaryWriter;
+import org.venus.support.DatabaseGuard;
+import org.venus.support.JdbcBulkWriter;
+import org.venus.support.WriteAheadSpool;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * Service for reporting and managing OpenAPI statistics.
@@ -23,179 +27,161 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 @Slf4j
 public class OpenapiStatisticsReportService implements IOpenapiStatisticsReportService {
     /**
-     * Repository for performing CRUD operations and custom queries on
-     * OpenAPI statistics data.
-     *
-     * The {@code openapiStatisticsRepository} is a repository interface
-     * that extends a Spring Data repository, providing methods to interact
-     * with the database for managing OpenAPI statistics.
-     *
-     * This repository is automatically injected by Spring's dependency
-     * injection mechanism using the {@code @Autowired} annotation.
+     * The statement that inserts a statistics row. The database assigns the id of the row, so that a click reported
+     * twice is not rejected as a duplicate key, and the rollups can follow the ids in insertion order.
+     */
+    private static final String INSERT_SQL =
+            "INSERT INTO statistics (click_id, link_id, clicked_at, ip, user_agent, referer) VALUES (?, ?, ?, ?, ?, ?)";
+    /**
+     * Encodes the statistics rows in the spool.
+     */
+    private static final WriteAheadSpool.Codec<OpenapiStatisticsEntity> SPOOL_CODEC = new WriteAheadSpool.Codec<>() {
+        @Override
+        public void encode(OpenapiStatisticsEntity entity, BinaryWriter out) {
+            out.writeVarLong(entity.getClickId())
+                    .writeVarLong(entity.getLinkId())
+                    .writeString(entity.getIp())
+                    .writeString(entity.getUserAgent())
+                    .writeString(entity.getReferer());
+            LocalDateTime clickedAt = entity.getClickedAt();
+            if (clickedAt == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1)
+                        .writeZigZagLong(clickedAt.toEpochSecond(ZoneOffset.UTC))
+                        .writeVarInt(clickedAt.getNano());
+            }
+        }
+
+        @Override
+        public OpenapiStatisticsEntity decode(BinaryReader in) {
+            OpenapiStatisticsEntity entity = OpenapiStatisticsEntity.builder()
+                    .clickId(in.readVarLong())
+                    .linkId(in.readVarLong())
+                    .ip(in.readString())
+                    .userAgent(in.readString())
+                    .referer(in.readString())
+                    .build();
+            if (in.readByte() != 0) {
+                entity.setClickedAt(LocalDateTime.ofEpochSecond(in.readZigZagLong(), in.readVarInt(), ZoneOffset.UTC));
+            }
+            return entity;
+        }
+    };
+    /**
+     * Executes the batched inserts of the statistics rows, see {@link JdbcBulkWriter}.
      */
     @Autowired
-    private OpenapiStatisticsRepository openapiStatisticsRepository;
+    private JdbcTemplate jdbcTemplate;
     /**
-     * This variable holds the configuration properties for generating reports using the OpenAPI specification.
-     * It is automatically injected by the Spring framework through dependency injection.
+     * Pre-aggregates the clicks and samples their raw rows, if enabled.
      */
     @Autowired
-    private OpenapiReportProperties reportProperties;
+    private OpenapiClickAggregator aggregator;
     /**
-     * A list of OpenapiStatisticsEntity objects.
-     * This list is initialized as a LinkedList and is immutable.
+     * Keeps the recent clicks in memory for the statistics queries, if enabled.
      */
-    private final List<OpenapiStatisticsEntity> entities = new LinkedList<>();
+    @Autowired
+    private StatisticsClickStore clickStore;
     /**
-     * This variable holds the timestamp of the last update.
-     * It is initialized to the current system time in milliseconds at the instance creation.
+     * Counts the unique visitors of the links in Redis, if enabled.
      */
-    private long lastUpdatedTime = System.currentTimeMillis();
+    @Autowired
+    private StatisticsVisitorCounter visitorCounter;
     /**
-     * A reentrant read-write lock that provides separate lock modes for reading and writing operations.
-     * Read locks can be held simultaneously by multiple threads as long as no write lock is held.
-     * The write lock is exclusive, ensuring that only one thread can modify the shared resource at a time.
-     *
-     * This lock is generally preferable to a plain {@code synchronized} block when you have a resource
-     * that is frequently read but infrequently written.
-     *
-     * The lock can be used to improve concurrency and performance in scenarios where read operations
-     * significantly outnumber write operations.
-     *
-     * Here, `readWriteLock` creates an instance of {@code ReentrantReadWriteLock} to manage access to
-     * code blocks or resources that require thread-safe read and/or write operations.
+     * This variable holds the configuration properties for generating reports using the OpenAPI specification.
+     * It is automatically injected by the Spring framework through dependency injection.
      */
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    @Autowired
+    private OpenapiReportProperties reportProperties;
     /**
-     * Write lock associated with the ReentrantReadWriteLock instance.
-     * This lock is used to ensure that only one thread can perform write operations
-     * at a given time, while allowing multiple threads to concurrently read when
-     * no write operations are taking place.
+     * Collects the reported statistics entities and saves them in batches, see {@link BatchingIngestor}.
      */
-    private final ReentrantReadWriteLock.WriteLock writeLock = readWriteLock.writeLock();
+    private BatchingIngestor<OpenapiStatisticsEntity> ingestor;
     /**
-     * The read lock component of a {@code ReentrantReadWriteLock} instance.
-     *
-     * This lock is used to control read access to a shared resource, allowing
-     * multiple threads to acquire the read lock concurrently as long as no
-     * thread holds the write lock.
-     *
-     * By invoking the {@code readLock} method on the associated {@code ReentrantReadWriteLock},
-     * this read lock instance is acquired. Acquiring the read lock for reading
-     * ensures that while the read lock is held, the write lock cannot be obtained,
-     * thus preventing modifications to the shared resource by other threads.
+     * Spools the reported statistics entities on local disk before they are inserted, or null if the spool is disabled,
+     * see {@link WriteAheadSpool}.
      */
-    private final ReentrantReadWriteLock.ReadLock readLock = readWriteLock.readLock();
+    private WriteAheadSpool<OpenapiStatisticsEntity> spool;
     /**
-     * A ScheduledExecutorService instance for managing and scheduling tasks
-     * to execute after a specified delay or periodically.
-     * This service provides methods to schedule commands to run after a
-     * certain delay or to execute periodically.
+     * Inserts the batches of the ingestor with batched prepared statements.
      */
-    private ScheduledExecutorService scheduledExecutorService;
+    private JdbcBulkWriter<OpenapiStatisticsEntity> writer;
 
     /**
-     * Processes and reports the provided OpenapiStatisticsEntity.
+     * Processes and reports the provided OpenapiStatisticsEntity. The click is also passed to the optional sinks
+     * that are enabled: the in-memory click store keeps it, the visitor counter counts its visitor, and the
+     * aggregator counts it, in which case its raw row is only persisted if it is sampled.
      *
      * @param entity the OpenapiStatisticsEntity object to be processed and reported
      * @return true if the entity was successfully processed and reported, false otherwise
      */
     @Override
     public boolean report(OpenapiStatisticsEntity entity) {
-       return this.write(entity);
+        if (entity.getClickedAt() == null) {
+            // the time of the click selects the partition of its row, and the column is not nullable
+            entity.setClickedAt(LocalDateTime.now());
+        }
+        if (clickStore.isEnabled()) {
+            clickStore.recordClick(entity.getClickId(), entity.getLinkId(), entity.getClickedAt(), entity.getReferer(), entity.getUserAgent());
+        }
+        if (visitorCounter.isEnabled()) {
+            visitorCounter.recordClick(entity.getLinkId(), entity.getClickedAt(), entity.getIp());
+        }
+        if (aggregator.isEnabled()) {
+            aggregator.recordClick(entity);
+            if (!aggregator.sampled(entity.getClickId())) {
+                return true;
+            }
+        }
+        return spool != null ? spool.append(entity) : ingestor.offer(entity);
     }
 
     /**
-     * Initializes the statistics report scheduler. This method is annotated with {@code @PostConstruct},
-     * indicating it is called after the dependency injection is done to perform any initialization.
-     * It sets up a scheduled task to periodically check and report statistics based on the
-     * {@link OpenapiReportProperties.StatisticsReportProperties} configuration.
-     *
-     * The scheduled task will trigger at a fixed rate, controlled by the {@code scheduledDelay} and
-     * {@code scheduledPeriod} properties. Within the task, if the size of the {@code entities} exceeds
-     * the {@code reportSize} or the time since the last update surpasses the {@code reportTimeout},
-     * the entities are read and cleared, and saved to {@code openapiStatisticsRepository}.
-     *
-     * The task will sleep for a duration specified by {@code reportWithoutDataTimeout} if there is
-     * no data to report. If any exception occurs during the execution, an error message will be logged.
+     * Starts the ingestion of the statistics reports. The reports are queued by {@link #report} and inserted by the
+     * flusher of the ingestor, through the bulk writer, once {@code reportSize} reports are queued or the oldest one
+     * has waited for {@code reportTimeout} milliseconds, see {@link OpenapiReportProperties.StatisticsReportProperties}.
+     * With the spool enabled, the reports are appended to the spool instead and inserted by its drainer.
      */
     @PostConstruct
     public void init() {
-        OpenapiReportProperties.StatisticsReportProperties statisticsReportProperties = reportProperties.getStatistics();
-        ThreadFactory factory = Thread.ofVirtual().name("statistics-report-virtual-thread").factory();
-        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(factory);
-        this.scheduledExecutorService.scheduleAtFixedRate(() -> {
-            while (true) {
-                try {
-                    int size = entities.size();
-                    if (size > statisticsReportProperties.getReportSize() ||
-                            System.currentTimeMillis() - lastUpdatedTime > statisticsReportProperties.getReportTimeout()) {
-                        List<OpenapiStatisticsEntity> newEntities = readAndClear();
-                        if (newEntities == null || newEntities.isEmpty()) {
-                            continue;
-                        }
-                        lastUpdatedTime = System.currentTimeMillis();
-                        openapiStatisticsRepository.saveAll(newEntities);
-                    }
-
-                    TimeUnit.MILLISECONDS.sleep(statisticsReportProperties.getReportWithoutDataTimeout());
-                } catch (Exception e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Statistics report failure", e);
-                    }
-                }
-            }
-        }, statisticsReportProperties.getScheduledDelay(), statisticsReportProperties.getScheduledPeriod(), TimeUnit.MILLISECONDS);
-    }
+        OpenapiReportProperties.BulkWriterProperties writerProperties = reportProperties.getWriter();
+        this.writer = new JdbcBulkWriter<>("statistics", jdbcTemplate, INSERT_SQL, (ps, entity) -> {
+            ps.setLong(1, entity.getClickId());
+            ps.setLong(2, entity.getLinkId());
+            ps.setObject(3, entity.getClickedAt());
+            ps.setString(4, entity.getIp());
+            ps.setString(5, entity.getUserAgent());
+            ps.setString(6, entity.getReferer());
+        }, writerProperties.getMinBatchSize(), writerProperties.getMaxBatchSize(), writerProperties.getTargetLatency(),
+                writerProperties.getParallelism(), writerProperties.getMaxRetries(), writerProperties.getRetryBackoff());
 
-    /**
-     * Reads and returns the current list of OpenapiStatisticsEntity objects, then clears the internal list.
-     *
-     * @return A List containing the OpenapiStatisticsEntity objects that were present before the internal list was cleared.
-     */
-    private List<OpenapiStatisticsEntity> readAndClear() {
-        writeLock.lock();
-        List<OpenapiStatisticsEntity> newEntities;
-        try {
-            newEntities = new ArrayList<>(entities);
-            entities.clear();
-        } finally {
-            writeLock.unlock();
+        OpenapiReportProperties.SpoolProperties spoolProperties = reportProperties.getSpool();
+        if (spoolProperties.isEnabled()) {
+            this.spool = new WriteAheadSpool<>("statistics", Path.of(spoolProperties.getDirectory(), "statistics"),
+                    spoolProperties.getSegmentSize(), spoolProperties.getMaxSegments(), spoolProperties.getCommitInterval(),
+                    spoolProperties.getBatchSize(), spoolProperties.getRetryBackoff(), SPOOL_CODEC, writer::write,
+                    DatabaseGuard::isOutage);
+        } else {
+            OpenapiReportProperties.StatisticsReportProperties properties = reportProperties.getStatistics();
+            this.ingestor = new BatchingIngestor<>("statistics-report", properties.getQueueCapacity(),
+                    (int) properties.getReportSize(), properties.getReportTimeout(), properties.getOverflowPolicy(),
+                    properties.getOfferTimeout(), writer::write).start();
         }
-        return newEntities;
     }
 
     /**
-     * Writes the given OpenapiStatisticsEntity to the end of the entities list.
-     *
-     * @param entity the OpenapiStatisticsEntity to be written
-     * @return true if the entity is successfully written, false otherwise
-     */
-    private boolean write(OpenapiStatisticsEntity entity) {
-        readLock.lock();
-        try {
-            entities.addLast(entity);
-        } catch (Exception e) {
-            if (log.isErrorEnabled()) {
-                log.error("Write statistics report failure", e);
-            }
-            return false;
-        }finally {
-            readLock.unlock();
-        }
-        return true;
-    }
-
-    /**
-     * Shuts down the scheduled executor service if it is not null.
-     * This method is annotated with @PreDestroy, indicating that it will be
-     * called before the instance is destroyed, typically as part of the
-     * application's shutdown sequence.
+     * Closes the ingestor, which saves the statistics reports that are still queued, or the spool, which keeps the
+     * reports that are not inserted yet for the next start.
+     * This method is annotated with @PreDestroy, so that no report is lost on an orderly shutdown.
      */
     @PreDestroy
     public void shutdown() {
-        if (this.scheduledExecutorService != null) {
-            this.scheduledExecutorService.shutdown();
+        if (this.ingestor != null) {
+            this.ingestor.close();
+        }
+        if (this.spool != null) {
+            this.spool.close();
         }
     }
 }
@@ -23,7 +23,8 @@ import java.time.LocalDateTime;
 @Builder
 public class OpenapiStatisticsRequest {
     /**
-     * The unique identifier for the OpenAPI statistics request.
+     * The identifier of the click, which the geo reports of the click reference. It is stored in the
+     * {@code click_id} column, the id of the statistics row is assigned by the database.
      */
     private long id;
     /**
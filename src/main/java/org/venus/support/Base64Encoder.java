@@ -3,6 +3,8 @@ package org.venus.support;
 import lombok.extern.slf4j.Slf4j;
 import org.venus.admin.service.Encoder;
 
+import java.util.Arrays;
+
 /**
  * DefaultBase62Encoder is an implementation of the Encoder interface that provides
  * base62 encoding for long values. It represents a singleton instance of the encoder
@@ -78,4 +80,48 @@ public class Base64Encoder implements Encoder {
         }
         return encode.reverse().toString();
     }
+
+    /**
+     * A lookup table from a character to its index in {@code ENCODE_CHARS}, or -1 for characters
+     * that are not part of the encoding.
+     */
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < ENCODE_CHARS.length; i++) {
+            DECODE_TABLE[ENCODE_CHARS[i]] = (byte) i;
+        }
+    }
+
+    /**
+     * The maximum length of a code that can be decoded into a non-negative long value.
+     */
+    private static final int MAX_DECODE_LENGTH = 10;
+
+    /**
+     * Decodes a code produced by {@link #encode(long)} back into its long value.
+     *
+     * Only canonical codes are decoded, that is codes without leading zero characters, so that
+     * every decodable code maps to exactly one value and every value to exactly one code.
+     *
+     * @param code the code to decode
+     * @return the decoded non-negative value, or -1 if the code is not the canonical encoding of a value
+     */
+    public long decode(String code) {
+        int length = code == null ? 0 : code.length();
+        if (length == 0 || length > MAX_DECODE_LENGTH || (length > 1 && code.charAt(0) == ENCODE_CHARS[0])) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            int index = c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+            if (index < 0) {
+                return -1;
+            }
+            value = (value << 6) | index;
+        }
+        return value;
+    }
 }
@@ -0,0 +1,384 @@
+package org.venus.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.venus.metrics.MetricsConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Collects elements reported by many threads and hands them to a sink in batches on a single flusher thread.
+ *
+ * The elements are kept in a lock-free queue that is bounded by a depth counter: a producer reserves a slot with a
+ * compare-and-set before it enqueues, and the flusher releases the slots of the elements it drains. The flusher is a
+ * virtual thread that sleeps until a full batch is queued, then woken by the producer that completes it, or until
+ * the flush interval has elapsed, and drains the queue into a reused batch of at most {@code batchSize} elements,
+ * so that nothing is copied under a lock. On a full queue, an element is dropped or, with
+ * {@link OverflowPolicy#BLOCK}, the producer waits up to the offer timeout for a slot. Closing the ingestor
+ * waits for the offers in progress to enqueue or give up, then flushes the elements that are still queued, so that
+ * every accepted element reaches the sink.
+ *
+ * The depth of the queue is published in {@code venus_ingest_queue_depth}, the dropped elements in
+ * {@code venus_ingest_dropped_total} tagged with the reason, the duration of the flushes in
+ * {@code venus_ingest_flush_seconds} and the time producers waited for a slot in
+ * {@code venus_ingest_offer_wait_seconds}, all tagged with the name of the ingestor.
+ *
+ * @param <T> the type of the elements
+ */
+@Slf4j
+public class BatchingIngestor<T> implements AutoCloseable {
+    /**
+     * The policies for an element offered to a full queue.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The element is dropped immediately.
+         */
+        DROP,
+        /**
+         * The producer waits up to the offer timeout for a slot, and the element is dropped if none frees up.
+         */
+        BLOCK
+    }
+
+    /**
+     * The reason of an element dropped because the queue was full.
+     */
+    private static final String REASON_FULL = "full";
+    /**
+     * The reason of an element dropped because the sink failed to take its batch.
+     */
+    private static final String REASON_FAILED = "failed";
+    /**
+     * The reason of an element dropped because it was offered after the ingestor was closed.
+     */
+    private static final String REASON_CLOSED = "closed";
+    /**
+     * The time in nanoseconds a blocked producer parks before it checks for a slot again.
+     */
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * The name of the ingestor, used for the flusher thread, the logs and the meters.
+     */
+    private final String name;
+    /**
+     * The maximum number of queued elements.
+     */
+    private final int capacity;
+    /**
+     * The maximum number of elements handed to the sink at once, and the depth that wakes the flusher.
+     */
+    private final int batchSize;
+    /**
+     * The maximum time in nanoseconds an element waits in the queue before it is flushed.
+     */
+    private final long flushIntervalNanos;
+    /**
+     * The policy for an element offered to a full queue.
+     */
+    private final OverflowPolicy overflowPolicy;
+    /**
+     * The maximum time in nanoseconds a producer waits for a slot with {@link OverflowPolicy#BLOCK}.
+     */
+    private final long offerTimeoutNanos;
+    /**
+     * Takes the batches, for example by saving them to the database.
+     */
+    private final Consumer<List<T>> sink;
+    /**
+     * The queued elements.
+     */
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of reserved slots, which is the number of queued elements plus the ones being enqueued.
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+    /**
+     * Whether the flusher has been woken for a full batch and not yet started to drain it,
+     * so that only one producer unparks it.
+     */
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    /**
+     * The number of offers in progress, counted before they check whether the ingestor is closed,
+     * so that the last flush waits for the ones that passed the check.
+     */
+    private final AtomicInteger offering = new AtomicInteger();
+    /**
+     * The batch the flusher drains the queue into, reused for every flush.
+     */
+    private final List<T> batch;
+    /**
+     * Counts the elements dropped because the queue was full.
+     */
+    private final Counter droppedFull;
+    /**
+     * Counts the elements dropped because the sink failed to take their batch.
+     */
+    private final Counter droppedFailed;
+    /**
+     * Counts the elements dropped because they were offered after the ingestor was closed.
+     */
+    private final Counter droppedClosed;
+    /**
+     * Records the duration of the flushes.
+     */
+    private final Timer flushTimer;
+    /**
+     * Records the time producers waited for a slot.
+     */
+    private final Timer offerWaitTimer;
+    /**
+     * The flusher thread, null until the ingestor is started.
+     */
+    private volatile Thread flusher;
+    /**
+     * Whether the ingestor is closed and accepts no more elements.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a BatchingIngestor, which collects elements once it is started.
+     *
+     * @param name the name of the ingestor
+     * @param capacity the maximum number of queued elements
+     * @param batchSize the maximum number of elements handed to the sink at once
+     * @param flushIntervalMillis the maximum time in milliseconds an element waits in the queue before it is flushed
+     * @param overflowPolicy the policy for an element offered to a full queue
+     * @param offerTimeoutMillis the maximum time in milliseconds a producer waits for a slot with
+     *                           {@link OverflowPolicy#BLOCK}
+     * @param sink takes the batches, the list is only valid for the duration of the call
+     */
+    public BatchingIngestor(String name, int capacity, int batchSize, long flushIntervalMillis,
+                            OverflowPolicy overflowPolicy, long offerTimeoutMillis, Consumer<List<T>> sink) {
+        if (batchSize <= 0 || capacity < batchSize) {
+            throw new IllegalArgumentException("The batch size must be positive and not exceed the capacity");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("The flush interval must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP : overflowPolicy;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, offerTimeoutMillis));
+        this.sink = sink;
+        this.batch = new ArrayList<>(batchSize);
+
+        Tags tags = Tags.of("ingestor", name)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        Gauge.builder("venus_ingest_queue_depth", depth, AtomicInteger::get).tags(tags).register(registry);
+        this.droppedFull = Counter.builder("venus_ingest_dropped_total").tags(tags.and("reason", REASON_FULL)).register(registry);
+        this.droppedFailed = Counter.builder("venus_ingest_dropped_total").tags(tags.and("reason", REASON_FAILED)).register(registry);
+        this.droppedClosed = Counter.builder("venus_ingest_dropped_total").tags(tags.and("reason", REASON_CLOSED)).register(registry);
+        this.flushTimer = Timer.builder("venus_ingest_flush_seconds").tags(tags).register(registry);
+        this.offerWaitTimer = Timer.builder("venus_ingest_offer_wait_seconds").tags(tags).register(registry);
+    }
+
+    /**
+     * Starts the flusher thread.
+     *
+     * @return this ingestor
+     */
+    public synchronized BatchingIngestor<T> start() {
+        if (flusher == null && !closed) {
+            flusher = Thread.ofVirtual().name(name + "-ingest-flusher").start(this::run);
+        }
+        return this;
+    }
+
+    /**
+     * Queues an element to be handed to the sink with the next batch.
+     *
+     * @param element the element
+     * @return true if the element is queued, false if it is dropped
+     */
+    public boolean offer(T element) {
+        offering.incrementAndGet();
+        try {
+            if (closed) {
+                droppedClosed.increment();
+                return false;
+            }
+            if (!tryReserve() && !awaitSlot()) {
+                droppedFull.increment();
+                return false;
+            }
+            queue.offer(element);
+        } finally {
+            offering.decrementAndGet();
+        }
+        if (depth.get() >= batchSize && signalled.compareAndSet(false, true)) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    /**
+     * Provides the number of queued elements.
+     *
+     * @return the depth of the queue
+     */
+    public int depth() {
+        return depth.get();
+    }
+
+    /**
+     * Stops accepting elements, flushes the queued ones and stops the flusher thread.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+        }
+        if (thread == null) {
+            // never started, flush on the closing thread
+            drainLast();
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reserves a slot in the queue.
+     *
+     * @return true if a slot is reserved, false if the queue is full
+     */
+    private boolean tryReserve() {
+        for (;;) {
+            int current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (depth.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Waits up to the offer timeout for a slot if the overflow policy blocks, waking the flusher to free slots.
+     *
+     * @return true if a slot is reserved, false if the policy drops or none freed up in time
+     */
+    private boolean awaitSlot() {
+        if (overflowPolicy != OverflowPolicy.BLOCK || offerTimeoutNanos == 0) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            LockSupport.unpark(flusher);
+            while (System.nanoTime() - start < offerTimeoutNanos && !closed) {
+                LockSupport.parkNanos(this, BACKOFF_NANOS);
+                if (tryReserve()) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            offerWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The loop of the flusher thread: flushes once a full batch is queued or the flush interval has elapsed,
+     * and flushes everything that is left once the ingestor is closed.
+     */
+    private void run() {
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (!closed) {
+            long wait = nextFlush - System.nanoTime();
+            if (wait > 0 && depth.get() < batchSize) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            signalled.set(false);
+            drain();
+            nextFlush = System.nanoTime() + flushIntervalNanos;
+        }
+        drainLast();
+        if (log.isInfoEnabled()) {
+            log.info("Ingestor[{}] is closed", name);
+        }
+    }
+
+    /**
+     * Hands the queued elements to the sink in batches.
+     */
+    private void drain() {
+        while (flush()) {
+            // continue until the queue is empty
+        }
+    }
+
+    /**
+     * Hands the elements left at close to the sink. It first waits for the offers that passed the check of
+     * {@link #closed} to enqueue or give up, as blocked producers stop waiting for a slot once the ingestor is
+     * closed, so that no accepted element is enqueued after the last flush.
+     */
+    private void drainLast() {
+        while (offering.get() > 0) {
+            LockSupport.parkNanos(this, BACKOFF_NANOS);
+        }
+        drain();
+    }
+
+    /**
+     * Hands up to a batch of queued elements to the sink.
+     *
+     * @return true if elements were flushed, false if the queue was empty
+     */
+    private boolean flush() {
+        T element;
+        while (batch.size() < batchSize && (element = queue.poll()) != null) {
+            batch.add(element);
+        }
+        int size = batch.size();
+        if (size == 0) {
+            return false;
+        }
+        depth.addAndGet(-size);
+        long start = System.nanoTime();
+        try {
+            sink.accept(batch);
+        } catch (Exception e) {
+            droppedFailed.increment(size);
+            if (log.isErrorEnabled()) {
+                log.error("Ingestor[{}] failed to flush {} elements", name, size, e);
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package org.venus.support;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BinaryReader reads the payloads produced by {@link BinaryWriter}.
+ *
+ * It works directly on a byte array region without copying it, and fails with an
+ * {@link IllegalStateException} when the payload is truncated or malformed, so that callers
+ * can treat a corrupted entry like a missing one.
+ */
+public final class BinaryReader {
+    /**
+     * The source bytes.
+     */
+    private final byte[] bytes;
+    /**
+     * The exclusive end offset of the readable region.
+     */
+    private final int limit;
+    /**
+     * The offset of the next byte to read.
+     */
+    private int position;
+
+    /**
+     * Constructs a BinaryReader over the whole array.
+     *
+     * @param bytes the bytes to read
+     */
+    public BinaryReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Constructs a BinaryReader over a region of the array.
+     *
+     * @param bytes  the bytes to read
+     * @param offset the offset of the first readable byte
+     * @param length the number of readable bytes
+     */
+    public BinaryReader(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IllegalArgumentException("Invalid region[offset:" + offset + ", length:" + length + "] of " + bytes.length + " bytes");
+        }
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads a single unsigned byte.
+     *
+     * @return the byte value in the range 0-255
+     */
+    public int readByte() {
+        require(1);
+        return bytes[position++] & 0xFF;
+    }
+
+    /**
+     * Reads an unsigned varint written by {@link BinaryWriter#writeVarInt(int)}.
+     *
+     * @return the decoded value
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Reads an unsigned variable-length long written by {@link BinaryWriter#writeVarLong(long)}.
+     *
+     * @return the decoded value
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varlong");
+    }
+
+    /**
+     * Reads a zig-zag encoded signed int written by {@link BinaryWriter#writeZigZagInt(int)}.
+     *
+     * @return the decoded value
+     */
+    public int readZigZagInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a zig-zag encoded signed long written by {@link BinaryWriter#writeZigZagLong(long)}.
+     *
+     * @return the decoded value
+     */
+    public long readZigZagLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string written by {@link BinaryWriter#writeString(String)}.
+     *
+     * @return the decoded string, or null if a null string was written
+     */
+    public String readString() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads a length-prefixed byte array written by {@link BinaryWriter#writeBytes(byte[])}.
+     *
+     * @return the decoded bytes, or null if a null array was written
+     */
+    public byte[] readBytes() {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(bytes, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Returns a reader over the next {@code length} bytes and advances this reader past them.
+     * It is used to read length-prefixed records, so that unknown trailing fields of a newer
+     * schema version can be skipped.
+     *
+     * @param length the number of bytes of the sub-region
+     * @return a reader over the sub-region
+     */
+    public BinaryReader slice(int length) {
+        require(length);
+        BinaryReader slice = new BinaryReader(bytes, position, length);
+        position += length;
+        return slice;
+    }
+
+    /**
+     * Skips the given number of bytes.
+     *
+     * @param length the number of bytes to skip
+     */
+    public void skip(int length) {
+        require(length);
+        position += length;
+    }
+
+    /**
+     * Returns the number of bytes that are left to read.
+     *
+     * @return the number of remaining bytes
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * Checks whether any byte is left to read.
+     *
+     * @return true if at least one byte can be read
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Makes sure that the given number of bytes can be read.
+     *
+     * @param length the number of bytes that will be read
+     */
+    private void require(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Truncated payload, required " + length + " bytes but only " + (limit - position) + " remain");
+        }
+    }
+}
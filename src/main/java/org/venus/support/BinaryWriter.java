@@ -0,0 +1,196 @@
+package org.venus.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * BinaryWriter is a small growable byte buffer used by the compact binary codecs of venus.
+ *
+ * It writes unsigned and zig-zag encoded varints, length-prefixed UTF-8 strings and raw byte
+ * ranges, so that the encoded payloads do not carry any field names or class names.
+ * An instance is not thread-safe and is meant to be used for a single encoding call.
+ */
+public final class BinaryWriter {
+    /**
+     * The default initial capacity of the underlying buffer, large enough for a typical link entry.
+     */
+    private static final int DEFAULT_CAPACITY = 128;
+    /**
+     * The underlying buffer that holds the encoded bytes.
+     */
+    private byte[] buffer;
+    /**
+     * The number of bytes that have been written into the buffer.
+     */
+    private int position;
+
+    /**
+     * Constructs a BinaryWriter with the default initial capacity.
+     */
+    public BinaryWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a BinaryWriter with the given initial capacity.
+     *
+     * @param capacity the initial capacity of the underlying buffer
+     */
+    public BinaryWriter(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b the byte to write, only the lowest 8 bits are used
+     * @return this writer
+     */
+    public BinaryWriter writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+        return this;
+    }
+
+    /**
+     * Writes an unsigned varint, 7 bits per byte with the highest bit as the continuation flag.
+     *
+     * @param value the value to write, treated as unsigned
+     * @return this writer
+     */
+    public BinaryWriter writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes an unsigned variable-length long, 7 bits per byte with the highest bit as the continuation flag.
+     *
+     * @param value the value to write, treated as unsigned
+     * @return this writer
+     */
+    public BinaryWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes a signed int using zig-zag encoding so that small negative values stay short.
+     *
+     * @param value the signed value to write
+     * @return this writer
+     */
+    public BinaryWriter writeZigZagInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a signed long using zig-zag encoding so that small negative values stay short.
+     *
+     * @param value the signed value to write
+     * @return this writer
+     */
+    public BinaryWriter writeZigZagLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string. The prefix is {@code length + 1}, so that
+     * a prefix of zero can represent a null string.
+     *
+     * @param value the string to write, may be null
+     * @return this writer
+     */
+    public BinaryWriter writeString(String value) {
+        if (value == null) {
+            return writeVarInt(0);
+        }
+        return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a length-prefixed byte array. The prefix is {@code length + 1}, so that
+     * a prefix of zero can represent a null array.
+     *
+     * @param bytes the bytes to write, may be null
+     * @return this writer
+     */
+    public BinaryWriter writeBytes(byte[] bytes) {
+        if (bytes == null) {
+            return writeVarInt(0);
+        }
+        writeVarInt(bytes.length + 1);
+        return writeRaw(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes a range of bytes as-is, without any length prefix.
+     *
+     * @param bytes  the source bytes
+     * @param offset the offset of the first byte to write
+     * @param length the number of bytes to write
+     * @return this writer
+     */
+    public BinaryWriter writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of bytes written
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * Discards all written bytes while keeping the allocated buffer, so the writer can be reused.
+     */
+    public void reset() {
+        position = 0;
+    }
+
+    /**
+     * Returns a copy of the written bytes.
+     *
+     * @return a new byte array holding exactly the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Returns the underlying buffer without copying it. Only the first {@link #size()} bytes are valid.
+     *
+     * @return the underlying buffer
+     */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes sure that the buffer can hold the given number of additional bytes, growing it if necessary.
+     *
+     * @param additional the number of additional bytes that will be written
+     */
+    private void ensureCapacity(int additional) {
+        int required = position + additional;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+        }
+    }
+}
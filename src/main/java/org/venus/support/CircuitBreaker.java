@@ -0,0 +1,281 @@
+package org.venus.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A count-based circuit breaker that trips on failed and on slow calls.
+ *
+ * While CLOSED, the outcome of the last {@code windowSize} calls is recorded, where a call that fails or takes
+ * longer than the slow call threshold counts as failed. Once at least {@code minimumCalls} calls are recorded and
+ * the share of failed calls reaches the failure rate threshold, the breaker opens and rejects all calls for the
+ * open duration, so that callers fall back immediately instead of waiting for a timeout per call.
+ * After that, it is HALF_OPEN and lets a single probe call through: a successful probe closes the breaker,
+ * a failed one opens it again.
+ *
+ * Callers ask {@link #tryAcquire()} before a call and report its outcome with {@link #onSuccess(long)}
+ * or {@link #onFailure()}, or with {@link #onCancelled()} if the caller gave up on the call, which says nothing
+ * about the health of the callee.
+ */
+@Slf4j
+public class CircuitBreaker {
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are permitted and their outcomes are recorded.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected until the open duration has elapsed.
+         */
+        OPEN,
+        /**
+         * A single probe call is permitted to decide whether to close or to open again.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The name of the breaker, used in the logs.
+     */
+    private final String name;
+    /**
+     * The number of the most recent calls whose outcome is recorded.
+     */
+    private final int windowSize;
+    /**
+     * The minimum number of recorded calls before the breaker may open.
+     */
+    private final int minimumCalls;
+    /**
+     * The share of failed calls, between 0 and 1, at which the breaker opens.
+     */
+    private final double failureRateThreshold;
+    /**
+     * The duration in nanoseconds from which a successful call counts as failed.
+     */
+    private final long slowCallNanos;
+    /**
+     * The duration in nanoseconds for which an open breaker rejects calls.
+     */
+    private final long openNanos;
+    /**
+     * The outcomes of the recorded calls as a ring buffer, true for a failed call.
+     */
+    private final boolean[] outcomes;
+    /**
+     * The position of the next outcome in the ring buffer.
+     */
+    private int index;
+    /**
+     * The number of recorded calls.
+     */
+    private int calls;
+    /**
+     * The number of recorded failed calls.
+     */
+    private int failedCalls;
+    /**
+     * The current state.
+     */
+    private volatile State state = State.CLOSED;
+    /**
+     * The time in nanoseconds when the breaker was opened.
+     */
+    private volatile long openedAt;
+    /**
+     * Indicates whether the probe call of the half-open state is in progress.
+     */
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    /**
+     * Constructs a CircuitBreaker.
+     *
+     * @param name the name of the breaker, used in the logs
+     * @param windowSize the number of the most recent calls whose outcome is recorded
+     * @param minimumCalls the minimum number of recorded calls before the breaker may open
+     * @param failureRateThreshold the share of failed calls, between 0 and 1, at which the breaker opens
+     * @param slowCallMillis the duration in milliseconds from which a successful call counts as failed
+     * @param openMillis the duration in milliseconds for which an open breaker rejects calls
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, long slowCallMillis, long openMillis) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("The minimum calls of the circuit breaker must be between 1 and its window size");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("The failure rate threshold of the circuit breaker must be in (0, 1]");
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowCallMillis) : Long.MAX_VALUE;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.outcomes = new boolean[windowSize];
+    }
+
+    /**
+     * Asks for permission to make a call.
+     *
+     * @return true if the call may be made, false if it must be skipped
+     */
+    public boolean tryAcquire() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    state = State.HALF_OPEN;
+                    probing.set(false);
+                }
+            }
+        }
+        return probing.compareAndSet(false, true);
+    }
+
+    /**
+     * Records a call that completed, which counts as failed if it was slow.
+     *
+     * @param nanos the duration of the call in nanoseconds
+     */
+    public void onSuccess(long nanos) {
+        record(nanos >= slowCallNanos);
+    }
+
+    /**
+     * Records a call that failed.
+     */
+    public void onFailure() {
+        record(true);
+    }
+
+    /**
+     * Records nothing for a call that was cancelled or interrupted by its caller. A probe is given back, so that
+     * the next call probes instead.
+     */
+    public void onCancelled() {
+        if (state == State.HALF_OPEN) {
+            probing.set(false);
+        }
+    }
+
+    /**
+     * Checks whether a call failed because its caller cancelled or interrupted it, rather than because of the callee.
+     *
+     * @param e the exception of the call
+     * @return true if the current thread is interrupted or the exception, or one of its causes, is an interruption
+     */
+    public static boolean isCancellation(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof InterruptedIOException || t instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Provides the current state.
+     *
+     * @return the state of the breaker
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * Indicates whether calls are made normally.
+     *
+     * @return true if the breaker is closed
+     */
+    public boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Records the outcome of a call and moves to the next state if needed.
+     *
+     * @param failed true if the call failed or was slow
+     */
+    private synchronized void record(boolean failed) {
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                if (log.isWarnEnabled()) {
+                    log.warn("The probe of the circuit breaker[{}] failed, it stays open", name);
+                }
+                open();
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        if (calls == windowSize) {
+            if (outcomes[index]) {
+                failedCalls--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[index] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        index = (index + 1) % windowSize;
+        if (calls >= minimumCalls && failedCalls >= failureRateThreshold * calls) {
+            open();
+        }
+    }
+
+    /**
+     * Opens the breaker and forgets the recorded calls.
+     */
+    private void open() {
+        if (log.isWarnEnabled() && state == State.CLOSED) {
+            log.warn("The circuit breaker[{}] is open after {} of {} calls failed or were slow", name, failedCalls, calls);
+        }
+        openedAt = System.nanoTime();
+        state = State.OPEN;
+        probing.set(false);
+        reset();
+    }
+
+    /**
+     * Closes the breaker after a successful probe.
+     */
+    private void close() {
+        if (log.isInfoEnabled()) {
+            log.info("The circuit breaker[{}] is closed", name);
+        }
+        state = State.CLOSED;
+        probing.set(false);
+        reset();
+    }
+
+    /**
+     * Forgets the recorded calls.
+     */
+    private void reset() {
+        index = 0;
+        calls = 0;
+        failedCalls = 0;
+        Arrays.fill(outcomes, false);
+    }
+}
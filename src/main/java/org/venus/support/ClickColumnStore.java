@@ -0,0 +1,761 @@
+package org.venus.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory columnar store of recent clicks, scanned in parallel to count the clicks of a time range by
+ * referer domain, user agent, country or time bucket, optionally for a single link.
+ *
+ * The clicks are appended to segments of a fixed capacity, each covering a window of time: a segment holds its
+ * clicks as primitive arrays, one per column, with the time as seconds from the start of its window and the
+ * strings as the codes of a {@link StringDictionary} per column. A segment only exists once its window has a click,
+ * and its columns start small and double as the clicks arrive, up to the capacity of a segment, so that a quiet
+ * window costs little; a window with more clicks than the capacity spreads over several segments. The eviction trims
+ * the columns of the segments whose window has ended to their clicks, and evicts the segments whose window ended
+ * before the retention, and the oldest segments beyond the maximum number, which bounds the memory of the store to
+ * about 24 bytes per click, at most the capacity of all segments, plus the dictionaries.
+ *
+ * A count splits the rows of the segments that overlap its range into slices, counts the slices in parallel in a
+ * fork-join pool into arrays indexed by code or bucket, and sums the arrays. A task counts a run of slices into one
+ * array, a few runs per thread of the pool, and the array of a string column only spans the codes its segments hold,
+ * so that a count does not allocate an array of the whole dictionary per slice. The scan of a slice is a
+ * branch-light loop over primitive arrays without any object per row, so that a count over millions of clicks takes
+ * milliseconds.
+ *
+ * A click is appended under the lock of its segment and published by the size of the segment, so a count sees
+ * every click appended before it started. The country of a click arrives with its geo report after the click:
+ * it is set on the row of the click, found through a bounded cache of the recent clicks by id, and becomes visible
+ * to the counts that start afterwards, a click without country counting under the missing code until then.
+ */
+public class ClickColumnStore implements AutoCloseable {
+    /**
+     * The columns that clicks are counted by.
+     */
+    public enum Column {
+        /**
+         * The domain of the referer.
+         */
+        REFERER,
+        /**
+         * The user agent.
+         */
+        USER_AGENT,
+        /**
+         * The country.
+         */
+        COUNTRY,
+        /**
+         * The time bucket.
+         */
+        TIME
+    }
+
+    /**
+     * The clicks of a value of a column.
+     *
+     * @param value the value, empty for the clicks without value
+     * @param clicks the number of clicks
+     */
+    public record Group(String value, long clicks) {
+    }
+
+    /**
+     * The number of rows of a slice, the unit of work of a count.
+     */
+    private static final int SLICE_ROWS = 16 * 1024;
+    /**
+     * The number of rows the columns of a new segment have room for.
+     */
+    private static final int INITIAL_ROWS = 1024;
+    /**
+     * The number of runs of slices counted per thread of the pool, so that the threads stay busy when runs are
+     * uneven.
+     */
+    private static final int RUNS_PER_THREAD = 4;
+
+    /**
+     * The length in seconds of the window of a segment.
+     */
+    private final long segmentSeconds;
+    /**
+     * The number of clicks of a segment.
+     */
+    private final int segmentCapacity;
+    /**
+     * The maximum number of segments.
+     */
+    private final int maxSegments;
+    /**
+     * The length in seconds of the time clicks are kept.
+     */
+    private final long retentionSeconds;
+    /**
+     * Encodes the referer domains.
+     */
+    private final StringDictionary referers;
+    /**
+     * Encodes the user agents.
+     */
+    private final StringDictionary userAgents;
+    /**
+     * Encodes the countries.
+     */
+    private final StringDictionary countries;
+    /**
+     * The row of the recent clicks by id, to set their country.
+     */
+    private final Cache<Long, Row> recentClicks;
+    /**
+     * Runs the counts.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Serializes the creation and eviction of segments.
+     */
+    private final ReentrantLock segmentsLock = new ReentrantLock();
+    /**
+     * The segments by window, oldest first, replaced by a copy on every change.
+     */
+    private volatile List<Segment> segments = List.of();
+
+    /**
+     * The row of a click.
+     *
+     * @param segment the segment of the click
+     * @param row the index of the click in the segment
+     */
+    private record Row(Segment segment, int row) {
+    }
+
+    /**
+     * Constructs a ClickColumnStore.
+     *
+     * @param segmentSeconds the length in seconds of the window of a segment, at most a day
+     * @param segmentCapacity the number of clicks of a segment
+     * @param maxSegments the maximum number of segments
+     * @param retentionSeconds the length in seconds of the time clicks are kept
+     * @param maxDictionarySize the maximum number of values of a string column
+     * @param recentClicks the number of recent clicks whose country can be set
+     * @param recentClickTtl the time the country of a click can be set after the click
+     * @param parallelism the parallelism of the counts
+     */
+    public ClickColumnStore(long segmentSeconds, int segmentCapacity, int maxSegments, long retentionSeconds,
+                            int maxDictionarySize, int recentClicks, Duration recentClickTtl, int parallelism) {
+        if (segmentSeconds <= 0 || segmentSeconds > 86400 || segmentCapacity <= 0 || maxSegments <= 0) {
+            throw new IllegalArgumentException("Invalid segments: " + segmentSeconds + "s, " + segmentCapacity
+                    + " clicks, " + maxSegments + " segments");
+        }
+        this.segmentSeconds = segmentSeconds;
+        this.segmentCapacity = segmentCapacity;
+        this.maxSegments = maxSegments;
+        this.retentionSeconds = retentionSeconds;
+        this.referers = new StringDictionary(maxDictionarySize);
+        this.userAgents = new StringDictionary(maxDictionarySize);
+        this.countries = new StringDictionary(maxDictionarySize);
+        this.recentClicks = Caffeine.newBuilder()
+                .maximumSize(recentClicks)
+                .expireAfterWrite(recentClickTtl)
+                .build();
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Appends a click.
+     *
+     * @param clickId the id of the click, zero if unknown, which leaves the click without country
+     * @param linkId the id of the link
+     * @param second the time of the click, in seconds since the epoch
+     * @param refererDomain the domain of the referer, may be null
+     * @param userAgent the user agent, may be null
+     * @param nowSecond the current time, in seconds since the epoch
+     * @return false if the click is older than the retention and was not appended
+     */
+    public boolean append(long clickId, long linkId, long second, String refererDomain, String userAgent, long nowSecond) {
+        if (second < nowSecond - retentionSeconds) {
+            return false;
+        }
+        int referer = referers.encode(refererDomain);
+        int userAgentCode = userAgents.encode(userAgent);
+        long window = Math.floorDiv(second, segmentSeconds) * segmentSeconds;
+        while (true) {
+            Segment segment = writable(window);
+            int row = segment.append(linkId, (int) (second - window), referer, userAgentCode);
+            if (row >= 0) {
+                if (clickId != 0) {
+                    recentClicks.put(clickId, new Row(segment, row));
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Sets the country of a recent click.
+     *
+     * @param clickId the id of the click
+     * @param country the country, may be null
+     * @return false if the click is not known
+     */
+    public boolean country(long clickId, String country) {
+        Row row = recentClicks.getIfPresent(clickId);
+        if (row == null) {
+            return false;
+        }
+        row.segment().country(row.row(), countries.encode(country));
+        return true;
+    }
+
+    /**
+     * Counts the clicks of a time range by the values of a string column.
+     *
+     * @param column the column, not {@link Column#TIME}
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param fromSecond the start of the range, inclusive, in seconds since the epoch
+     * @param toSecond the end of the range, exclusive, in seconds since the epoch
+     * @return the values with clicks, in code order
+     */
+    public List<Group> countBy(Column column, Long linkId, long fromSecond, long toSecond) {
+        StringDictionary dictionary = switch (column) {
+            case REFERER -> referers;
+            case USER_AGENT -> userAgents;
+            case COUNTRY -> countries;
+            case TIME -> throw new IllegalArgumentException("The clicks are counted by time with countByTime");
+        };
+        List<Slice> slices = slices(fromSecond, toSecond);
+        // read after the sizes of the segments, so that every code of the sliced rows is below it
+        int width = dictionary.size();
+        long[] counts = pool.invoke(new CountTask(slices, 0, slices.size(), grain(slices), column, linkId, fromSecond,
+                toSecond, 0, 0, width));
+        List<Group> groups = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                groups.add(new Group(dictionary.decode(code), counts[code]));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Counts the clicks of a time range by time bucket.
+     *
+     * @param linkId the id of the link of the clicks, null for all links
+     * @param fromSecond the start of the range, inclusive, in seconds since the epoch, a multiple of the bucket
+     * @param toSecond the end of the range, exclusive, in seconds since the epoch
+     * @param bucketSeconds the length of a bucket in seconds
+     * @return the clicks of every bucket of the range, the first bucket starting at {@code fromSecond}
+     */
+    public long[] countByTime(Long linkId, long fromSecond, long toSecond, long bucketSeconds) {
+        int width = (int) ((toSecond - fromSecond + bucketSeconds - 1) / bucketSeconds);
+        List<Slice> slices = slices(fromSecond, toSecond);
+        return pool.invoke(new CountTask(slices, 0, slices.size(), grain(slices), Column.TIME, linkId, fromSecond,
+                toSecond, fromSecond, bucketSeconds, width));
+    }
+
+    /**
+     * Provides the number of slices a task counts into one array.
+     *
+     * @param slices the slices of a count
+     * @return the number of slices of a run
+     */
+    private int grain(List<Slice> slices) {
+        return Math.max(1, slices.size() / (pool.getParallelism() * RUNS_PER_THREAD));
+    }
+
+    /**
+     * Evicts the segments whose window ended before the retention, and the oldest segments beyond the maximum,
+     * and trims the columns of the other segments whose window has ended to their clicks.
+     *
+     * @param nowSecond the current time, in seconds since the epoch
+     * @return the number of evicted segments
+     */
+    public int evict(long nowSecond) {
+        segmentsLock.lock();
+        try {
+            List<Segment> current = segments;
+            long expired = nowSecond - retentionSeconds;
+            int first = 0;
+            while (first < current.size() && (current.get(first).window + segmentSeconds <= expired
+                    || current.size() - first > maxSegments)) {
+                first++;
+            }
+            if (first > 0) {
+                segments = List.copyOf(current.subList(first, current.size()));
+            }
+            for (Segment segment : current.subList(first, current.size())) {
+                if (segment.window + segmentSeconds <= nowSecond) {
+                    segment.trim();
+                }
+            }
+            return first;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    /**
+     * Provides the number of clicks in the store.
+     *
+     * @return the number of clicks
+     */
+    public long rows() {
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.size;
+        }
+        return rows;
+    }
+
+    /**
+     * Provides the number of segments in the store.
+     *
+     * @return the number of segments
+     */
+    public int segments() {
+        return segments.size();
+    }
+
+    /**
+     * Provides the start of the oldest window in the store.
+     *
+     * @return the start in seconds since the epoch, null if the store is empty
+     */
+    public Long oldestSecond() {
+        List<Segment> current = segments;
+        return current.isEmpty() ? null : current.get(0).window;
+    }
+
+    /**
+     * Stops the pool of the counts.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Provides a segment of a window that has room for a click, creating it if needed.
+     *
+     * @param window the start of the window
+     * @return the segment
+     */
+    private Segment writable(long window) {
+        Segment segment = find(segments, window);
+        if (segment != null) {
+            return segment;
+        }
+        segmentsLock.lock();
+        try {
+            List<Segment> current = segments;
+            segment = find(current, window);
+            if (segment != null) {
+                return segment;
+            }
+            segment = new Segment(window, segmentCapacity);
+            List<Segment> next = new ArrayList<>(current.size() + 1);
+            int i = current.size();
+            while (i > 0 && current.get(i - 1).window > window) {
+                i--;
+            }
+            next.addAll(current.subList(0, i));
+            next.add(segment);
+            next.addAll(current.subList(i, current.size()));
+            segments = List.copyOf(next);
+            return segment;
+        } finally {
+            segmentsLock.unlock();
+        }
+    }
+
+    /**
+     * Finds a segment of a window that has room for a click, searching from the newest segment.
+     *
+     * @param segments the segments
+     * @param window the start of the window
+     * @return the segment, null if there is none
+     */
+    private static Segment find(List<Segment> segments, long window) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (segment.window == window && segment.size < segment.capacity) {
+                return segment;
+            }
+            if (segment.window < window) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits the rows of the segments that overlap a time range into slices.
+     *
+     * @param fromSecond the start of the range, inclusive
+     * @param toSecond the end of the range, exclusive
+     * @return the slices
+     */
+    private List<Slice> slices(long fromSecond, long toSecond) {
+        List<Slice> slices = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.window + segmentSeconds <= fromSecond || segment.window >= toSecond) {
+                continue;
+            }
+            int size = segment.size;
+            for (int start = 0; start < size; start += SLICE_ROWS) {
+                slices.add(new Slice(segment, start, Math.min(size, start + SLICE_ROWS)));
+            }
+        }
+        return slices;
+    }
+
+    /**
+     * A range of rows of a segment.
+     *
+     * @param segment the segment
+     * @param start the first row, inclusive
+     * @param end the last row, exclusive
+     */
+    private record Slice(Segment segment, int start, int end) {
+    }
+
+    /**
+     * The columns of the clicks of a segment, replaced by a larger or trimmed copy under the lock of the segment.
+     *
+     * @param links the ids of the links
+     * @param times the times, in seconds from the start of the window
+     * @param referers the codes of the referer domains
+     * @param userAgents the codes of the user agents
+     * @param countries the codes of the countries
+     */
+    private record Columns(long[] links, int[] times, int[] referers, int[] userAgents, int[] countries) {
+        /**
+         * Creates empty columns.
+         *
+         * @param rows the number of rows the columns have room for
+         */
+        Columns(int rows) {
+            this(new long[rows], new int[rows], new int[rows], new int[rows], new int[rows]);
+        }
+
+        /**
+         * Copies the first rows of the columns into columns of another length.
+         *
+         * @param rows the number of rows the copy has room for
+         * @param size the number of rows to copy
+         * @return the copy
+         */
+        Columns resize(int rows, int size) {
+            Columns copy = new Columns(rows);
+            System.arraycopy(links, 0, copy.links, 0, size);
+            System.arraycopy(times, 0, copy.times, 0, size);
+            System.arraycopy(referers, 0, copy.referers, 0, size);
+            System.arraycopy(userAgents, 0, copy.userAgents, 0, size);
+            System.arraycopy(countries, 0, copy.countries, 0, size);
+            return copy;
+        }
+    }
+
+    /**
+     * The clicks of a window, or of part of it, as columns.
+     */
+    private static final class Segment {
+        /**
+         * The start of the window, in seconds since the epoch.
+         */
+        private final long window;
+        /**
+         * The maximum number of clicks.
+         */
+        private final int capacity;
+        /**
+         * Serializes the appends, the updates of the countries and the resizes of the columns.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        /**
+         * The columns, which have room for at least {@link #size} clicks.
+         */
+        private volatile Columns columns;
+        /**
+         * The highest code of a referer domain, -1 without click, published by {@link #size}.
+         */
+        private int maxReferer = -1;
+        /**
+         * The highest code of a user agent, -1 without click, published by {@link #size}.
+         */
+        private int maxUserAgent = -1;
+        /**
+         * The highest code of a country, published by {@link #size}.
+         */
+        private int maxCountry;
+        /**
+         * The number of clicks, published after the columns of the last click.
+         */
+        private volatile int size;
+
+        /**
+         * Constructs a Segment.
+         *
+         * @param window the start of the window, in seconds since the epoch
+         * @param capacity the maximum number of clicks
+         */
+        private Segment(long window, int capacity) {
+            this.window = window;
+            this.capacity = capacity;
+            this.columns = new Columns(Math.min(capacity, INITIAL_ROWS));
+        }
+
+        /**
+         * Appends a click, doubling the columns if they are full.
+         *
+         * @param linkId the id of the link
+         * @param time the time, in seconds from the start of the window
+         * @param referer the code of the referer domain
+         * @param userAgent the code of the user agent
+         * @return the row of the click, -1 if the segment is full
+         */
+        private int append(long linkId, int time, int referer, int userAgent) {
+            lock.lock();
+            try {
+                int row = size;
+                if (row == capacity) {
+                    return -1;
+                }
+                Columns current = columns;
+                if (row == current.links().length) {
+                    current = current.resize((int) Math.min(capacity, Math.max(INITIAL_ROWS, 2L * row)), row);
+                    columns = current;
+                }
+                current.links()[row] = linkId;
+                current.times()[row] = time;
+                current.referers()[row] = referer;
+                current.userAgents()[row] = userAgent;
+                maxReferer = Math.max(maxReferer, referer);
+                maxUserAgent = Math.max(maxUserAgent, userAgent);
+                size = row + 1;
+                return row;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sets the country of a click.
+         *
+         * @param row the row of the click
+         * @param country the code of the country
+         */
+        private void country(int row, int country) {
+            lock.lock();
+            try {
+                columns.countries()[row] = country;
+                maxCountry = Math.max(maxCountry, country);
+                // republishes the columns, so that the counts that start afterwards see the country
+                size = size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Shrinks the columns to the clicks, once no more clicks are expected. A late click grows them again.
+         */
+        private void trim() {
+            lock.lock();
+            try {
+                int rows = size;
+                if (columns.links().length > rows) {
+                    columns = columns.resize(rows, rows);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Provides the number of codes of a string column that the clicks of the segment use.
+         *
+         * @param column the column, not {@link Column#TIME}
+         * @return the highest code plus one
+         */
+        private int codes(Column column) {
+            // reads the size first, which publishes the highest codes
+            return size == 0 ? 0 : switch (column) {
+                case REFERER -> maxReferer;
+                case USER_AGENT -> maxUserAgent;
+                case COUNTRY -> maxCountry;
+                case TIME -> throw new IllegalArgumentException("The time has no codes");
+            } + 1;
+        }
+    }
+
+    /**
+     * Counts the clicks of a range of slices, splitting it in halves down to runs of the grain.
+     */
+    private static final class CountTask extends RecursiveTask<long[]> {
+        /**
+         * The slices.
+         */
+        private final List<Slice> slices;
+        /**
+         * The first slice of the task, inclusive.
+         */
+        private final int lo;
+        /**
+         * The last slice of the task, exclusive.
+         */
+        private final int hi;
+        /**
+         * The number of slices counted into one array.
+         */
+        private final int grain;
+        /**
+         * The counted column.
+         */
+        private final Column column;
+        /**
+         * The id of the link of the clicks, null for all links.
+         */
+        private final Long linkId;
+        /**
+         * The start of the range, inclusive.
+         */
+        private final long fromSecond;
+        /**
+         * The end of the range, exclusive.
+         */
+        private final long toSecond;
+        /**
+         * The start of the first bucket, for the counts by time.
+         */
+        private final long origin;
+        /**
+         * The length of a bucket, for the counts by time.
+         */
+        private final long bucketSeconds;
+        /**
+         * The number of codes or buckets.
+         */
+        private final int width;
+
+        /**
+         * Constructs a CountTask.
+         *
+         * @param slices the slices
+         * @param lo the first slice of the task, inclusive
+         * @param hi the last slice of the task, exclusive
+         * @param grain the number of slices counted into one array
+         * @param column the counted column
+         * @param linkId the id of the link of the clicks, null for all links
+         * @param fromSecond the start of the range, inclusive
+         * @param toSecond the end of the range, exclusive
+         * @param origin the start of the first bucket, for the counts by time
+         * @param bucketSeconds the length of a bucket, for the counts by time
+         * @param width the number of codes or buckets
+         */
+        private CountTask(List<Slice> slices, int lo, int hi, int grain, Column column, Long linkId, long fromSecond,
+                          long toSecond, long origin, long bucketSeconds, int width) {
+            this.slices = slices;
+            this.lo = lo;
+            this.hi = hi;
+            this.grain = grain;
+            this.column = column;
+            this.linkId = linkId;
+            this.fromSecond = fromSecond;
+            this.toSecond = toSecond;
+            this.origin = origin;
+            this.bucketSeconds = bucketSeconds;
+            this.width = width;
+        }
+
+        /**
+         * Counts the slices of the task.
+         *
+         * @return the clicks by code or bucket, for the counts by a string column only up to the highest code of
+         *         the counted segments
+         */
+        @Override
+        protected long[] compute() {
+            if (hi - lo <= grain) {
+                int length = width;
+                if (column != Column.TIME) {
+                    length = 0;
+                    for (int i = lo; i < hi; i++) {
+                        length = Math.max(length, slices.get(i).segment().codes(column));
+                    }
+                    length = Math.min(length, width);
+                }
+                long[] counts = new long[length];
+                for (int i = lo; i < hi; i++) {
+                    count(slices.get(i), counts);
+                }
+                return counts;
+            }
+            int mid = (lo + hi) >>> 1;
+            CountTask left = new CountTask(slices, lo, mid, grain, column, linkId, fromSecond, toSecond, origin,
+                    bucketSeconds, width);
+            left.fork();
+            long[] counts = new CountTask(slices, mid, hi, grain, column, linkId, fromSecond, toSecond, origin,
+                    bucketSeconds, width).compute();
+            long[] leftCounts = left.join();
+            if (leftCounts.length > counts.length) {
+                long[] swap = counts;
+                counts = leftCounts;
+                leftCounts = swap;
+            }
+            for (int i = 0; i < leftCounts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+
+        /**
+         * Counts the clicks of a slice.
+         *
+         * @param slice the slice
+         * @param counts the clicks by code or bucket
+         */
+        private void count(Slice slice, long[] counts) {
+            Segment segment = slice.segment();
+            // the range as offsets from the window of the segment, clamped to the window
+            int from = (int) Math.max(-1, Math.min(Integer.MAX_VALUE, fromSecond - segment.window));
+            int to = (int) Math.max(-1, Math.min(Integer.MAX_VALUE, toSecond - segment.window));
+            boolean allLinks = linkId == null;
+            long link = allLinks ? 0 : linkId;
+            Columns columns = segment.columns;
+            long[] links = columns.links();
+            int[] times = columns.times();
+            int[] keys = switch (column) {
+                case REFERER -> columns.referers();
+                case USER_AGENT -> columns.userAgents();
+                case COUNTRY -> columns.countries();
+                case TIME -> times;
+            };
+            if (column == Column.TIME) {
+                long shift = segment.window - origin;
+                for (int i = slice.start(); i < slice.end(); i++) {
+                    int time = times[i];
+                    if ((allLinks || links[i] == link) && time >= from && time < to) {
+                        counts[(int) ((shift + time) / bucketSeconds)]++;
+                    }
+                }
+            } else {
+                int length = counts.length;
+                for (int i = slice.start(); i < slice.end(); i++) {
+                    int time = times[i];
+                    int key = keys[i];
+                    // a country set after the count started may have a code beyond the counted ones
+                    if ((allLinks || links[i] == link) && time >= from && time < to && key < length) {
+                        counts[key]++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,728 @@
+package org.venus.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A compressed columnar file of rows, written once and scanned many times, used to archive the rows of the
+ * database on local or mounted storage.
+ *
+ * The rows are stored in row groups. Each column of a row group is a block of its values encoded with the
+ * {@link BinaryWriter} varints, the longs as zig-zag deltas from the previous value and the strings length-prefixed,
+ * and compressed with Deflate, so that similar neighbouring values shrink to a few bits and a scan only reads and
+ * inflates the columns it needs. The file ends with a footer that lists the columns and, per row group, the
+ * location of its blocks and the minimum and maximum of its long columns, followed by the length of the footer and
+ * a magic number. The minimums and maximums let a scan skip the row groups that cannot match its filter, which is
+ * most of them when the rows are written sorted by the filtered column.
+ *
+ * A file is written to a temporary file and moved in place once committed, so that a reader never sees a partial
+ * file and an interrupted write leaves the previous file, if any, untouched.
+ */
+public final class ColumnarFile {
+    /**
+     * The magic number at the end of a file, "VCF1".
+     */
+    static final int MAGIC = 0x56434631;
+    /**
+     * The size of the trailer: the length of the footer and the magic number.
+     */
+    private static final int TRAILER_SIZE = 8;
+
+    /**
+     * The types of the columns.
+     */
+    public enum Type {
+        /**
+         * A long, with the minimum and maximum of each row group in the footer.
+         */
+        LONG,
+        /**
+         * A string, which may be null.
+         */
+        STRING
+    }
+
+    /**
+     * A column of a file.
+     *
+     * @param name the name of the column
+     * @param type the type of the column
+     */
+    public record Column(String name, Type type) {
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private ColumnarFile() {
+    }
+
+    /**
+     * The description of a row group in the footer of a file.
+     */
+    public static final class RowGroup {
+        /**
+         * The columns of the file.
+         */
+        private final List<Column> columns;
+        /**
+         * The number of rows of the group.
+         */
+        private final int rows;
+        /**
+         * The offsets of the blocks of the columns in the file.
+         */
+        private final long[] offsets;
+        /**
+         * The compressed lengths of the blocks of the columns.
+         */
+        private final int[] lengths;
+        /**
+         * The uncompressed lengths of the blocks of the columns.
+         */
+        private final int[] sizes;
+        /**
+         * The minimums of the long columns, zero for the string columns.
+         */
+        private final long[] min;
+        /**
+         * The maximums of the long columns, zero for the string columns.
+         */
+        private final long[] max;
+
+        /**
+         * Constructs a RowGroup.
+         *
+         * @param columns the columns of the file
+         * @param rows the number of rows of the group
+         */
+        private RowGroup(List<Column> columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+            this.offsets = new long[columns.size()];
+            this.lengths = new int[columns.size()];
+            this.sizes = new int[columns.size()];
+            this.min = new long[columns.size()];
+            this.max = new long[columns.size()];
+        }
+
+        /**
+         * Provides the number of rows of the group.
+         *
+         * @return the number of rows
+         */
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * Provides the minimum of a long column in the group.
+         *
+         * @param column the name of the column
+         * @return the minimum
+         * @throws IllegalArgumentException if the file has no such long column
+         */
+        public long min(String column) {
+            return min[longColumn(columns, column)];
+        }
+
+        /**
+         * Provides the maximum of a long column in the group.
+         *
+         * @param column the name of the column
+         * @return the maximum
+         * @throws IllegalArgumentException if the file has no such long column
+         */
+        public long max(String column) {
+            return max[longColumn(columns, column)];
+        }
+    }
+
+    /**
+     * The values of some columns of a row group, read by a scan.
+     */
+    public static final class Batch {
+        /**
+         * The columns of the file.
+         */
+        private final List<Column> columns;
+        /**
+         * The number of rows of the batch.
+         */
+        private final int rows;
+        /**
+         * The values of the read long columns, null for the other columns.
+         */
+        private final long[][] longs;
+        /**
+         * The values of the read string columns, null for the other columns.
+         */
+        private final String[][] strings;
+
+        /**
+         * Constructs a Batch.
+         *
+         * @param columns the columns of the file
+         * @param rows the number of rows of the batch
+         */
+        private Batch(List<Column> columns, int rows) {
+            this.columns = columns;
+            this.rows = rows;
+            this.longs = new long[columns.size()][];
+            this.strings = new String[columns.size()][];
+        }
+
+        /**
+         * Provides the number of rows of the batch.
+         *
+         * @return the number of rows
+         */
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * Provides the values of a long column, indexed by row.
+         *
+         * @param column the name of the column
+         * @return the values
+         * @throws IllegalArgumentException if the column is not a long column read by the scan
+         */
+        public long[] longs(String column) {
+            long[] values = longs[longColumn(columns, column)];
+            if (values == null) {
+                throw new IllegalArgumentException("The column " + column + " is not read by the scan");
+            }
+            return values;
+        }
+
+        /**
+         * Provides the values of a string column, indexed by row.
+         *
+         * @param column the name of the column
+         * @return the values
+         * @throws IllegalArgumentException if the column is not a string column read by the scan
+         */
+        public String[] strings(String column) {
+            int index = column(columns, column);
+            if (strings[index] == null) {
+                throw new IllegalArgumentException("The column " + column + " is not a string column read by the scan");
+            }
+            return strings[index];
+        }
+    }
+
+    /**
+     * Writes a file row by row. A row is written by setting the value of every column and ending it; the rows are
+     * buffered and written a row group at a time. The file only replaces its destination once committed; closing a
+     * writer that was not committed deletes what it wrote.
+     *
+     * An instance is not thread-safe.
+     */
+    public static final class Writer implements Closeable {
+        /**
+         * The destination of the file.
+         */
+        private final Path path;
+        /**
+         * The temporary file written before the commit.
+         */
+        private final Path temporary;
+        /**
+         * The channel of the temporary file.
+         */
+        private final FileChannel channel;
+        /**
+         * The columns of the file.
+         */
+        private final List<Column> columns;
+        /**
+         * The number of rows of a row group.
+         */
+        private final int rowGroupSize;
+        /**
+         * The buffered values of the long columns of the current row group.
+         */
+        private final long[][] longs;
+        /**
+         * The buffered values of the string columns of the current row group.
+         */
+        private final String[][] strings;
+        /**
+         * The written row groups.
+         */
+        private final List<RowGroup> groups = new ArrayList<>();
+        /**
+         * Encodes the blocks and the footer.
+         */
+        private final BinaryWriter encoder = new BinaryWriter(64 * 1024);
+        /**
+         * Compresses the blocks.
+         */
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        /**
+         * The number of buffered rows of the current row group.
+         */
+        private int buffered;
+        /**
+         * The total number of rows.
+         */
+        private long rows;
+        /**
+         * The position of the next block in the file.
+         */
+        private long position;
+        /**
+         * Indicates whether the file was committed.
+         */
+        private boolean committed;
+
+        /**
+         * Constructs a Writer, creating the parent directories of the file.
+         *
+         * @param path the destination of the file
+         * @param columns the columns of the file
+         * @param rowGroupSize the number of rows of a row group
+         * @throws IOException if the temporary file cannot be created
+         */
+        public Writer(Path path, List<Column> columns, int rowGroupSize) throws IOException {
+            if (columns.isEmpty() || rowGroupSize <= 0) {
+                throw new IllegalArgumentException("A file needs columns and a positive row group size");
+            }
+            this.path = path;
+            this.columns = List.copyOf(columns);
+            this.rowGroupSize = rowGroupSize;
+            this.longs = new long[columns.size()][];
+            this.strings = new String[columns.size()][];
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).type() == Type.LONG) {
+                    longs[i] = new long[rowGroupSize];
+                } else {
+                    strings[i] = new String[rowGroupSize];
+                }
+            }
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Sets the value of a long column of the current row.
+         *
+         * @param column the index of the column
+         * @param value the value
+         * @return this writer
+         */
+        public Writer setLong(int column, long value) {
+            longs[column][buffered] = value;
+            return this;
+        }
+
+        /**
+         * Sets the value of a string column of the current row.
+         *
+         * @param column the index of the column
+         * @param value the value, may be null
+         * @return this writer
+         */
+        public Writer setString(int column, String value) {
+            strings[column][buffered] = value;
+            return this;
+        }
+
+        /**
+         * Ends the current row, writing the row group once it is full.
+         *
+         * @throws IOException if the row group cannot be written
+         */
+        public void endRow() throws IOException {
+            rows++;
+            if (++buffered == rowGroupSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Provides the number of rows written so far.
+         *
+         * @return the number of rows
+         */
+        public long rows() {
+            return rows;
+        }
+
+        /**
+         * Writes the last row group and the footer, syncs the file and moves it to its destination.
+         *
+         * @throws IOException if the file cannot be written or moved
+         */
+        public void commit() throws IOException {
+            flush();
+            encoder.reset();
+            encoder.writeVarInt(columns.size());
+            for (Column column : columns) {
+                encoder.writeString(column.name()).writeByte(column.type().ordinal());
+            }
+            encoder.writeVarInt(groups.size());
+            for (RowGroup group : groups) {
+                encoder.writeVarInt(group.rows);
+                for (int i = 0; i < columns.size(); i++) {
+                    encoder.writeVarLong(group.offsets[i]).writeVarInt(group.lengths[i]).writeVarInt(group.sizes[i]);
+                    if (columns.get(i).type() == Type.LONG) {
+                        encoder.writeZigZagLong(group.min[i]).writeZigZagLong(group.max[i]);
+                    }
+                }
+            }
+            int footer = encoder.size();
+            write(ByteBuffer.wrap(encoder.buffer(), 0, footer));
+            write(ByteBuffer.allocate(TRAILER_SIZE).putInt(footer).putInt(MAGIC).flip());
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Releases the file, deleting the temporary file unless the file was committed.
+         *
+         * @throws IOException if the temporary file cannot be deleted
+         */
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        /**
+         * Writes the buffered rows as a row group.
+         *
+         * @throws IOException if the row group cannot be written
+         */
+        private void flush() throws IOException {
+            if (buffered == 0) {
+                return;
+            }
+            RowGroup group = new RowGroup(columns, buffered);
+            for (int i = 0; i < columns.size(); i++) {
+                encoder.reset();
+                if (columns.get(i).type() == Type.LONG) {
+                    long[] values = longs[i];
+                    long previous = 0;
+                    long min = Long.MAX_VALUE;
+                    long max = Long.MIN_VALUE;
+                    for (int row = 0; row < buffered; row++) {
+                        encoder.writeZigZagLong(values[row] - previous);
+                        previous = values[row];
+                        min = Math.min(min, previous);
+                        max = Math.max(max, previous);
+                    }
+                    group.min[i] = min;
+                    group.max[i] = max;
+                } else {
+                    String[] values = strings[i];
+                    for (int row = 0; row < buffered; row++) {
+                        encoder.writeString(values[row]);
+                        values[row] = null;
+                    }
+                }
+                byte[] compressed = deflate(encoder.buffer(), encoder.size());
+                group.offsets[i] = position;
+                group.lengths[i] = compressed.length;
+                group.sizes[i] = encoder.size();
+                write(ByteBuffer.wrap(compressed));
+            }
+            groups.add(group);
+            buffered = 0;
+        }
+
+        /**
+         * Compresses the encoded values of a block.
+         *
+         * @param bytes the buffer of the values
+         * @param length the number of bytes of the values
+         * @return the compressed block
+         */
+        private byte[] deflate(byte[] bytes, int length) {
+            deflater.reset();
+            deflater.setInput(bytes, 0, length);
+            deflater.finish();
+            byte[] out = new byte[Math.max(64, length / 2)];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                size += deflater.deflate(out, size, out.length - size);
+            }
+            return Arrays.copyOf(out, size);
+        }
+
+        /**
+         * Writes bytes at the end of the file.
+         *
+         * @param buffer the bytes
+         * @throws IOException if the bytes cannot be written
+         */
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads a file. The footer is read on opening; the blocks are read and inflated by the scans, which may run
+     * concurrently.
+     */
+    public static final class Reader implements Closeable {
+        /**
+         * The channel of the file.
+         */
+        private final FileChannel channel;
+        /**
+         * The columns of the file.
+         */
+        private final List<Column> columns;
+        /**
+         * The row groups of the file.
+         */
+        private final List<RowGroup> groups;
+
+        /**
+         * Opens a file and reads its footer.
+         *
+         * @param path the file
+         * @throws IOException if the file cannot be read or is not a columnar file
+         */
+        public Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < TRAILER_SIZE) {
+                    throw new IOException("The file " + path + " is not a columnar file");
+                }
+                ByteBuffer trailer = read(size - TRAILER_SIZE, TRAILER_SIZE);
+                int footerLength = trailer.getInt();
+                if (trailer.getInt() != MAGIC || footerLength < 0 || footerLength > size - TRAILER_SIZE) {
+                    throw new IOException("The file " + path + " is not a columnar file");
+                }
+                BinaryReader footer = new BinaryReader(read(size - TRAILER_SIZE - footerLength, footerLength).array());
+                int columnCount = footer.readVarInt();
+                List<Column> columns = new ArrayList<>(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    columns.add(new Column(footer.readString(), Type.values()[footer.readByte()]));
+                }
+                this.columns = List.copyOf(columns);
+                int groupCount = footer.readVarInt();
+                List<RowGroup> groups = new ArrayList<>(groupCount);
+                for (int g = 0; g < groupCount; g++) {
+                    RowGroup group = new RowGroup(this.columns, footer.readVarInt());
+                    for (int i = 0; i < columnCount; i++) {
+                        group.offsets[i] = footer.readVarLong();
+                        group.lengths[i] = footer.readVarInt();
+                        group.sizes[i] = footer.readVarInt();
+                        if (columns.get(i).type() == Type.LONG) {
+                            group.min[i] = footer.readZigZagLong();
+                            group.max[i] = footer.readZigZagLong();
+                        }
+                    }
+                    groups.add(group);
+                }
+                this.groups = List.copyOf(groups);
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                channel.close();
+                throw new IOException("The footer of " + path + " is corrupted", e);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Provides the columns of the file.
+         *
+         * @return the columns
+         */
+        public List<Column> columns() {
+            return columns;
+        }
+
+        /**
+         * Provides the row groups of the file.
+         *
+         * @return the row groups
+         */
+        public List<RowGroup> groups() {
+            return groups;
+        }
+
+        /**
+         * Provides the number of rows of the file.
+         *
+         * @return the number of rows
+         */
+        public long rows() {
+            long rows = 0;
+            for (RowGroup group : groups) {
+                rows += group.rows;
+            }
+            return rows;
+        }
+
+        /**
+         * Scans some columns of the row groups that pass a filter, in the order of the file.
+         *
+         * @param columns the names of the columns to read
+         * @param filter the filter of the row groups, on their minimums and maximums
+         * @param consumer the consumer of the batch of every row group read
+         * @throws IOException if a block cannot be read or is corrupted
+         * @throws IllegalArgumentException if the file has no such column
+         */
+        public void scan(List<String> columns, Predicate<RowGroup> filter, Consumer<Batch> consumer) throws IOException {
+            int[] indexes = columns.stream().mapToInt(name -> column(this.columns, name)).toArray();
+            Inflater inflater = new Inflater();
+            try {
+                for (RowGroup group : groups) {
+                    if (!filter.test(group)) {
+                        continue;
+                    }
+                    Batch batch = new Batch(this.columns, group.rows);
+                    for (int i : indexes) {
+                        BinaryReader in = new BinaryReader(inflate(inflater, group, i));
+                        if (this.columns.get(i).type() == Type.LONG) {
+                            long[] values = new long[group.rows];
+                            long previous = 0;
+                            for (int row = 0; row < group.rows; row++) {
+                                previous += in.readZigZagLong();
+                                values[row] = previous;
+                            }
+                            batch.longs[i] = values;
+                        } else {
+                            String[] values = new String[group.rows];
+                            for (int row = 0; row < group.rows; row++) {
+                                values[row] = in.readString();
+                            }
+                            batch.strings[i] = values;
+                        }
+                    }
+                    consumer.accept(batch);
+                }
+            } catch (IllegalStateException e) {
+                throw new IOException("A block of the file is corrupted", e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException if the file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Reads and inflates the block of a column of a row group.
+         *
+         * @param inflater the inflater of the scan
+         * @param group the row group
+         * @param column the index of the column
+         * @return the encoded values
+         * @throws IOException if the block cannot be read or is corrupted
+         */
+        private byte[] inflate(Inflater inflater, RowGroup group, int column) throws IOException {
+            byte[] compressed = read(group.offsets[column], group.lengths[column]).array();
+            byte[] values = new byte[group.sizes[column]];
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                int size = 0;
+                while (size < values.length && !inflater.finished()) {
+                    int inflated = inflater.inflate(values, size, values.length - size);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    size += inflated;
+                }
+                if (size != values.length) {
+                    throw new IOException("A block of the file is truncated");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("A block of the file is corrupted", e);
+            }
+            return values;
+        }
+
+        /**
+         * Reads a range of the file.
+         *
+         * @param offset the offset of the range
+         * @param length the length of the range
+         * @return the bytes of the range, ready to be read
+         * @throws IOException if the range cannot be read
+         */
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("The file is truncated");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Finds the index of a column.
+     *
+     * @param columns the columns of the file
+     * @param name the name of the column
+     * @return the index of the column
+     * @throws IllegalArgumentException if the file has no such column
+     */
+    private static int column(List<Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The file has no column " + name);
+    }
+
+    /**
+     * Finds the index of a long column.
+     *
+     * @param columns the columns of the file
+     * @param name the name of the column
+     * @return the index of the column
+     * @throws IllegalArgumentException if the file has no such long column
+     */
+    private static int longColumn(List<Column> columns, String name) {
+        int index = column(columns, name);
+        if (columns.get(index).type() != Type.LONG) {
+            throw new IllegalArgumentException("The column " + name + " is not a long column");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,236 @@
+package org.venus.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.venus.metrics.MetricsConstants;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects the callers of the database from an outage with a {@link CircuitBreaker} and a bulkhead.
+ *
+ * Calls that fail because the database cannot be reached, and calls that are slow, open the breaker, after which
+ * calls are rejected at once with a {@link DatabaseUnavailableException} until a probe call succeeds. The bulkhead
+ * bounds the calls in progress: a call that does not get a permit within the maximum wait is rejected, instead of
+ * queueing for a pool connection until the connection timeout, so that a slow database cannot pile up blocked
+ * (virtual) threads. Exceptions that do not indicate an outage, such as a constraint violation, are passed on
+ * without counting as failed.
+ *
+ * A guard without a breaker and without a bulkhead passes all calls through.
+ */
+public class DatabaseGuard {
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * The circuit breaker of the database calls, null if calls are never rejected because of failures.
+     */
+    private final CircuitBreaker breaker;
+    /**
+     * The permits of the calls in progress, null if the calls in progress are not bounded.
+     */
+    private final Semaphore permits;
+    /**
+     * The maximum time in nanoseconds a call waits for a permit.
+     */
+    private final long maxWaitNanos;
+    /**
+     * Counts the calls rejected because the breaker is open.
+     */
+    private final Counter rejectedOpen;
+    /**
+     * Counts the calls rejected because all permits were taken.
+     */
+    private final Counter rejectedBusy;
+
+    /**
+     * Constructs a DatabaseGuard.
+     *
+     * @param breaker the circuit breaker of the database calls, null to never reject calls because of failures
+     * @param maxConcurrentCalls the maximum number of calls in progress, zero or less to not bound them
+     * @param maxWaitMillis the maximum time in milliseconds a call waits for a permit
+     */
+    public DatabaseGuard(CircuitBreaker breaker, int maxConcurrentCalls, long maxWaitMillis) {
+        this.breaker = breaker;
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+
+        Tags tags = Tags.of(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.rejectedOpen = Counter.builder("venus_database_rejected_calls_total").tags(tags.and("reason", "open")).register(registry);
+        this.rejectedBusy = Counter.builder("venus_database_rejected_calls_total").tags(tags.and("reason", "busy")).register(registry);
+        if (breaker != null) {
+            Gauge.builder("venus_database_breaker_state", breaker, b -> b.state().ordinal())
+                    .description("0 closed, 1 open, 2 half open")
+                    .tags(tags).register(registry);
+        }
+        if (permits != null) {
+            Gauge.builder("venus_database_available_permits", permits, Semaphore::availablePermits)
+                    .tags(tags).register(registry);
+        }
+    }
+
+    /**
+     * Makes a database call through the breaker and the bulkhead, as the database stage of the deadline
+     * of the request: the call is skipped if the budget is used up, and the wait for a permit is bounded
+     * by the time that is left.
+     *
+     * @param call the database call
+     * @param <T> the type of the result
+     * @return the result of the call
+     * @throws DatabaseUnavailableException if the call is rejected
+     * @throws DeadlineExceededException if the budget of the request is used up
+     */
+    public <T> T call(Callable<T> call) {
+        RequestDeadline.check(RequestDeadline.STAGE_DATABASE);
+        return RequestDeadline.stage(RequestDeadline.STAGE_DATABASE, () -> guardedCall(call));
+    }
+
+    /**
+     * Makes a database call through the breaker and the bulkhead.
+     *
+     * @param call the database call
+     * @param <T> the type of the result
+     * @return the result of the call
+     * @throws DatabaseUnavailableException if the call is rejected
+     */
+    private <T> T guardedCall(Callable<T> call) {
+        if (breaker != null && !breaker.tryAcquire()) {
+            rejectedOpen.increment();
+            throw new DatabaseUnavailableException("The database is unavailable, the circuit breaker is open");
+        }
+        if (permits != null && !acquirePermit()) {
+            if (Thread.currentThread().isInterrupted()) {
+                // the caller gave up while waiting, e.g. a hedged load that lost its race
+                if (breaker != null) {
+                    breaker.onCancelled();
+                }
+                throw new DatabaseUnavailableException("The database call is cancelled while waiting for a permit");
+            }
+            boolean deadlineExceeded = RequestDeadline.isExpired();
+            if (breaker != null && (!deadlineExceeded || !breaker.isClosed())) {
+                // a full bulkhead means the calls in progress are slow, and a permitted probe must be resolved
+                breaker.onFailure();
+            }
+            if (deadlineExceeded) {
+                throw new DeadlineExceededException(RequestDeadline.STAGE_DATABASE);
+            }
+            rejectedBusy.increment();
+            throw new DatabaseUnavailableException("The database is unavailable, too many calls are in progress");
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            if (breaker != null) {
+                breaker.onSuccess(System.nanoTime() - start);
+            }
+            return result;
+        } catch (Exception e) {
+            if (breaker != null) {
+                if (CircuitBreaker.isCancellation(e)) {
+                    breaker.onCancelled();
+                } else if (isOutage(e)) {
+                    breaker.onFailure();
+                } else {
+                    breaker.onSuccess(System.nanoTime() - start);
+                }
+            }
+            throw e instanceof RuntimeException runtime ? runtime : new VenusException(e);
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Rejects a call at once if the database is unavailable, without making it through the guard.
+     * Used before writes that must not be attempted during an outage.
+     *
+     * @param operation the name of the operation, used in the message
+     * @throws DatabaseUnavailableException if the breaker is not closed
+     */
+    public void checkAvailable(String operation) {
+        if (!isAvailable()) {
+            rejectedOpen.increment();
+            throw new DatabaseUnavailableException(String.format("The database is unavailable, %s is rejected, please retry later", operation));
+        }
+    }
+
+    /**
+     * Indicates whether the database is considered available.
+     *
+     * @return true if the breaker is closed or there is none
+     */
+    public boolean isAvailable() {
+        return breaker == null || breaker.isClosed();
+    }
+
+    /**
+     * Provides the state of the breaker.
+     *
+     * @return the state of the breaker, CLOSED if there is none
+     */
+    public CircuitBreaker.State state() {
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.state();
+    }
+
+    /**
+     * Provides the number of calls that may start without waiting.
+     *
+     * @return the available permits, -1 if the calls in progress are not bounded
+     */
+    public int availablePermits() {
+        return permits == null ? -1 : permits.availablePermits();
+    }
+
+    /**
+     * Waits for a permit of the bulkhead, at most the maximum wait and the time that is left of the deadline.
+     *
+     * @return true if a permit was acquired
+     */
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(Math.min(maxWaitNanos, RequestDeadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether an exception, or one of its causes, shows that the database cannot be reached or is overloaded.
+     * Unlike a failure of the statement itself, such a failure is worth retrying.
+     *
+     * @param e the exception of a call
+     * @return true if the exception indicates an outage
+     */
+    public static boolean isOutage(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof RecoverableDataAccessException
+                    || t instanceof CannotCreateTransactionException
+                    || t instanceof SQLTransientException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
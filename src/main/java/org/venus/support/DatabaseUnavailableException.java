@@ -0,0 +1,27 @@
+package org.venus.support;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a database call is skipped because the database is considered unavailable, that is, its circuit
+ * breaker is open or too many calls are already waiting for a connection.
+ *
+ * It is thrown for every request of an outage, so it carries no stack trace: it is cheap to create
+ * and logs as a single line.
+ */
+public class DatabaseUnavailableException extends VenusException {
+    /**
+     * A unique identifier for serialization.
+     */
+    @Serial
+    private static final long serialVersionUID = 2958204519712630842L;
+
+    /**
+     * Constructs a new DatabaseUnavailableException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public DatabaseUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,25 @@
+package org.venus.support;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a stage of a request is skipped because the latency budget of the request is used up.
+ *
+ * Like {@link DatabaseUnavailableException}, it is expected under load and carries no stack trace.
+ */
+public class DeadlineExceededException extends VenusException {
+    /**
+     * A unique identifier for serialization.
+     */
+    @Serial
+    private static final long serialVersionUID = -6105873012654930718L;
+
+    /**
+     * Constructs a new DeadlineExceededException for the given stage.
+     *
+     * @param stage the stage that was skipped
+     */
+    public DeadlineExceededException(String stage) {
+        super(String.format("The deadline of the request is exceeded before the stage[%s]", stage), null, false, false);
+    }
+}
@@ -0,0 +1,79 @@
+package org.venus.support;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * GenericPageRestApiResponse is a generic class used to standardize the response for paginated list REST API calls.
+ * Besides the rows of the page, it carries the cursor of the next page: the client passes it as the {@code after}
+ * parameter of the next request, and reaches the end of the list when it is null.
+ *
+ * @param <T> the type of elements in the page being encapsulated in the response
+ */
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(callSuper = false)
+@SuppressWarnings("rawtypes")
+public class GenericPageRestApiResponse<T> extends AbstractRestApiResponse {
+    /**
+     * A unique identifier for the serialization runtime associated with the GenericPageRestApiResponse class.
+     */
+    @Serial
+    private static final long serialVersionUID = 3190768052514873026L;
+
+    /**
+     * The rows of the page.
+     */
+    private List<T> data;
+
+    /**
+     * The cursor of the next page, null if this page is the last one.
+     */
+    private Long next;
+
+    /**
+     * Protected constructor for GenericPageRestApiResponse, used by the factory methods.
+     */
+    protected GenericPageRestApiResponse() {
+        super();
+    }
+
+    /**
+     * Creates a GenericPageRestApiResponse object indicating a successful response.
+     *
+     * @param <T> the type of elements in the page
+     * @param page the page, whose rows are already mapped to the response type
+     * @return a GenericPageRestApiResponse object containing the rows and the cursor of the next page
+     */
+    public static <T> GenericPageRestApiResponse<T> success(KeysetPage<T> page) {
+        GenericPageRestApiResponse<T> response = new GenericPageRestApiResponse<>();
+        response.success = true;
+        response.data = page.items();
+        response.next = page.next();
+        response.message = RestApiCode.SUCCESS.message();
+        response.code = RestApiCode.SUCCESS.code();
+        return response;
+    }
+
+    /**
+     * Creates a failure response with the given code and message.
+     *
+     * @param <T> the type of elements in the page
+     * @param code the code representing the type of error
+     * @param message a descriptive message providing more details about the failure
+     * @return a {@code GenericPageRestApiResponse} indicating the failure, containing the specified error code and message
+     */
+    public static <T> GenericPageRestApiResponse<T> fail(RestApiCode code, String message) {
+        GenericPageRestApiResponse<T> response = new GenericPageRestApiResponse<>();
+        response.success = false;
+        response.message = message;
+        response.code = code.code();
+        return response;
+    }
+}
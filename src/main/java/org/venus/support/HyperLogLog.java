@@ -0,0 +1,260 @@
+package org.venus.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct values added to it in a fixed amount of memory.
+ *
+ * The sketch has {@code 2^precision} one-byte registers; a value is hashed to 64 bits, the first {@code precision}
+ * bits select a register and the register keeps the maximum rank, the position of the first set bit, of the rest.
+ * The standard error of the estimate is about {@code 1.04 / sqrt(2^precision)}, 2.3% at precision 11. Sketches of
+ * the same precision are merged by taking the maximum of each register, which makes them mergeable across time
+ * buckets and nodes without double counting.
+ *
+ * A sketch is serialized with {@link #toBytes()}: sparsely as the set registers while few are set, so that the
+ * sketch of a link with a handful of visitors takes a few bytes, densely as all registers otherwise.
+ * An instance is not thread-safe.
+ */
+public final class HyperLogLog {
+    /**
+     * The smallest supported precision.
+     */
+    public static final int MIN_PRECISION = 4;
+    /**
+     * The largest supported precision.
+     */
+    public static final int MAX_PRECISION = 16;
+    /**
+     * The encoding of a sketch as the set registers.
+     */
+    private static final int SPARSE = 0;
+    /**
+     * The encoding of a sketch as all registers.
+     */
+    private static final int DENSE = 1;
+
+    /**
+     * The number of bits of a hash that select the register.
+     */
+    private final int precision;
+    /**
+     * The registers, each the maximum rank of the hashes that selected it.
+     */
+    private final byte[] registers;
+
+    /**
+     * Constructs an empty HyperLogLog.
+     *
+     * @param precision the number of bits that select the register, between {@link #MIN_PRECISION} and
+     *                  {@link #MAX_PRECISION}
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value, null is ignored
+     * @return true if the sketch changed
+     */
+    public boolean add(String value) {
+        return value != null && addHash(hash(value));
+    }
+
+    /**
+     * Adds a value by its 64-bit hash.
+     *
+     * @param hash the well-mixed hash of the value
+     * @return true if the sketch changed
+     */
+    public boolean addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the sentinel bit bounds the rank by 64 - precision + 1
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges another sketch into this one, which then estimates the distinct values added to either.
+     *
+     * @param other the other sketch
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " and " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added.
+     *
+     * @return the estimate
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting is more accurate while many registers are empty
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Provides the precision.
+     *
+     * @return the number of bits that select the register
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Serializes the sketch.
+     *
+     * @return the serialized sketch, which {@link #fromBytes(byte[])} reads
+     */
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                set++;
+            }
+        }
+        BinaryWriter writer = new BinaryWriter(Math.min(registers.length, set * 3) + 8);
+        writer.writeByte(precision);
+        // a set register takes up to 3 bytes sparsely, so the sparse form is smaller below a third
+        if (set * 3 < registers.length) {
+            writer.writeByte(SPARSE).writeVarInt(set);
+            int previous = 0;
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    writer.writeVarInt(i - previous).writeByte(registers[i]);
+                    previous = i;
+                }
+            }
+        } else {
+            writer.writeByte(DENSE).writeRaw(registers, 0, registers.length);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Reads a sketch serialized by {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch
+     * @return the sketch
+     * @throws IllegalStateException if the bytes are not a serialized sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        int precision = reader.readByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalStateException("Malformed sketch precision " + precision);
+        }
+        HyperLogLog sketch = new HyperLogLog(precision);
+        int encoding = reader.readByte();
+        if (encoding == SPARSE) {
+            int set = reader.readVarInt();
+            int index = 0;
+            for (int i = 0; i < set; i++) {
+                index += reader.readVarInt();
+                if (index >= sketch.registers.length) {
+                    throw new IllegalStateException("Malformed sketch register " + index);
+                }
+                sketch.registers[index] = (byte) reader.readByte();
+            }
+        } else if (encoding == DENSE) {
+            if (reader.remaining() != sketch.registers.length) {
+                throw new IllegalStateException("Malformed dense sketch");
+            }
+            for (int i = 0; i < sketch.registers.length; i++) {
+                sketch.registers[i] = (byte) reader.readByte();
+            }
+        } else {
+            throw new IllegalStateException("Malformed sketch encoding " + encoding);
+        }
+        return sketch;
+    }
+
+    /**
+     * Hashes a value to 64 well-mixed bits, with FNV-1a over its UTF-8 bytes and the finalizer of MurmurHash3.
+     *
+     * @param value the value
+     * @return the hash
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Provides the bias correction constant for a number of registers.
+     *
+     * @param m the number of registers
+     * @return the constant
+     */
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    /**
+     * Indicates whether another object is a sketch of the same precision and registers.
+     *
+     * @param o the other object
+     * @return true if the sketches are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog other && other.precision == precision && Arrays.equals(other.registers, registers);
+    }
+
+    /**
+     * Provides the hash code of the registers.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+}
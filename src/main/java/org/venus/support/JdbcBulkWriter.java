@@ -0,0 +1,316 @@
+package org.venus.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.venus.metrics.MetricsConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Inserts rows with batched prepared statements instead of one INSERT round trip per row.
+ *
+ * A write is split into chunks of the current batch size, and every chunk is sent as one JDBC batch, which the MySQL
+ * driver rewrites into a multi-row INSERT with {@code rewriteBatchedStatements=true}. The chunks of a write run in
+ * parallel on virtual threads, but at most {@code parallelism} of them hold a connection at a time, so that the
+ * writer does not take over the pool. The batch size adapts to the latency of the database: it grows by the minimum
+ * batch size after every full chunk that is faster than the target latency and is halved after a slower one or a
+ * retry. A chunk that fails because the database is unreachable or overloaded, see
+ * {@link DatabaseGuard#isOutage(Throwable)}, is retried with exponential backoff and jitter; other failures, and
+ * the last retry, fail the write.
+ *
+ * Writes are at least once: a chunk that failed after it reached the database, e.g. because the connection was lost
+ * before the outcome of its commit was known, may have been written, and its retry writes its rows again. The rows
+ * carry no key of their own, since the ids of the click tables are assigned by the database and the rollups rely on
+ * their order, and upserts that add counts cannot tell a retry from a new count, so such retries are not
+ * idempotent. Only a chunk that failed before it got a connection is known not to be written. The retries of the
+ * other chunks are counted apart, which bounds the rows that may be duplicated.
+ *
+ * The writer publishes {@code venus_bulk_write_seconds} per chunk, {@code venus_bulk_write_rows_total},
+ * {@code venus_bulk_write_retries_total}, {@code venus_bulk_write_ambiguous_retried_rows_total},
+ * {@code venus_bulk_write_failed_rows_total} and the current batch size in {@code venus_bulk_write_batch_size},
+ * all tagged with the name of the writer.
+ *
+ * @param <T> the type of the rows
+ */
+@Slf4j
+public class JdbcBulkWriter<T> {
+    /**
+     * Runs the chunks of the writes of all writers.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("venus-bulk-writer-", 0).factory());
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * The name of the writer, used for the logs and the meters.
+     */
+    private final String name;
+    /**
+     * Executes the batches.
+     */
+    private final JdbcTemplate jdbcTemplate;
+    /**
+     * The INSERT statement of a single row.
+     */
+    private final String sql;
+    /**
+     * Binds a row to the parameters of the statement.
+     */
+    private final ParameterizedPreparedStatementSetter<T> setter;
+    /**
+     * The lower bound of the batch size, and the step by which it grows.
+     */
+    private final int minBatchSize;
+    /**
+     * The upper bound of the batch size.
+     */
+    private final int maxBatchSize;
+    /**
+     * The latency of a chunk in nanoseconds above which the batch size is halved.
+     */
+    private final long targetLatencyNanos;
+    /**
+     * Limits the chunks that hold a connection at a time.
+     */
+    private final Semaphore connections;
+    /**
+     * The maximum number of retries of a chunk.
+     */
+    private final int maxRetries;
+    /**
+     * The backoff in milliseconds before the first retry, doubled for every further one.
+     */
+    private final long retryBackoffMillis;
+    /**
+     * The current batch size.
+     */
+    private final AtomicInteger batchSize;
+    /**
+     * Records the duration of the chunks.
+     */
+    private final Timer writeTimer;
+    /**
+     * Counts the inserted rows.
+     */
+    private final Counter rowsCounter;
+    /**
+     * Counts the retries of chunks.
+     */
+    private final Counter retriesCounter;
+    /**
+     * Counts the rows of the retried chunks that may have been written before.
+     */
+    private final Counter ambiguousRetriedRowsCounter;
+    /**
+     * Counts the rows of the chunks that failed.
+     */
+    private final Counter failedRowsCounter;
+
+    /**
+     * Constructs a JdbcBulkWriter.
+     *
+     * @param name the name of the writer
+     * @param jdbcTemplate executes the batches
+     * @param sql the INSERT statement of a single row
+     * @param setter binds a row to the parameters of the statement
+     * @param minBatchSize the lower bound of the batch size
+     * @param maxBatchSize the upper bound of the batch size, and the initial batch size
+     * @param targetLatencyMillis the latency of a chunk in milliseconds above which the batch size is halved
+     * @param parallelism the maximum number of chunks that hold a connection at a time
+     * @param maxRetries the maximum number of retries of a chunk
+     * @param retryBackoffMillis the backoff in milliseconds before the first retry
+     */
+    public JdbcBulkWriter(String name, JdbcTemplate jdbcTemplate, String sql, ParameterizedPreparedStatementSetter<T> setter,
+                          int minBatchSize, int maxBatchSize, long targetLatencyMillis, int parallelism,
+                          int maxRetries, long retryBackoffMillis) {
+        if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("The batch sizes must be positive and the maximum not below the minimum");
+        }
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+        this.setter = setter;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.connections = new Semaphore(Math.max(1, parallelism));
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+        this.batchSize = new AtomicInteger(maxBatchSize);
+
+        Tags tags = Tags.of("writer", name)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.writeTimer = Timer.builder("venus_bulk_write_seconds").tags(tags).register(registry);
+        this.rowsCounter = Counter.builder("venus_bulk_write_rows_total").tags(tags).register(registry);
+        this.retriesCounter = Counter.builder("venus_bulk_write_retries_total").tags(tags).register(registry);
+        this.ambiguousRetriedRowsCounter = Counter.builder("venus_bulk_write_ambiguous_retried_rows_total").tags(tags).register(registry);
+        this.failedRowsCounter = Counter.builder("venus_bulk_write_failed_rows_total").tags(tags).register(registry);
+        Gauge.builder("venus_bulk_write_batch_size", batchSize, AtomicInteger::get).tags(tags).register(registry);
+    }
+
+    /**
+     * Inserts rows and waits until all of them are written.
+     *
+     * @param rows the rows, only read for the duration of the call
+     * @throws DataAccessException if a chunk failed for good, the other chunks are still written
+     */
+    public void write(List<T> rows) {
+        write(rows, failed -> {
+        });
+    }
+
+    /**
+     * Inserts rows and waits until all of them are written, handing the rows of every chunk that failed for good to
+     * a callback, so that the caller can tell them from the rows of the chunks that were written.
+     *
+     * @param rows the rows, only read for the duration of the call
+     * @param failed takes the rows of a failed chunk, called on the calling thread before the failure is thrown
+     * @throws DataAccessException if a chunk failed for good, the other chunks are still written
+     */
+    public void write(List<T> rows, Consumer<List<T>> failed) {
+        int size = batchSize.get();
+        if (rows.size() <= size) {
+            try {
+                writeChunk(rows);
+            } catch (RuntimeException e) {
+                failed.accept(rows);
+                throw e;
+            }
+            return;
+        }
+        List<List<T>> chunks = new ArrayList<>(rows.size() / size + 1);
+        List<Future<?>> futures = new ArrayList<>(rows.size() / size + 1);
+        for (int from = 0; from < rows.size(); from += size) {
+            List<T> chunk = rows.subList(from, Math.min(rows.size(), from + size));
+            chunks.add(chunk);
+            futures.add(EXECUTOR.submit(() -> writeChunk(chunk)));
+        }
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                failed.accept(chunks.get(i));
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime ? runtime : new VenusException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VenusException(e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Provides the current batch size.
+     *
+     * @return the number of rows sent in one batch
+     */
+    public int batchSize() {
+        return batchSize.get();
+    }
+
+    /**
+     * Inserts a chunk of rows as one batch, retrying it on an outage, at least once.
+     *
+     * @param chunk the rows
+     */
+    private void writeChunk(List<T> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (int attempt = 0; ; attempt++) {
+            connections.acquireUninterruptibly();
+            long start = System.nanoTime();
+            try {
+                jdbcTemplate.batchUpdate(sql, chunk, chunk.size(), setter);
+                long elapsed = System.nanoTime() - start;
+                writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                rowsCounter.increment(chunk.size());
+                adapt(chunk.size(), elapsed);
+                return;
+            } catch (DataAccessException e) {
+                writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (attempt >= maxRetries || !DatabaseGuard.isOutage(e)) {
+                    failedRowsCounter.increment(chunk.size());
+                    throw e;
+                }
+                boolean ambiguous = !(e instanceof CannotGetJdbcConnectionException);
+                if (ambiguous) {
+                    ambiguousRetriedRowsCounter.increment(chunk.size());
+                }
+                if (log.isWarnEnabled()) {
+                    log.warn("Writer[{}] retries a batch of {} rows{} after {}", name, chunk.size(),
+                            ambiguous ? " that may have been written" : "", e.getMessage());
+                }
+            } finally {
+                connections.release();
+            }
+            retriesCounter.increment();
+            shrink();
+            backoff(attempt);
+        }
+    }
+
+    /**
+     * Adapts the batch size to the latency of a chunk.
+     *
+     * @param rows the number of rows of the chunk
+     * @param elapsedNanos the duration of the chunk
+     */
+    private void adapt(int rows, long elapsedNanos) {
+        if (elapsedNanos > targetLatencyNanos) {
+            shrink();
+        } else if (rows >= batchSize.get()) {
+            batchSize.getAndUpdate(size -> Math.min(maxBatchSize, size + minBatchSize));
+        }
+    }
+
+    /**
+     * Halves the batch size, down to the minimum.
+     */
+    private void shrink() {
+        batchSize.getAndUpdate(size -> Math.max(minBatchSize, size / 2));
+    }
+
+    /**
+     * Waits before a retry, for the backoff doubled by every previous retry and a random jitter of up to half of it.
+     *
+     * @param attempt the number of the failed attempt, starting at zero
+     */
+    private void backoff(int attempt) {
+        long backoff = retryBackoffMillis << Math.min(attempt, 10);
+        try {
+            TimeUnit.MILLISECONDS.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VenusException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.venus.support;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of rows read by {@link KeysetQuery} in id order, with the cursor of the next page.
+ *
+ * @param items the rows of the page
+ * @param next the id to pass as cursor to read the next page, null if this is the last page
+ * @param <T> the type of the rows
+ */
+public record KeysetPage<T>(List<T> items, Long next) {
+
+    /**
+     * Maps the rows of the page, keeping the cursor.
+     *
+     * @param mapper the mapping of a row
+     * @param <R> the type of the mapped rows
+     * @return the page of the mapped rows
+     */
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(items.stream().<R>map(mapper).toList(), next);
+    }
+}
@@ -0,0 +1,132 @@
+package org.venus.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * A query of a table in id order that is read by keyset, either in pages or as one stream.
+ *
+ * A page continues after the id of the last row of the previous page ({@code WHERE id > ? ORDER BY id LIMIT ?}),
+ * so reading a page costs the same however deep it is, unlike {@code OFFSET}, and rows inserted meanwhile neither
+ * shift nor repeat the following pages. A stream reads all the rows after an id as a sequence of such pages of a fixed
+ * size and hands them over one at a time, so the memory it takes does not grow with the number of rows, and it
+ * holds a pooled connection only while a page is read, not while the rows are written to a slow client. It needs
+ * neither a server-side cursor nor a streaming result set, so no connection setting applies to other statements.
+ *
+ * The conditions of the optional filters are added with {@link #where(String, Object)}, which skips a filter
+ * without value. An instance is not thread-safe and is meant to be built for one query.
+ */
+public final class KeysetQuery {
+    /**
+     * The select and from clauses.
+     */
+    private final String select;
+    /**
+     * The id column, unique and indexed.
+     */
+    private final String idColumn;
+    /**
+     * The conditions of the filters.
+     */
+    private final List<String> conditions = new ArrayList<>();
+    /**
+     * The arguments of the conditions.
+     */
+    private final List<Object> args = new ArrayList<>();
+
+    /**
+     * Constructs a KeysetQuery.
+     *
+     * @param select the select and from clauses, such as {@code SELECT id, code FROM links}
+     * @param idColumn the id column, unique and indexed
+     */
+    public KeysetQuery(String select, String idColumn) {
+        this.select = select;
+        this.idColumn = idColumn;
+    }
+
+    /**
+     * Adds the condition of a filter.
+     *
+     * @param condition the condition with one {@code ?} placeholder, such as {@code link_id = ?}
+     * @param value the value of the placeholder, null to skip the filter
+     * @return this query
+     */
+    public KeysetQuery where(String condition, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            args.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a condition without placeholder that always applies.
+     *
+     * @param condition the condition, such as {@code is_active = 1}
+     * @return this query
+     */
+    public KeysetQuery where(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Reads the page of rows after an id.
+     *
+     * @param jdbcTemplate the template that runs the query
+     * @param rowMapper the mapping of a row
+     * @param id the id of a row
+     * @param after the id after which the page starts, 0 for the first page
+     * @param limit the maximum number of rows of the page
+     * @param <T> the type of the rows
+     * @return the page, with a cursor if it is full
+     */
+    public <T> KeysetPage<T> page(JdbcTemplate jdbcTemplate, RowMapper<T> rowMapper, ToLongFunction<T> id, long after, int limit) {
+        List<Object> pageArgs = new ArrayList<>(args.size() + 2);
+        pageArgs.add(after);
+        pageArgs.addAll(args);
+        pageArgs.add(limit);
+        List<T> items = jdbcTemplate.query(sql() + " LIMIT ?", rowMapper, pageArgs.toArray());
+        Long next = items.size() < limit ? null : id.applyAsLong(items.getLast());
+        return new KeysetPage<>(items, next);
+    }
+
+    /**
+     * Streams all rows after an id, in id order, reading them page by page.
+     *
+     * @param jdbcTemplate the template that runs the query
+     * @param rowMapper the mapping of a row
+     * @param id the id of a row
+     * @param after the id after which the stream starts, 0 for all rows
+     * @param fetchSize the number of rows read with one query
+     * @param action the action that consumes every row, which may throw to stop the stream
+     * @param <T> the type of the rows
+     */
+    public <T> void stream(JdbcTemplate jdbcTemplate, RowMapper<T> rowMapper, ToLongFunction<T> id, long after, int fetchSize, Consumer<T> action) {
+        Long next = after;
+        while (next != null) {
+            KeysetPage<T> page = page(jdbcTemplate, rowMapper, id, next, fetchSize);
+            page.items().forEach(action);
+            next = page.next();
+        }
+    }
+
+    /**
+     * Builds the statement without limit.
+     *
+     * @return the statement, whose first placeholder is the id after which the rows are read
+     */
+    String sql() {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE ").append(idColumn).append(" > ?");
+        for (String condition : conditions) {
+            sql.append(" AND ").append(condition);
+        }
+        return sql.append(" ORDER BY ").append(idColumn).toString();
+    }
+}
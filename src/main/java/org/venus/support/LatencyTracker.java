@@ -0,0 +1,90 @@
+package org.venus.support;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks a percentile of the latency of recent calls.
+ *
+ * The latencies of the last {@code samples} calls are kept in a ring buffer, and the percentile is recomputed
+ * from a sorted copy of it every quarter of the buffer, so that a record is a few atomic writes and the percentile
+ * follows changes of the latency within a few hundred calls. Until the buffer has been filled once, the percentile
+ * is computed from the calls recorded so far.
+ */
+public class LatencyTracker {
+    /**
+     * The latencies in nanoseconds of the recent calls.
+     */
+    private final AtomicLongArray latencies;
+    /**
+     * The number of recorded calls, whose remainder is the position of the next latency in the ring buffer.
+     */
+    private final AtomicInteger records = new AtomicInteger();
+    /**
+     * The percentile to track, between 0 and 1.
+     */
+    private final double percentile;
+    /**
+     * The number of records after which the percentile is recomputed.
+     */
+    private final int recomputeEvery;
+    /**
+     * The tracked percentile in nanoseconds, -1 until enough calls are recorded.
+     */
+    private volatile long percentileNanos = -1;
+
+    /**
+     * Constructs a LatencyTracker.
+     *
+     * @param samples the number of recent calls whose latency is kept
+     * @param percentile the percentile to track, between 0 and 1
+     */
+    public LatencyTracker(int samples, double percentile) {
+        if (samples < 4) {
+            throw new IllegalArgumentException("A latency tracker keeps at least 4 samples");
+        }
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("The tracked percentile must be in (0, 1)");
+        }
+        this.latencies = new AtomicLongArray(samples);
+        this.percentile = percentile;
+        this.recomputeEvery = samples / 4;
+    }
+
+    /**
+     * Records the latency of a call.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        int record = records.getAndIncrement() & Integer.MAX_VALUE;
+        latencies.set(record % latencies.length(), nanos);
+        if ((record + 1) % recomputeEvery == 0) {
+            recompute(Math.min(record + 1, latencies.length()));
+        }
+    }
+
+    /**
+     * Provides the tracked percentile of the recent latencies.
+     *
+     * @return the percentile in nanoseconds, -1 if fewer calls than a quarter of the samples have been recorded
+     */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+
+    /**
+     * Recomputes the percentile from the recorded latencies.
+     *
+     * @param count the number of recorded latencies in the ring buffer
+     */
+    private void recompute(int count) {
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        percentileNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+    }
+}
@@ -0,0 +1,213 @@
+package org.venus.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.AsyncWebRequest;
+import org.springframework.web.context.request.CallableProcessingInterceptor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.venus.metrics.MetricsConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Builds the streaming responses of the list endpoints as newline-delimited JSON (NDJSON), one JSON object per row.
+ *
+ * The rows are written to the response as the source produces them and sent in chunks, so a response holds one row
+ * and the buffer in memory however many rows it has. Since the status and headers are sent before the first row, a
+ * failure while streaming can no longer be reported as an error response: it aborts the response, which the client
+ * sees as a truncated stream.
+ *
+ * A stream reads the database page after page for as long as it runs, outside of the {@link DatabaseGuard}, so the
+ * number of streams in progress is bounded: a stream beyond the bound is answered at once with 503 and a Retry-After
+ * header, leaving the connections of the pool to the other requests. A stream may run for much longer than a plain
+ * asynchronous request, so its own timeout is applied to its request only, by this class as a
+ * {@link CallableProcessingInterceptor} that has to be registered with the asynchronous support of Spring MVC.
+ */
+public class NdjsonResponses implements CallableProcessingInterceptor {
+    /**
+     * The size of the buffer of the response.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+    /**
+     * The request attribute that holds the permit of a stream.
+     */
+    private static final String PERMIT_ATTRIBUTE = NdjsonResponses.class.getName() + ".permit";
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * The permit of a stream, given back once when the stream ends, or when its request completes if the stream has
+     * never started, e.g. because the request timed out before.
+     */
+    private final class Permit {
+        /**
+         * Indicates whether the stream has started or the permit has been given back.
+         */
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        /**
+         * Starts the stream.
+         *
+         * @return true if the stream may run, false if its request has already completed
+         */
+        boolean start() {
+            return taken.compareAndSet(false, true);
+        }
+
+        /**
+         * Gives the permit back at the end of the stream.
+         */
+        void end() {
+            permits.release();
+        }
+
+        /**
+         * Gives the permit back if the stream has never started.
+         */
+        void abandon() {
+            if (taken.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the rows.
+     */
+    private final ObjectWriter writer;
+    /**
+     * The permits of the streams in progress.
+     */
+    private final Semaphore permits;
+    /**
+     * The timeout of a stream in milliseconds.
+     */
+    private final long timeout;
+    /**
+     * Counts the streams that have been rejected because too many were in progress.
+     */
+    private final Counter rejected;
+
+    /**
+     * Constructs a NdjsonResponses.
+     *
+     * @param objectMapper the mapper that writes the rows
+     * @param maxConcurrentStreams the maximum number of streams in progress
+     * @param timeout the timeout of a stream in milliseconds
+     */
+    public NdjsonResponses(ObjectMapper objectMapper, int maxConcurrentStreams, long timeout) {
+        this.writer = objectMapper.writer();
+        this.permits = new Semaphore(Math.max(1, maxConcurrentStreams));
+        this.timeout = timeout;
+
+        Tags tags = Tags.of(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.rejected = Counter.builder("venus_stream_rejected_total").tags(tags).register(registry);
+        Gauge.builder("venus_stream_in_progress", this, s -> Math.max(1, maxConcurrentStreams) - s.permits.availablePermits())
+                .tags(tags).register(registry);
+    }
+
+    /**
+     * Builds a streaming NDJSON response, or a 503 response if too many streams are in progress.
+     *
+     * @param source the source, which passes every row to the given consumer
+     * @param <T> the type of the rows
+     * @return the response
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        Permit permit = new Permit();
+        RequestContextHolder.currentRequestAttributes().setAttribute(PERMIT_ATTRIBUTE, permit, RequestAttributes.SCOPE_REQUEST);
+        StreamingResponseBody body = outputStream -> {
+            if (!permit.start()) {
+                return;
+            }
+            try {
+                OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+                try {
+                    source.accept(row -> {
+                        try {
+                            out.write(writer.writeValueAsBytes(row));
+                            out.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                out.flush();
+            } finally {
+                permit.end();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Applies the timeout of a stream to its request, before the asynchronous processing starts.
+     *
+     * @param request the request
+     * @param task the task of the asynchronous processing
+     * @param <T> the type of the result of the task
+     */
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        if (request instanceof AsyncWebRequest asyncRequest && permit(request) != null) {
+            asyncRequest.setTimeout(timeout);
+        }
+    }
+
+    /**
+     * Gives the permit of a stream back if the stream has never started.
+     *
+     * @param request the request
+     * @param task the task of the asynchronous processing
+     * @param <T> the type of the result of the task
+     */
+    @Override
+    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+        Permit permit = permit(request);
+        if (permit != null) {
+            permit.abandon();
+        }
+    }
+
+    /**
+     * Provides the permit of the stream of a request.
+     *
+     * @param request the request
+     * @return the permit, null if the request is not a stream
+     */
+    private Permit permit(NativeWebRequest request) {
+        return request.getAttribute(PERMIT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Permit permit ? permit : null;
+    }
+}
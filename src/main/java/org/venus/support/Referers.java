@@ -0,0 +1,39 @@
+package org.venus.support;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Reduces the referers of clicks to the domains they are aggregated by, shared by the pre-aggregation of the
+ * reported clicks and the rollups of the stored ones so that both count a referer alike.
+ */
+public final class Referers {
+
+    /**
+     * Prevents instantiation.
+     */
+    private Referers() {
+    }
+
+    /**
+     * Extracts the domain of a referer, without a leading {@code www.}.
+     *
+     * @param referer the referer, may be null
+     * @return the lower-case domain, empty for a click without a referer or with an invalid one
+     */
+    public static String domain(String referer) {
+        if (referer == null || referer.isBlank()) {
+            return "";
+        }
+        try {
+            String host = URI.create(referer.trim()).getHost();
+            if (host == null) {
+                return "";
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
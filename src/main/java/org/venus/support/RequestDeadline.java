@@ -0,0 +1,242 @@
+package org.venus.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.venus.metrics.MetricsConstants;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The latency budget of a request, bound to the thread that handles it.
+ *
+ * The budget is started where the request enters, see {@link #start(long)}, and the stages of the lookup chain
+ * consult it instead of relying on their own, independent timeouts only: a stage is skipped once the budget is used
+ * up, and waits are bounded by {@link #remainingNanos()}. The time every stage takes within a budget is recorded in
+ * {@code venus_request_stage_seconds}, and the stages that found the budget used up are counted in
+ * {@code venus_request_deadline_exceeded_total}, both tagged with the stage, which shows where the budget goes.
+ *
+ * Without a started budget, as for background work, there is no deadline and nothing is recorded.
+ */
+public final class RequestDeadline implements AutoCloseable {
+    /**
+     * The stage that looks up the primary (Caffeine) cache.
+     */
+    public static final String STAGE_PRIMARY_CACHE = "primary-cache";
+    /**
+     * The stage that looks up the second level (Redis) cache, including waits for a lease.
+     */
+    public static final String STAGE_SECOND_CACHE = "second-cache";
+    /**
+     * The stage that loads from the database, including the wait for a permit of the guard.
+     */
+    public static final String STAGE_DATABASE = "database";
+
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+    /**
+     * The budget of the request handled by the current thread.
+     */
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+    /**
+     * The timers of the stages by stage.
+     */
+    private static final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    /**
+     * The counters of the stages that found the budget used up by stage.
+     */
+    private static final Map<String, Counter> exceededCounters = new ConcurrentHashMap<>();
+    /**
+     * A budget that is not bound to the thread, closing it does nothing.
+     */
+    private static final RequestDeadline NONE = new RequestDeadline(Long.MAX_VALUE, null);
+
+    /**
+     * The time in nanoseconds, as of {@link System#nanoTime()}, when the budget is used up.
+     */
+    private final long deadline;
+    /**
+     * The budget that was bound to the thread before this one, restored when this one is closed.
+     */
+    private final RequestDeadline previous;
+
+    /**
+     * Constructs a RequestDeadline.
+     *
+     * @param deadline the time in nanoseconds when the budget is used up
+     * @param previous the budget that was bound to the thread before
+     */
+    private RequestDeadline(long deadline, RequestDeadline previous) {
+        this.deadline = deadline;
+        this.previous = previous;
+    }
+
+    /**
+     * Starts a budget for the request handled by the current thread. It must be closed when the request is
+     * handled, preferably with try-with-resources.
+     *
+     * @param budgetMillis the budget in milliseconds, zero or less for no deadline
+     * @return the started budget
+     */
+    public static RequestDeadline start(long budgetMillis) {
+        if (budgetMillis <= 0) {
+            return NONE;
+        }
+        RequestDeadline deadline = new RequestDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis), CURRENT.get());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Provides the time that is left of the budget of the current request.
+     *
+     * @return the remaining time in nanoseconds, zero if the budget is used up, {@link Long#MAX_VALUE} without budget
+     */
+    public static long remainingNanos() {
+        RequestDeadline current = CURRENT.get();
+        if (current == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, current.deadline - System.nanoTime());
+    }
+
+    /**
+     * Bounds a timeout by the time that is left of the budget of the current request.
+     *
+     * @param timeoutMillis the timeout of a stage in milliseconds
+     * @return the smaller of the timeout and the remaining time, in milliseconds
+     */
+    public static long boundMillis(long timeoutMillis) {
+        long remaining = remainingNanos();
+        return remaining == Long.MAX_VALUE ? timeoutMillis : Math.min(timeoutMillis, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    /**
+     * Indicates whether the current request has a budget.
+     *
+     * @return true if a budget is started on the current thread
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Indicates whether the budget of the current request is used up.
+     *
+     * @return true if the budget is used up, false if it is not or there is none
+     */
+    public static boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * Checks that there is time left before starting a stage. If there is not, the stage is counted as exceeded.
+     *
+     * @param stage the stage to start
+     * @return true if the stage may start
+     */
+    public static boolean tryEnter(String stage) {
+        if (!isExpired()) {
+            return true;
+        }
+        exceededCounters.computeIfAbsent(stage, s -> Counter.builder("venus_request_deadline_exceeded_total")
+                .tags(tags(s)).register(registry)).increment();
+        return false;
+    }
+
+    /**
+     * Checks that there is time left before starting a stage.
+     *
+     * @param stage the stage to start
+     * @throws DeadlineExceededException if the budget is used up
+     */
+    public static void check(String stage) {
+        if (!tryEnter(stage)) {
+            throw new DeadlineExceededException(stage);
+        }
+    }
+
+    /**
+     * Runs a stage and records its duration if the current request has a budget.
+     *
+     * @param stage the stage
+     * @param call the work of the stage
+     * @param <T> the type of the result
+     * @return the result of the stage
+     */
+    public static <T> T stage(String stage, Supplier<T> call) {
+        if (!isActive()) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            stageTimers.computeIfAbsent(stage, s -> Timer.builder("venus_request_stage_seconds")
+                    .tags(tags(s)).register(registry)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Binds the budget of the current request to a task that runs on another thread,
+     * so that the stages of the task consult the same deadline.
+     *
+     * @param task the task
+     * @param <T> the type of the result
+     * @return the task bound to the budget, or the task itself if the current request has no budget
+     */
+    public static <T> Callable<T> bind(Callable<T> task) {
+        RequestDeadline current = CURRENT.get();
+        if (current == null) {
+            return task;
+        }
+        return () -> {
+            RequestDeadline previous = CURRENT.get();
+            CURRENT.set(current);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Ends the budget and restores the budget that was bound to the thread before.
+     */
+    @Override
+    public void close() {
+        if (this == NONE) {
+            return;
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Provides the tags of the meters of a stage.
+     *
+     * @param stage the stage
+     * @return the tags
+     */
+    private static Tags tags(String stage) {
+        return Tags.of("stage", stage)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+    }
+}
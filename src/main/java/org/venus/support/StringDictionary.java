@@ -0,0 +1,130 @@
+package org.venus.support;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded dictionary that encodes strings as dense int codes, so that a column of repeated strings is stored as
+ * an int array and counted into an array indexed by code.
+ *
+ * The code {@link #MISSING} stands for a null or empty string and the code {@link #OTHER} for the strings that
+ * arrived once the dictionary was full. Encoding a known string is a lookup in a concurrent map; a new string is
+ * added under a lock. Decoding reads an array published after every addition, so that a reader that saw a code
+ * through a later publication can always decode it.
+ */
+public final class StringDictionary {
+    /**
+     * The code of a null or empty string.
+     */
+    public static final int MISSING = 0;
+    /**
+     * The code of the strings beyond the maximum size.
+     */
+    public static final int OTHER = 1;
+    /**
+     * The value decoded for {@link #OTHER}.
+     */
+    public static final String OTHER_VALUE = "(other)";
+
+    /**
+     * The codes by string.
+     */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    /**
+     * Serializes the additions.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * The maximum number of codes, including the reserved ones.
+     */
+    private final int maxSize;
+    /**
+     * The strings by code, replaced by a larger copy when full.
+     */
+    private volatile String[] values;
+    /**
+     * The number of codes, published after the string of the last code.
+     */
+    private volatile int size;
+
+    /**
+     * Constructs a StringDictionary.
+     *
+     * @param maxSize the maximum number of codes, including the two reserved ones
+     */
+    public StringDictionary(int maxSize) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("A dictionary holds at least the two reserved codes");
+        }
+        this.maxSize = maxSize;
+        String[] initial = new String[Math.min(maxSize, 64)];
+        initial[MISSING] = "";
+        initial[OTHER] = OTHER_VALUE;
+        this.values = initial;
+        this.size = 2;
+    }
+
+    /**
+     * Encodes a string, adding it if the dictionary is not full.
+     *
+     * @param value the string, may be null
+     * @return the code of the string, {@link #MISSING} for a null or empty one, {@link #OTHER} if the dictionary
+     *         is full
+     */
+    public int encode(String value) {
+        if (value == null || value.isEmpty()) {
+            return MISSING;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        lock.lock();
+        try {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = size;
+            if (next >= maxSize) {
+                return OTHER;
+            }
+            String[] current = values;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, Math.min(maxSize, current.length * 2));
+                values = current;
+            }
+            current[next] = value;
+            size = next + 1;
+            codes.put(value, next);
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Decodes a code.
+     *
+     * @param code the code
+     * @return the string of the code, empty for {@link #MISSING}
+     * @throws IndexOutOfBoundsException if the code was not assigned
+     */
+    public String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("The code " + code + " is not assigned");
+        }
+        return values[code];
+    }
+
+    /**
+     * Provides the number of codes, including the reserved ones.
+     *
+     * @return the number of codes
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,792 @@
+package org.venus.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.venus.metrics.MetricsConstants;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only spool of records on local disk, written before the records are handed to a slow sink such as the
+ * database, so that pending records survive a crash, a restart or a long outage of the sink.
+ *
+ * The spool is a directory of memory-mapped segment files of a fixed size. A record is appended to the current
+ * segment as its length, the CRC32 of its payload and the payload encoded by the {@link Codec}, the length written
+ * last so that a record is only visible once complete. When a segment is full, the next one is created, up to the
+ * maximum number of segments, beyond which records are dropped. Appending only copies into the mapping, so a record
+ * survives a crash of the process at once; a committer thread forces the current segment to the disk every commit
+ * interval, so that all records appended within an interval are made durable by one sync (group commit). A segment
+ * that fills up is handed to the committer, which is woken to force it, so that no append waits for a sync.
+ *
+ * A drainer thread reads the records from the checkpoint, hands them to the sink in batches and, once the sink took
+ * a batch, moves the checkpoint behind it and persists it in the {@code checkpoint} file. Segments entirely behind
+ * the checkpoint are deleted. A batch the sink failed to take for a retryable reason, such as an outage of the
+ * database, is retried with backoff, so records are delivered at least once: after a crash, the records after the
+ * last persisted checkpoint are delivered again. A batch that failed for another reason, such as a constraint
+ * violation, is handed to the sink record by record instead, and the records the sink still rejects are appended to
+ * the {@code dead-letter} file of the spool, in the framing of the segments, and skipped, so that one poison record
+ * never blocks the spool until it is full.
+ *
+ * On opening, the spool continues from the persisted checkpoint and recovers the end of the last segment by
+ * scanning its records up to the first one that is missing or fails its CRC, which is where a crash tore the tail.
+ *
+ * The spool publishes {@code venus_spool_appended_total}, {@code venus_spool_dropped_total},
+ * {@code venus_spool_drained_total}, {@code venus_spool_drain_failures_total},
+ * {@code venus_spool_dead_lettered_total}, the duration of the commits in
+ * {@code venus_spool_commit_seconds}, the undrained bytes in {@code venus_spool_backlog_bytes} and the number of
+ * segments in {@code venus_spool_segments}, all tagged with the name of the spool.
+ *
+ * @param <T> the type of the records
+ */
+@Slf4j
+public class WriteAheadSpool<T> implements AutoCloseable {
+    /**
+     * Encodes and decodes the records of a spool.
+     *
+     * @param <T> the type of the records
+     */
+    public interface Codec<T> {
+        /**
+         * Encodes a record.
+         *
+         * @param value the record
+         * @param out the writer of the payload
+         */
+        void encode(T value, BinaryWriter out);
+
+        /**
+         * Decodes a record.
+         *
+         * @param in the reader of the payload
+         * @return the record
+         */
+        T decode(BinaryReader in);
+    }
+
+    /**
+     * The prefix of the names of the segment files.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+    /**
+     * The suffix of the names of the segment files.
+     */
+    private static final String SEGMENT_SUFFIX = ".spool";
+    /**
+     * The name of the file that holds the checkpoint.
+     */
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    /**
+     * The name of the file that holds the records the sink rejected for good.
+     */
+    private static final String DEAD_LETTER_FILE = "dead-letter";
+    /**
+     * The size of the header of a record: the length and the CRC32 of the payload.
+     */
+    private static final int HEADER_BYTES = 8;
+    /**
+     * The maximum backoff in milliseconds between retries of a batch the sink failed to take.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+    /**
+     * The registry of the meters.
+     */
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    /**
+     * A segment file and its mapping.
+     *
+     * @param id the sequence number of the segment
+     * @param path the file of the segment
+     * @param channel the channel the segment is mapped from
+     * @param buffer the mapping of the segment
+     */
+    private record Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    /**
+     * The name of the spool, used for the threads, the logs and the meters.
+     */
+    private final String name;
+    /**
+     * The directory of the segment files and the checkpoint.
+     */
+    private final Path directory;
+    /**
+     * The size of a segment file in bytes.
+     */
+    private final int segmentSize;
+    /**
+     * The maximum number of segment files.
+     */
+    private final int maxSegments;
+    /**
+     * The interval in nanoseconds at which the current segment is forced to the disk.
+     */
+    private final long commitIntervalNanos;
+    /**
+     * The maximum number of records handed to the sink at once.
+     */
+    private final int batchSize;
+    /**
+     * The backoff in milliseconds before the first retry of a batch the sink failed to take.
+     */
+    private final long retryBackoffMillis;
+    /**
+     * Encodes and decodes the records.
+     */
+    private final Codec<T> codec;
+    /**
+     * Takes the batches of drained records, for example by inserting them into the database.
+     */
+    private final Consumer<List<T>> sink;
+    /**
+     * Decides whether a failure of the sink is worth retrying the batch.
+     */
+    private final Predicate<Throwable> retryable;
+    /**
+     * The open segments by sequence number.
+     */
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    /**
+     * Serializes the appends.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+    /**
+     * Encodes the appended records, guarded by the append lock.
+     */
+    private final BinaryWriter encoder = new BinaryWriter(256);
+    /**
+     * Computes the checksums of the appended records, guarded by the append lock.
+     */
+    private final CRC32 appendCrc = new CRC32();
+    /**
+     * The full segments that the committer has not forced to the disk yet.
+     */
+    private final Queue<Segment> rolled = new ConcurrentLinkedQueue<>();
+    /**
+     * The segment records are appended to.
+     */
+    private volatile Segment head;
+    /**
+     * The position behind the last appended record, see {@link #position(long, int)}.
+     */
+    private volatile long published;
+    /**
+     * The position behind the last record taken by the sink.
+     */
+    private volatile long checkpoint;
+    /**
+     * Counts the appended records.
+     */
+    private final Counter appended;
+    /**
+     * Counts the records dropped because the spool was full or closed.
+     */
+    private final Counter dropped;
+    /**
+     * Counts the records taken by the sink.
+     */
+    private final Counter drained;
+    /**
+     * Counts the batches the sink failed to take.
+     */
+    private final Counter drainFailures;
+    /**
+     * Counts the records the sink rejected for good.
+     */
+    private final Counter deadLettered;
+    /**
+     * Records the duration of the commits.
+     */
+    private final Timer commitTimer;
+    /**
+     * Forces the current segment to the disk every commit interval.
+     */
+    private Thread committer;
+    /**
+     * Hands the records to the sink.
+     */
+    private Thread drainer;
+    /**
+     * Whether the spool is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Opens a spool in a directory, recovering the records that were not drained before, and starts its threads.
+     *
+     * @param name the name of the spool
+     * @param directory the directory of the segment files, created if it does not exist
+     * @param segmentSize the size of a segment file in bytes
+     * @param maxSegments the maximum number of segment files
+     * @param commitIntervalMillis the interval in milliseconds at which appended records are forced to the disk
+     * @param batchSize the maximum number of records handed to the sink at once
+     * @param retryBackoffMillis the backoff in milliseconds before the first retry of a batch the sink failed to take
+     * @param codec encodes and decodes the records
+     * @param sink takes the batches of drained records, the list is only valid for the duration of the call
+     * @param retryable decides whether a failure of the sink is worth retrying, the records of other failures are
+     *        dead-lettered
+     * @throws UncheckedIOException if the spool cannot be opened
+     */
+    public WriteAheadSpool(String name, Path directory, int segmentSize, int maxSegments, long commitIntervalMillis,
+                           int batchSize, long retryBackoffMillis, Codec<T> codec, Consumer<List<T>> sink,
+                           Predicate<Throwable> retryable) {
+        if (segmentSize <= HEADER_BYTES || maxSegments < 2 || batchSize <= 0 || commitIntervalMillis <= 0) {
+            throw new IllegalArgumentException("A spool needs a positive commit interval and batch size, " +
+                    "and at least 2 segments larger than a record header");
+        }
+        this.name = name;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis);
+        this.batchSize = batchSize;
+        this.retryBackoffMillis = Math.max(1, retryBackoffMillis);
+        this.codec = codec;
+        this.sink = sink;
+        this.retryable = retryable;
+
+        Tags tags = Tags.of("spool", name)
+                .and(MetricsConstants.TYPE_APPLICATION_NAME, MetricsConstants.DEFAULT_APPLICATION_NAME)
+                .and(MetricsConstants.TYPE_VERSION, MetricsConstants.DEFAULT_APPLICATION_VERSION);
+        this.appended = Counter.builder("venus_spool_appended_total").tags(tags).register(registry);
+        this.dropped = Counter.builder("venus_spool_dropped_total").tags(tags).register(registry);
+        this.drained = Counter.builder("venus_spool_drained_total").tags(tags).register(registry);
+        this.drainFailures = Counter.builder("venus_spool_drain_failures_total").tags(tags).register(registry);
+        this.deadLettered = Counter.builder("venus_spool_dead_lettered_total").tags(tags).register(registry);
+        this.commitTimer = Timer.builder("venus_spool_commit_seconds").tags(tags).register(registry);
+        Gauge.builder("venus_spool_backlog_bytes", this, WriteAheadSpool::backlogBytes).tags(tags).register(registry);
+        Gauge.builder("venus_spool_segments", segments, Map::size).tags(tags).register(registry);
+
+        try {
+            recover();
+        } catch (IOException e) {
+            closeSegments();
+            throw new UncheckedIOException("Failed to open the spool " + directory, e);
+        }
+        this.committer = Thread.ofVirtual().name(name + "-spool-committer").start(this::runCommitter);
+        this.drainer = Thread.ofVirtual().name(name + "-spool-drainer").start(this::runDrainer);
+    }
+
+    /**
+     * Appends a record to the spool.
+     *
+     * @param value the record
+     * @return true if the record is appended, false if it is dropped because the spool is full or closed
+     * @throws IllegalArgumentException if the encoded record does not fit into a segment
+     */
+    public boolean append(T value) {
+        appendLock.lock();
+        try {
+            if (closed) {
+                dropped.increment();
+                return false;
+            }
+            encoder.reset();
+            codec.encode(value, encoder);
+            int length = encoder.size();
+            if (length == 0 || HEADER_BYTES + length > segmentSize) {
+                throw new IllegalArgumentException("A record of " + length + " bytes does not fit into a segment");
+            }
+            Segment segment = head;
+            int offset = offset(published);
+            if (offset + HEADER_BYTES + length > segmentSize) {
+                segment = roll(segment);
+                if (segment == null) {
+                    dropped.increment();
+                    return false;
+                }
+                offset = 0;
+            }
+            appendCrc.reset();
+            appendCrc.update(encoder.buffer(), 0, length);
+            MappedByteBuffer buffer = segment.buffer();
+            buffer.putInt(offset + 4, (int) appendCrc.getValue());
+            buffer.put(offset + HEADER_BYTES, encoder.buffer(), 0, length);
+            buffer.putInt(offset, length);
+            published = position(segment.id(), offset + HEADER_BYTES + length);
+        } finally {
+            appendLock.unlock();
+        }
+        appended.increment();
+        return true;
+    }
+
+    /**
+     * Provides the number of appended bytes that the sink has not taken yet.
+     *
+     * @return the backlog in bytes
+     */
+    public long backlogBytes() {
+        long end = published;
+        long start = checkpoint;
+        return (segment(end) - segment(start)) * segmentSize + offset(end) - offset(start);
+    }
+
+    /**
+     * Stops the threads, forces the appended records to the disk and closes the segments.
+     * The records that are not drained yet stay in the spool for the next start.
+     */
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        for (Thread thread : new Thread[]{committer, drainer}) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        commit();
+        closeSegments();
+    }
+
+    /**
+     * Opens the segments after the checkpoint and recovers the end of the last one.
+     *
+     * @throws IOException if a file cannot be read or written
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        long position = readCheckpoint();
+        List<Long> ids;
+        try (Stream<Path> files = Files.list(directory)) {
+            ids = files.map(f -> f.getFileName().toString())
+                    .filter(f -> f.startsWith(SEGMENT_PREFIX) && f.endsWith(SEGMENT_SUFFIX))
+                    .map(f -> Long.parseLong(f, SEGMENT_PREFIX.length(), f.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+        for (long id : ids) {
+            if (id < segment(position)) {
+                Files.deleteIfExists(segmentPath(id));
+            } else {
+                segments.put(id, openSegment(id));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(segment(position), openSegment(segment(position)));
+        } else if (segments.firstKey() > segment(position)) {
+            // the segment of the checkpoint is gone, continue with the oldest one there is
+            position = position(segments.firstKey(), 0);
+        }
+        this.checkpoint = position;
+        this.head = segments.lastEntry().getValue();
+        int end = recoverEnd(head, head.id() == segment(position) ? offset(position) : 0);
+        this.published = position(head.id(), end);
+        if (log.isInfoEnabled()) {
+            log.info("Spool[{}] opened with {} segments and {} bytes to drain", name, segments.size(), backlogBytes());
+        }
+    }
+
+    /**
+     * Finds the end of the valid records of a segment and clears a torn record behind them.
+     *
+     * @param segment the segment
+     * @param from the offset of a record to scan from
+     * @return the offset behind the last valid record
+     */
+    private int recoverEnd(Segment segment, int from) {
+        MappedByteBuffer buffer = segment.buffer();
+        int offset = from;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentSize
+                    || !matches(buffer, offset, length, crc)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        if (offset + HEADER_BYTES <= segmentSize && buffer.getInt(offset) != 0) {
+            if (log.isWarnEnabled()) {
+                log.warn("Spool[{}] truncates a torn record at offset {} of segment {}", name, offset, segment.id());
+            }
+            for (int i = offset; i < segmentSize; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Creates the next segment once the current one is full, and hands the full one to the committer to force it,
+     * so that the append lock is not held during the sync.
+     *
+     * @param full the full segment
+     * @return the next segment, or null if the spool has the maximum number of segments
+     */
+    private Segment roll(Segment full) {
+        if (segments.size() >= maxSegments) {
+            return null;
+        }
+        try {
+            Segment next = openSegment(full.id() + 1);
+            segments.put(next.id(), next);
+            head = next;
+            rolled.add(full);
+            LockSupport.unpark(committer);
+            return next;
+        } catch (IOException e) {
+            if (log.isErrorEnabled()) {
+                log.error("Spool[{}] failed to create segment {}", name, full.id() + 1, e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The loop of the committer thread.
+     */
+    private void runCommitter() {
+        while (!closed) {
+            LockSupport.parkNanos(this, commitIntervalNanos);
+            commit();
+        }
+    }
+
+    /**
+     * Forces the segments rolled since the last commit and the current segment to the disk. A rolled segment that
+     * was drained and deleted in the meantime is skipped, and one that fails to sync is retried with the next commit.
+     */
+    private void commit() {
+        long start = System.nanoTime();
+        try {
+            for (Segment segment; (segment = rolled.peek()) != null; rolled.poll()) {
+                if (segments.containsKey(segment.id())) {
+                    segment.buffer().force();
+                }
+            }
+            head.buffer().force();
+        } catch (Exception e) {
+            if (log.isErrorEnabled()) {
+                log.error("Spool[{}] failed to commit", name, e);
+            }
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The loop of the drainer thread: hands batches to the sink, waits a commit interval when there are no records,
+     * and backs off when the sink fails for a retryable reason.
+     */
+    private void runDrainer() {
+        int failures = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        List<Long> starts = new ArrayList<>(batchSize);
+        while (!closed) {
+            long end = read(checkpoint, batch, starts);
+            if (batch.isEmpty()) {
+                if (end != checkpoint) {
+                    advance(end);
+                }
+                LockSupport.parkNanos(this, commitIntervalNanos);
+                continue;
+            }
+            try {
+                deliver(batch, starts);
+                advance(end);
+                failures = 0;
+            } catch (Exception e) {
+                drainFailures.increment();
+                long backoff = Math.min(MAX_BACKOFF_MILLIS, retryBackoffMillis << Math.min(failures++, 16));
+                if (log.isWarnEnabled()) {
+                    log.warn("Spool[{}] failed to drain {} records, retrying in {}ms", name, batch.size(), backoff, e);
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoff));
+            } finally {
+                batch.clear();
+                starts.clear();
+            }
+        }
+    }
+
+    /**
+     * Hands records to the sink. When the sink rejects them for a reason that is not retryable, they are handed
+     * record by record, and the records it still rejects are dead-lettered.
+     *
+     * @param records the records
+     * @param starts the positions of the records
+     * @throws RuntimeException the retryable failure of the sink, the records before it may have been taken
+     */
+    private void deliver(List<T> records, List<Long> starts) {
+        try {
+            sink.accept(records);
+            drained.increment(records.size());
+            return;
+        } catch (RuntimeException e) {
+            if (retryable.test(e)) {
+                throw e;
+            }
+            drainFailures.increment();
+            if (records.size() == 1) {
+                deadLetter(starts.getFirst(), e);
+                return;
+            }
+            if (log.isWarnEnabled()) {
+                log.warn("Spool[{}] hands {} rejected records to the sink one by one after {}", name, records.size(), e.getMessage());
+            }
+        }
+        for (int i = 0; i < records.size(); i++) {
+            deliver(records.subList(i, i + 1), starts.subList(i, i + 1));
+        }
+    }
+
+    /**
+     * Appends a record the sink rejected for good to the dead-letter file, in the framing of the segments, so that
+     * it can be inspected or replayed with the codec. The record is skipped even if it cannot be written.
+     *
+     * @param start the position of the record
+     * @param cause the failure of the sink
+     */
+    private void deadLetter(long start, Exception cause) {
+        deadLettered.increment();
+        Segment segment = segments.get(segment(start));
+        int offset = offset(start);
+        byte[] frame = new byte[HEADER_BYTES + segment.buffer().getInt(offset)];
+        segment.buffer().get(offset, frame);
+        try {
+            Files.write(directory.resolve(DEAD_LETTER_FILE), frame, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            if (log.isErrorEnabled()) {
+                log.error("Spool[{}] dead-letters a record the sink rejected", name, cause);
+            }
+        } catch (IOException e) {
+            if (log.isErrorEnabled()) {
+                log.error("Spool[{}] skips a record the sink rejected, failed to dead-letter it", name, e);
+            }
+        }
+    }
+
+    /**
+     * Reads up to a batch of records.
+     *
+     * @param from the position to read from
+     * @param batch the list the records are added to
+     * @param starts the list the positions of the records are added to
+     * @return the position behind the read records
+     */
+    private long read(long from, List<T> batch, List<Long> starts) {
+        long end = published;
+        long position = from;
+        CRC32 crc = new CRC32();
+        while (batch.size() < batchSize && position != end) {
+            Segment segment = segments.get(segment(position));
+            int offset = offset(position);
+            if (segment == null) {
+                return end;
+            }
+            int length = offset + HEADER_BYTES <= segmentSize ? segment.buffer().getInt(offset) : 0;
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+                // the rest of a rolled segment is unused
+                position = position(segment(position) + 1, 0);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            segment.buffer().get(offset + HEADER_BYTES, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != segment.buffer().getInt(offset + 4)) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Spool[{}] skips the rest of segment {} after a corrupted record at offset {}",
+                            name, segment.id(), offset);
+                }
+                position = position(segment(position) + 1, 0);
+                continue;
+            }
+            try {
+                batch.add(codec.decode(new BinaryReader(payload)));
+                starts.add(position);
+            } catch (IllegalStateException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Spool[{}] skips an undecodable record at offset {} of segment {}", name, offset, segment.id());
+                }
+            }
+            position = position(segment(position), offset + HEADER_BYTES + length);
+        }
+        return position;
+    }
+
+    /**
+     * Moves the checkpoint, persists it and deletes the segments behind it.
+     *
+     * @param position the new checkpoint
+     */
+    private void advance(long position) {
+        checkpoint = position;
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate(12).putLong(position);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.array(), 0, 8);
+            bytes.putInt((int) crc.getValue());
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(tmp, bytes.array());
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (log.isErrorEnabled()) {
+                log.error("Spool[{}] failed to persist the checkpoint", name, e);
+            }
+            return;
+        }
+        for (Map.Entry<Long, Segment> entry : segments.headMap(segment(position)).entrySet()) {
+            Segment segment = entry.getValue();
+            segments.remove(entry.getKey());
+            try {
+                segment.channel().close();
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Spool[{}] failed to delete segment {}", name, segment.id(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the persisted checkpoint.
+     *
+     * @return the checkpoint, or the start of the first segment if there is none or it is corrupted
+     * @throws IOException if the file cannot be read
+     */
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return position(0, 0);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.min(8, bytes.length));
+        if (bytes.length != 12 || ByteBuffer.wrap(bytes).getInt(8) != (int) crc.getValue()) {
+            if (log.isWarnEnabled()) {
+                log.warn("Spool[{}] ignores a corrupted checkpoint and drains all segments", name);
+            }
+            return position(0, 0);
+        }
+        return ByteBuffer.wrap(bytes).getLong(0);
+    }
+
+    /**
+     * Opens or creates a segment file and maps it.
+     *
+     * @param id the sequence number of the segment
+     * @return the segment
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    private Segment openSegment(long id) throws IOException {
+        Path path = segmentPath(id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the channels of the open segments.
+     */
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel().close();
+            } catch (IOException e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Spool[{}] failed to close segment {}", name, segment.id(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Provides the file of a segment.
+     *
+     * @param id the sequence number of the segment
+     * @return the file
+     */
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Checks the CRC32 of a record in place.
+     *
+     * @param buffer the mapping of the segment
+     * @param offset the offset of the record
+     * @param length the length of the payload
+     * @param crc the checksum to reuse
+     * @return true if the checksum of the payload matches the one in the header
+     */
+    private static boolean matches(MappedByteBuffer buffer, int offset, int length, CRC32 crc) {
+        crc.reset();
+        crc.update(buffer.slice(offset + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(offset + 4);
+    }
+
+    /**
+     * Combines a segment and an offset into a position.
+     *
+     * @param segment the sequence number of the segment
+     * @param offset the offset in the segment
+     * @return the position
+     */
+    private static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    /**
+     * Provides the segment of a position.
+     *
+     * @param position the position
+     * @return the sequence number of the segment
+     */
+    private static long segment(long position) {
+        return position >>> 32;
+    }
+
+    /**
+     * Provides the offset of a position.
+     *
+     * @param position the position
+     * @return the offset in the segment
+     */
+    private static int offset(long position) {
+        return (int) position;
+    }
+}
@@ -15,20 +15,68 @@ CREATE TABLE links
 
 CREATE TABLE statistics
 (
-    id         BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Unique identifier for each click record',
+    id         BIGINT AUTO_INCREMENT COMMENT 'Unique identifier for each click record',
+    click_id   BIGINT NOT NULL DEFAULT 0 COMMENT 'Identifier of the click reported by the client, which its geo records reference',
     link_id    INT NOT NULL COMMENT 'Foreign key referencing the associated short link',
-    clicked_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT 'Timestamp when the click occurred',
+    clicked_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Timestamp when the click occurred',
     ip         VARCHAR(45) COMMENT 'IP address of the user who clicked the link',
     user_agent VARCHAR(500) COMMENT 'Browser information (User-Agent string) of the user who clicked the link',
-    referer    VARCHAR(500) COMMENT 'The referring page URL from which the user clicked the short link'
-) ENGINE=MyISAM;
+    referer    VARCHAR(500) COMMENT 'The referring page URL from which the user clicked the short link',
+    inserted_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT 'Timestamp when the row was inserted, which the rollups wait out before folding it',
+    PRIMARY KEY (id, clicked_at),
+    INDEX      idx_click_id (click_id)
+) ENGINE=InnoDB
+PARTITION BY RANGE (TO_DAYS(clicked_at)) (PARTITION pmax VALUES LESS THAN MAXVALUE);
 
 CREATE TABLE geo
 (
-    id        BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT 'Unique identifier for each geo location record',
-    click_id  INT NOT NULL COMMENT 'Foreign key referencing the associated click record',
-    country   VARCHAR(50) COMMENT 'Country derived from the IP address',
-    city      VARCHAR(50) COMMENT 'City derived from the IP address',
-    latitude  DECIMAL(10, 8) COMMENT 'Latitude for the location',
-    longitude DECIMAL(11, 8) COMMENT 'Longitude for the location'
-) ENGINE=MyISAM;
+    id         BIGINT AUTO_INCREMENT COMMENT 'Unique identifier for each geo location record',
+    click_id   INT NOT NULL COMMENT 'Identifier of the associated click, the click_id of its statistics record',
+    country    VARCHAR(50) COMMENT 'Country derived from the IP address',
+    city       VARCHAR(50) COMMENT 'City derived from the IP address',
+    latitude   DECIMAL(10, 8) COMMENT 'Latitude for the location',
+    longitude  DECIMAL(11, 8) COMMENT 'Longitude for the location',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Timestamp when the geo location was reported',
+    PRIMARY KEY (id, created_at)
+) ENGINE=InnoDB
+PARTITION BY RANGE (TO_DAYS(created_at)) (PARTITION pmax VALUES LESS THAN MAXVALUE);
+
+CREATE TABLE statistics_aggregate
+(
+    link_id         INT          NOT NULL COMMENT 'Foreign key referencing the associated short link',
+    bucket          DATETIME     NOT NULL COMMENT 'The minute of the counted clicks',
+    dimension       VARCHAR(16)  NOT NULL COMMENT 'The dimension of the count: total, referer or country',
+    dimension_value VARCHAR(255) NOT NULL COMMENT 'The referer domain or country, empty for the total or if unknown',
+    clicks          BIGINT       NOT NULL DEFAULT 0 COMMENT 'The number of clicks',
+    PRIMARY KEY (link_id, bucket, dimension, dimension_value)
+) ENGINE=InnoDB;
+
+CREATE TABLE statistics_rollup
+(
+    link_id     INT            NOT NULL COMMENT 'Foreign key referencing the associated short link',
+    granularity VARCHAR(8)     NOT NULL COMMENT 'The granularity of the bucket: minute, hour or day',
+    bucket      DATETIME       NOT NULL COMMENT 'The start of the bucket',
+    clicks      BIGINT         NOT NULL DEFAULT 0 COMMENT 'The number of clicks',
+    uniques     BIGINT         NOT NULL DEFAULT 0 COMMENT 'The estimated number of unique visitors',
+    visitors    BLOB           COMMENT 'The HyperLogLog sketch of the IP addresses of the visitors',
+    PRIMARY KEY (link_id, granularity, bucket)
+) ENGINE=InnoDB;
+
+CREATE TABLE statistics_rollup_referer
+(
+    link_id     INT          NOT NULL COMMENT 'Foreign key referencing the associated short link',
+    granularity VARCHAR(8)   NOT NULL COMMENT 'The granularity of the bucket: minute, hour or day',
+    bucket      DATETIME     NOT NULL COMMENT 'The start of the bucket',
+    referer     VARCHAR(255) NOT NULL COMMENT 'The referer domain, empty if unknown, (other) beyond the maximum per bucket',
+    clicks      BIGINT       NOT NULL DEFAULT 0 COMMENT 'The number of clicks',
+    PRIMARY KEY (link_id, granularity, bucket, referer)
+) ENGINE=InnoDB;
+
+CREATE TABLE statistics_rollup_watermark
+(
+    name       VARCHAR(64) PRIMARY KEY COMMENT 'The name of the rolled up source',
+    last_id    BIGINT NOT NULL DEFAULT 0 COMMENT 'The id of the last row folded into the rollups',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT 'Timestamp when the watermark last moved'
+) ENGINE=InnoDB;
+
+INSERT INTO statistics_rollup_watermark (name, last_id) VALUES ('statistics', 0);
@@ -0,0 +1,61 @@
+package org.venus.admin.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.venus.admin.configuration.ArchiveProperties;
+import org.venus.support.ColumnarFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the `ClickArchiveRepository` class.
+ * These tests verify that the late rows of an archived day, exported with a later partition, do not replace the rows
+ * archived before.
+ */
+public class ClickArchiveRepositoryTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 7);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that the files of two partitions of the same day are both scanned, and that a new export of a partition
+     * only replaces its own file.
+     */
+    @Test
+    void testKeepsTheRowsOfADayAcrossPartitions() throws IOException {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setDirectory(directory.toString());
+        ClickArchiveRepository repository = new ClickArchiveRepository();
+        ReflectionTestUtils.setField(repository, "properties", properties);
+
+        write(repository, "p20260307", 1, 2);
+        write(repository, "p20260308", 3);
+        write(repository, "p20260308", 3, 4);
+
+        List<Long> ids = new ArrayList<>();
+        repository.scanStatistics(null, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(),
+                statistics -> ids.add(statistics.getId()));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids);
+    }
+
+    private static void write(ClickArchiveRepository repository, String partition, long... ids) throws IOException {
+        long second = DAY.atTime(12, 0).toEpochSecond(ZoneOffset.UTC);
+        try (ColumnarFile.Writer writer = repository.writer("statistics", DAY, partition)) {
+            for (long id : ids) {
+                writer.setLong(0, id).setLong(1, 7).setLong(2, second + id)
+                        .setString(3, "10.0.0.1").setString(4, null).setString(5, null);
+                writer.endRow();
+            }
+            writer.commit();
+        }
+    }
+}
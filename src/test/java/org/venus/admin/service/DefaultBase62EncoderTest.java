@@ -34,4 +34,20 @@ public class DefaultBase62EncoderTest {
         // the result is derived from the encode function
         assertEquals("3CLbFw", encoder.encode(input));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDecodeIsTheInverseOfEncode() {
+        for (long input : new long[]{0, 1, 63, 64, 1357986420, Long.MAX_VALUE >> 4}) {
+            assertEquals(input, encoder.decode(encoder.encode(input)));
+        }
+    }
+
+    @Test
+    public void testDecodeWithNonCanonicalCode() {
+        // leading zero characters, characters outside the encoding and too long codes have no long value
+        assertEquals(-1, encoder.decode("AB"));
+        assertEquals(-1, encoder.decode("ab_c"));
+        assertEquals(-1, encoder.decode("BAAAAAAAAAA"));
+        assertEquals(-1, encoder.decode(""));
+    }
+}
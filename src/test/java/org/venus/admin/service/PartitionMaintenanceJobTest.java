@@ -0,0 +1,78 @@
+package org.venus.admin.service;
+
+import org.junit.jupiter.api.Test;
+import org.venus.admin.domain.PartitionGranularity;
+import org.venus.admin.repository.PartitionRepository.Partition;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `PartitionMaintenanceJob` class.
+ * These tests verify the partitions planned for creation and drop from the current partitions of a table.
+ */
+public class PartitionMaintenanceJobTest {
+
+    /**
+     * Tests that a table with only the MAXVALUE partition gets the partitions of the current and coming days.
+     */
+    @Test
+    void testCreatesPartitionsAheadOfAFreshTable() {
+        PartitionMaintenanceJob.Plan plan = PartitionMaintenanceJob.plan(List.of(new Partition("pmax", null)),
+                LocalDate.of(2026, 10, 19), PartitionGranularity.DAY, 2, 90, 4);
+
+        assertEquals("pmax", plan.maxPartition());
+        assertEquals(List.of(
+                new Partition("p20261019", LocalDate.of(2026, 10, 20)),
+                new Partition("p20261020", LocalDate.of(2026, 10, 21)),
+                new Partition("p20261021", LocalDate.of(2026, 10, 22))), plan.create());
+        assertTrue(plan.drop().isEmpty());
+    }
+
+    /**
+     * Tests that only the missing partitions are created, and that nothing is planned once they all exist.
+     */
+    @Test
+    void testCreatesOnlyMissingPartitions() {
+        List<Partition> partitions = List.of(
+                new Partition("p202609", LocalDate.of(2026, 10, 1)),
+                new Partition("p202610", LocalDate.of(2026, 11, 1)),
+                new Partition("pmax", null));
+
+        PartitionMaintenanceJob.Plan plan = PartitionMaintenanceJob.plan(partitions, LocalDate.of(2026, 10, 19),
+                PartitionGranularity.MONTH, 1, 0, 4);
+        assertEquals(List.of(new Partition("p202611", LocalDate.of(2026, 12, 1))), plan.create());
+
+        PartitionMaintenanceJob.Plan done = PartitionMaintenanceJob.plan(partitions, LocalDate.of(2026, 10, 19),
+                PartitionGranularity.MONTH, 0, 0, 4);
+        assertTrue(done.create().isEmpty());
+        assertTrue(done.drop().isEmpty());
+    }
+
+    /**
+     * Tests that the partitions beyond the retention are dropped, the oldest first and at most the given number.
+     */
+    @Test
+    void testDropsExpiredPartitionsInChunks() {
+        List<Partition> partitions = List.of(
+                new Partition("p20261014", LocalDate.of(2026, 10, 15)),
+                new Partition("p20261015", LocalDate.of(2026, 10, 16)),
+                new Partition("p20261016", LocalDate.of(2026, 10, 17)),
+                new Partition("p20261017", LocalDate.of(2026, 10, 18)),
+                new Partition("p20261018", LocalDate.of(2026, 10, 19)),
+                new Partition("p20261019", LocalDate.of(2026, 10, 20)),
+                new Partition("pmax", null));
+
+        PartitionMaintenanceJob.Plan plan = PartitionMaintenanceJob.plan(partitions, LocalDate.of(2026, 10, 19),
+                PartitionGranularity.DAY, 0, 2, 2);
+
+        assertEquals(List.of("p20261014", "p20261015"), plan.drop());
+        assertTrue(plan.create().isEmpty());
+
+        PartitionMaintenanceJob.Plan all = PartitionMaintenanceJob.plan(partitions, LocalDate.of(2026, 10, 19),
+                PartitionGranularity.DAY, 0, 2, 10);
+        assertEquals(List.of("p20261014", "p20261015", "p20261016"), all.drop());
+    }
+}
@@ -0,0 +1,109 @@
+package org.venus.admin.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.venus.admin.configuration.StatisticsRollupProperties;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.repository.StatisticsRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the `StatisticsRollupJob` class.
+ * These tests verify that the watermark never passes a click whose insert commits after clicks with higher ids.
+ */
+public class StatisticsRollupJobTest {
+    private static final LocalDateTime CLICKED_AT = LocalDateTime.of(2026, 3, 7, 9, 41);
+
+    /**
+     * An in-memory statistics table whose rows are visible once committed, and settled once inserted more than the
+     * lag before the current time.
+     */
+    private static class InMemoryRollupRepository extends StatisticsRollupRepository {
+        private final Map<Long, Long> insertedAt = new TreeMap<>();
+        private final Map<Long, Boolean> committed = new TreeMap<>();
+        private long now;
+        private long watermark;
+        private long rolledUpClicks;
+
+        void insert(long id, long at, boolean commit) {
+            insertedAt.put(id, at);
+            committed.put(id, commit);
+        }
+
+        @Override
+        public long lockWatermark(String name) {
+            return watermark;
+        }
+
+        @Override
+        public void updateWatermark(String name, long lastId) {
+            watermark = lastId;
+        }
+
+        @Override
+        public List<Click> clicksAfter(long afterId, int limit, long settleLag) {
+            List<Click> clicks = new ArrayList<>();
+            insertedAt.forEach((id, at) -> {
+                if (id > afterId && committed.get(id) && clicks.size() < limit) {
+                    clicks.add(new Click(id, 1, CLICKED_AT, "10.0.0." + id, null, at < now - settleLag));
+                }
+            });
+            return clicks;
+        }
+
+        @Override
+        public Map<RollupKey, byte[]> sketches(Collection<RollupKey> keys) {
+            return Map.of();
+        }
+
+        @Override
+        public void upsertRollups(List<Rollup> rollups) {
+            rollups.stream()
+                    .filter(rollup -> rollup.key().granularity() == StatisticsGranularity.DAY)
+                    .forEach(rollup -> rolledUpClicks += rollup.clicks());
+        }
+
+        @Override
+        public void upsertReferers(List<RefererClicks> referers) {
+        }
+    }
+
+    /**
+     * Tests that a click committed after a click with a higher id is still folded, because the batch stops at the
+     * click that is not settled yet.
+     */
+    @Test
+    void testFoldsClicksCommittedOutOfIdOrder() {
+        StatisticsRollupProperties properties = new StatisticsRollupProperties();
+        properties.setSettleLag(1000);
+        InMemoryRollupRepository repository = new InMemoryRollupRepository();
+        StatisticsRollupJob job = new StatisticsRollupJob();
+        ReflectionTestUtils.setField(job, "properties", properties);
+        ReflectionTestUtils.setField(job, "rollupRepository", repository);
+
+        repository.insert(1, 0, true);
+        repository.insert(2, 0, false);
+        repository.insert(3, 10, true);
+
+        repository.now = 500;
+        assertEquals(0, job.foldBatch());
+
+        repository.now = 1005;
+        assertEquals(1, job.foldBatch());
+        assertEquals(1, repository.watermark);
+
+        repository.committed.put(2L, true);
+        repository.now = 2000;
+        assertEquals(2, job.foldBatch());
+        assertEquals(3, repository.watermark);
+        assertEquals(3, repository.rolledUpClicks);
+    }
+}
@@ -0,0 +1,245 @@
+package org.venus.admin.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.venus.admin.configuration.VisitorCounterProperties;
+import org.venus.admin.domain.StatisticsGranularity;
+import org.venus.admin.domain.StatisticsVisitorsResponse;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `StatisticsVisitorCounter` class.
+ * These tests verify the keys of the sketches, which all nodes must build alike to share them, that a click is added
+ * to the sketches of its hour and day, that the visitors of a range are merged across its buckets, and that the
+ * disabled counter does not query Redis.
+ */
+public class StatisticsVisitorCounterTest {
+
+    /**
+     * A StringRedisTemplate that keeps the sketches as exact sets, so that the counts of {@code PFCOUNT} are exact,
+     * and fails the pipelines while asked to.
+     */
+    private static class SketchingRedisTemplate extends StringRedisTemplate {
+        private final Map<String, Set<String>> sketches = new ConcurrentHashMap<>();
+        private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            if (failing) {
+                throw new RedisConnectionFailureException("unreachable");
+            }
+            List<Object> results = new ArrayList<>();
+            StringRedisConnection connection = (StringRedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{StringRedisConnection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "pfAdd" -> {
+                                String key = (String) args[0];
+                                sketches.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet())
+                                        .addAll(Arrays.asList((String[]) args[1]));
+                                results.add(1L);
+                            }
+                            case "pExpire" -> {
+                                expiries.put((String) args[0], (Long) args[1]);
+                                results.add(Boolean.TRUE);
+                            }
+                            case "pfCount" -> results.add(count((Object[]) args[0]));
+                            default -> throw new UnsupportedOperationException(method.getName());
+                        }
+                        return null;
+                    });
+            action.doInRedis(connection);
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public HyperLogLogOperations<String, String> opsForHyperLogLog() {
+            return (HyperLogLogOperations<String, String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{HyperLogLogOperations.class}, (proxy, method, args) -> {
+                        if (!method.getName().equals("size")) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return count((Object[]) args[0]);
+                    });
+        }
+
+        /**
+         * Counts the visitors of the union of sketches, like {@code PFCOUNT} of several keys.
+         */
+        private long count(Object... keys) {
+            Set<String> union = new HashSet<>();
+            for (Object key : keys) {
+                union.addAll(sketches.getOrDefault(key, Set.of()));
+            }
+            return union.size();
+        }
+
+        int size(String key) {
+            return sketches.getOrDefault(key, Set.of()).size();
+        }
+    }
+
+    private final SketchingRedisTemplate template = new SketchingRedisTemplate();
+    private final VisitorCounterProperties properties = new VisitorCounterProperties();
+    private StatisticsVisitorCounter counter;
+
+    /**
+     * Creates a counter that sends the visitors to the sketching template only when the test flushes it.
+     *
+     * @param enabled whether the counts are enabled
+     * @return the counter
+     */
+    private StatisticsVisitorCounter counter(boolean enabled) {
+        properties.setEnabled(enabled);
+        properties.setFlushInterval(3600000);
+        counter = new StatisticsVisitorCounter();
+        ReflectionTestUtils.setField(counter, "properties", properties);
+        ReflectionTestUtils.setField(counter, "connectionFactory", Mockito.mock(RedisConnectionFactory.class));
+        counter.init();
+        if (enabled) {
+            ReflectionTestUtils.setField(counter, "template", template);
+        }
+        return counter;
+    }
+
+    private String key(long linkId, StatisticsGranularity granularity, LocalDateTime time) {
+        return StatisticsVisitorCounter.key(properties.getKeyPrefix(), linkId, granularity, time);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (counter != null) {
+            counter.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a time maps to the sketch of its hour and of its day, within the hash tag of its link.
+     */
+    @Test
+    void testKeysOfTheBucketsOfAClick() {
+        LocalDateTime time = LocalDateTime.of(2026, 3, 7, 9, 41, 12);
+
+        assertEquals("venus:visitors:{42}:hour:2026030709",
+                StatisticsVisitorCounter.key("venus:visitors", 42, StatisticsGranularity.HOUR, time));
+        assertEquals("venus:visitors:{42}:day:20260307",
+                StatisticsVisitorCounter.key("venus:visitors", 42, StatisticsGranularity.DAY, time));
+        assertEquals(StatisticsVisitorCounter.key("venus:visitors", 42, StatisticsGranularity.HOUR, time.withMinute(0).withSecond(0)),
+                StatisticsVisitorCounter.key("venus:visitors", 42, StatisticsGranularity.HOUR, time));
+    }
+
+    /**
+     * Tests that a click is added to the sketches of its hour and day with their retentions, that a visitor is sent
+     * once per sketch however often it clicks, that a click without ip is not counted, and that the hourly query
+     * counts each hour on its own while its total counts a visitor of several hours once.
+     */
+    @Test
+    void testCountsTheVisitorsOfEachHour() {
+        StatisticsVisitorCounter counter = counter(true);
+        LocalDateTime hour = LocalDateTime.of(2026, 3, 7, 9, 0);
+        counter.recordClick(1, hour.plusMinutes(41), "10.0.0.1");
+        counter.recordClick(1, hour.plusMinutes(59), " 10.0.0.1 ");
+        counter.recordClick(1, hour.plusMinutes(75), "10.0.0.1");
+        counter.recordClick(1, hour.plusMinutes(80), "10.0.0.2");
+        counter.recordClick(1, hour.plusMinutes(90), " ");
+        counter.recordClick(2, hour, "10.0.0.3");
+        ReflectionTestUtils.invokeMethod(counter, "flush");
+
+        assertEquals(1, template.size(key(1, StatisticsGranularity.HOUR, hour)));
+        assertEquals(2, template.size(key(1, StatisticsGranularity.HOUR, hour.plusHours(1))));
+        assertEquals(2, template.size(key(1, StatisticsGranularity.DAY, hour)));
+        assertEquals(Long.valueOf(properties.getHourRetention()), template.expiries.get(key(1, StatisticsGranularity.HOUR, hour)));
+        assertEquals(Long.valueOf(properties.getDayRetention()), template.expiries.get(key(1, StatisticsGranularity.DAY, hour)));
+
+        StatisticsVisitorsResponse response = counter.query(1, hour.plusMinutes(30), hour.plusHours(3), StatisticsGranularity.HOUR);
+
+        assertEquals(hour, response.getFrom());
+        assertEquals(List.of(new StatisticsVisitorsResponse.Bucket(hour, 1),
+                new StatisticsVisitorsResponse.Bucket(hour.plusHours(1), 2)), response.getBuckets());
+        assertEquals(2, response.getVisitors());
+        assertThrows(IllegalArgumentException.class,
+                () -> counter.query(1, hour, hour.plusHours(properties.getMaxBuckets() + 1), StatisticsGranularity.HOUR));
+        assertThrows(IllegalArgumentException.class, () -> counter.query(1, hour, hour, StatisticsGranularity.HOUR));
+        assertThrows(IllegalArgumentException.class, () -> counter.query(1, hour, hour.plusHours(1), StatisticsGranularity.MINUTE));
+    }
+
+    /**
+     * Tests that the daily query merges the sketches of the days of the range, so that a visitor of several days is
+     * counted once in the total, and that a range without visitors counts none without merging the sketches.
+     */
+    @Test
+    void testMergesTheVisitorsAcrossDays() {
+        StatisticsVisitorCounter counter = counter(true);
+        LocalDateTime day = LocalDateTime.of(2026, 3, 7, 0, 0);
+        counter.recordClick(1, day.plusHours(23).plusMinutes(59), "10.0.0.1");
+        counter.recordClick(1, day.plusDays(1), "10.0.0.1");
+        counter.recordClick(1, day.plusDays(1).plusHours(12), "10.0.0.2");
+        counter.recordClick(1, day.plusDays(3), "10.0.0.3");
+        ReflectionTestUtils.invokeMethod(counter, "flush");
+
+        StatisticsVisitorsResponse response = counter.query(1, day.plusHours(8), day.plusDays(3), StatisticsGranularity.DAY);
+
+        assertEquals(day, response.getFrom());
+        assertEquals(List.of(new StatisticsVisitorsResponse.Bucket(day, 1),
+                new StatisticsVisitorsResponse.Bucket(day.plusDays(1), 2)), response.getBuckets());
+        assertEquals(2, response.getVisitors());
+        assertEquals(3, counter.query(1, day, day.plusDays(4), StatisticsGranularity.DAY).getVisitors());
+
+        StatisticsVisitorsResponse empty = counter.query(1, day.minusDays(5), day, StatisticsGranularity.DAY);
+        assertTrue(empty.getBuckets().isEmpty());
+        assertEquals(0, empty.getVisitors());
+    }
+
+    /**
+     * Tests that the visitors of a failed flush are buffered again and sent by the next flush.
+     */
+    @Test
+    void testFailedFlushKeepsTheVisitors() {
+        StatisticsVisitorCounter counter = counter(true);
+        LocalDateTime hour = LocalDateTime.of(2026, 3, 7, 9, 0);
+        counter.recordClick(1, hour, "10.0.0.1");
+        template.failing = true;
+
+        ReflectionTestUtils.invokeMethod(counter, "flush");
+        assertEquals(0, template.size(key(1, StatisticsGranularity.HOUR, hour)));
+
+        template.failing = false;
+        ReflectionTestUtils.invokeMethod(counter, "flush");
+        assertEquals(1, template.size(key(1, StatisticsGranularity.HOUR, hour)));
+        assertEquals(1, template.size(key(1, StatisticsGranularity.DAY, hour)));
+    }
+
+    /**
+     * Tests that the disabled counter reports itself disabled, refuses the queries and shuts down without flushing.
+     */
+    @Test
+    void testDisabledCounterIsNotQueried() {
+        StatisticsVisitorCounter counter = counter(false);
+        LocalDateTime hour = LocalDateTime.of(2026, 3, 7, 9, 0);
+
+        assertFalse(counter.isEnabled());
+        assertThrows(IllegalStateException.class, () -> counter.query(1, hour, hour.plusHours(1), StatisticsGranularity.HOUR));
+        counter.shutdown();
+        assertTrue(template.sketches.isEmpty());
+    }
+}
@@ -0,0 +1,216 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `BinaryCacheRedisSerializer` class.
+ * These tests verify that cache wrappers and listener messages survive a round trip,
+ * that long URLs are compressed, and that JSON values written before switching the serializer are still readable.
+ */
+public class BinaryCacheRedisSerializerTest {
+
+    /**
+     * Creates the binary serializer with a JSON delegate and a compression threshold of 128 bytes.
+     *
+     * @return the serializer under test
+     */
+    private static BinaryCacheRedisSerializer serializer() {
+        return new BinaryCacheRedisSerializer(new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), Object.class), 128);
+    }
+
+    /**
+     * Creates a value wrapper with the given original URL.
+     *
+     * @param url the original URL
+     * @return the value wrapper
+     */
+    private static ValueWrapper value(String url) {
+        return ValueWrapper.builder()
+                .id(42L)
+                .code("q")
+                .redirect(302)
+                .originalUrl(url)
+                .expiresAt(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MILLIS))
+                .isActive((short) 1)
+                .build();
+    }
+
+    /**
+     * Tests that a cache wrapper holding a value wrapper is decoded to an equal cache wrapper,
+     * and that the binary payload is smaller than the JSON payload.
+     */
+    @Test
+    void testCacheWrapperRoundTrip() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        CacheWrapper wrapper = new CacheWrapper("venus-redirect:q", value("https://www.example.com/a"));
+
+        byte[] bytes = serializer.serialize(wrapper);
+
+        assertEquals(BinaryCacheRedisSerializer.MAGIC, bytes[0] & 0xFF);
+        assertEquals(wrapper, serializer.deserialize(bytes));
+        RedisSerializer<CacheWrapper> jackson = new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), CacheWrapper.class);
+        assertTrue(bytes.length < jackson.serialize(wrapper).length);
+    }
+
+    /**
+     * Tests that the generation of a cache wrapper survives a round trip, and that a wrapper without a generation
+     * is written exactly as before generations were recorded.
+     */
+    @Test
+    void testGenerationRoundTrip() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        CacheWrapper plain = new CacheWrapper("venus-redirect:q", value("https://www.example.com/a"));
+        CacheWrapper stamped = new CacheWrapper("venus-redirect:q", value("https://www.example.com/a"), 300);
+
+        byte[] plainBytes = serializer.serialize(plain);
+        byte[] stampedBytes = serializer.serialize(stamped);
+
+        assertEquals(0, ((CacheWrapper) serializer.deserialize(plainBytes)).getGeneration());
+        assertEquals(300, ((CacheWrapper) serializer.deserialize(stampedBytes)).getGeneration());
+        assertEquals(plainBytes.length + 2, stampedBytes.length);
+    }
+
+    /**
+     * Tests that null values and values without an expiration time survive a round trip.
+     */
+    @Test
+    void testNullValuesRoundTrip() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        ValueWrapper value = value(null);
+        value.setExpiresAt(null);
+
+        assertEquals(new CacheWrapper("k", value), serializer.deserialize(serializer.serialize(new CacheWrapper("k", value))));
+        CacheWrapper nullWrapper = (CacheWrapper) serializer.deserialize(serializer.serialize(new CacheWrapper("k", null)));
+        assertNotNull(nullWrapper);
+        assertNull(nullWrapper.getValue());
+    }
+
+    /**
+     * Tests that a long original URL is deflated and restored.
+     */
+    @Test
+    void testLongUrlIsCompressed() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        String url = "https://www.example.com/" + "campaign/".repeat(100);
+        CacheWrapper wrapper = new CacheWrapper("k", value(url));
+
+        byte[] bytes = serializer.serialize(wrapper);
+
+        assertTrue(bytes.length < url.length());
+        assertEquals(wrapper, serializer.deserialize(bytes));
+    }
+
+    /**
+     * Tests that a listener message survives a round trip.
+     */
+    @Test
+    void testListenerMessageRoundTrip() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        CacheListenerMessage message = CacheListenerMessage.builder()
+                .name("venus-redirect")
+                .type(CacheMessageListenerType.UPDATE)
+                .key("q")
+                .value(value("https://www.example.com/a"))
+                .source("127.0.0.1:8029")
+                .build();
+
+        assertEquals(message, serializer.deserialize(serializer.serialize(message)));
+    }
+
+    /**
+     * Tests that the generation of an updated entry survives a round trip, and that a message without it is read
+     * without it.
+     */
+    @Test
+    void testListenerMessageGenerationRoundTrip() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        CacheListenerMessage message = CacheListenerMessage.builder()
+                .name("venus-redirect")
+                .type(CacheMessageListenerType.UPDATE)
+                .key("q")
+                .value(value("https://www.example.com/a"))
+                .source("127.0.0.1:8029")
+                .generation(3L)
+                .build();
+
+        assertEquals(3L, ((CacheListenerMessage) serializer.deserialize(serializer.serialize(message))).getGeneration());
+        message.setGeneration(null);
+        assertNull(((CacheListenerMessage) serializer.deserialize(serializer.serialize(message))).getGeneration());
+    }
+
+    /**
+     * Tests that values written by the JSON serializer are still readable.
+     */
+    @Test
+    void testReadsJsonPayload() {
+        CacheWrapper wrapper = new CacheWrapper("k", value("https://www.example.com/a"));
+        byte[] json = new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), CacheWrapper.class).serialize(wrapper);
+
+        assertEquals(wrapper, serializer().deserialize(json));
+    }
+
+    /**
+     * Tests that a truncated binary payload is reported as a serialization failure.
+     */
+    @Test
+    void testTruncatedPayload() {
+        BinaryCacheRedisSerializer serializer = serializer();
+        byte[] bytes = serializer.serialize(new CacheWrapper("k", value("https://www.example.com/a")));
+        byte[] truncated = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+
+    /**
+     * Tests that an entry whose URL refers to a pruned dictionary version is read as a miss.
+     */
+    @Test
+    void testPrunedDictionaryVersionIsAMiss() {
+        UrlPrefixDictionaryRegistry registry = Mockito.mock(UrlPrefixDictionaryRegistry.class);
+        Mockito.when(registry.isEnabled()).thenReturn(true);
+        Mockito.when(registry.current()).thenReturn(new UrlPrefixDictionary(3, List.of("https://www.example.com/")));
+        BinaryCacheRedisSerializer serializer = new BinaryCacheRedisSerializer(
+                new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), Object.class), 128, registry);
+        byte[] bytes = serializer.serialize(new CacheWrapper("k", value("https://www.example.com/a")));
+
+        Mockito.when(registry.dictionary(3)).thenReturn(null);
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    /**
+     * Tests that an update message whose value refers to a pruned dictionary version is read as an invalidation.
+     */
+    @Test
+    void testPrunedDictionaryVersionInvalidatesAnUpdate() {
+        UrlPrefixDictionaryRegistry registry = Mockito.mock(UrlPrefixDictionaryRegistry.class);
+        Mockito.when(registry.isEnabled()).thenReturn(true);
+        Mockito.when(registry.current()).thenReturn(new UrlPrefixDictionary(3, List.of("https://www.example.com/")));
+        BinaryCacheRedisSerializer serializer = new BinaryCacheRedisSerializer(
+                new Jackson2JsonRedisSerializer<>(MultiLevelCacheAutoConfiguration.objectMapper(), Object.class), 128, registry);
+        CacheListenerMessage message = CacheListenerMessage.builder()
+                .name("venus-redirect")
+                .type(CacheMessageListenerType.UPDATE)
+                .key("q")
+                .value(value("https://www.example.com/a"))
+                .source("127.0.0.1:8029")
+                .build();
+        byte[] bytes = serializer.serialize(message);
+
+        Mockito.when(registry.dictionary(3)).thenReturn(null);
+        CacheListenerMessage read = (CacheListenerMessage) serializer.deserialize(bytes);
+        assertEquals(CacheMessageListenerType.INVALIDATE, read.getType());
+        assertEquals("q", read.getKey());
+        assertEquals("127.0.0.1:8029", read.getSource());
+    }
+}
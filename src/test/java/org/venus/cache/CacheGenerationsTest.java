@@ -0,0 +1,69 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the `CacheGenerations` class.
+ * These tests verify that a value read before a bump of its group is stale, even if it is written after the bump.
+ */
+public class CacheGenerationsTest {
+
+    /**
+     * Creates a link of the given original URL.
+     *
+     * @param url the original URL
+     * @return the link
+     */
+    private static ValueWrapper link(String url) {
+        return ValueWrapper.builder().id(42L).code("q").originalUrl(url).isActive((short) 1).build();
+    }
+
+    /**
+     * Tests that an entry is stamped stale if the generation of its group changed after its snapshot, and fresh if
+     * only another group changed.
+     */
+    @Test
+    void testStampsAValueReadBeforeABumpAsStale() {
+        CacheGenerations generations = new CacheGenerations("venus-redirect",
+                Mockito.mock(RedisConnectionFactory.class), new MultiLevelCacheProperties());
+
+        long snapshot = generations.snapshot();
+        generations.advance("https://www.example.com", 1);
+        CacheWrapper stale = generations.wrap("q", link("https://www.example.com/a"), snapshot);
+        assertTrue(generations.isStale(stale));
+
+        snapshot = generations.snapshot();
+        generations.advance("https://www.example.org", 1);
+        CacheWrapper fresh = generations.wrap("q", link("https://www.example.com/a"), snapshot);
+        assertFalse(generations.isStale(fresh));
+
+        generations.advance("https://www.example.com", 1);
+        assertFalse(generations.isStale(generations.wrap("q", link("https://www.example.com/b"), snapshot)));
+    }
+
+    /**
+     * Tests that the check matches the origin of an entry regardless of its case and of non-ASCII characters, and
+     * ignores the path, the query and the fragment.
+     */
+    @Test
+    void testMatchesTheOriginOfAnEntry() {
+        CacheGenerations generations = new CacheGenerations("venus-redirect",
+                Mockito.mock(RedisConnectionFactory.class), new MultiLevelCacheProperties());
+
+        long snapshot = generations.snapshot();
+        generations.advance("https://www.example.com", 1);
+        generations.advance("https://bücher.example", 1);
+        generations.advance("https://www.example.net", 1);
+        assertTrue(generations.isStale(generations.wrap("q", link("HTTPS://WWW.Example.com?a=1"), snapshot)));
+        assertTrue(generations.isStale(generations.wrap("q", link("https://BÜCHER.example/a#b"), snapshot)));
+        assertFalse(generations.isStale(generations.wrap("q", link("https://www.example.co/a"), snapshot)));
+        assertFalse(generations.isStale(new CacheWrapper("q", link("https://www.example.org/a"))));
+        assertTrue(generations.isStale(new CacheWrapper("q", link("https://www.example.net/a"))));
+        assertFalse(generations.isStale(new CacheWrapper("q", null)));
+    }
+}
@@ -0,0 +1,135 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.venus.support.CircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the `GuardedSecondCacheLayout` class.
+ * These tests verify that the replay of buffered writes never leaves an older value behind a concurrent write,
+ * and that a failed replay keeps the buffer within its size.
+ */
+public class GuardedSecondCacheLayoutTest {
+
+    /**
+     * An in-memory second level that fails while unavailable, and runs a hook before a bulk write.
+     */
+    private static class InMemoryLayout implements SecondCacheLayout {
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+        private volatile boolean available = true;
+        private volatile Runnable beforeSetAll;
+
+        private void check() {
+            if (!available) {
+                throw new IllegalStateException("Redis is unavailable");
+            }
+        }
+
+        @Override
+        public CacheWrapper get(String key) {
+            check();
+            return values.containsKey(key) ? new CacheWrapper(key, values.get(key)) : null;
+        }
+
+        @Override
+        public List<CacheWrapper> multiGet(List<String> keys) {
+            List<CacheWrapper> wrappers = new ArrayList<>();
+            keys.forEach(key -> wrappers.add(get(key)));
+            return wrappers;
+        }
+
+        @Override
+        public void set(String key, Object value, long snapshot) {
+            check();
+            values.put(key, value);
+        }
+
+        @Override
+        public void setAll(Map<String, Object> values, long snapshot) {
+            Runnable hook = beforeSetAll;
+            beforeSetAll = null;
+            if (hook != null) {
+                hook.run();
+            }
+            check();
+            this.values.putAll(values);
+        }
+
+        @Override
+        public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+            set(key, value, snapshot);
+            return true;
+        }
+
+        @Override
+        public void delete(String key) {
+            check();
+            values.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            values.clear();
+        }
+    }
+
+    /**
+     * Creates a guarded layout whose breaker never opens and whose replay is only run by the tests.
+     *
+     * @param delegate the in-memory second level
+     * @param bufferSize the maximum number of buffered writes
+     * @return the layout under test
+     */
+    private static GuardedSecondCacheLayout layout(InMemoryLayout delegate, int bufferSize) {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setSecondLevelWriteBufferSize(bufferSize);
+        properties.setSecondLevelReplayInterval(3600000);
+        CircuitBreaker breaker = new CircuitBreaker("test", 100, 100, 0.5, 60000, 0);
+        return new GuardedSecondCacheLayout("test", delegate, breaker, properties);
+    }
+
+    /**
+     * Tests that a write of a key whose buffered write is being replayed is written again after the replay,
+     * so the older buffered value does not overwrite it.
+     */
+    @Test
+    void testReplayDoesNotOverwriteAConcurrentWrite() {
+        InMemoryLayout delegate = new InMemoryLayout();
+        GuardedSecondCacheLayout layout = layout(delegate, 10);
+
+        delegate.available = false;
+        layout.set("a", "old", 0);
+        assertEquals(1, layout.bufferedWriteCount());
+
+        delegate.available = true;
+        delegate.beforeSetAll = () -> layout.set("a", "new", 0);
+        ReflectionTestUtils.invokeMethod(layout, "replay");
+
+        assertEquals("new", delegate.values.get("a"));
+        assertEquals(0, layout.bufferedWriteCount());
+    }
+
+    /**
+     * Tests that the writes of a failed replay are put back only as far as the buffer has room.
+     */
+    @Test
+    void testFailedReplayKeepsTheBufferBounded() {
+        InMemoryLayout delegate = new InMemoryLayout();
+        GuardedSecondCacheLayout layout = layout(delegate, 2);
+
+        delegate.available = false;
+        layout.set("a", "1", 0);
+        layout.set("b", "2", 0);
+        delegate.beforeSetAll = () -> layout.set("c", "3", 0);
+        ReflectionTestUtils.invokeMethod(layout, "replay");
+
+        assertEquals(2, layout.bufferedWriteCount());
+    }
+}
@@ -0,0 +1,94 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+import org.venus.support.CircuitBreaker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the `HedgedReads` class.
+ * These tests verify that a second level read that loses its race against the hedge is not held against Redis.
+ */
+public class HedgedReadsTest {
+
+    /**
+     * A second level that answers at once, or slowly once it is slowed down.
+     */
+    private static class SlowLayout implements SecondCacheLayout {
+        private volatile long delayMillis;
+        private volatile CountDownLatch completed = new CountDownLatch(0);
+
+        @Override
+        public CacheWrapper get(String key) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The read is interrupted", e);
+            } finally {
+                completed.countDown();
+            }
+            return new CacheWrapper(key, "cached");
+        }
+
+        @Override
+        public List<CacheWrapper> multiGet(List<String> keys) {
+            return keys.stream().map(this::get).toList();
+        }
+
+        @Override
+        public void set(String key, Object value, long snapshot) {
+        }
+
+        @Override
+        public void setAll(Map<String, Object> values, long snapshot) {
+        }
+
+        @Override
+        public boolean setIfLeased(String key, Object value, String leaseKey, String token, long snapshot) {
+            return true;
+        }
+
+        @Override
+        public void delete(String key) {
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+
+    /**
+     * Tests that a slow read that loses against the hedge leaves a breaker closed that opens on a single failure.
+     */
+    @Test
+    void testLostHedgeLeavesTheBreakerClosed() throws Exception {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setHedgeMaxRate(1.0);
+        properties.setSecondLevelReplayInterval(3600000);
+        CircuitBreaker breaker = new CircuitBreaker("test", 1, 1, 1.0, 0, 60000);
+        SlowLayout delegate = new SlowLayout();
+        GuardedSecondCacheLayout layout = new GuardedSecondCacheLayout("test", delegate, breaker, properties);
+        HedgedReads hedging = new HedgedReads("test", properties);
+
+        for (int i = 0; i < 300; i++) {
+            hedging.read(() -> layout.get("q"), () -> new CacheWrapper("q", "loaded"));
+        }
+
+        delegate.delayMillis = 500;
+        delegate.completed = new CountDownLatch(1);
+        HedgedReads.Outcome outcome = hedging.read(() -> layout.get("q"), () -> new CacheWrapper("q", "loaded"));
+        assertTrue(outcome.loaded());
+        assertEquals("loaded", outcome.value().getValue());
+
+        assertTrue(delegate.completed.await(5, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertTrue(breaker.isClosed());
+    }
+}
@@ -0,0 +1,47 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `JitteredExpiry` class.
+ * These tests verify that the time-to-live of entries written together is spread within the jitter.
+ */
+public class JitteredExpiryTest {
+
+    /**
+     * Tests that every time-to-live lies between the shortened and the full time-to-live, and that they differ.
+     */
+    @Test
+    void testTimeToLiveIsSpreadWithinTheJitter() {
+        JitteredExpiry<String, Object> expiry = new JitteredExpiry<>(60000, 0.2, false);
+        long max = TimeUnit.MILLISECONDS.toNanos(60000);
+        long min = TimeUnit.MILLISECONDS.toNanos(48000);
+
+        Set<Long> ttls = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            long ttl = expiry.expireAfterCreate("key-" + i, "value", 0);
+            assertTrue(ttl >= min && ttl <= max);
+            ttls.add(ttl);
+        }
+        assertTrue(ttls.size() > 1);
+    }
+
+    /**
+     * Tests that a read keeps the remaining time-to-live, unless reads restart it.
+     */
+    @Test
+    void testReadRestartsTheTimeToLiveOnlyIfConfigured() {
+        JitteredExpiry<String, Object> afterWrite = new JitteredExpiry<>(60000, 0.2, false);
+        JitteredExpiry<String, Object> afterAccess = new JitteredExpiry<>(60000, 0.2, true);
+
+        assertEquals(1000, afterWrite.expireAfterRead("key", "value", 0, 1000));
+        assertTrue(afterAccess.expireAfterRead("key", "value", 0, 1000) >= TimeUnit.MILLISECONDS.toNanos(48000));
+        assertThrows(IllegalArgumentException.class, () -> new JitteredExpiry<>(60000, 1.5, false));
+    }
+}
@@ -0,0 +1,39 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `MultiLevelCacheKeyExtractor` interface.
+ * These tests verify that parameter keys are read from the arguments directly
+ * and that any other key is evaluated as a SpEL expression.
+ */
+public class MultiLevelCacheKeyExtractorTest {
+
+    /**
+     * Tests that a key referencing a single parameter is resolved to an argument lookup.
+     */
+    @Test
+    void testParameterKey() {
+        MultiLevelCacheKeyExtractor extractor = MultiLevelCacheKeyExtractor.of("#encode", new String[]{"request", "encode"});
+
+        assertInstanceOf(MultiLevelCacheKeyExtractor.ArgumentKeyExtractor.class, extractor);
+        assertEquals("q", extractor.extract(new Object[]{new Object(), "q"}));
+        assertEquals("42", extractor.extract(new Object[]{null, 42L}));
+        assertNull(extractor.extract(new Object[]{null, null}));
+    }
+
+    /**
+     * Tests that a composite key is evaluated as an expression over the arguments.
+     */
+    @Test
+    void testExpressionKey() {
+        MultiLevelCacheKeyExtractor extractor = MultiLevelCacheKeyExtractor.of("#prefix + ':' + #id", new String[]{"prefix", "id"});
+
+        assertInstanceOf(MultiLevelCacheKeyExtractor.ExpressionKeyExtractor.class, extractor);
+        for (int i = 0; i < 200; i++) {
+            assertEquals("link:" + i, extractor.extract(new Object[]{"link", i}));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `SecondCacheExpiry` class.
+ * These tests verify the time-to-live of live, expired and deactivated links, and the cap of the idle time-to-live.
+ */
+public class SecondCacheExpiryTest {
+
+    /**
+     * Tests that a live link lives until its expiration, capped by the idle time-to-live,
+     * and that a deactivated or expired link is kept for the expired time-to-live.
+     */
+    @Test
+    void testTimeToLiveFollowsTheLink() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setSecondLevelIdleTtl(3_600_000);
+        properties.setSecondLevelExpiredTtl(60_000);
+        SecondCacheExpiry expiry = new SecondCacheExpiry(properties);
+
+        long soon = expiry.ttlMillis(link((short) 1, LocalDateTime.now().plusMinutes(10)));
+        assertTrue(soon > 590_000 && soon <= 600_000);
+        assertEquals(3_600_000, expiry.ttlMillis(link((short) 1, LocalDateTime.now().plusDays(30))));
+        assertEquals(60_000, expiry.ttlMillis(link((short) 1, LocalDateTime.now().minusMinutes(1))));
+        assertEquals(60_000, expiry.ttlMillis(link((short) 0, LocalDateTime.now().plusDays(30))));
+        assertEquals(3_600_000, expiry.ttlMillis(null));
+    }
+
+    /**
+     * Tests that nothing expires by default.
+     */
+    @Test
+    void testNothingExpiresByDefault() {
+        SecondCacheExpiry expiry = new SecondCacheExpiry(new MultiLevelCacheProperties());
+
+        assertEquals(0, expiry.ttlMillis(link((short) 0, LocalDateTime.now().minusMinutes(1))));
+        assertEquals(0, expiry.ttlMillis("value"));
+    }
+
+    /**
+     * Builds a link.
+     *
+     * @param isActive the activation status of the link
+     * @param expiresAt the expiration of the link
+     * @return the link
+     */
+    private static ValueWrapper link(short isActive, LocalDateTime expiresAt) {
+        return ValueWrapper.builder()
+                .code("code")
+                .originalUrl("https://www.example.com/")
+                .isActive(isActive)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
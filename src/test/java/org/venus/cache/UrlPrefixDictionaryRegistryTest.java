@@ -0,0 +1,136 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `UrlPrefixDictionaryRegistry` class.
+ * These tests verify that the published versions are pruned to the window of the newest ones and after the idle
+ * time-to-live of the second level, and that a pruned or unknown version is no longer looked up on every read.
+ */
+public class UrlPrefixDictionaryRegistryTest {
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private int lookups;
+
+    /**
+     * Creates a registry whose Redis hashes are kept in {@link #hashes}.
+     *
+     * @param properties the properties of the multi-level cache
+     * @return the registry under test
+     */
+    @SuppressWarnings("unchecked")
+    private UrlPrefixDictionaryRegistry registry(MultiLevelCacheProperties properties) {
+        HashOperations<String, String, String> operations = Mockito.mock(HashOperations.class, invocation -> {
+            Object[] args = invocation.getRawArguments();
+            Map<String, String> hash = hashes.computeIfAbsent((String) args[0], k -> new HashMap<>());
+            return switch (invocation.getMethod().getName()) {
+                case "get" -> {
+                    lookups++;
+                    yield hash.get((String) args[1]);
+                }
+                case "put" -> {
+                    hash.put((String) args[1], (String) args[2]);
+                    yield null;
+                }
+                case "keys" -> new HashSet<>(hash.keySet());
+                case "entries" -> new HashMap<>(hash);
+                case "delete" -> {
+                    for (Object field : (Object[]) args[1]) {
+                        hash.remove((String) field);
+                    }
+                    yield null;
+                }
+                default -> throw new UnsupportedOperationException(invocation.getMethod().getName());
+            };
+        });
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(template.<String, String>opsForHash()).thenReturn(operations);
+
+        UrlPrefixDictionaryRegistry registry = new UrlPrefixDictionaryRegistry(Mockito.mock(RedisConnectionFactory.class), properties);
+        ReflectionTestUtils.setField(registry, "template", template);
+        return registry;
+    }
+
+    /**
+     * Publishes a dictionary version at the given time.
+     *
+     * @param version the version
+     * @param publishedAt the publication time in epoch milliseconds
+     */
+    private void publish(int version, long publishedAt) {
+        hashes.computeIfAbsent(UrlPrefixDictionaryRegistry.DICTIONARY_KEY, k -> new HashMap<>())
+                .put(String.valueOf(version), "https://www.example.com/" + version + "/");
+        hashes.computeIfAbsent(UrlPrefixDictionaryRegistry.PUBLISHED_KEY, k -> new HashMap<>())
+                .put(String.valueOf(version), String.valueOf(publishedAt));
+        hashes.get(UrlPrefixDictionaryRegistry.DICTIONARY_KEY).put(UrlPrefixDictionaryRegistry.CURRENT_FIELD, String.valueOf(version));
+    }
+
+    /**
+     * Tests that the versions beyond the window are pruned and are no longer resolved, while the newest are kept.
+     */
+    @Test
+    void testPrunesTheVersionsBeyondTheWindow() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setUrlPrefixDictionaryMaxVersions(2);
+        UrlPrefixDictionaryRegistry registry = registry(properties);
+        long now = System.currentTimeMillis();
+        publish(1, now);
+        publish(2, now);
+        publish(3, now);
+        assertNotNull(registry.dictionary(1));
+
+        registry.prune();
+
+        Map<String, String> dictionaries = hashes.get(UrlPrefixDictionaryRegistry.DICTIONARY_KEY);
+        assertFalse(dictionaries.containsKey("1"));
+        assertTrue(dictionaries.containsKey("2") && dictionaries.containsKey("3"));
+        assertEquals("1", dictionaries.get(UrlPrefixDictionaryRegistry.PRUNED_FIELD));
+        assertNull(registry.dictionary(1));
+        assertNotNull(registry.dictionary(2));
+    }
+
+    /**
+     * Tests that a version superseded longer ago than the idle time-to-live is pruned, but never the current one.
+     */
+    @Test
+    void testPrunesTheVersionsSupersededBeforeTheIdleTtl() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setSecondLevelIdleTtl(60000);
+        UrlPrefixDictionaryRegistry registry = registry(properties);
+        long now = System.currentTimeMillis();
+        publish(1, now - 300000);
+        publish(2, now - 120000);
+        publish(3, now - 1000);
+
+        registry.prune();
+
+        Map<String, String> dictionaries = hashes.get(UrlPrefixDictionaryRegistry.DICTIONARY_KEY);
+        assertFalse(dictionaries.containsKey("1"));
+        assertTrue(dictionaries.containsKey("2") && dictionaries.containsKey("3"));
+        assertFalse(hashes.get(UrlPrefixDictionaryRegistry.PUBLISHED_KEY).containsKey("1"));
+    }
+
+    /**
+     * Tests that a version that is not found is looked up once per rebuild interval, not on every read.
+     */
+    @Test
+    void testRemembersAMissingVersion() {
+        UrlPrefixDictionaryRegistry registry = registry(new MultiLevelCacheProperties());
+        publish(1, System.currentTimeMillis());
+
+        assertNull(registry.dictionary(5));
+        assertNull(registry.dictionary(5));
+        assertEquals(1, lookups);
+        assertNotNull(registry.dictionary(1));
+    }
+}
@@ -0,0 +1,46 @@
+package org.venus.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `UrlPrefixDictionary` class.
+ * These tests verify the longest-prefix match on path boundaries and the serialized form of a dictionary.
+ */
+public class UrlPrefixDictionaryTest {
+
+    /**
+     * Tests that the longest prefix ending at a path boundary is matched, and that path separators in the query
+     * string and URLs without a path do not match.
+     */
+    @Test
+    void testMatchLongestPrefix() {
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(1, List.of("https://www.example.com/", "https://www.example.com/docs/guide/"));
+
+        assertEquals(1, dictionary.match("https://www.example.com/docs/guide/intro"));
+        assertEquals(0, dictionary.match("https://www.example.com/docs/api"));
+        assertEquals(0, dictionary.match("https://www.example.com/search?q=/docs/guide/"));
+        assertEquals(-1, dictionary.match("https://www.example.com"));
+        assertEquals(-1, dictionary.match("https://example.org/docs/guide/intro"));
+        assertEquals(-1, UrlPrefixDictionary.EMPTY.match("https://www.example.com/"));
+    }
+
+    /**
+     * Tests that a parsed dictionary holds the same prefixes under the same ids.
+     */
+    @Test
+    void testParseIsTheInverseOfSerialize() {
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(7, List.of("https://a.example.com/", "http://b.example.com/x/"));
+
+        UrlPrefixDictionary parsed = UrlPrefixDictionary.parse(7, dictionary.serialize());
+
+        assertEquals(7, parsed.version());
+        assertEquals(2, parsed.size());
+        assertEquals("https://a.example.com/", parsed.prefix(0));
+        assertEquals("http://b.example.com/x/", parsed.prefix(1));
+        assertNull(parsed.prefix(2));
+    }
+}
@@ -1,7 +1,12 @@
 package org.venus.cache;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -307,4 +312,37 @@ public class VenusMultiLevelValueAdaptingCacheTest {
         Mockito.verify(secondCache, Mockito.times(1)).delete(multiLevelCache.getName() + ":" + key);
     }
 
+    /**
+     * Tests the `getAll` method of `VenusMultiLevelValueAdaptingCache` to verify that keys are resolved level by level:
+     * a key present in the primary cache is not requested from Redis, a key found with the single MGET is back-filled
+     * into the primary cache, and only the remaining key is passed to the loader and stored in both levels in bulk.
+     */
+    @Test
+    void testGetAllResolvesEachLevelInBulk() {
+        Cache<String, Object> primaryCache = Caffeine.newBuilder().build();
+        RedisTemplate<String, CacheWrapper> secondCache = Mockito.mock(RedisTemplate.class);
+        ValueOperations<String, CacheWrapper> valueOperations = mock(ValueOperations.class);
+        when(secondCache.opsForValue()).thenReturn(valueOperations);
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setAllowNull(true);
+        MultiLevelValueAdaptingCache multiLevelCache =
+                new MultiLevelValueAdaptingCache("testCache", secondCache, primaryCache, properties);
+
+        primaryCache.put("a", new CacheWrapper("a", "A"));
+        when(valueOperations.multiGet(List.of("testCache:b", "testCache:c")))
+                .thenReturn(Arrays.asList(new CacheWrapper("testCache:b", "B"), null));
+        List<List<String>> loaded = new ArrayList<>();
+
+        Map<String, Object> values = multiLevelCache.getAll(List.of("a", "b", "c"), keys -> {
+            loaded.add(keys);
+            return Map.of("c", "C");
+        });
+
+        assertEquals(List.of("a", "b", "c"), new ArrayList<>(values.keySet()));
+        assertEquals(List.of("A", "B", "C"), new ArrayList<>(values.values()));
+        assertEquals(List.of(List.of("c")), loaded);
+        assertNotNull(primaryCache.getIfPresent("b"));
+        assertEquals(new CacheWrapper("c", "C"), primaryCache.getIfPresent("c"));
+        Mockito.verify(valueOperations).multiSet(Map.of("testCache:c", new CacheWrapper("testCache:c", "C")));
+    }
 }
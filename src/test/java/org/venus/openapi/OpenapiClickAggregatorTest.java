@@ -0,0 +1,174 @@
+package org.venus.openapi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `OpenapiClickAggregator` class.
+ * These tests verify that the clicks are counted per link, minute and dimension, that the counters of closed minutes
+ * are retired without losing a late click, and that only the counts of the chunks that failed are flushed again.
+ */
+public class OpenapiClickAggregatorTest {
+
+    /**
+     * A JdbcTemplate that adds the upserted counts like the database, and fails the batches matching a predicate.
+     */
+    private static class UpsertingJdbcTemplate extends JdbcTemplate {
+        private final Map<OpenapiClickAggregator.AggregateKey, Long> stored = new ConcurrentHashMap<>();
+        private volatile Predicate<OpenapiClickAggregator.AggregateRow> failing = row -> false;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            Collection<OpenapiClickAggregator.AggregateRow> rows = (Collection<OpenapiClickAggregator.AggregateRow>) batchArgs;
+            if (rows.stream().anyMatch(failing)) {
+                throw new DataIntegrityViolationException("rejected");
+            }
+            rows.forEach(row -> stored.merge(row.key(), row.clicks(), Long::sum));
+            return new int[0][];
+        }
+
+        long clicks(long linkId, LocalDateTime time, String dimension, String value) {
+            long minute = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+            return stored.getOrDefault(new OpenapiClickAggregator.AggregateKey(linkId, minute, dimension, value), 0L);
+        }
+    }
+
+    private final UpsertingJdbcTemplate template = new UpsertingJdbcTemplate();
+    private OpenapiClickAggregator aggregator;
+
+    /**
+     * Creates an enabled aggregator that writes chunks of two rows and flushes only when the test asks it to.
+     *
+     * @return the aggregator
+     */
+    private OpenapiClickAggregator aggregator() {
+        OpenapiReportProperties properties = new OpenapiReportProperties();
+        properties.getAggregation().setEnabled(true);
+        properties.getAggregation().setFlushInterval(3600000);
+        properties.getWriter().setMinBatchSize(1);
+        properties.getWriter().setMaxBatchSize(2);
+        properties.getWriter().setTargetLatency(60000);
+        properties.getWriter().setMaxRetries(0);
+        aggregator = new OpenapiClickAggregator();
+        ReflectionTestUtils.setField(aggregator, "jdbcTemplate", template);
+        ReflectionTestUtils.setField(aggregator, "reportProperties", properties);
+        aggregator.init();
+        return aggregator;
+    }
+
+    private static OpenapiStatisticsEntity click(long clickId, long linkId, LocalDateTime clickedAt, String referer) {
+        return OpenapiStatisticsEntity.builder().clickId(clickId).linkId(linkId).clickedAt(clickedAt).referer(referer).build();
+    }
+
+    private static OpenapiGeoEntity geo(long clickId, String country) {
+        return OpenapiGeoEntity.builder().clickId(clickId).country(country).build();
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (aggregator != null) {
+            aggregator.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a click counts for the total and the referer domain of its minute, that its geo report counts for
+     * its country, that a geo report of an unknown click is not counted, and that a count is flushed only once.
+     */
+    @Test
+    void testCountsClicksPerLinkMinuteAndDimension() {
+        OpenapiClickAggregator aggregator = aggregator();
+        LocalDateTime minute = LocalDateTime.now().withSecond(0).withNano(0);
+        aggregator.recordClick(click(7, 1, minute.plusSeconds(5), "https://www.google.com/search"));
+        aggregator.recordClick(click(8, 1, minute.plusSeconds(30), "https://google.com/"));
+        aggregator.recordClick(click(9, 1, minute.plusSeconds(59), null));
+        aggregator.recordGeo(geo(7, " JP "));
+        aggregator.recordGeo(geo(42, "US"));
+
+        aggregator.flush();
+        aggregator.flush();
+
+        assertEquals(3, template.clicks(1, minute, OpenapiClickAggregator.DIMENSION_TOTAL, ""));
+        assertEquals(2, template.clicks(1, minute, OpenapiClickAggregator.DIMENSION_REFERER, "google.com"));
+        assertEquals(1, template.clicks(1, minute, OpenapiClickAggregator.DIMENSION_REFERER, ""));
+        assertEquals(1, template.clicks(1, minute, OpenapiClickAggregator.DIMENSION_COUNTRY, "JP"));
+        assertEquals(0, template.clicks(1, minute, OpenapiClickAggregator.DIMENSION_COUNTRY, "US"));
+    }
+
+    /**
+     * Tests that the flushed counters of a closed minute are retired while the ones of the current minute are kept,
+     * and that a click counted on a retired counter is flushed by the next flush.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRetiresTheCountersOfClosedMinutes() {
+        OpenapiClickAggregator aggregator = aggregator();
+        LocalDateTime old = LocalDateTime.now().minusMinutes(10).withSecond(0).withNano(0);
+        aggregator.recordClick(click(1, 1, old, null));
+        aggregator.recordClick(click(2, 2, LocalDateTime.now(), null));
+        Map<OpenapiClickAggregator.AggregateKey, LongAdder> counters =
+                (Map<OpenapiClickAggregator.AggregateKey, LongAdder>) ReflectionTestUtils.getField(aggregator, "counters");
+        List<Map.Entry<OpenapiClickAggregator.AggregateKey, LongAdder>> retired =
+                (List<Map.Entry<OpenapiClickAggregator.AggregateKey, LongAdder>>) ReflectionTestUtils.getField(aggregator, "retired");
+
+        aggregator.flush();
+        assertEquals(4, counters.size());
+        aggregator.flush();
+        assertEquals(2, counters.size());
+        assertTrue(counters.keySet().stream().allMatch(key -> key.linkId() == 2));
+        assertEquals(2, retired.size());
+
+        // a click that got hold of the counter just before it was removed
+        retired.stream().filter(entry -> entry.getKey().dimension().equals(OpenapiClickAggregator.DIMENSION_TOTAL))
+                .forEach(entry -> entry.getValue().increment());
+        aggregator.flush();
+
+        assertEquals(2, template.clicks(1, old, OpenapiClickAggregator.DIMENSION_TOTAL, ""));
+        assertEquals(1, template.clicks(1, old, OpenapiClickAggregator.DIMENSION_REFERER, ""));
+        assertTrue(retired.isEmpty());
+    }
+
+    /**
+     * Tests that a failed flush adds back only the counts of the chunks that failed, so that once the next flush
+     * succeeds every count is stored exactly once.
+     */
+    @Test
+    void testFailedFlushRetriesOnlyTheFailedChunks() {
+        OpenapiClickAggregator aggregator = aggregator();
+        LocalDateTime minute = LocalDateTime.now().withSecond(0).withNano(0);
+        for (long link = 1; link <= 6; link++) {
+            for (int i = 0; i < link; i++) {
+                aggregator.recordClick(click(0, link, minute, null));
+            }
+        }
+        template.failing = row -> row.key().linkId() == 6;
+
+        assertThrows(DataIntegrityViolationException.class, aggregator::flush);
+        assertEquals(0, template.clicks(6, minute, OpenapiClickAggregator.DIMENSION_TOTAL, ""));
+
+        template.failing = row -> false;
+        aggregator.flush();
+
+        for (long link = 1; link <= 6; link++) {
+            assertEquals(link, template.clicks(link, minute, OpenapiClickAggregator.DIMENSION_TOTAL, ""));
+            assertEquals(link, template.clicks(link, minute, OpenapiClickAggregator.DIMENSION_REFERER, ""));
+        }
+    }
+}
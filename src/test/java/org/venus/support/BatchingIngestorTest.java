@@ -0,0 +1,107 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `BatchingIngestor` class.
+ * These tests verify that elements are flushed in batches on size, on time and on close, that a full queue drops,
+ * and that every accepted element is flushed when closing races with the producers.
+ */
+public class BatchingIngestorTest {
+
+    /**
+     * Tests that a full batch wakes the flusher long before the flush interval has elapsed.
+     */
+    @Test
+    void testFullBatchIsFlushedEarly() throws InterruptedException {
+        List<Integer> flushed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        try (BatchingIngestor<Integer> ingestor = new BatchingIngestor<Integer>("test-size", 100, 10, 60000,
+                BatchingIngestor.OverflowPolicy.DROP, 0, batch -> {
+                    flushed.addAll(batch);
+                    latch.countDown();
+                }).start()) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(ingestor.offer(i));
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(10, flushed.size());
+        }
+    }
+
+    /**
+     * Tests that elements short of a batch are flushed once the flush interval has elapsed.
+     */
+    @Test
+    void testPartialBatchIsFlushedOnTime() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        try (BatchingIngestor<Integer> ingestor = new BatchingIngestor<Integer>("test-time", 100, 10, 20,
+                BatchingIngestor.OverflowPolicy.DROP, 0, batch -> batch.forEach(e -> latch.countDown())).start()) {
+            ingestor.offer(1);
+            ingestor.offer(2);
+            ingestor.offer(3);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Tests that a full queue drops elements, and that closing flushes the queued ones in batches.
+     */
+    @Test
+    void testFullQueueDropsAndCloseFlushes() {
+        List<Integer> sizes = new ArrayList<>();
+        BatchingIngestor<Integer> ingestor = new BatchingIngestor<Integer>("test-close", 5, 2, 60000,
+                BatchingIngestor.OverflowPolicy.DROP, 0, batch -> sizes.add(batch.size()));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ingestor.offer(i));
+        }
+        assertFalse(ingestor.offer(5));
+        assertEquals(5, ingestor.depth());
+
+        ingestor.close();
+
+        assertEquals(List.of(2, 2, 1), sizes);
+        assertEquals(0, ingestor.depth());
+        assertFalse(ingestor.offer(6));
+    }
+
+    /**
+     * Tests that closing while producers offer flushes exactly the elements whose offer returned true.
+     */
+    @Test
+    void testCloseFlushesEveryAcceptedElement() throws InterruptedException {
+        AtomicInteger flushed = new AtomicInteger();
+        AtomicInteger accepted = new AtomicInteger();
+        BatchingIngestor<Integer> ingestor = new BatchingIngestor<Integer>("test-race", 64, 8, 1,
+                BatchingIngestor.OverflowPolicy.BLOCK, 10, batch -> flushed.addAndGet(batch.size())).start();
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread producer = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    if (ingestor.offer(j)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        Thread.sleep(20);
+        ingestor.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(accepted.get(), flushed.get());
+        assertEquals(0, ingestor.depth());
+    }
+}
@@ -0,0 +1,56 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `CircuitBreaker` class.
+ * These tests verify that failed and slow calls open the breaker, and that a probe closes or reopens it.
+ */
+public class CircuitBreakerTest {
+
+    /**
+     * Tests that the breaker opens once the share of failed and slow calls reaches the threshold,
+     * and rejects calls while it is open.
+     */
+    @Test
+    void testOpensOnFailedAndSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, 100, 60000);
+
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        breaker.onFailure();
+        assertTrue(breaker.isClosed());
+
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    /**
+     * Tests that an open breaker lets a single probe through after the open duration,
+     * which closes it on success and opens it again on failure.
+     */
+    @Test
+    void testProbeClosesOrReopens() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 1, 1.0, 0, 0);
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(breaker.isClosed());
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,111 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `ClickColumnStore` class.
+ * These tests verify the counts by column and time over several segments, the growth and trimming of the columns,
+ * and the eviction of old segments.
+ */
+public class ClickColumnStoreTest {
+    private static final long NOW = 1_800_000_000L;
+
+    private final ClickColumnStore store = new ClickColumnStore(3600, 1000, 100, 7 * 86400, 100, 10_000,
+            Duration.ofMinutes(5), 4);
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    /**
+     * Tests that the clicks are counted by referer for one link, across segments and within the range only.
+     */
+    @Test
+    void testCountsByRefererForALink() {
+        for (int i = 0; i < 5000; i++) {
+            store.append(i + 1, i % 2, NOW - 7200 + i, i % 5 == 0 ? "a.com" : "b.com", "agent", NOW);
+        }
+        assertTrue(store.segments() >= 5);
+
+        List<ClickColumnStore.Group> groups = store.countBy(ClickColumnStore.Column.REFERER, 0L, NOW - 7200, NOW);
+        assertEquals(List.of(new ClickColumnStore.Group("a.com", 500), new ClickColumnStore.Group("b.com", 2000)), groups);
+
+        List<ClickColumnStore.Group> all = store.countBy(ClickColumnStore.Column.USER_AGENT, null, NOW - 7200, NOW - 7100);
+        assertEquals(List.of(new ClickColumnStore.Group("agent", 100)), all);
+    }
+
+    /**
+     * Tests that the country of a click is counted once its geo report is recorded.
+     */
+    @Test
+    void testCountsByCountryOnceReported() {
+        store.append(1, 7, NOW, null, null, NOW);
+        store.append(2, 7, NOW, null, null, NOW);
+        assertTrue(store.country(2, "NZ"));
+        assertFalse(store.country(3, "NZ"));
+
+        List<ClickColumnStore.Group> groups = store.countBy(ClickColumnStore.Column.COUNTRY, 7L, NOW, NOW + 1);
+        assertEquals(List.of(new ClickColumnStore.Group("", 1), new ClickColumnStore.Group("NZ", 1)), groups);
+    }
+
+    /**
+     * Tests that the clicks are counted by time bucket, and that clicks beyond the retention are rejected.
+     */
+    @Test
+    void testCountsByTimeAndRejectsOldClicks() {
+        long hour = Math.floorDiv(NOW, 3600) * 3600;
+        store.append(0, 1, hour + 10, null, null, NOW);
+        store.append(0, 1, hour + 70, null, null, NOW);
+        store.append(0, 1, hour + 75, null, null, NOW);
+        assertFalse(store.append(0, 1, NOW - 8 * 86400, null, null, NOW));
+
+        assertArrayEquals(new long[]{1, 2, 0}, store.countByTime(1L, hour, hour + 180, 60));
+    }
+
+    /**
+     * Tests that the columns of a segment grow with its clicks up to the capacity, and that a segment trimmed once
+     * its window has ended still takes a late click and its country.
+     */
+    @Test
+    void testGrowsAndTrimsTheColumns() {
+        try (ClickColumnStore large = new ClickColumnStore(3600, 5000, 100, 7 * 86400, 100, 10_000,
+                Duration.ofMinutes(5), 4)) {
+            long hour = Math.floorDiv(NOW, 3600) * 3600;
+            for (int i = 0; i < 6000; i++) {
+                large.append(i + 1, 1, hour + i % 3600, i % 2 == 0 ? "a.com" : null, null, NOW);
+            }
+            assertEquals(2, large.segments());
+
+            assertEquals(0, large.evict(hour + 7200));
+            assertTrue(large.append(6001, 1, hour + 1, "a.com", null, hour + 7200));
+            assertTrue(large.country(6001, "NZ"));
+
+            assertEquals(6001, large.rows());
+            assertEquals(List.of(new ClickColumnStore.Group("", 3000), new ClickColumnStore.Group("a.com", 3001)),
+                    large.countBy(ClickColumnStore.Column.REFERER, 1L, hour, hour + 3600));
+            assertEquals(List.of(new ClickColumnStore.Group("", 6000), new ClickColumnStore.Group("NZ", 1)),
+                    large.countBy(ClickColumnStore.Column.COUNTRY, null, hour, hour + 3600));
+        }
+    }
+
+    /**
+     * Tests that the segments of the windows beyond the retention are evicted.
+     */
+    @Test
+    void testEvictsExpiredSegments() {
+        store.append(0, 1, NOW - 6 * 86400, null, null, NOW);
+        store.append(0, 1, NOW, null, null, NOW);
+        assertEquals(2, store.segments());
+
+        assertEquals(1, store.evict(NOW + 2 * 86400));
+        assertEquals(1, store.rows());
+        assertEquals(Long.valueOf(Math.floorDiv(NOW, 3600) * 3600), store.oldestSecond());
+    }
+}
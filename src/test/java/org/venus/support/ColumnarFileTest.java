@@ -0,0 +1,106 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `ColumnarFile` class.
+ * These tests verify that the rows written are scanned back, and that the row groups are filtered on their bounds.
+ */
+public class ColumnarFileTest {
+    private static final List<ColumnarFile.Column> COLUMNS = List.of(
+            new ColumnarFile.Column("id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("link_id", ColumnarFile.Type.LONG),
+            new ColumnarFile.Column("referer", ColumnarFile.Type.STRING));
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Writes ten rows in row groups of four: the link id is the row number divided by four.
+     */
+    private Path write() throws IOException {
+        Path path = directory.resolve("statistics").resolve("20261019.vcf");
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(path, COLUMNS, 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.setLong(0, 1000 - i).setLong(1, i / 4).setString(2, i % 3 == 0 ? null : "example.com/" + i);
+                writer.endRow();
+            }
+            writer.commit();
+        }
+        return path;
+    }
+
+    /**
+     * Tests that every value written is scanned back, including negative deltas and null strings.
+     */
+    @Test
+    void testScansBackTheRowsWritten() throws IOException {
+        Path path = write();
+        assertFalse(Files.exists(path.resolveSibling("20261019.vcf.tmp")));
+
+        try (ColumnarFile.Reader reader = new ColumnarFile.Reader(path)) {
+            assertEquals(COLUMNS, reader.columns());
+            assertEquals(10, reader.rows());
+            assertEquals(3, reader.groups().size());
+
+            List<Long> ids = new ArrayList<>();
+            List<String> referers = new ArrayList<>();
+            reader.scan(List.of("id", "referer"), group -> true, batch -> {
+                for (int row = 0; row < batch.rows(); row++) {
+                    ids.add(batch.longs("id")[row]);
+                    referers.add(batch.strings("referer")[row]);
+                }
+                assertThrows(IllegalArgumentException.class, () -> batch.longs("link_id"));
+            });
+            assertEquals(List.of(1000L, 999L, 998L, 997L, 996L, 995L, 994L, 993L, 992L, 991L), ids);
+            assertNull(referers.get(0));
+            assertEquals("example.com/4", referers.get(4));
+        }
+    }
+
+    /**
+     * Tests that the row groups whose bounds exclude the filter are not read.
+     */
+    @Test
+    void testSkipsRowGroupsOutsideTheFilter() throws IOException {
+        try (ColumnarFile.Reader reader = new ColumnarFile.Reader(write())) {
+            ColumnarFile.RowGroup first = reader.groups().get(0);
+            assertEquals(997, first.min("id"));
+            assertEquals(1000, first.max("id"));
+
+            List<Long> links = new ArrayList<>();
+            reader.scan(List.of("link_id"), group -> group.min("link_id") <= 1 && group.max("link_id") >= 1, batch -> {
+                for (long link : batch.longs("link_id")) {
+                    links.add(link);
+                }
+            });
+            assertEquals(List.of(1L, 1L, 1L, 1L), links);
+        }
+    }
+
+    /**
+     * Tests that a writer closed without commit leaves no file behind, and that a foreign file is rejected.
+     */
+    @Test
+    void testUncommittedAndForeignFiles() throws IOException {
+        Path path = directory.resolve("20261020.vcf");
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(path, COLUMNS, 4)) {
+            writer.setLong(0, 1).setLong(1, 1).setString(2, "a");
+            writer.endRow();
+        }
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(path.resolveSibling("20261020.vcf.tmp")));
+
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> new ColumnarFile.Reader(path));
+    }
+}
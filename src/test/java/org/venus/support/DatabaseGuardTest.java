@@ -0,0 +1,51 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `DatabaseGuard` class.
+ * These tests verify that only outages open the breaker, and that calls are rejected at once while it is open.
+ */
+public class DatabaseGuardTest {
+
+    /**
+     * Tests that failures to reach the database open the breaker, after which calls are rejected
+     * without being made.
+     */
+    @Test
+    void testOutageRejectsCalls() {
+        DatabaseGuard guard = new DatabaseGuard(new CircuitBreaker("test", 2, 2, 1.0, 0, 60000), 1, 0);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DataAccessResourceFailureException.class, () -> guard.call(() -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            }));
+        }
+
+        assertFalse(guard.isAvailable());
+        assertThrows(DatabaseUnavailableException.class, () -> guard.call(() -> fail("the call must not be made")));
+        assertThrows(DatabaseUnavailableException.class, () -> guard.checkAvailable("test"));
+        assertEquals(1, guard.availablePermits());
+    }
+
+    /**
+     * Tests that exceptions that do not indicate an outage are passed on without opening the breaker.
+     */
+    @Test
+    void testApplicationErrorsKeepTheBreakerClosed() {
+        DatabaseGuard guard = new DatabaseGuard(new CircuitBreaker("test", 2, 2, 1.0, 0, 60000), 0, 0);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> guard.call(() -> {
+                throw new DataIntegrityViolationException("duplicate entry");
+            }));
+        }
+
+        assertTrue(guard.isAvailable());
+        assertEquals("ok", guard.call(() -> "ok"));
+    }
+}
@@ -0,0 +1,71 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `HyperLogLog` class.
+ * These tests verify the accuracy of the estimates, the merge of sketches and their serialization.
+ */
+public class HyperLogLogTest {
+
+    /**
+     * Tests that the estimate stays within a few standard errors of the number of distinct values,
+     * for few values counted linearly as well as for many.
+     */
+    @Test
+    void testEstimatesDistinctValues() {
+        for (int distinct : new int[]{10, 1000, 100000}) {
+            HyperLogLog sketch = new HyperLogLog(11);
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("10.0." + (i / 256) + "." + (i % 256));
+                // duplicates must not change the estimate
+                sketch.add("10.0." + (i / 256) + "." + (i % 256));
+            }
+            assertEquals(distinct, sketch.estimate(), Math.max(1, distinct * 0.08));
+        }
+    }
+
+    /**
+     * Tests that merging sketches estimates the union of their values without double counting.
+     */
+    @Test
+    void testMergeCountsTheUnion() {
+        HyperLogLog first = new HyperLogLog(11);
+        HyperLogLog second = new HyperLogLog(11);
+        for (int i = 0; i < 6000; i++) {
+            first.add("visitor-" + i);
+        }
+        for (int i = 4000; i < 10000; i++) {
+            second.add("visitor-" + i);
+        }
+        first.merge(second);
+        assertEquals(10000, first.estimate(), 800);
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(12)));
+    }
+
+    /**
+     * Tests that a sketch reads back equal from its sparse and its dense serialization,
+     * and that malformed bytes are rejected.
+     */
+    @Test
+    void testSerializationRoundTrip() {
+        HyperLogLog sparse = new HyperLogLog(11);
+        sparse.add("a");
+        sparse.add("b");
+        byte[] sparseBytes = sparse.toBytes();
+        assertTrue(sparseBytes.length < 16);
+        assertEquals(sparse, HyperLogLog.fromBytes(sparseBytes));
+
+        HyperLogLog dense = new HyperLogLog(11);
+        for (int i = 0; i < 50000; i++) {
+            dense.add("visitor-" + i);
+        }
+        byte[] denseBytes = dense.toBytes();
+        assertEquals(2 + 2048, denseBytes.length);
+        assertEquals(dense, HyperLogLog.fromBytes(denseBytes));
+
+        assertThrows(IllegalStateException.class, () -> HyperLogLog.fromBytes(new byte[]{11, 7}));
+    }
+}
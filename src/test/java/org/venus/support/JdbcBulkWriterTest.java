@@ -0,0 +1,113 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `JdbcBulkWriter` class.
+ * These tests verify that rows are written in chunks of the adaptive batch size, that only outages are retried, and
+ * that the rows of the failed chunks are reported.
+ */
+public class JdbcBulkWriterTest {
+
+    /**
+     * A JdbcTemplate that counts the batches and rows and fails the first batches as configured.
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger rows = new AtomicInteger();
+        private final AtomicInteger failures;
+        private final RuntimeException failure;
+
+        RecordingJdbcTemplate(int failures, RuntimeException failure) {
+            this.failures = new AtomicInteger(failures);
+            this.failure = failure;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            if (failures.getAndDecrement() > 0) {
+                throw failure;
+            }
+            batches.incrementAndGet();
+            rows.addAndGet(batchArgs.size());
+            return new int[0][];
+        }
+    }
+
+    /**
+     * Tests that a write is split into chunks of the batch size, and that chunks slower than the target latency
+     * shrink the batch size down to the minimum.
+     */
+    @Test
+    void testWritesInChunksAndShrinksWhenSlow() {
+        RecordingJdbcTemplate template = new RecordingJdbcTemplate(0, null);
+        JdbcBulkWriter<Integer> writer = new JdbcBulkWriter<>("test-chunks", template, "INSERT", (ps, row) -> {
+        }, 10, 40, 0, 2, 0, 0);
+
+        writer.write(IntStream.range(0, 95).boxed().toList());
+
+        assertEquals(95, template.rows.get());
+        assertEquals(3, template.batches.get());
+        assertEquals(10, writer.batchSize());
+    }
+
+    /**
+     * Tests that a batch failing with an outage is retried and halves the batch size,
+     * while any other failure fails the write at once.
+     */
+    @Test
+    void testRetriesOutagesOnly() {
+        RecordingJdbcTemplate transientTemplate = new RecordingJdbcTemplate(2, new TransientDataAccessResourceException("down"));
+        JdbcBulkWriter<Integer> writer = new JdbcBulkWriter<>("test-retry", transientTemplate, "INSERT", (ps, row) -> {
+        }, 10, 40, 60000, 1, 3, 1);
+
+        writer.write(List.of(1, 2, 3));
+
+        assertEquals(3, transientTemplate.rows.get());
+        assertEquals(10, writer.batchSize());
+
+        RecordingJdbcTemplate failingTemplate = new RecordingJdbcTemplate(1, new DataIntegrityViolationException("duplicate"));
+        JdbcBulkWriter<Integer> failingWriter = new JdbcBulkWriter<>("test-fail", failingTemplate, "INSERT", (ps, row) -> {
+        }, 10, 40, 60000, 1, 3, 1);
+
+        assertThrows(DataIntegrityViolationException.class, () -> failingWriter.write(List.of(1, 2, 3)));
+        assertEquals(0, failingTemplate.rows.get());
+    }
+
+    /**
+     * Tests that the rows of the chunks that failed are handed to the callback, and the written ones are not.
+     */
+    @Test
+    void testHandsTheRowsOfTheFailedChunksToTheCallback() {
+        JdbcTemplate template = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                if (batchArgs.contains(12)) {
+                    throw new DataIntegrityViolationException("duplicate");
+                }
+                return new int[0][];
+            }
+        };
+        JdbcBulkWriter<Integer> writer = new JdbcBulkWriter<>("test-failed-chunks", template, "INSERT", (ps, row) -> {
+        }, 10, 10, 60000, 2, 0, 0);
+        List<Integer> failed = new ArrayList<>();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> writer.write(IntStream.range(0, 25).boxed().toList(), failed::addAll));
+        assertEquals(IntStream.range(10, 20).boxed().toList(), failed);
+    }
+}
@@ -0,0 +1,110 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `KeysetQuery` class.
+ * These tests verify the statements built from the filters and the cursor of the pages.
+ */
+public class KeysetQueryTest {
+
+    /**
+     * A JdbcTemplate that records the statement and arguments of a query and returns the given ids as rows.
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        private final List<Long> ids;
+        private String sql;
+        private Object[] args;
+
+        RecordingJdbcTemplate(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = args;
+            return (List<T>) ids;
+        }
+    }
+
+    /**
+     * A JdbcTemplate that serves the given ids by keyset and counts the queries.
+     */
+    private static class PagingJdbcTemplate extends JdbcTemplate {
+        private final List<Long> ids;
+        private int queries;
+
+        PagingJdbcTemplate(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            queries++;
+            long after = (Long) args[0];
+            int limit = (Integer) args[args.length - 1];
+            return (List<T>) ids.stream().filter(id -> id > after).limit(limit).toList();
+        }
+    }
+
+    /**
+     * Tests that only the filters with a value become conditions, after the condition of the cursor.
+     */
+    @Test
+    void testSkipsFiltersWithoutValue() {
+        KeysetQuery query = new KeysetQuery("SELECT id FROM statistics", "id")
+                .where("link_id = ?", 7L)
+                .where("clicked_at >= ?", null)
+                .where("referer IS NOT NULL");
+
+        assertEquals("SELECT id FROM statistics WHERE id > ? AND link_id = ? AND referer IS NOT NULL ORDER BY id", query.sql());
+    }
+
+    /**
+     * Tests that a full page carries the id of its last row as cursor, and that a partial page is the last one.
+     */
+    @Test
+    void testCursorOfFullAndPartialPages() {
+        RecordingJdbcTemplate full = new RecordingJdbcTemplate(LongStream.rangeClosed(11, 13).boxed().toList());
+        KeysetPage<Long> page = new KeysetQuery("SELECT id FROM geo", "id")
+                .where("country = ?", "NZ")
+                .page(full, (rs, i) -> 0L, Long::longValue, 10, 3);
+
+        assertEquals(List.of(11L, 12L, 13L), page.items());
+        assertEquals(13L, page.next());
+        assertTrue(full.sql.endsWith("ORDER BY id LIMIT ?"));
+        assertEquals(Arrays.asList(10L, "NZ", 3), Arrays.asList(full.args));
+
+        RecordingJdbcTemplate partial = new RecordingJdbcTemplate(List.of(14L));
+        KeysetPage<Long> last = new KeysetQuery("SELECT id FROM geo", "id")
+                .page(partial, (rs, i) -> 0L, Long::longValue, 13, 3);
+
+        assertNull(last.next());
+    }
+
+    /**
+     * Tests that a stream reads all rows after the id, one page of the fetch size per query.
+     */
+    @Test
+    void testStreamReadsPageByPage() {
+        PagingJdbcTemplate jdbcTemplate = new PagingJdbcTemplate(LongStream.rangeClosed(1, 7).boxed().toList());
+        List<Long> rows = new ArrayList<>();
+        new KeysetQuery("SELECT id FROM links", "id")
+                .stream(jdbcTemplate, (rs, i) -> 0L, Long::longValue, 1, 3, rows::add);
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L), rows);
+        assertEquals(3, jdbcTemplate.queries);
+    }
+}
@@ -0,0 +1,51 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `LatencyTracker` class.
+ * These tests verify that the tracked percentile follows the recorded latencies.
+ */
+public class LatencyTrackerTest {
+
+    /**
+     * Tests that no percentile is provided before a quarter of the samples is recorded.
+     */
+    @Test
+    void testNoPercentileBeforeEnoughRecords() {
+        LatencyTracker tracker = new LatencyTracker(100, 0.95);
+        for (int i = 0; i < 24; i++) {
+            tracker.record(i);
+        }
+        assertEquals(-1, tracker.percentileNanos());
+        tracker.record(24);
+        assertEquals(23, tracker.percentileNanos());
+    }
+
+    /**
+     * Tests that the percentile follows a change of the latencies once the ring buffer wraps around.
+     */
+    @Test
+    void testPercentileFollowsRecentLatencies() {
+        LatencyTracker tracker = new LatencyTracker(100, 0.9);
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(i);
+        }
+        assertEquals(90, tracker.percentileNanos());
+        for (int i = 0; i < 100; i++) {
+            tracker.record(1000);
+        }
+        assertEquals(1000, tracker.percentileNanos());
+    }
+
+    /**
+     * Tests that invalid settings are rejected.
+     */
+    @Test
+    void testInvalidSettingsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(2, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyTracker(100, 1));
+    }
+}
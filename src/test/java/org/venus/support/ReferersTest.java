@@ -0,0 +1,32 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `Referers` class.
+ * These tests verify how the referer of a click is reduced to the domain it is aggregated by.
+ */
+public class ReferersTest {
+
+    /**
+     * Tests that referers are reduced to their lower-case domain without a leading www.
+     */
+    @Test
+    void testRefererDomain() {
+        assertEquals("example.com", Referers.domain("https://WWW.Example.com/path?q=1"));
+        assertEquals("news.example.com", Referers.domain(" http://news.example.com "));
+    }
+
+    /**
+     * Tests that missing and invalid referers are aggregated as direct clicks.
+     */
+    @Test
+    void testMissingOrInvalidReferer() {
+        assertEquals("", Referers.domain(null));
+        assertEquals("", Referers.domain("  "));
+        assertEquals("", Referers.domain("not a url"));
+        assertEquals("", Referers.domain("/relative/path"));
+    }
+}
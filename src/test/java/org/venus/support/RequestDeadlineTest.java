@@ -0,0 +1,47 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `RequestDeadline` class.
+ * These tests verify that a budget bounds the stages of the current thread only while it is started.
+ */
+public class RequestDeadlineTest {
+
+    /**
+     * Tests that without a budget nothing is bounded, and that closing a budget removes it from the thread.
+     */
+    @Test
+    void testBudgetIsBoundToTheThreadUntilClosed() {
+        assertEquals(Long.MAX_VALUE, RequestDeadline.remainingNanos());
+        assertEquals(500, RequestDeadline.boundMillis(500));
+
+        try (RequestDeadline ignored = RequestDeadline.start(60000)) {
+            assertTrue(RequestDeadline.isActive());
+            assertTrue(RequestDeadline.tryEnter(RequestDeadline.STAGE_SECOND_CACHE));
+            assertEquals(500, RequestDeadline.boundMillis(500));
+            assertTrue(RequestDeadline.boundMillis(120000) <= 60000);
+        }
+
+        assertFalse(RequestDeadline.isActive());
+        try (RequestDeadline ignored = RequestDeadline.start(0)) {
+            assertFalse(RequestDeadline.isActive());
+        }
+    }
+
+    /**
+     * Tests that stages are skipped once the budget is used up.
+     */
+    @Test
+    void testExceededBudgetSkipsStages() throws InterruptedException {
+        try (RequestDeadline ignored = RequestDeadline.start(1)) {
+            Thread.sleep(5);
+            assertTrue(RequestDeadline.isExpired());
+            assertFalse(RequestDeadline.tryEnter(RequestDeadline.STAGE_SECOND_CACHE));
+            assertThrows(DeadlineExceededException.class, () -> RequestDeadline.check(RequestDeadline.STAGE_DATABASE));
+            assertEquals(0, RequestDeadline.boundMillis(500));
+        }
+    }
+}
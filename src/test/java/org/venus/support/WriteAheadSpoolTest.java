@@ -0,0 +1,149 @@
+package org.venus.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the `WriteAheadSpool` class.
+ * These tests verify that spooled records are drained across segments, that undrained records survive a restart, and
+ * that a record the sink rejects for good is dead-lettered instead of blocking the spool.
+ */
+public class WriteAheadSpoolTest {
+    /**
+     * Encodes the records as strings.
+     */
+    private static final WriteAheadSpool.Codec<String> CODEC = new WriteAheadSpool.Codec<>() {
+        @Override
+        public void encode(String value, BinaryWriter out) {
+            out.writeString(value);
+        }
+
+        @Override
+        public String decode(BinaryReader in) {
+            return in.readString();
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Opens a spool with small segments in the temporary directory, which retries every failure of the sink.
+     *
+     * @param sink the sink of the spool
+     * @return the spool
+     */
+    private WriteAheadSpool<String> open(Consumer<List<String>> sink) {
+        return open(sink, e -> true);
+    }
+
+    /**
+     * Opens a spool with small segments in the temporary directory.
+     *
+     * @param sink the sink of the spool
+     * @param retryable decides whether a failure of the sink is retried
+     * @return the spool
+     */
+    private WriteAheadSpool<String> open(Consumer<List<String>> sink, Predicate<Throwable> retryable) {
+        return new WriteAheadSpool<>("test", directory, 64, 100, 5, 10, 5, CODEC, sink, retryable);
+    }
+
+    /**
+     * Waits until a condition holds.
+     *
+     * @param condition the condition
+     */
+    private static void await(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * Tests that records spanning several segments are drained in order, and that drained segments are deleted.
+     */
+    @Test
+    void testDrainsAcrossSegments() throws InterruptedException {
+        List<String> drained = new CopyOnWriteArrayList<>();
+        try (WriteAheadSpool<String> spool = open(drained::addAll)) {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(spool.append("record-" + i));
+            }
+            await(() -> drained.size() == 50);
+            await(() -> spool.backlogBytes() == 0);
+            for (int i = 0; i < 50; i++) {
+                assertEquals("record-" + i, drained.get(i));
+            }
+        }
+        try (var files = java.nio.file.Files.list(directory)) {
+            assertTrue(files.filter(f -> f.getFileName().toString().endsWith(".spool")).count() <= 1);
+        }
+    }
+
+    /**
+     * Tests that records the sink did not take are drained after the spool is reopened, and drained ones are not.
+     */
+    @Test
+    void testUndrainedRecordsSurviveRestart() throws InterruptedException {
+        List<String> drained = new CopyOnWriteArrayList<>();
+        AtomicBoolean available = new AtomicBoolean(true);
+        Consumer<List<String>> sink = batch -> {
+            if (!available.get()) {
+                throw new IllegalStateException("down");
+            }
+            drained.addAll(batch);
+        };
+        try (WriteAheadSpool<String> spool = open(sink)) {
+            spool.append("before");
+            await(() -> drained.size() == 1);
+            available.set(false);
+            spool.append("during-1");
+            spool.append("during-2");
+        }
+
+        available.set(true);
+        try (WriteAheadSpool<String> ignored = open(sink)) {
+            await(() -> drained.size() == 3);
+        }
+        assertEquals(List.of("before", "during-1", "during-2"), drained);
+    }
+
+    /**
+     * Tests that a record the sink rejects for a reason that is not retryable is dead-lettered, and that the other
+     * records of its batch and the records after it are still drained.
+     */
+    @Test
+    void testDeadLettersARecordTheSinkRejects() throws Exception {
+        List<String> drained = new CopyOnWriteArrayList<>();
+        Consumer<List<String>> sink = batch -> {
+            if (batch.contains("poison")) {
+                throw new IllegalArgumentException("Data too long");
+            }
+            drained.addAll(batch);
+        };
+        try (WriteAheadSpool<String> spool = open(sink, e -> e instanceof IllegalStateException)) {
+            spool.append("a");
+            spool.append("poison");
+            spool.append("b");
+            await(() -> drained.size() == 2);
+            spool.append("c");
+            await(() -> drained.size() == 3);
+            await(() -> spool.backlogBytes() == 0);
+        }
+        assertEquals(List.of("a", "b", "c"), drained);
+        byte[] deadLetter = java.nio.file.Files.readAllBytes(directory.resolve("dead-letter"));
+        assertEquals("poison", CODEC.decode(new BinaryReader(java.util.Arrays.copyOfRange(deadLetter, 8, deadLetter.length))));
+    }
+}